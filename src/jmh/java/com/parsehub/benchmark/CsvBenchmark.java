@@ -0,0 +1,88 @@
+package com.parsehub.benchmark;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.CsvService;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.CsvOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks CSV input: validation, and conversion to JSON with inferred types and as text, and to JSON Lines,
+ * on one thread and on every core. The CSV is the shallow JSON records converted once in the setup.
+ * A parallelism of 0 stands for the number of available processors.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class CsvBenchmark {
+
+    @Param({"1MB", "16MB", "100MB"})
+    public String size;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private Services services;
+    private CsvService csvService;
+    private byte[] csv;
+
+    @Setup
+    public void setUp() throws IOException {
+        ParseHubProperties properties = new ParseHubProperties();
+        if (parallelism > 0) {
+            properties.setParallelism(parallelism);
+        }
+        services = new Services(properties);
+        csvService = services.csvService;
+        byte[] json = Payloads.jsonRecords(Payloads.parseSize(size), Payloads.Shape.SHALLOW).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(json.length);
+        services.jsonService.convertData(new ByteArrayInputStream(json), output, ConversionType.CSV);
+        csv = output.toByteArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        services.chunkedProcessor.shutdown();
+    }
+
+    @Benchmark
+    public void validate() {
+        csvService.validateCsv(new ByteArrayInputStream(csv));
+    }
+
+    @Benchmark
+    public void convertToJson() throws IOException {
+        csvService.convert(new ByteArrayInputStream(csv), OutputStream.nullOutputStream(), ConversionType.JSON, CsvOptions.DEFAULT);
+    }
+
+    @Benchmark
+    public void convertToJsonText() throws IOException {
+        csvService.convert(new ByteArrayInputStream(csv), OutputStream.nullOutputStream(), ConversionType.JSON, CsvOptions.TEXT);
+    }
+
+    @Benchmark
+    public void convertToJsonLines() throws IOException {
+        csvService.convertToJsonLines(new ByteArrayInputStream(csv), OutputStream.nullOutputStream(), CsvOptions.DEFAULT);
+    }
+}
@@ -0,0 +1,65 @@
+package com.parsehub.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.parsehub.service.JsonService;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.util.Format;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link JsonService#formatJson} for every {@link Format}, against formatting through a Jackson tree.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class JsonFormatBenchmark {
+
+    @Param({"1KB", "64KB", "1MB", "16MB", "100MB"})
+    public String size;
+
+    @Param({"SHALLOW", "DEEP"})
+    public Payloads.Shape shape;
+
+    @Param({"SPACE_2", "SPACE_3", "SPACE_4", "COMPACT", "PRETTY"})
+    public Format format;
+
+    private JsonService jsonService;
+    private MapperRegistry mappers;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        Services services = new Services();
+        jsonService = services.jsonService;
+        mappers = services.mappers;
+        json = Payloads.jsonDocument(Payloads.parseSize(size), shape);
+    }
+
+    @Benchmark
+    public String format() {
+        return jsonService.formatJson(json, format);
+    }
+
+    /**
+     * Parses the document into a tree and writes it back, as formatting worked before the byte-level formatter.
+     */
+    @Benchmark
+    public String formatTree() throws JsonProcessingException {
+        return mappers.jsonWriter(format).writeValueAsString(mappers.json().readTree(json));
+    }
+}
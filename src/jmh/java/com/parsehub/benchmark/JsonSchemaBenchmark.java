@@ -0,0 +1,96 @@
+package com.parsehub.benchmark;
+
+import com.parsehub.service.JsonSchemaRegistry;
+import com.parsehub.service.JsonService;
+import com.parsehub.util.ValidationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JSON Schema validation against the syntax check alone ({@code validateStream}), over the generated
+ * records. The schema types and constrains every field of a record, with a pattern, a range and an enum, and
+ * describes the nested profile of the {@code DEEP} shape recursively through {@code $ref}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class JsonSchemaBenchmark {
+
+    private static final String SCHEMA = """
+            {
+              "type": "array",
+              "items": {
+                "type": "object",
+                "required": ["id", "name", "email", "active", "score", "city"],
+                "properties": {
+                  "id": {"type": "integer", "minimum": 0},
+                  "name": {"type": "string", "minLength": 1, "maxLength": 64},
+                  "email": {"type": "string", "pattern": "^[^@\\\\s]+@[^@\\\\s]+$"},
+                  "active": {"type": "boolean"},
+                  "score": {"type": "number", "minimum": 0, "maximum": 1000},
+                  "city": {"enum": ["New York", "Prague", "Berlin", "Tokyo", "Lisbon", "Oslo"]},
+                  "profile": {"$ref": "#/$defs/profile"}
+                },
+                "additionalProperties": false
+              },
+              "$defs": {
+                "profile": {
+                  "type": ["object", "null"],
+                  "required": ["level", "tags"],
+                  "properties": {
+                    "level": {"type": "integer"},
+                    "tags": {"type": "array", "items": {"type": "string"}, "maxItems": 8},
+                    "child": {"$ref": "#/$defs/profile"}
+                  }
+                }
+              }
+            }
+            """;
+
+    @Param({"1KB", "64KB", "1MB", "16MB", "100MB"})
+    public String size;
+
+    @Param({"SHALLOW", "DEEP"})
+    public Payloads.Shape shape;
+
+    private JsonService jsonService;
+    private JsonSchemaRegistry.Schema schema;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        Services services = new Services();
+        jsonService = services.jsonService;
+        schema = services.jsonSchemaRegistry.register("records", SCHEMA);
+        json = Payloads.jsonRecords(Payloads.parseSize(size), shape).getBytes(StandardCharsets.UTF_8);
+        if (!jsonService.validateJson(new ByteArrayInputStream(json), schema).isValid()) {
+            throw new IllegalStateException("The generated records do not match the schema");
+        }
+    }
+
+    @Benchmark
+    public ValidationResult validateStream() {
+        return jsonService.validateJson(new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    public ValidationResult validateSchema() {
+        return jsonService.validateJson(new ByteArrayInputStream(json), schema);
+    }
+}
@@ -0,0 +1,84 @@
+package com.parsehub.benchmark;
+
+import com.parsehub.service.JsonService;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.ValidationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link JsonService} operations that accept any JSON document.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class JsonServiceBenchmark {
+
+    @Param({"1KB", "64KB", "1MB", "16MB", "100MB"})
+    public String size;
+
+    @Param({"SHALLOW", "DEEP"})
+    public Payloads.Shape shape;
+
+    private JsonService jsonService;
+    private String json;
+    private byte[] jsonBytes;
+
+    @Setup
+    public void setUp() {
+        jsonService = new Services().jsonService;
+        json = Payloads.jsonDocument(Payloads.parseSize(size), shape);
+        jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return jsonService.validateJson(json);
+    }
+
+    @Benchmark
+    public ValidationResult validateStream() {
+        return jsonService.validateJson(new ByteArrayInputStream(jsonBytes));
+    }
+
+    @Benchmark
+    public String minify() {
+        return jsonService.minifyJson(json);
+    }
+
+    @Benchmark
+    public String sort() {
+        return jsonService.sortJson(json);
+    }
+
+    @Benchmark
+    public String convertToJson() {
+        return jsonService.convertData(json, ConversionType.JSON);
+    }
+
+    @Benchmark
+    public String convertToXml() {
+        return jsonService.convertData(json, ConversionType.XML);
+    }
+
+    @Benchmark
+    public String convertToYaml() {
+        return jsonService.convertData(json, ConversionType.YAML);
+    }
+}
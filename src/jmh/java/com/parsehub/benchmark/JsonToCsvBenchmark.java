@@ -0,0 +1,72 @@
+package com.parsehub.benchmark;
+
+import com.parsehub.service.JsonService;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.FlattenOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JSON to CSV conversion. The conversion by the first record needs an array of flat records, so it is
+ * only measured on the shallow shape; the flattening conversion is measured on both shapes. Inputs beyond 1 MB are
+ * spooled to disk for its second pass, which is part of the measured time.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class JsonToCsvBenchmark {
+
+    @Param({"1KB", "64KB", "1MB", "16MB", "100MB"})
+    public String size;
+
+    private JsonService jsonService;
+    private String json;
+    private byte[] jsonBytes;
+    private byte[] deepBytes;
+
+    @Setup
+    public void setUp() {
+        jsonService = new Services().jsonService;
+        json = Payloads.jsonRecords(Payloads.parseSize(size), Payloads.Shape.SHALLOW);
+        jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        deepBytes = Payloads.jsonRecords(Payloads.parseSize(size), Payloads.Shape.DEEP).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String convertToCsv() {
+        return jsonService.convertData(json, ConversionType.CSV);
+    }
+
+    @Benchmark
+    public void convertToCsvStream() throws IOException {
+        jsonService.convertData(new ByteArrayInputStream(jsonBytes), OutputStream.nullOutputStream(), ConversionType.CSV);
+    }
+
+    @Benchmark
+    public void flattenToCsv() throws IOException {
+        jsonService.convertJsonToCsv(new ByteArrayInputStream(jsonBytes), OutputStream.nullOutputStream(), FlattenOptions.DEFAULT);
+    }
+
+    @Benchmark
+    public void flattenDeepToCsv() throws IOException {
+        jsonService.convertJsonToCsv(new ByteArrayInputStream(deepBytes), OutputStream.nullOutputStream(), FlattenOptions.DEFAULT);
+    }
+}
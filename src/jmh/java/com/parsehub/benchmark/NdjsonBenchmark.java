@@ -0,0 +1,72 @@
+package com.parsehub.benchmark;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.NdjsonService;
+import com.parsehub.util.ConversionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JSON Lines batch processing on one thread and on every core.
+ * A parallelism of 0 stands for the number of available processors.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class NdjsonBenchmark {
+
+    @Param({"1MB", "16MB", "100MB"})
+    public String size;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private Services services;
+    private NdjsonService ndjsonService;
+    private byte[] ndjson;
+
+    @Setup
+    public void setUp() {
+        ParseHubProperties properties = new ParseHubProperties();
+        if (parallelism > 0) {
+            properties.setParallelism(parallelism);
+        }
+        services = new Services(properties);
+        ndjsonService = services.ndjsonService;
+        ndjson = Payloads.jsonLines(Payloads.parseSize(size), Payloads.Shape.SHALLOW).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        services.chunkedProcessor.shutdown();
+    }
+
+    @Benchmark
+    public void validate() throws IOException {
+        ndjsonService.validate(new ByteArrayInputStream(ndjson), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void convertToCsv() throws IOException {
+        ndjsonService.convert(new ByteArrayInputStream(ndjson), OutputStream.nullOutputStream(), ConversionType.CSV);
+    }
+}
@@ -0,0 +1,112 @@
+package com.parsehub.benchmark;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates deterministic benchmark documents of a requested size.
+ */
+public final class Payloads {
+
+    /**
+     * Nesting profile of the generated records.
+     */
+    public enum Shape {
+        /** Flat records with scalar fields only. */
+        SHALLOW,
+        /** Records carrying a chain of nested objects and arrays. */
+        DEEP
+    }
+
+    private static final int DEEP_LEVELS = 12;
+    private static final String[] CITIES = {"New York", "Prague", "Berlin", "Tokyo", "Lisbon", "Oslo"};
+
+    private Payloads() {
+    }
+
+    /**
+     * Parses a size such as 1KB, 64KB or 100MB into bytes.
+     *
+     * @param size the size with a KB or MB suffix
+     * @return the size in bytes
+     */
+    static int parseSize(String size) {
+        String value = size.toUpperCase(Locale.ROOT);
+        if (value.endsWith("MB")) {
+            return Integer.parseInt(value.substring(0, value.length() - 2)) * 1024 * 1024;
+        }
+        if (value.endsWith("KB")) {
+            return Integer.parseInt(value.substring(0, value.length() - 2)) * 1024;
+        }
+        return Integer.parseInt(value);
+    }
+
+    /**
+     * Generates a JSON array of records of at least the given size.
+     *
+     * @param bytes the minimum document size
+     * @param shape the nesting profile of the records
+     * @return the JSON document
+     */
+    static String jsonRecords(int bytes, Shape shape) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder(bytes + 512);
+        json.append('[');
+        for (int id = 0; json.length() < bytes; id++) {
+            if (id > 0) {
+                json.append(',');
+            }
+            appendRecord(json, id, shape, random);
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Generates a JSON object wrapping the records under a single key, as required by the
+     * operations that expect an object root.
+     *
+     * @param bytes the minimum document size
+     * @param shape the nesting profile of the records
+     * @return the JSON document
+     */
+    static String jsonDocument(int bytes, Shape shape) {
+        return "{\"record\":" + jsonRecords(bytes, shape) + "}";
+    }
+
+    /**
+     * Generates JSON Lines, one record per line, of at least the given size.
+     *
+     * @param bytes the minimum document size
+     * @param shape the nesting profile of the records
+     * @return the JSON Lines document
+     */
+    static String jsonLines(int bytes, Shape shape) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder(bytes + 512);
+        for (int id = 0; json.length() < bytes; id++) {
+            appendRecord(json, id, shape, random);
+            json.append('\n');
+        }
+        return json.toString();
+    }
+
+    private static void appendRecord(StringBuilder json, int id, Shape shape, Random random) {
+        json.append("{\"id\":").append(id)
+                .append(",\"name\":\"user-").append(id).append('"')
+                .append(",\"email\":\"user-").append(id).append("@example.com\"")
+                .append(",\"active\":").append(random.nextBoolean())
+                .append(",\"score\":").append(random.nextInt(100_000) / 100.0)
+                .append(",\"city\":\"").append(CITIES[random.nextInt(CITIES.length)]).append('"');
+        if (shape == Shape.DEEP) {
+            json.append(",\"profile\":");
+            for (int level = 0; level < DEEP_LEVELS; level++) {
+                json.append("{\"level\":").append(level)
+                        .append(",\"tags\":[\"t").append(random.nextInt(10)).append("\",\"t").append(level).append("\"]")
+                        .append(",\"child\":");
+            }
+            json.append("null");
+            json.append("}".repeat(DEEP_LEVELS));
+        }
+        json.append('}');
+    }
+}
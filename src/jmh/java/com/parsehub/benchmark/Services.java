@@ -0,0 +1,49 @@
+package com.parsehub.benchmark;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.CsvService;
+import com.parsehub.service.JsonCsvFlattener;
+import com.parsehub.service.JsonKeySorter;
+import com.parsehub.service.JsonSchemaRegistry;
+import com.parsehub.service.JsonService;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.service.NdjsonService;
+import com.parsehub.service.XmlRecordConverter;
+import com.parsehub.service.XmlSchemaRegistry;
+import com.parsehub.service.XmlService;
+import com.parsehub.service.YamlService;
+
+/**
+ * Wires the services the same way Spring does, without starting an application context.
+ */
+final class Services {
+    final MapperRegistry mappers = new MapperRegistry();
+    final ChunkedProcessor chunkedProcessor;
+    final ConversionEngine conversionEngine;
+    final JsonSchemaRegistry jsonSchemaRegistry;
+    final XmlSchemaRegistry xmlSchemaRegistry;
+    final JsonService jsonService;
+    final NdjsonService ndjsonService;
+    final XmlService xmlService;
+    final YamlService yamlService;
+    final CsvService csvService;
+
+    Services() {
+        this(new ParseHubProperties());
+    }
+
+    Services(ParseHubProperties properties) {
+        chunkedProcessor = new ChunkedProcessor(properties);
+        conversionEngine = new ConversionEngine(mappers, chunkedProcessor);
+        jsonSchemaRegistry = new JsonSchemaRegistry(mappers, properties);
+        xmlSchemaRegistry = new XmlSchemaRegistry(properties);
+        jsonService = new JsonService(mappers, conversionEngine, new JsonKeySorter(properties), jsonSchemaRegistry,
+                new JsonCsvFlattener(mappers, properties));
+        ndjsonService = new NdjsonService(mappers, jsonService, conversionEngine, chunkedProcessor);
+        xmlService = new XmlService(mappers, conversionEngine, xmlSchemaRegistry, new XmlRecordConverter(mappers, properties));
+        yamlService = new YamlService(conversionEngine);
+        csvService = new CsvService(mappers, conversionEngine);
+    }
+}
@@ -0,0 +1,159 @@
+package com.parsehub.benchmark;
+
+import com.parsehub.service.XmlSchemaRegistry;
+import com.parsehub.service.XmlService;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.ValidationResult;
+import com.parsehub.util.XmlRecordOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link XmlService} operations. XML to CSV is only measured on the streamed records: a parsed
+ * XML root is always an object, which the tree conversion to CSV rejects. {@code validateSchema} checks the records against an XSD that
+ * types every field and describes the nested profile of the {@code DEEP} shape recursively.
+ * {@code convertRecordsToJson}, {@code convertRecordsToJsonLines} and {@code convertRecordsToCsv} stream the same
+ * records one at a time, against {@code convertToJson}, which reads the whole document into a tree.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class XmlServiceBenchmark {
+
+    private static final String SCHEMA = """
+            <xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema">
+              <xs:element name="ObjectNode">
+                <xs:complexType>
+                  <xs:sequence>
+                    <xs:element name="record" type="record" minOccurs="0" maxOccurs="unbounded"/>
+                  </xs:sequence>
+                </xs:complexType>
+              </xs:element>
+              <xs:complexType name="record">
+                <xs:sequence>
+                  <xs:element name="id" type="xs:nonNegativeInteger"/>
+                  <xs:element name="name" type="xs:string"/>
+                  <xs:element name="email">
+                    <xs:simpleType>
+                      <xs:restriction base="xs:string">
+                        <xs:pattern value="[^@\\s]+@[^@\\s]+"/>
+                      </xs:restriction>
+                    </xs:simpleType>
+                  </xs:element>
+                  <xs:element name="active" type="xs:boolean"/>
+                  <xs:element name="score" type="xs:decimal"/>
+                  <xs:element name="city">
+                    <xs:simpleType>
+                      <xs:restriction base="xs:string">
+                        <xs:enumeration value="New York"/>
+                        <xs:enumeration value="Prague"/>
+                        <xs:enumeration value="Berlin"/>
+                        <xs:enumeration value="Tokyo"/>
+                        <xs:enumeration value="Lisbon"/>
+                        <xs:enumeration value="Oslo"/>
+                      </xs:restriction>
+                    </xs:simpleType>
+                  </xs:element>
+                  <xs:element name="profile" type="profile" minOccurs="0"/>
+                </xs:sequence>
+              </xs:complexType>
+              <xs:complexType name="profile">
+                <xs:sequence minOccurs="0">
+                  <xs:element name="level" type="xs:integer"/>
+                  <xs:element name="tags" type="xs:string" maxOccurs="8"/>
+                  <xs:element name="child" type="profile"/>
+                </xs:sequence>
+              </xs:complexType>
+            </xs:schema>
+            """;
+
+    private static final XmlRecordOptions RECORDS = XmlRecordOptions.of("/ObjectNode/record", "tags");
+
+    @Param({"1KB", "64KB", "1MB", "16MB", "100MB"})
+    public String size;
+
+    @Param({"SHALLOW", "DEEP"})
+    public Payloads.Shape shape;
+
+    private XmlService xmlService;
+    private XmlSchemaRegistry.Schema schema;
+    private String xml;
+    private byte[] xmlBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        Services services = new Services();
+        xmlService = services.xmlService;
+        xml = services.conversionEngine.convert(Payloads.jsonDocument(Payloads.parseSize(size), shape),
+                ConversionType.JSON, ConversionType.XML);
+        xmlBytes = xml.getBytes(StandardCharsets.UTF_8);
+        schema = services.xmlSchemaRegistry.register("records", SCHEMA);
+        ValidationResult result = xmlService.validateXml(new ByteArrayInputStream(xmlBytes), schema);
+        if (!result.isValid()) {
+            throw new IllegalStateException("The generated records do not match the schema: " + result.getErrorMessages());
+        }
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return xmlService.validateXml(xml);
+    }
+
+    @Benchmark
+    public ValidationResult validateStream() {
+        return xmlService.validateXml(new ByteArrayInputStream(xmlBytes));
+    }
+
+    @Benchmark
+    public ValidationResult validateSchema() {
+        return xmlService.validateXml(new ByteArrayInputStream(xmlBytes), schema);
+    }
+
+    @Benchmark
+    public String minify() {
+        return xmlService.minifyXml(xml);
+    }
+
+    @Benchmark
+    public String convertToJson() {
+        return xmlService.convertXmlToJson(xml);
+    }
+
+    @Benchmark
+    public void convertRecordsToJson() throws IOException {
+        xmlService.convertRecordsToJson(new ByteArrayInputStream(xmlBytes), OutputStream.nullOutputStream(), RECORDS);
+    }
+
+    @Benchmark
+    public void convertRecordsToJsonLines() throws IOException {
+        xmlService.convertRecordsToJsonLines(new ByteArrayInputStream(xmlBytes), OutputStream.nullOutputStream(), RECORDS);
+    }
+
+    @Benchmark
+    public void convertRecordsToCsv() throws IOException {
+        xmlService.convertRecordsToCsv(new ByteArrayInputStream(xmlBytes), OutputStream.nullOutputStream(), RECORDS);
+    }
+
+    @Benchmark
+    public String convertToYaml() {
+        return xmlService.convertXmlToYaml(xml);
+    }
+}
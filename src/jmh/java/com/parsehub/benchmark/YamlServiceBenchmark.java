@@ -0,0 +1,83 @@
+package com.parsehub.benchmark;
+
+import com.parsehub.service.YamlService;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.Format;
+import com.parsehub.util.ValidationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link YamlService} operations.
+ * SnakeYAML rejects documents above 3 MB (its default code point limit), so sizes stop at 1 MB.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class YamlServiceBenchmark {
+
+    @Param({"1KB", "64KB", "1MB"})
+    public String size;
+
+    @Param({"SHALLOW", "DEEP"})
+    public Payloads.Shape shape;
+
+    private YamlService yamlService;
+    private String yaml;
+    private String yamlRecords;
+
+    @Setup
+    public void setUp() throws IOException {
+        Services services = new Services();
+        yamlService = services.yamlService;
+        int bytes = Payloads.parseSize(size);
+        yaml = services.conversionEngine.convert(Payloads.jsonDocument(bytes, shape), ConversionType.JSON, ConversionType.YAML);
+        yamlRecords = services.conversionEngine.convert(Payloads.jsonRecords(bytes, Payloads.Shape.SHALLOW),
+                ConversionType.JSON, ConversionType.YAML);
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return yamlService.validateYaml(yaml);
+    }
+
+    @Benchmark
+    public String format() {
+        return yamlService.formatYaml(yaml, Format.SPACE_2);
+    }
+
+    @Benchmark
+    public String minify() {
+        return yamlService.minifyYaml(yaml);
+    }
+
+    @Benchmark
+    public String convertToJson() {
+        return yamlService.convertYamlToJson(yaml);
+    }
+
+    @Benchmark
+    public String convertToXml() {
+        return yamlService.convertYamlToXml(yaml);
+    }
+
+    @Benchmark
+    public String convertToCsv() {
+        return yamlService.convertYamlToCsv(yamlRecords);
+    }
+}
@@ -0,0 +1,150 @@
+package com.parsehub.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test for a running ParseHub server with many slow uploads.
+ * <p>
+ * A number of slow clients upload JSON to {@code /api/v1/json/convert/yaml} a few bytes at a time, so each of them
+ * holds a request-handling thread for the whole upload. Meanwhile fast clients keep validating a small document
+ * and record their latency. With a fixed pool of platform threads the fast requests queue behind the uploads;
+ * on virtual threads they are served right away.
+ * <p>
+ * Options, as {@code --name=value}: {@code url} (http://localhost:5000), {@code slow-clients} (300),
+ * {@code slow-seconds} (30), {@code fast-clients} (8), {@code seconds} (20, keep it below {@code slow-seconds}).
+ */
+public final class LoadTest {
+    private static final String SMALL_JSON = "{\"name\":\"John\",\"age\":30,\"tags\":[\"a\",\"b\"]}";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        URI url = URI.create(options.getOrDefault("url", "http://localhost:5000"));
+        int slowClients = Integer.parseInt(options.getOrDefault("slow-clients", "300"));
+        int slowSeconds = Integer.parseInt(options.getOrDefault("slow-seconds", "30"));
+        int fastClients = Integer.parseInt(options.getOrDefault("fast-clients", "8"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "20"));
+
+        ExecutorService slowPool = Executors.newFixedThreadPool(Math.max(1, slowClients));
+        AtomicInteger slowCompleted = new AtomicInteger();
+        AtomicInteger slowFailed = new AtomicInteger();
+        for (int i = 0; i < slowClients; i++) {
+            slowPool.execute(() -> {
+                try {
+                    slowUpload(url, slowSeconds);
+                    slowCompleted.incrementAndGet();
+                } catch (IOException | InterruptedException e) {
+                    if (slowFailed.getAndIncrement() == 0) {
+                        System.err.println("slow upload failed: " + e);
+                    }
+                }
+            });
+        }
+        // give the slow uploads time to occupy the server before measuring
+        Thread.sleep(2000);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpRequest request = HttpRequest.newBuilder(url.resolve("/api/v1/json/validate"))
+                .timeout(Duration.ofSeconds(seconds + 30L))
+                .POST(HttpRequest.BodyPublishers.ofString(SMALL_JSON))
+                .build();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger fastFailed = new AtomicInteger();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(fastClients);
+        for (int i = 0; i < fastClients; i++) {
+            new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                latencies.add(System.nanoTime() - start);
+                            } else {
+                                fastFailed.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            fastFailed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        slowPool.shutdown();
+        slowPool.awaitTermination(slowSeconds + 60L, TimeUnit.SECONDS);
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("slow uploads: %d completed, %d failed%n", slowCompleted.get(), slowFailed.get());
+        System.out.printf("fast requests: %d ok, %d failed, %.1f req/s%n",
+                sorted.size(), fastFailed.get(), sorted.size() / (double) seconds);
+        System.out.printf("latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 100));
+    }
+
+    /**
+     * Uploads a JSON array in small pieces spread over the given time, then reads the whole response.
+     */
+    private static void slowUpload(URI url, int seconds) throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder("[");
+        int pieces = Math.max(1, seconds * 2);
+        for (int i = 0; i < pieces; i++) {
+            body.append(i == 0 ? "" : ",").append(SMALL_JSON);
+        }
+        byte[] bytes = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        int port = url.getPort() == -1 ? 80 : url.getPort();
+        try (Socket socket = new Socket(url.getHost(), port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /api/v1/json/convert/yaml HTTP/1.1\r\nHost: " + url.getHost() + "\r\n"
+                    + "Content-Type: application/json\r\nContent-Length: " + bytes.length + "\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            int piece = (bytes.length + pieces - 1) / pieces;
+            for (int offset = 0; offset < bytes.length; offset += piece) {
+                out.write(bytes, offset, Math.min(piece, bytes.length - offset));
+                out.flush();
+                Thread.sleep(500);
+            }
+            InputStream in = socket.getInputStream();
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static double percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,127 @@
+package com.parsehub.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a ParseHub server takes from launch to its first answered request, and how much memory
+ * it holds at that point, to compare the JVM build with the native image.
+ * <p>
+ * The command is started a number of times. Each time, a small document is posted to
+ * {@code /api/v1/json/validate} until the server answers it; the time since launch is the time to first response,
+ * which includes the process start, the application context and the first request. The resident set size is then
+ * read from {@code /proc} (Linux only) and the server is stopped before the next run.
+ * <p>
+ * Options, as {@code --name=value}: {@code command} (required, e.g. {@code target/parsehub} or
+ * {@code java -jar target/parsehub-0.0.1-SNAPSHOT.jar}), {@code url} (http://localhost:5000), {@code runs} (5).
+ */
+public final class StartupTest {
+    private static final String SMALL_JSON = "{\"name\":\"John\",\"age\":30,\"tags\":[\"a\",\"b\"]}";
+    private static final long TIMEOUT_SECONDS = 120;
+
+    private StartupTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "true");
+        }
+        String command = options.get("command");
+        if (command == null) {
+            throw new IllegalArgumentException("Set the command starting the server, e.g. --command=target/parsehub");
+        }
+        URI url = URI.create(options.getOrDefault("url", "http://localhost:5000"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(url.resolve("/api/v1/json/validate"))
+                .timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.ofString(SMALL_JSON))
+                .build();
+        List<Long> startups = new ArrayList<>();
+        List<Long> memory = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            // exec keeps the pid of the server, so its memory can be read
+            Process server = new ProcessBuilder("sh", "-c", "exec " + command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            long start = System.nanoTime();
+            try {
+                long elapsed = awaitFirstResponse(client, request, server, start);
+                long rss = residentSetSize(server.pid());
+                startups.add(elapsed);
+                memory.add(rss);
+                System.out.printf("run %d: first response after %d ms, RSS %s%n", run, elapsed / 1_000_000,
+                        rss < 0 ? "n/a" : rss / 1024 + " MB");
+            } finally {
+                server.destroy();
+                if (!server.waitFor(30, TimeUnit.SECONDS)) {
+                    server.destroyForcibly().waitFor();
+                }
+            }
+        }
+
+        Collections.sort(startups);
+        Collections.sort(memory);
+        System.out.printf("time to first response ms: min %d, median %d, max %d%n", startups.get(0) / 1_000_000,
+                startups.get(startups.size() / 2) / 1_000_000, startups.get(startups.size() - 1) / 1_000_000);
+        if (memory.get(0) >= 0) {
+            System.out.printf("RSS MB: min %d, median %d, max %d%n", memory.get(0) / 1024,
+                    memory.get(memory.size() / 2) / 1024, memory.get(memory.size() - 1) / 1024);
+        }
+    }
+
+    /**
+     * Posts the request until the server answers it, and returns the time since the launch in nanoseconds.
+     */
+    private static long awaitFirstResponse(HttpClient client, HttpRequest request, Process server, long start)
+            throws IOException, InterruptedException {
+        long deadline = start + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (System.nanoTime() < deadline) {
+            if (!server.isAlive()) {
+                throw new IOException("The server exited with " + server.exitValue() + " before answering");
+            }
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return System.nanoTime() - start;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IOException("The server did not answer within " + TIMEOUT_SECONDS + " s");
+    }
+
+    /**
+     * Reads the resident set size of a process in KB, or returns -1 where {@code /proc} is not available.
+     */
+    private static long residentSetSize(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        return -1;
+    }
+}
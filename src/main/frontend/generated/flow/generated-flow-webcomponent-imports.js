@@ -0,0 +1,103 @@
+import { injectGlobalWebcomponentCss } from 'Frontend/generated/jar-resources/theme-util.js';
+
+import { injectGlobalCss } from 'Frontend/generated/jar-resources/theme-util.js';
+
+import { css, unsafeCSS, registerStyles } from '@vaadin/vaadin-themable-mixin';
+import $cssFromFile_0 from 'Frontend/styles/styles.css?inline';
+import '@vaadin/polymer-legacy-adapter/style-modules.js';
+import '@vaadin/vertical-layout/theme/lumo/vaadin-vertical-layout.js';
+import '@vaadin/field-highlighter/theme/lumo/vaadin-field-highlighter.js';
+import '@vaadin/common-frontend/ConnectionIndicator.js';
+import '@vaadin/accordion/theme/lumo/vaadin-accordion.js';
+import '@vaadin/details/theme/lumo/vaadin-details.js';
+import '@vaadin/accordion/theme/lumo/vaadin-accordion-panel.js';
+import '@vaadin/app-layout/theme/lumo/vaadin-app-layout.js';
+import '@vaadin/button/theme/lumo/vaadin-button.js';
+import './generated/jar-resources/buttonFunctions.js';
+import '@vaadin/app-layout/theme/lumo/vaadin-drawer-toggle.js';
+import '@vaadin/avatar/theme/lumo/vaadin-avatar.js';
+import '@vaadin/avatar-group/theme/lumo/vaadin-avatar-group.js';
+import '@vaadin/checkbox/theme/lumo/vaadin-checkbox.js';
+import '@vaadin/checkbox-group/theme/lumo/vaadin-checkbox-group.js';
+import '@vaadin/combo-box/theme/lumo/vaadin-combo-box.js';
+import './generated/jar-resources/flow-component-renderer.js';
+import './generated/jar-resources/comboBoxConnector.js';
+import '@vaadin/multi-select-combo-box/theme/lumo/vaadin-multi-select-combo-box.js';
+import '@vaadin/confirm-dialog/theme/lumo/vaadin-confirm-dialog.js';
+import '@vaadin/context-menu/theme/lumo/vaadin-context-menu.js';
+import './generated/jar-resources/contextMenuConnector.js';
+import './generated/jar-resources/contextMenuTargetConnector.js';
+import '@vaadin/custom-field/theme/lumo/vaadin-custom-field.js';
+import '@vaadin/date-picker/theme/lumo/vaadin-date-picker.js';
+import './generated/jar-resources/datepickerConnector.js';
+import '@vaadin/date-time-picker/theme/lumo/vaadin-date-time-picker.js';
+import '@vaadin/time-picker/theme/lumo/vaadin-time-picker.js';
+import './generated/jar-resources/vaadin-time-picker/timepickerConnector.js';
+import '@vaadin/dialog/theme/lumo/vaadin-dialog.js';
+import './generated/jar-resources/dndConnector.js';
+import '@vaadin/form-layout/theme/lumo/vaadin-form-layout.js';
+import '@vaadin/form-layout/theme/lumo/vaadin-form-item.js';
+import '@vaadin/grid/theme/lumo/vaadin-grid-column-group.js';
+import '@vaadin/grid/theme/lumo/vaadin-grid.js';
+import '@vaadin/grid/theme/lumo/vaadin-grid-column.js';
+import '@vaadin/grid/theme/lumo/vaadin-grid-sorter.js';
+import './generated/jar-resources/gridConnector.ts';
+import '@vaadin/tooltip/theme/lumo/vaadin-tooltip.js';
+import './generated/jar-resources/vaadin-grid-flow-selection-column.js';
+import '@vaadin/icon/theme/lumo/vaadin-icon.js';
+import '@vaadin/icons/vaadin-iconset.js';
+import '@vaadin/list-box/theme/lumo/vaadin-list-box.js';
+import '@vaadin/item/theme/lumo/vaadin-item.js';
+import '@vaadin/login/theme/lumo/vaadin-login-form.js';
+import '@vaadin/login/theme/lumo/vaadin-login-overlay.js';
+import './generated/jar-resources/menubarConnector.js';
+import '@vaadin/menu-bar/theme/lumo/vaadin-menu-bar.js';
+import '@vaadin/message-input/theme/lumo/vaadin-message-input.js';
+import './generated/jar-resources/messageListConnector.js';
+import '@vaadin/message-list/theme/lumo/vaadin-message-list.js';
+import '@vaadin/notification/theme/lumo/vaadin-notification.js';
+import '@vaadin/horizontal-layout/theme/lumo/vaadin-horizontal-layout.js';
+import '@vaadin/scroller/theme/lumo/vaadin-scroller.js';
+import '@vaadin/popover/theme/lumo/vaadin-popover.js';
+import './generated/jar-resources/vaadin-popover/popover.ts';
+import '@vaadin/progress-bar/theme/lumo/vaadin-progress-bar.js';
+import '@vaadin/radio-group/theme/lumo/vaadin-radio-button.js';
+import '@vaadin/radio-group/theme/lumo/vaadin-radio-group.js';
+import './generated/jar-resources/ReactRouterOutletElement.tsx';
+import '@vaadin/select/theme/lumo/vaadin-select.js';
+import './generated/jar-resources/selectConnector.js';
+import './generated/jar-resources/tooltip.ts';
+import '@vaadin/side-nav/theme/lumo/vaadin-side-nav.js';
+import '@vaadin/side-nav/theme/lumo/vaadin-side-nav-item.js';
+import '@vaadin/split-layout/theme/lumo/vaadin-split-layout.js';
+import '@vaadin/tabs/theme/lumo/vaadin-tab.js';
+import '@vaadin/tabsheet/theme/lumo/vaadin-tabsheet.js';
+import '@vaadin/tabs/theme/lumo/vaadin-tabs.js';
+import './generated/jar-resources/vaadin-big-decimal-field.js';
+import '@vaadin/email-field/theme/lumo/vaadin-email-field.js';
+import '@vaadin/integer-field/theme/lumo/vaadin-integer-field.js';
+import '@vaadin/number-field/theme/lumo/vaadin-number-field.js';
+import '@vaadin/password-field/theme/lumo/vaadin-password-field.js';
+import '@vaadin/text-area/theme/lumo/vaadin-text-area.js';
+import '@vaadin/text-field/theme/lumo/vaadin-text-field.js';
+import './generated/jar-resources/lit-renderer.ts';
+import '@vaadin/grid/theme/lumo/vaadin-grid-tree-toggle.js';
+import '@vaadin/upload/theme/lumo/vaadin-upload.js';
+import '@vaadin/virtual-list/theme/lumo/vaadin-virtual-list.js';
+import './generated/jar-resources/virtualListConnector.js';
+import '@vaadin/vaadin-lumo-styles/sizing.js';
+import '@vaadin/vaadin-lumo-styles/spacing.js';
+import '@vaadin/vaadin-lumo-styles/style.js';
+import '@vaadin/vaadin-lumo-styles/vaadin-iconset.js';
+
+injectGlobalCss($cssFromFile_0.toString(), 'CSSImport end', document);
+injectGlobalWebcomponentCss($cssFromFile_0.toString());
+const loadOnDemand = (key) => { return Promise.resolve(0); }
+window.Vaadin = window.Vaadin || {};
+window.Vaadin.Flow = window.Vaadin.Flow || {};
+window.Vaadin.Flow.loadOnDemand = loadOnDemand;
+window.Vaadin.Flow.resetFocus = () => {
+ let ae=document.activeElement;
+ while(ae&&ae.shadowRoot) ae = ae.shadowRoot.activeElement;
+ return !ae || ae.blur() || ae.focus() || true;
+}
\ No newline at end of file
@@ -1,9 +1,14 @@
 package com.parsehub;
 
+import com.parsehub.config.ParseHubRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@ImportRuntimeHints(ParseHubRuntimeHints.class)
 public class ParseHubApplication {
     public static void main(String[] args) {
         SpringApplication.run(ParseHubApplication.class, args);
@@ -0,0 +1,226 @@
+package com.parsehub.cli;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.FileResult;
+import com.parsehub.service.FileService;
+import com.parsehub.service.JsonCsvFlattener;
+import com.parsehub.service.JsonKeySorter;
+import com.parsehub.service.JsonSchemaRegistry;
+import com.parsehub.service.JsonService;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.service.OperationMetrics;
+import com.parsehub.service.XmlRecordConverter;
+import com.parsehub.service.XmlSchemaRegistry;
+import com.parsehub.service.XmlService;
+import com.parsehub.service.YamlService;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.ValidationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs an operation on every selected file of a directory tree, several files at once.
+ * The services are wired by hand, the same way Spring wires them, so a run starts without the application
+ * context, the web server or the UI. Every file goes through the {@link FileService}: it is read through
+ * memory-mapped windows and its result is renamed into place once complete, so a failed file leaves no
+ * partial result behind and does not stop the others.
+ */
+public class BatchConverter {
+    private final BatchOptions options;
+    private final Path base;
+    private final ChunkedProcessor chunkedProcessor;
+    private final FileService fileService;
+
+    /**
+     * Constructor that wires the services for a run.
+     *
+     * @param options the command line of the run
+     * @throws IOException if the output directory cannot be created
+     */
+    public BatchConverter(BatchOptions options) throws IOException {
+        this.options = options;
+        this.base = Files.isDirectory(options.getInput()) ? options.getInput() : options.getInput().getParent();
+
+        ParseHubProperties properties = new ParseHubProperties();
+        // the files are already processed in parallel, so a single file is not split across threads as well
+        properties.setParallelism(1);
+        List<String> roots = new ArrayList<>();
+        roots.add(base.toString());
+        if (options.getOutput() != null) {
+            Files.createDirectories(options.getOutput());
+            roots.add(options.getOutput().toString());
+        }
+        properties.getFiles().setRoots(roots);
+
+        MapperRegistry mappers = new MapperRegistry();
+        chunkedProcessor = new ChunkedProcessor(properties);
+        ConversionEngine conversionEngine = new ConversionEngine(mappers, chunkedProcessor);
+        JsonKeySorter keySorter = new JsonKeySorter(properties);
+        JsonCsvFlattener csvFlattener = new JsonCsvFlattener(mappers, properties);
+        fileService = new FileService(mappers, new JsonService(mappers, conversionEngine, keySorter,
+                new JsonSchemaRegistry(mappers, properties), csvFlattener),
+                new XmlService(mappers, conversionEngine, new XmlSchemaRegistry(properties),
+                        new XmlRecordConverter(mappers, properties)),
+                new YamlService(conversionEngine), conversionEngine,
+                keySorter, csvFlattener, new OperationMetrics(new SimpleMeterRegistry()), properties);
+    }
+
+    /**
+     * Processes every selected file and waits for all of them.
+     *
+     * @return the counts, the bytes read and written and the failed files
+     * @throws IOException if the input does not exist or cannot be listed
+     */
+    public BatchReport run() throws IOException {
+        long start = System.nanoTime();
+        BatchReport report = new BatchReport();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Path file : files()) {
+            Path relative = base.relativize(file);
+            ConversionType format = options.getFrom() != null ? options.getFrom() : formatOf(file);
+            if (format == null || !options.getOperation().supports(format)
+                    || options.getFrom() == null && format == options.getTo()) {
+                report.skipped();
+                continue;
+            }
+            tasks.add(() -> {
+                process(file, relative, format, report);
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(options.getThreads(), Math.max(1, tasks.size())),
+                workerThreads());
+        try {
+            executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The batch run was interrupted");
+        } finally {
+            executor.shutdownNow();
+            chunkedProcessor.shutdown();
+        }
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Lists the regular files of the input in path order, leaving out the output tree and the unselected files.
+     */
+    private List<Path> files() throws IOException {
+        Path input = options.getInput();
+        if (!Files.exists(input)) {
+            throw new NoSuchFileException(input.toString());
+        }
+        try (Stream<Path> walk = Files.walk(input)) {
+            return walk.filter(Files::isRegularFile)
+                    .filter(file -> options.getOutput() == null || !file.startsWith(options.getOutput()))
+                    .filter(file -> options.selects(base.relativize(file)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void process(Path file, Path relative, ConversionType format, BatchReport report) {
+        try {
+            String source = file.toString();
+            if (options.getOperation() == BatchOptions.Operation.VALIDATE) {
+                ValidationResult result = fileService.validate(source, format);
+                if (result.isValid()) {
+                    report.succeeded(Files.size(file), 0);
+                } else {
+                    report.failed(relative, String.join("; ", result.getErrorMessages()).replaceAll("\\R\\s*", " "));
+                }
+                return;
+            }
+            Path target = target(file, relative);
+            boolean overwrite = options.isOverwrite() || target.equals(file);
+            FileResult result = switch (options.getOperation()) {
+                case CONVERT -> fileService.convert(source, target.toString(), format, options.getTo(), overwrite);
+                case FORMAT -> fileService.formatJson(source, target.toString(), options.getIndent(), overwrite);
+                case MINIFY -> fileService.minify(source, target.toString(), format, overwrite);
+                case SORT -> fileService.sortJson(source, target.toString(), options.getSortOptions(), overwrite);
+                case VALIDATE -> throw new IllegalStateException();
+            };
+            report.succeeded(result.getInputBytes(), result.getOutputBytes());
+        } catch (IOException | RuntimeException e) {
+            report.failed(relative, reason(e));
+        }
+    }
+
+    /**
+     * Returns where the result of a file goes: next to it, or at the same place in the output tree.
+     * Converted files take the extension of the target format.
+     */
+    private Path target(Path file, Path relative) throws IOException {
+        String name = file.getFileName().toString();
+        if (options.getOperation() == BatchOptions.Operation.CONVERT) {
+            int dot = name.lastIndexOf('.');
+            name = (dot > 0 ? name.substring(0, dot) : name) + "." + options.getTo().name().toLowerCase(Locale.ROOT);
+        }
+        if (options.getOutput() == null) {
+            return file.resolveSibling(name);
+        }
+        Path directory = options.getOutput().resolve(relative).getParent();
+        Files.createDirectories(directory);
+        return directory.resolve(name);
+    }
+
+    /**
+     * Returns the format of a file from its extension.
+     *
+     * @param file the file
+     * @return the format, or null for an unknown extension
+     */
+    static ConversionType formatOf(Path file) {
+        String name = file.getFileName().toString();
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return switch (extension) {
+            case "json" -> ConversionType.JSON;
+            case "xml" -> ConversionType.XML;
+            case "yaml", "yml" -> ConversionType.YAML;
+            case "csv" -> ConversionType.CSV;
+            default -> null;
+        };
+    }
+
+    private static String reason(Exception e) {
+        if (e instanceof JsonProcessingException json) {
+            JsonLocation location = json.getLocation();
+            return location == null || location.getLineNr() < 0 ? json.getOriginalMessage()
+                    : json.getOriginalMessage() + " (line " + location.getLineNr() + ", column " + location.getColumnNr() + ")";
+        }
+        if (e instanceof FileAlreadyExistsException) {
+            return "the result exists already, set --overwrite to replace it";
+        }
+        return e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "batch-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
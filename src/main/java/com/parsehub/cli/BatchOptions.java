@@ -0,0 +1,257 @@
+package com.parsehub.cli;
+
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.Format;
+import com.parsehub.util.KeyOrder;
+import com.parsehub.util.SortOptions;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The command line of a batch run: the operation, the files it applies to and where the results go.
+ */
+public final class BatchOptions {
+    static final String USAGE = """
+            Usage: parsehub <operation> [options] <input>
+
+            Runs an operation on a file or on every matching file of a directory tree.
+
+            Operations:
+              validate             Validate JSON, XML and YAML files
+              convert              Convert files into the format given by --to
+              format               Format JSON files with the indentation given by --indent
+              minify               Minify JSON and XML files
+              sort                 Sort the keys of JSON files
+
+            Options:
+              --from <format>      Format of the input files: JSON, XML, YAML or CSV.
+                                   By default it is taken from the file extension.
+              --to <format>        Format to convert to: JSON, XML, YAML or CSV
+              --indent <format>    Indentation of format: SPACE_2, SPACE_3, SPACE_4, PRETTY or COMPACT (default SPACE_2)
+              --order <order>      Key order of sort: LEXICAL, CASE_INSENSITIVE or NATURAL (default LEXICAL)
+              --sort-arrays        Sort the elements of arrays as well
+              --include <glob>     Only process the files matching the glob; may be repeated
+              --exclude <glob>     Skip the files matching the glob; may be repeated
+              --output <dir>       Write the results to a directory mirroring the input tree
+              --in-place           Write the results next to the input files, replacing them unless converting
+              --overwrite          Replace existing result files
+              --threads <n>        Number of files processed in parallel (default: the number of cores)
+              --help               Show this help
+
+            A glob without a '/' is matched against the file name, any other against the path relative to <input>.
+            """;
+
+    /**
+     * The operation of a batch run.
+     */
+    public enum Operation {
+        VALIDATE(ConversionType.JSON, ConversionType.XML, ConversionType.YAML),
+        CONVERT(ConversionType.values()),
+        FORMAT(ConversionType.JSON),
+        MINIFY(ConversionType.JSON, ConversionType.XML),
+        SORT(ConversionType.JSON);
+
+        private final Set<ConversionType> formats;
+
+        Operation(ConversionType... formats) {
+            this.formats = EnumSet.copyOf(Arrays.asList(formats));
+        }
+
+        /**
+         * Returns whether the operation applies to files of a format.
+         *
+         * @param format the format of the input
+         * @return true if the operation can run on the input
+         */
+        public boolean supports(ConversionType format) {
+            return formats.contains(format);
+        }
+    }
+
+    private Operation operation;
+    private Path input;
+    private Path output;
+    private boolean inPlace;
+    private boolean overwrite;
+    private ConversionType from;
+    private ConversionType to;
+    private Format indent = Format.SPACE_2;
+    private KeyOrder order = KeyOrder.LEXICAL;
+    private boolean sortArrays;
+    private final List<PathMatcher> includes = new ArrayList<>();
+    private final List<PathMatcher> excludes = new ArrayList<>();
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private BatchOptions() {
+    }
+
+    /**
+     * Parses a command line.
+     *
+     * @param args the arguments, the operation first
+     * @return the options, or null if the help was requested
+     * @throws IllegalArgumentException if the command line is incomplete or has an unknown or invalid argument
+     */
+    public static BatchOptions parse(String... args) {
+        BatchOptions options = new BatchOptions();
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                positional.add(arg);
+                continue;
+            }
+            switch (arg) {
+                case "--help" -> {
+                    return null;
+                }
+                case "--from" -> options.from = value(ConversionType.class, args, ++i, arg);
+                case "--to" -> options.to = value(ConversionType.class, args, ++i, arg);
+                case "--indent" -> options.indent = value(Format.class, args, ++i, arg);
+                case "--order" -> options.order = value(KeyOrder.class, args, ++i, arg);
+                case "--sort-arrays" -> options.sortArrays = true;
+                case "--include" -> options.includes.add(glob(value(args, ++i, arg)));
+                case "--exclude" -> options.excludes.add(glob(value(args, ++i, arg)));
+                case "--output" -> options.output = Path.of(value(args, ++i, arg)).toAbsolutePath().normalize();
+                case "--in-place" -> options.inPlace = true;
+                case "--overwrite" -> options.overwrite = true;
+                case "--threads" -> options.threads = threads(value(args, ++i, arg));
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (positional.size() != 2) {
+            throw new IllegalArgumentException("Expected an operation and an input"
+                    + (positional.isEmpty() ? "" : ", got: " + String.join(" ", positional)));
+        }
+        options.operation = value(Operation.class, positional.get(0), "operation");
+        options.input = Path.of(positional.get(1)).toAbsolutePath().normalize();
+        options.check();
+        return options;
+    }
+
+    private void check() {
+        if (from != null && !operation.supports(from)) {
+            throw new IllegalArgumentException(operation.name().toLowerCase(Locale.ROOT) + " does not apply to " + from + " files");
+        }
+        if (operation == Operation.CONVERT && to == null) {
+            throw new IllegalArgumentException("convert needs the target format, set --to");
+        }
+        if (operation == Operation.VALIDATE) {
+            if (output != null || inPlace) {
+                throw new IllegalArgumentException("validate writes no files, --output and --in-place do not apply");
+            }
+        } else if ((output == null) == !inPlace) {
+            throw new IllegalArgumentException("Set either --output or --in-place");
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return args[index];
+    }
+
+    private static <E extends Enum<E>> E value(Class<E> type, String[] args, int index, String option) {
+        return value(type, value(args, index, option), option);
+    }
+
+    private static <E extends Enum<E>> E value(Class<E> type, String value, String option) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + option + ": " + value);
+        }
+    }
+
+    private static int threads(String value) {
+        try {
+            int threads = Integer.parseInt(value);
+            if (threads > 0) {
+                return threads;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid --threads: " + value);
+    }
+
+    private static PathMatcher glob(String pattern) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        if (pattern.indexOf('/') < 0) {
+            return path -> path.getFileName() != null && matcher.matches(path.getFileName());
+        }
+        return matcher;
+    }
+
+    /**
+     * Returns whether a file is selected by the include and exclude globs.
+     *
+     * @param relative the path of the file relative to the input
+     * @return true if the file matches an include, or there are none, and no exclude
+     */
+    boolean selects(Path relative) {
+        if (!includes.isEmpty() && includes.stream().noneMatch(matcher -> matcher.matches(relative))) {
+            return false;
+        }
+        return excludes.stream().noneMatch(matcher -> matcher.matches(relative));
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Path getInput() {
+        return input;
+    }
+
+    /**
+     * Returns the directory the results are written to, mirroring the input tree.
+     *
+     * @return the directory, or null if the results are written next to the inputs or no results are written
+     */
+    public Path getOutput() {
+        return output;
+    }
+
+    public boolean isInPlace() {
+        return inPlace;
+    }
+
+    public boolean isOverwrite() {
+        return overwrite;
+    }
+
+    /**
+     * Returns the format of the inputs.
+     *
+     * @return the format, or null if it is taken from the extension of every file
+     */
+    public ConversionType getFrom() {
+        return from;
+    }
+
+    public ConversionType getTo() {
+        return to;
+    }
+
+    public Format getIndent() {
+        return indent;
+    }
+
+    public SortOptions getSortOptions() {
+        return new SortOptions(order, sortArrays);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+}
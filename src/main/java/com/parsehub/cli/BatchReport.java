@@ -0,0 +1,116 @@
+package com.parsehub.cli;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The outcome of a batch run: how many files were processed, failed and skipped, the bytes read and written,
+ * and why every failed file failed. Files are recorded from the worker threads as they finish.
+ */
+public final class BatchReport {
+    private static final String[] UNITS = {"B", "KB", "MB", "GB", "TB"};
+
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final LongAdder inputBytes = new LongAdder();
+    private final LongAdder outputBytes = new LongAdder();
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+    private long durationNanos;
+
+    void succeeded(long inputBytes, long outputBytes) {
+        succeeded.incrementAndGet();
+        this.inputBytes.add(inputBytes);
+        this.outputBytes.add(outputBytes);
+    }
+
+    void failed(Path file, String reason) {
+        failures.add(new Failure(file, reason));
+    }
+
+    void skipped() {
+        skipped.incrementAndGet();
+    }
+
+    void finish(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    public int getSucceeded() {
+        return succeeded.get();
+    }
+
+    public int getFailed() {
+        return failures.size();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public long getInputBytes() {
+        return inputBytes.sum();
+    }
+
+    public long getOutputBytes() {
+        return outputBytes.sum();
+    }
+
+    /**
+     * Returns the failed files, ordered by path.
+     *
+     * @return the failures
+     */
+    public List<Failure> getFailures() {
+        List<Failure> sorted = new ArrayList<>(failures);
+        sorted.sort(Comparator.comparing(Failure::file));
+        return sorted;
+    }
+
+    /**
+     * Prints the summary: the counts, the throughput over the whole run and the failed files.
+     *
+     * @param out the stream to print to
+     */
+    public void print(PrintStream out) {
+        double seconds = Math.max(durationNanos, 1) / 1e9;
+        int processed = getSucceeded() + getFailed();
+        out.printf(Locale.ROOT, "Processed %d files in %.2f s: %d succeeded, %d failed, %d skipped%n",
+                processed, seconds, getSucceeded(), getFailed(), getSkipped());
+        out.printf(Locale.ROOT, "Read %s, wrote %s: %s/s, %.1f files/s%n",
+                size(getInputBytes()), size(getOutputBytes()), size((long) (getInputBytes() / seconds)), processed / seconds);
+        List<Failure> failed = getFailures();
+        if (!failed.isEmpty()) {
+            out.println("Failed:");
+            for (Failure failure : failed) {
+                out.println("  " + failure.file() + ": " + failure.reason());
+            }
+        }
+    }
+
+    static String size(long bytes) {
+        int unit = 0;
+        double value = bytes;
+        while (value >= 1024 && unit < UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return unit == 0 ? bytes + " B" : String.format(Locale.ROOT, "%.1f %s", value, UNITS[unit]);
+    }
+
+    /**
+     * A file that could not be processed.
+     *
+     * @param file   the path of the file relative to the input
+     * @param reason why it failed, such as the parse error or the validation errors
+     */
+    public record Failure(Path file, String reason) {
+    }
+}
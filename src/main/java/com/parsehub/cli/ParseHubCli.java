@@ -0,0 +1,50 @@
+package com.parsehub.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Command-line entry point for batch runs over files, without the web application.
+ * It exits with 0 when every file was processed, 1 when some failed and 2 when the run could not start.
+ */
+public final class ParseHubCli {
+
+    private ParseHubCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Runs a command line and prints the summary.
+     *
+     * @param args the arguments
+     * @param out  where the summary goes
+     * @param err  where usage errors go
+     * @return the exit code
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        BatchOptions options;
+        try {
+            options = BatchOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println();
+            err.print(BatchOptions.USAGE);
+            return 2;
+        }
+        if (options == null) {
+            out.print(BatchOptions.USAGE);
+            return 0;
+        }
+        try {
+            BatchReport report = new BatchConverter(options).run();
+            report.print(out);
+            return report.getFailed() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            err.println("The batch run failed: " + e);
+            return 2;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.parsehub.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Application settings bound from the {@code parsehub.*} properties.
+ */
+@ConfigurationProperties(prefix = "parsehub")
+public class ParseHubProperties {
+    /**
+     * Number of threads converting chunks of large line-oriented inputs in parallel.
+     * A value of 1 processes every input on the request thread.
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Size of the chunks large line-oriented inputs are split into. Chunks always end on a record boundary,
+     * so a record longer than this makes its chunk grow to fit it.
+     */
+    private DataSize chunkSize = DataSize.ofMegabytes(1);
+
+    /**
+     * Settings of the asynchronous conversion jobs.
+     */
+    private final Jobs jobs = new Jobs();
+
+    /**
+     * Settings of the web UI.
+     */
+    private final Ui ui = new Ui();
+
+    /**
+     * Settings of the result cache of the REST endpoints.
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * Settings of the JSON key sort.
+     */
+    private final Sort sort = new Sort();
+
+    /**
+     * Settings of the file mode, which converts files on the local disk.
+     */
+    private final LocalFiles files = new LocalFiles();
+
+    /**
+     * Settings of the validation against JSON Schemas and XML Schemas.
+     */
+    private final Schema schema = new Schema();
+
+    /**
+     * Settings of the conversion of nested JSON into flat CSV.
+     */
+    private final Flatten flatten = new Flatten();
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public DataSize getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(DataSize chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public Ui getUi() {
+        return ui;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public LocalFiles getFiles() {
+        return files;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public Flatten getFlatten() {
+        return flatten;
+    }
+
+    /**
+     * Settings of the asynchronous conversion jobs.
+     */
+    public static class Jobs {
+        /**
+         * Number of jobs converting at the same time.
+         */
+        private int workers = 2;
+
+        /**
+         * Number of accepted jobs waiting for a worker. Submissions beyond it are rejected until a worker frees up.
+         */
+        private int queueCapacity = 16;
+
+        /**
+         * How long a finished job and its result file are kept for download.
+         */
+        private Duration retention = Duration.ofHours(1);
+
+        /**
+         * Directory for the spooled inputs and the results. Defaults to the system temp directory.
+         */
+        private String directory = System.getProperty("java.io.tmpdir");
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * Settings of the web UI.
+     */
+    public static class Ui {
+        /**
+         * How much of a file the text areas show. Larger uploads switch to the large-file mode, where operations
+         * stream from a temp file to a temp file and only this much of the input and the output is displayed.
+         */
+        private DataSize previewSize = DataSize.ofKilobytes(64);
+
+        /**
+         * Number of UI operations running in the background at the same time, shared by all sessions.
+         * Every view runs one operation at a time, so a single large conversion occupies only one of them.
+         */
+        private int workers = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        public DataSize getPreviewSize() {
+            return previewSize;
+        }
+
+        public void setPreviewSize(DataSize previewSize) {
+            this.previewSize = previewSize;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+    }
+
+    /**
+     * Settings of the result cache of the REST endpoints.
+     */
+    public static class Cache {
+        /**
+         * Whether repeated requests with the same body are answered from the cache. Off by default: the body is
+         * buffered to compute its key, so with the cache on no output is written before the whole body has arrived.
+         */
+        private boolean enabled;
+
+        /**
+         * Total size of the results kept in memory. The least valuable results are evicted beyond it.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Largest request body that is cached. Smaller bodies are buffered to compute their key before the lookup,
+         * larger ones are streamed without the cache.
+         */
+        private DataSize maxInputSize = DataSize.ofMegabytes(1);
+
+        /**
+         * Largest result that is cached.
+         */
+        private DataSize maxResultSize = DataSize.ofMegabytes(16);
+
+        /**
+         * Directory of the disk tier, which keeps the large results out of the heap. No disk tier when not set.
+         */
+        private String diskDirectory;
+
+        /**
+         * Total size of the results kept on disk.
+         */
+        private DataSize diskMaxSize = DataSize.ofGigabytes(1);
+
+        /**
+         * Results larger than this go to the disk tier instead of memory, when there is one.
+         */
+        private DataSize diskThreshold = DataSize.ofKilobytes(256);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public DataSize getMaxInputSize() {
+            return maxInputSize;
+        }
+
+        public void setMaxInputSize(DataSize maxInputSize) {
+            this.maxInputSize = maxInputSize;
+        }
+
+        public DataSize getMaxResultSize() {
+            return maxResultSize;
+        }
+
+        public void setMaxResultSize(DataSize maxResultSize) {
+            this.maxResultSize = maxResultSize;
+        }
+
+        public String getDiskDirectory() {
+            return diskDirectory;
+        }
+
+        public void setDiskDirectory(String diskDirectory) {
+            this.diskDirectory = diskDirectory;
+        }
+
+        public DataSize getDiskMaxSize() {
+            return diskMaxSize;
+        }
+
+        public void setDiskMaxSize(DataSize diskMaxSize) {
+            this.diskMaxSize = diskMaxSize;
+        }
+
+        public DataSize getDiskThreshold() {
+            return diskThreshold;
+        }
+
+        public void setDiskThreshold(DataSize diskThreshold) {
+            this.diskThreshold = diskThreshold;
+        }
+    }
+
+    /**
+     * Settings of the JSON key sort.
+     */
+    public static class Sort {
+        /**
+         * Memory a single sort buffers entries in. Beyond it the largest objects are written to disk as sorted runs,
+         * which are merged when the objects end.
+         */
+        private DataSize memoryLimit = DataSize.ofMegabytes(64);
+
+        /**
+         * Directory for the sorted runs. Defaults to the system temp directory.
+         */
+        private String directory = System.getProperty("java.io.tmpdir");
+
+        public DataSize getMemoryLimit() {
+            return memoryLimit;
+        }
+
+        public void setMemoryLimit(DataSize memoryLimit) {
+            this.memoryLimit = memoryLimit;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * Settings of the file mode, which converts files on the local disk.
+     */
+    public static class LocalFiles {
+        /**
+         * Directories the file mode may read from and write to, including their subdirectories.
+         * The file mode is disabled while none is set.
+         */
+        private List<String> roots = new ArrayList<>();
+
+        /**
+         * Largest XML file that is converted or minified. XML is read into a tree before it is written, so unlike
+         * the other formats its size is limited by the heap; larger files are refused before anything is read.
+         */
+        private DataSize maxXmlSize = DataSize.ofMegabytes(64);
+
+        public List<String> getRoots() {
+            return roots;
+        }
+
+        public void setRoots(List<String> roots) {
+            this.roots = roots;
+        }
+
+        public DataSize getMaxXmlSize() {
+            return maxXmlSize;
+        }
+
+        public void setMaxXmlSize(DataSize maxXmlSize) {
+            this.maxXmlSize = maxXmlSize;
+        }
+    }
+
+    /**
+     * Settings of the validation against JSON Schemas and XML Schemas. The limits apply to each kind of schema.
+     */
+    public static class Schema {
+        /**
+         * Number of named schemas that can be registered at the same time.
+         */
+        private int maxSchemas = 256;
+
+        /**
+         * Number of compiled schemas kept in memory. A schema evicted from the cache is compiled again
+         * from its text when it is next used.
+         */
+        private int cacheSize = 64;
+
+        /**
+         * Number of errors a validation reports. The validation goes on past them, and only counts the others.
+         */
+        private int maxErrors = 100;
+
+        public int getMaxSchemas() {
+            return maxSchemas;
+        }
+
+        public void setMaxSchemas(int maxSchemas) {
+            this.maxSchemas = maxSchemas;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public int getMaxErrors() {
+            return maxErrors;
+        }
+
+        public void setMaxErrors(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+    }
+
+    /**
+     * Settings of the conversion of nested JSON into flat CSV, which reads its input twice: once to find the
+     * columns, once to write the rows. The XML record conversions, which read their input once to find the shapes
+     * of the records and once to write them, share them.
+     */
+    public static class Flatten {
+        /**
+         * Inputs up to this size are held in memory for the second pass, of a flattening or of an XML record
+         * conversion; larger ones are spooled to disk.
+         */
+        private DataSize memoryLimit = DataSize.ofMegabytes(1);
+
+        /**
+         * Directory for the spooled inputs. Defaults to the system temp directory.
+         */
+        private String directory = System.getProperty("java.io.tmpdir");
+
+        /**
+         * Number of distinct paths the records may have: the columns, and the objects and arrays holding them, or the
+         * element paths, and the CSV columns, of the records of an XML feed. Inputs with more are refused before
+         * anything is written.
+         */
+        private int maxPaths = 100_000;
+
+        public DataSize getMemoryLimit() {
+            return memoryLimit;
+        }
+
+        public void setMemoryLimit(DataSize memoryLimit) {
+            this.memoryLimit = memoryLimit;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getMaxPaths() {
+            return maxPaths;
+        }
+
+        public void setMaxPaths(int maxPaths) {
+            this.maxPaths = maxPaths;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.parsehub.config;
+
+import com.ctc.wstx.stax.WstxEventFactory;
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.ctc.wstx.stax.WstxOutputFactory;
+import com.parsehub.service.CacheStatistics;
+import com.parsehub.service.ConversionJob;
+import com.parsehub.service.FileResult;
+import com.parsehub.util.ValidationResult;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection and resource hints for the native image, covering what the Spring AOT processing cannot see.
+ * <ul>
+ *     <li>The types Jackson binds outside of controller signatures, such as the validation results
+ *     the result cache stores as JSON.</li>
+ *     <li>The Woodstox StAX factories behind the Jackson XML mapper. {@code XMLInputFactory.newFactory()} finds
+ *     them through {@code META-INF/services}; without these hints the image would silently fall back to the
+ *     JDK parser, which Jackson XML is not tuned for.</li>
+ * </ul>
+ * The JSON, YAML and CSV paths read into tree nodes and maps, and SnakeYAML builds plain maps and lists for
+ * untagged documents, so neither needs reflection.
+ */
+public class ParseHubRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                ValidationResult.class, FileResult.class, CacheStatistics.class, ConversionJob.class);
+
+        for (Class<?> factory : new Class<?>[]{WstxInputFactory.class, WstxOutputFactory.class, WstxEventFactory.class}) {
+            hints.reflection().registerType(factory, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+        hints.resources().registerPattern("META-INF/services/javax.xml.stream.*");
+    }
+}
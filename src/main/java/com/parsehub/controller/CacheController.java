@@ -0,0 +1,50 @@
+package com.parsehub.controller;
+
+import com.parsehub.service.CacheStatistics;
+import com.parsehub.service.ResultCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller reporting on the result cache.
+ * Repeated requests with the same body are answered from the cache; these endpoints show how often that happens
+ * and allow emptying it.
+ */
+@RestController
+@RequestMapping("/api/v1/cache")
+public class CacheController {
+
+    private final ResultCache resultCache;
+
+    /**
+     * Constructor for CacheController.
+     *
+     * @param resultCache the cache of the operation results
+     */
+    @Autowired
+    public CacheController(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Returns the hit and miss counts and the size of the cache.
+     *
+     * @return the current cache statistics
+     */
+    @GetMapping
+    public CacheStatistics getStatistics() {
+        return resultCache.getStatistics();
+    }
+
+    /**
+     * Removes every cached result.
+     *
+     * @return an empty response
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> clear() {
+        resultCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.parsehub.controller;
+
+import com.parsehub.service.CsvService;
+import com.parsehub.service.ResultCache;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.CsvOptions;
+import com.parsehub.util.ValidationResult;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Controller for handling CSV-related API endpoints.
+ * This controller provides operations for validating CSV and converting it into JSON, JSON Lines, XML, and YAML.
+ * Every operation takes the column names from the header line unless {@code header=false}, or from an explicit
+ * {@code columns} schema such as {@code id:integer,name,price:number}; conversions infer the types of the
+ * undeclared columns unless {@code inferTypes=false}.
+ */
+@RestController
+@RequestMapping("/api/v1/csv")
+public class CsvController {
+    private static final String JSON_LINES = "jsonl";
+
+    private final CsvService csvService;
+    private final ResultCache resultCache;
+
+    /**
+     * Constructor for CsvController.
+     *
+     * @param csvService the CsvService to handle CSV operations
+     * @param resultCache the cache answering repeated requests
+     */
+    @Autowired
+    public CsvController(CsvService csvService, ResultCache resultCache) {
+        this.csvService = csvService;
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Validates the provided CSV: every row must have as many values as there are columns, the quoting must be
+     * balanced, and the values of declared column types must have that type.
+     *
+     * @param csv the request body stream containing the CSV to validate
+     * @param header whether the first line holds the column names
+     * @param columns the explicit schema, or null to use the header line
+     * @return ValidationResult indicating if the CSV is valid or not
+     * @throws IOException if reading the request fails
+     */
+    @PostMapping("/validate")
+    public ValidationResult validateCsv(InputStream csv, @RequestParam(defaultValue = "true") boolean header,
+                                        @RequestParam(required = false) String columns) throws IOException {
+        CsvOptions options = CsvOptions.of(header, columns, false);
+        return resultCache.validate(csv, "csv/validate", options, input -> csvService.validateCsv(input, options));
+    }
+
+    /**
+     * Converts the provided CSV into the specified format, one record per row.
+     * The type can be JSON, JSONL (JSON Lines, one object per line), XML, or YAML.
+     *
+     * @param csv the request body stream containing the CSV to convert
+     * @param type the target conversion format
+     * @param header whether the first line holds the column names
+     * @param columns the explicit schema, or null to use the header line
+     * @param inferTypes whether the types of the undeclared columns are inferred from the first rows
+     * @param response the response the converted data is written to
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping("/convert/{type}")
+    public void convertCsv(InputStream csv, @PathVariable String type, @RequestParam(defaultValue = "true") boolean header,
+                           @RequestParam(required = false) String columns,
+                           @RequestParam(defaultValue = "true") boolean inferTypes,
+                           HttpServletResponse response) throws IOException {
+        CsvOptions options = CsvOptions.of(header, columns, inferTypes);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        if (type.equalsIgnoreCase(JSON_LINES)) {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            resultCache.transform(csv, response.getOutputStream(), "csv/convert", JSON_LINES, options,
+                    (input, output) -> csvService.convertToJsonLines(input, output, options));
+            return;
+        }
+        ConversionType typeEnum = ConversionType.valueOf(type.toUpperCase());
+        if (typeEnum == ConversionType.CSV) {
+            throw new IllegalArgumentException("CSV input converts to JSON, JSONL, XML or YAML");
+        }
+        response.setContentType(typeEnum.getMediaType());
+        resultCache.transform(csv, response.getOutputStream(), "csv/convert", typeEnum, options,
+                (input, output) -> csvService.convert(input, output, typeEnum, options));
+    }
+}
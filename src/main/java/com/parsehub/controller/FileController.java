@@ -0,0 +1,209 @@
+package com.parsehub.controller;
+
+import com.parsehub.service.FileResult;
+import com.parsehub.service.FileService;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.FlattenOptions;
+import com.parsehub.util.Format;
+import com.parsehub.util.KeyOrder;
+import com.parsehub.util.SortOptions;
+import com.parsehub.util.ValidationResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+
+/**
+ * REST controller for the file mode, which runs operations on files that already sit on the server's disk.
+ * The request names the source and target paths instead of uploading the data; the paths must lie under
+ * one of the directories configured in {@code parsehub.files.roots}.
+ */
+@RestController
+@RequestMapping("/api/v1/files")
+public class FileController {
+
+    private final FileService fileService;
+
+    /**
+     * Constructor for FileController.
+     *
+     * @param fileService the FileService running operations on local files
+     */
+    @Autowired
+    public FileController(FileService fileService) {
+        this.fileService = fileService;
+    }
+
+    /**
+     * Validates a file.
+     *
+     * @param format the format of the file (JSON, XML or YAML)
+     * @param request the path of the file as source
+     * @return ValidationResult object indicating whether the file is valid or not
+     * @throws IOException if the file cannot be read
+     */
+    @PostMapping("/{format}/validate")
+    public ValidationResult validate(@PathVariable String format, @RequestBody FileRequest request) throws IOException {
+        return fileService.validate(request.getSource(), ConversionType.valueOf(format.toUpperCase()));
+    }
+
+    /**
+     * Converts a file into another format.
+     *
+     * @param format the format of the file (JSON, XML, YAML or CSV)
+     * @param type the target conversion format
+     * @param request the source and target paths
+     * @return the paths and sizes of the input and the result
+     * @throws IOException if the input is malformed or a file cannot be read or written
+     */
+    @PostMapping("/{format}/convert/{type}")
+    public FileResult convert(@PathVariable String format, @PathVariable String type, @RequestBody FileRequest request) throws IOException {
+        return fileService.convert(request.getSource(), request.getTarget(),
+                ConversionType.valueOf(format.toUpperCase()), ConversionType.valueOf(type.toUpperCase()), request.isOverwrite());
+    }
+
+    /**
+     * Converts the records of a JSON file into CSV, flattening nested objects and arrays into one column per path.
+     * The file is read twice, once to find the columns and once to write the rows.
+     *
+     * @param paths how the column paths are written: DOT (default) or BRACKET
+     * @param order the column order: INPUT (default), LEXICAL, CASE_INSENSITIVE or NATURAL
+     * @param typeHints whether the header names carry the column types
+     * @param columns the comma-separated columns to write, or null for every column of the records
+     * @param request the source and target paths
+     * @return the paths and sizes of the input and the result
+     * @throws IOException if the input is malformed or a file cannot be read or written
+     */
+    @PostMapping(value = "/json/convert/csv", params = "flatten=true")
+    public FileResult flattenJsonToCsv(@RequestParam(defaultValue = "DOT") String paths,
+                                       @RequestParam(defaultValue = "INPUT") String order,
+                                       @RequestParam(defaultValue = "false") boolean typeHints,
+                                       @RequestParam(required = false) String columns,
+                                       @RequestBody FileRequest request) throws IOException {
+        FlattenOptions options = FlattenOptions.of(paths, order, typeHints, columns);
+        return fileService.flattenJsonToCsv(request.getSource(), request.getTarget(), options, request.isOverwrite());
+    }
+
+    /**
+     * Formats a JSON file according to the specified format.
+     *
+     * @param format the desired format (e.g., SPACE_2, SPACE_4, COMPACT)
+     * @param request the source and target paths
+     * @return the paths and sizes of the input and the result
+     * @throws IOException if the input is malformed or a file cannot be read or written
+     */
+    @PostMapping("/json/format/{format}")
+    public FileResult formatJson(@PathVariable String format, @RequestBody FileRequest request) throws IOException {
+        return fileService.formatJson(request.getSource(), request.getTarget(), Format.valueOf(format.toUpperCase()), request.isOverwrite());
+    }
+
+    /**
+     * Minifies a file.
+     *
+     * @param format the format of the file (JSON or XML)
+     * @param request the source and target paths
+     * @return the paths and sizes of the input and the result
+     * @throws IOException if the input is malformed or a file cannot be read or written
+     */
+    @PostMapping("/{format}/minify")
+    public FileResult minify(@PathVariable String format, @RequestBody FileRequest request) throws IOException {
+        return fileService.minify(request.getSource(), request.getTarget(), ConversionType.valueOf(format.toUpperCase()), request.isOverwrite());
+    }
+
+    /**
+     * Sorts the keys of a JSON file, in nested objects as well.
+     *
+     * @param order the key order: LEXICAL (default), CASE_INSENSITIVE or NATURAL
+     * @param sortArrays whether the elements of arrays are sorted too; by default arrays keep their order
+     * @param request the source and target paths
+     * @return the paths and sizes of the input and the result
+     * @throws IOException if the input is malformed or a file cannot be read or written
+     */
+    @PostMapping("/json/sort")
+    public FileResult sortJson(@RequestParam(defaultValue = "LEXICAL") String order,
+                               @RequestParam(defaultValue = "false") boolean sortArrays,
+                               @RequestBody FileRequest request) throws IOException {
+        SortOptions options = new SortOptions(KeyOrder.valueOf(order.toUpperCase().replace('-', '_')), sortArrays);
+        return fileService.sortJson(request.getSource(), request.getTarget(), options, request.isOverwrite());
+    }
+
+    /**
+     * Answers requests for paths outside of the configured roots, or any request while the file mode is disabled.
+     *
+     * @param e the exception
+     * @return a 403 response
+     */
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<String> handleAccessDenied(AccessDeniedException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Access denied: " + e.getFile() + ": " + e.getReason());
+    }
+
+    /**
+     * Answers requests whose source file does not exist.
+     *
+     * @param e the exception
+     * @return a 404 response
+     */
+    @ExceptionHandler(NoSuchFileException.class)
+    public ResponseEntity<String> handleNoSuchFile(NoSuchFileException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No such file: " + e.getFile());
+    }
+
+    /**
+     * Answers requests whose target exists when overwriting was not asked for.
+     *
+     * @param e the exception
+     * @return a 409 response
+     */
+    @ExceptionHandler(FileAlreadyExistsException.class)
+    public ResponseEntity<String> handleFileExists(FileAlreadyExistsException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Target exists: " + e.getFile() + ", set overwrite to replace it");
+    }
+
+    /**
+     * The body of a file mode request.
+     */
+    public static class FileRequest {
+        private String source;
+        private String target;
+        private boolean overwrite;
+
+        /**
+         * @return the absolute path of the file to read
+         */
+        public String getSource() {
+            return source;
+        }
+
+        public void setSource(String source) {
+            this.source = source;
+        }
+
+        /**
+         * @return the absolute path the result is written to; it may be the source itself
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        public void setTarget(String target) {
+            this.target = target;
+        }
+
+        /**
+         * @return whether an existing target is replaced
+         */
+        public boolean isOverwrite() {
+            return overwrite;
+        }
+
+        public void setOverwrite(boolean overwrite) {
+            this.overwrite = overwrite;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.parsehub.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parsehub.service.ConversionJob;
+import com.parsehub.service.JobService;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.JobStatus;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * REST controller for asynchronous conversion jobs.
+ * A submitted conversion returns a job handle right away; its progress is polled and its result downloaded
+ * once the job has completed.
+ */
+@RestController
+@RequestMapping("/api/v1/jobs")
+public class JobController {
+
+    private final JobService jobService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor for JobController.
+     *
+     * @param jobService the JobService running the conversion jobs
+     * @param objectMapper the mapper of the REST responses, which the submitted job is written with
+     */
+    @Autowired
+    public JobController(JobService jobService, ObjectMapper objectMapper) {
+        this.jobService = jobService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Submits a conversion job. The job is answered right away, with its status URL in the Location header,
+     * while the body is still being received: the body is read without blocking into a file, see {@link JobUpload},
+     * and the job is queued once it is complete. Until then the job is UPLOADING; it fails if the body breaks off.
+     *
+     * @param request the request, whose body contains the data to convert
+     * @param response the response the job is written to
+     * @param source the format of the input (JSON, XML, YAML or CSV)
+     * @param target the format to convert to
+     * @throws IOException if the job cannot be created or written
+     */
+    @PostMapping("/{source}/{target}")
+    public void submitJob(HttpServletRequest request, HttpServletResponse response, @PathVariable String source,
+                          @PathVariable String target) throws IOException {
+        ConversionJob job = jobService.create(
+                ConversionType.valueOf(source.toUpperCase()), ConversionType.valueOf(target.toUpperCase()));
+        try {
+            response.setStatus(HttpStatus.ACCEPTED.value());
+            response.setHeader(HttpHeaders.LOCATION, "/api/v1/jobs/" + job.getId());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(objectMapper.writeValueAsBytes(job));
+            response.flushBuffer();
+
+            AsyncContext async = request.startAsync();
+            // an idle client is timed out by the connector, which fails the upload
+            async.setTimeout(0);
+            ServletInputStream input = request.getInputStream();
+            input.setReadListener(new JobUpload(jobService, job, input, async));
+        } catch (IOException | RuntimeException e) {
+            jobService.uploadFailed(job, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the status and progress of a job.
+     *
+     * @param id the job id
+     * @return the job
+     */
+    @GetMapping("/{id}")
+    public ConversionJob getJob(@PathVariable String id) {
+        return findJob(id);
+    }
+
+    /**
+     * Downloads the result of a completed job.
+     *
+     * @param id the job id
+     * @return the converted data
+     */
+    @GetMapping("/{id}/result")
+    public ResponseEntity<Resource> getResult(@PathVariable String id) {
+        ConversionJob job = findJob(id);
+        if (job.getStatus() != JobStatus.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Job " + id + " is " + job.getStatus());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(job.getTarget().getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + id + "." + job.getTarget().name().toLowerCase() + "\"")
+                .body(new FileSystemResource(jobService.resultFile(job)));
+    }
+
+    /**
+     * Cancels a job, interrupting it if it is running, and deletes its data.
+     *
+     * @param id the job id
+     * @return the cancelled job
+     */
+    @DeleteMapping("/{id}")
+    public ConversionJob cancelJob(@PathVariable String id) {
+        return jobService.cancel(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job " + id));
+    }
+
+    /**
+     * Answers submissions made while the job queue is full, so clients back off and retry.
+     *
+     * @param e the rejection
+     * @return a 429 response with a Retry-After header
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleQueueFull(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body("Too many conversion jobs, retry later");
+    }
+
+    private ConversionJob findJob(String id) {
+        return jobService.find(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job " + id));
+    }
+}
@@ -0,0 +1,76 @@
+package com.parsehub.controller;
+
+import com.parsehub.service.ConversionJob;
+import com.parsehub.service.JobService;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Receives the body of a job submission without holding a request thread. The container calls back whenever
+ * a part of the body can be read without blocking, and it is written to the input file of the job; once the whole
+ * body has arrived the job is queued and the request completes. A body that breaks off fails the job.
+ */
+final class JobUpload implements ReadListener {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JobService jobService;
+    private final ConversionJob job;
+    private final ServletInputStream input;
+    private final AsyncContext async;
+    private final OutputStream output;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * @param jobService the service the job was created by
+     * @param job        the uploading job
+     * @param input      the request body, in non-blocking mode once this listener is set on it
+     * @param async      the asynchronous context of the request, completed when the upload ends
+     * @throws IOException if the input file of the job cannot be opened
+     */
+    JobUpload(JobService jobService, ConversionJob job, ServletInputStream input, AsyncContext async) throws IOException {
+        this.jobService = jobService;
+        this.job = job;
+        this.input = input;
+        this.async = async;
+        this.output = jobService.openInput(job);
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+        // read only while it does not block; the container calls again when more has arrived
+        while (input.isReady()) {
+            int read = input.read(buffer);
+            if (read < 0) {
+                return;
+            }
+            output.write(buffer, 0, read);
+        }
+    }
+
+    @Override
+    public void onAllDataRead() {
+        try {
+            output.close();
+            jobService.uploaded(job);
+        } catch (IOException e) {
+            jobService.uploadFailed(job, e);
+        } finally {
+            async.complete();
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        try {
+            output.close();
+        } catch (IOException e) {
+            // the job fails either way
+        }
+        jobService.uploadFailed(job, error);
+        async.complete();
+    }
+}
@@ -1,12 +1,24 @@
 package com.parsehub.controller;
 
+import com.parsehub.service.JsonSchemaRegistry;
 import com.parsehub.service.JsonService;
+import com.parsehub.service.NdjsonService;
+import com.parsehub.service.ResultCache;
 import com.parsehub.util.ConversionType;
+import com.parsehub.util.FlattenOptions;
 import com.parsehub.util.Format;
+import com.parsehub.util.KeyOrder;
+import com.parsehub.util.SortOptions;
 import com.parsehub.util.ValidationResult;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
  * REST controller for handling JSON-related operations.
  * This controller provides endpoints for validating, formatting, and converting JSON data.
@@ -16,94 +28,260 @@ import org.springframework.web.bind.annotation.*;
 public class JsonController {
 
     private final JsonService jsonService;
+    private final NdjsonService ndjsonService;
+    private final ResultCache resultCache;
+    private final JsonSchemaRegistry schemaRegistry;
 
     /**
      * Constructor for JsonController.
      *
      * @param jsonService the JsonService to handle JSON operations
+     * @param ndjsonService the NdjsonService to handle batches of newline-delimited JSON records
+     * @param resultCache the cache answering repeated requests
+     * @param schemaRegistry the registry of the schemas JSON can be validated against
      */
     @Autowired
-    public JsonController(JsonService jsonService) {
+    public JsonController(JsonService jsonService, NdjsonService ndjsonService, ResultCache resultCache,
+                          JsonSchemaRegistry schemaRegistry) {
         this.jsonService = jsonService;
+        this.ndjsonService = ndjsonService;
+        this.resultCache = resultCache;
+        this.schemaRegistry = schemaRegistry;
     }
 
     /**
      * Validates the given JSON.
+     * The request body is tokenized as it arrives, so large uploads are never held in memory.
      *
-     * @param json the input JSON string to validate
+     * @param json the request body stream containing the JSON to validate
      * @return ValidationResult object indicating whether the JSON is valid or not
+     * @throws IOException if reading the request fails
      */
     @PostMapping("/validate")
-    public ValidationResult validateJson(@RequestBody String json) {
-        return jsonService.validateJson(json);
+    public ValidationResult validateJson(InputStream json) throws IOException {
+        return resultCache.validate(json, "json/validate", jsonService::validateJson);
+    }
+
+    /**
+     * Validates the given JSON against a named JSON Schema, registered through the {@code /schemas} endpoints.
+     * The request body is checked against the compiled schema as it is tokenized, and every error
+     * carries the JSON Pointer of the value it is about.
+     *
+     * @param json the request body stream containing the JSON to validate
+     * @param schema the name of the schema the JSON must match
+     * @return ValidationResult object indicating whether the JSON is valid and matches the schema
+     * @throws IOException if reading the request fails
+     */
+    @PostMapping(value = "/validate", params = "schema")
+    public ValidationResult validateJson(InputStream json, @RequestParam String schema) throws IOException {
+        JsonSchemaRegistry.Schema registered = schemaRegistry.find(schema)
+                .orElseThrow(() -> JsonSchemaController.unknownSchema(schema));
+        return resultCache.validate(json, "json/validate", registered.digest(),
+                input -> jsonService.validateJson(input, registered));
     }
 
     /**
-     * Formats the given JSON string according to the specified format.
-     * The format can be SPACE_2, SPACE_4, or COMPACT.
+     * Formats the given JSON according to the specified format.
+     * The format can be SPACE_2, SPACE_4, or COMPACT. The whitespace is rewritten while the request body is read.
      *
-     * @param json the input JSON string to format
+     * @param json the request body stream containing the JSON to format
      * @param format the desired format (e.g., SPACE_2, SPACE_4, COMPACT)
-     * @return the formatted JSON string
+     * @param response the response the formatted JSON is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/format/{format}")
-    public String formatJson(@RequestBody String json, @PathVariable String format) {
+    public void formatJson(InputStream json, @PathVariable String format, HttpServletResponse response) throws IOException {
         Format formatEnum = Format.valueOf(format.toUpperCase());
-        return jsonService.formatJson(json, formatEnum);
+        prepare(response, MediaType.APPLICATION_JSON_VALUE);
+        resultCache.transform(json, response.getOutputStream(), "json/format", formatEnum,
+                (input, output) -> jsonService.formatJson(input, output, formatEnum));
     }
 
     /**
-     * Minifies the given JSON string by removing all unnecessary whitespace and formatting.
+     * Minifies the given JSON by removing all unnecessary whitespace and formatting.
      *
-     * @param json the input JSON string to minify
-     * @return the minified JSON string
+     * @param json the request body stream containing the JSON to minify
+     * @param response the response the minified JSON is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/minify")
-    public String minifyJson(@RequestBody String json) {
-        return jsonService.minifyJson(json);
+    public void minifyJson(InputStream json, HttpServletResponse response) throws IOException {
+        prepare(response, MediaType.APPLICATION_JSON_VALUE);
+        resultCache.transform(json, response.getOutputStream(), "json/minify", null, jsonService::minifyJson);
     }
 
     /**
-     * Converts the given JSON string into XML format.
+     * Converts the given JSON into XML format.
      *
-     * @param json the input JSON string to convert
-     * @return the converted XML string
+     * @param json the request body stream containing the JSON to convert
+     * @param response the response the XML is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/convert/xml")
-    public String convertJsonToXml(@RequestBody String json) {
-        return jsonService.convertData(json, ConversionType.XML);
+    public void convertJsonToXml(InputStream json, HttpServletResponse response) throws IOException {
+        convert(json, response, ConversionType.XML);
     }
 
     /**
-     * Converts the given JSON string into YAML format.
+     * Converts the given JSON into YAML format.
      *
-     * @param json the input JSON string to convert
-     * @return the converted YAML string
+     * @param json the request body stream containing the JSON to convert
+     * @param response the response the YAML is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/convert/yaml")
-    public String convertJsonToYaml(@RequestBody String json) {
-        return jsonService.convertData(json, ConversionType.YAML);
+    public void convertJsonToYaml(InputStream json, HttpServletResponse response) throws IOException {
+        convert(json, response, ConversionType.YAML);
     }
 
     /**
-     * Converts the given JSON string into CSV format.
+     * Converts the given JSON array into CSV format.
+     * Rows are streamed to the response while the request body is still being read.
      *
-     * @param json the input JSON string to convert
-     * @return the converted CSV string
+     * @param json the request body stream containing the JSON array to convert
+     * @param response the response the CSV is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/convert/csv")
-    public String convertJsonToCsv(@RequestBody String json) {
-        return jsonService.convertData(json, ConversionType.CSV);
+    public void convertJsonToCsv(InputStream json, HttpServletResponse response) throws IOException {
+        convert(json, response, ConversionType.CSV);
     }
 
     /**
-     * Sorts the keys in the JSON alphabetically.
+     * Converts JSON records of any shape into CSV, flattening nested objects and arrays into one column per path.
+     * The columns are the union of the paths of every record, found in a first pass over the request body,
+     * which is spooled to disk when it is large.
      *
-     * @param json the input JSON string to sort
-     * @return the sorted JSON string
+     * @param json the request body stream containing the JSON to convert
+     * @param paths how the column paths are written: DOT (default), as in {@code items.0.sku}, or BRACKET,
+     *              as in {@code items[0].sku}
+     * @param order the column order: INPUT (default), the order the columns are first found in, or a key order:
+     *              LEXICAL, CASE_INSENSITIVE or NATURAL
+     * @param typeHints whether the header names carry the column types, as in {@code id:integer}
+     * @param columns the comma-separated columns to write, or null for every column of the records
+     * @param response the response the CSV is written to
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping(value = "/convert/csv", params = "flatten=true")
+    public void flattenJsonToCsv(InputStream json, @RequestParam(defaultValue = "DOT") String paths,
+                                 @RequestParam(defaultValue = "INPUT") String order,
+                                 @RequestParam(defaultValue = "false") boolean typeHints,
+                                 @RequestParam(required = false) String columns,
+                                 HttpServletResponse response) throws IOException {
+        FlattenOptions options = FlattenOptions.of(paths, order, typeHints, columns);
+        prepare(response, ConversionType.CSV.getMediaType());
+        resultCache.transform(json, response.getOutputStream(), "json/convert", ConversionType.CSV, options,
+                (input, output) -> jsonService.convertJsonToCsv(input, output, options));
+    }
+
+    /**
+     * Sorts the keys in the JSON, in nested objects as well.
+     * The request body is streamed through the sort, which spills objects too large for memory to disk.
+     *
+     * @param json the request body stream containing the JSON to sort
+     * @param order the key order: LEXICAL (default), CASE_INSENSITIVE or NATURAL
+     * @param sortArrays whether the elements of arrays are sorted too; by default arrays keep their order
+     * @param response the response the sorted JSON is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/sort")
-    public String sortJson(@RequestBody String json) {
-        return jsonService.sortJson(json);
+    public void sortJson(InputStream json, @RequestParam(defaultValue = "LEXICAL") String order,
+                         @RequestParam(defaultValue = "false") boolean sortArrays, HttpServletResponse response) throws IOException {
+        SortOptions options = new SortOptions(KeyOrder.valueOf(order.toUpperCase().replace('-', '_')), sortArrays);
+        prepare(response, MediaType.APPLICATION_JSON_VALUE);
+        resultCache.transform(json, response.getOutputStream(), "json/sort", options,
+                (input, output) -> jsonService.sortJson(input, output, options));
+    }
+
+    /**
+     * Validates every record of a newline-delimited JSON batch.
+     * One validation result is written per record, in input order, with the line number of the record.
+     *
+     * @param ndjson the request body stream containing one JSON record per line
+     * @param response the response the NDJSON results are written to
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping("/ndjson/validate")
+    public void validateNdjson(InputStream ndjson, HttpServletResponse response) throws IOException {
+        prepare(response, MediaType.APPLICATION_NDJSON_VALUE);
+        resultCache.transform(ndjson, response.getOutputStream(), "ndjson/validate", null, ndjsonService::validate);
+    }
+
+    /**
+     * Formats every record of a newline-delimited JSON batch according to the specified format.
+     *
+     * @param ndjson the request body stream containing one JSON record per line
+     * @param format the desired format (e.g., SPACE_2, SPACE_4, COMPACT)
+     * @param response the response the formatted records are written to
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping("/ndjson/format/{format}")
+    public void formatNdjson(InputStream ndjson, @PathVariable String format, HttpServletResponse response) throws IOException {
+        Format formatEnum = Format.valueOf(format.toUpperCase());
+        prepare(response, MediaType.APPLICATION_NDJSON_VALUE);
+        resultCache.transform(ndjson, response.getOutputStream(), "ndjson/format", formatEnum,
+                (input, output) -> ndjsonService.format(input, output, formatEnum));
+    }
+
+    /**
+     * Minifies every record of a newline-delimited JSON batch.
+     *
+     * @param ndjson the request body stream containing one JSON record per line
+     * @param response the response the minified records are written to
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping("/ndjson/minify")
+    public void minifyNdjson(InputStream ndjson, HttpServletResponse response) throws IOException {
+        prepare(response, MediaType.APPLICATION_NDJSON_VALUE);
+        resultCache.transform(ndjson, response.getOutputStream(), "ndjson/minify", null, ndjsonService::minify);
+    }
+
+    /**
+     * Sorts the keys of every record of a newline-delimited JSON batch alphabetically.
+     *
+     * @param ndjson the request body stream containing one JSON record per line
+     * @param response the response the sorted records are written to
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping("/ndjson/sort")
+    public void sortNdjson(InputStream ndjson, HttpServletResponse response) throws IOException {
+        prepare(response, MediaType.APPLICATION_NDJSON_VALUE);
+        resultCache.transform(ndjson, response.getOutputStream(), "ndjson/sort", null, ndjsonService::sort);
+    }
+
+    /**
+     * Converts every record of a newline-delimited JSON batch into the specified format.
+     * The type can be JSON, XML, YAML, or CSV.
+     *
+     * @param ndjson the request body stream containing one JSON record per line
+     * @param type the target conversion format
+     * @param response the response the converted records are written to
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping("/ndjson/convert/{type}")
+    public void convertNdjson(InputStream ndjson, @PathVariable String type, HttpServletResponse response) throws IOException {
+        ConversionType typeEnum = ConversionType.valueOf(type.toUpperCase());
+        prepare(response, typeEnum == ConversionType.JSON ? MediaType.APPLICATION_NDJSON_VALUE : typeEnum.getMediaType());
+        resultCache.transform(ndjson, response.getOutputStream(), "ndjson/convert", typeEnum,
+                (input, output) -> ndjsonService.convert(input, output, typeEnum));
+    }
+
+    /**
+     * Streams the converted request body into the response.
+     *
+     * @param json the request body stream containing the JSON to convert
+     * @param response the response the converted data is written to
+     * @param type the target conversion format
+     * @throws IOException if reading the request or writing the response fails
+     */
+    private void convert(InputStream json, HttpServletResponse response, ConversionType type) throws IOException {
+        prepare(response, type.getMediaType());
+        resultCache.transform(json, response.getOutputStream(), "json/convert", type,
+                (input, output) -> jsonService.convertData(input, output, type));
+    }
+
+    private void prepare(HttpServletResponse response, String contentType) {
+        response.setContentType(contentType);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
     }
 }
@@ -0,0 +1,87 @@
+package com.parsehub.controller;
+
+import com.parsehub.service.JsonSchemaRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * REST controller managing the named JSON Schemas that JSON documents can be validated against,
+ * see {@link JsonController#validateJson(java.io.InputStream, String)}.
+ */
+@RestController
+@RequestMapping("/api/v1/json/schemas")
+public class JsonSchemaController {
+
+    private final JsonSchemaRegistry schemaRegistry;
+
+    /**
+     * Constructor for JsonSchemaController.
+     *
+     * @param schemaRegistry the registry of the named schemas
+     */
+    @Autowired
+    public JsonSchemaController(JsonSchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    /**
+     * Returns the names of the registered schemas.
+     *
+     * @return the schema names, in alphabetical order
+     */
+    @GetMapping
+    public List<String> listSchemas() {
+        return schemaRegistry.names();
+    }
+
+    /**
+     * Compiles the given schema and registers it under the name, replacing the schema registered under it before.
+     *
+     * @param name the name of the schema
+     * @param schema the JSON Schema document
+     * @return the name and the digest of the registered schema
+     */
+    @PutMapping("/{name}")
+    public JsonSchemaRegistry.Schema putSchema(@PathVariable String name, @RequestBody String schema) {
+        return schemaRegistry.register(name, schema);
+    }
+
+    /**
+     * Returns the schema registered under the name.
+     *
+     * @param name the name of the schema
+     * @return the JSON Schema document
+     */
+    @GetMapping(value = "/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getSchema(@PathVariable String name) {
+        return findSchema(name).text();
+    }
+
+    /**
+     * Removes the schema registered under the name.
+     *
+     * @param name the name of the schema
+     * @return an empty response
+     */
+    @DeleteMapping("/{name}")
+    public ResponseEntity<Void> deleteSchema(@PathVariable String name) {
+        if (!schemaRegistry.remove(name)) {
+            throw unknownSchema(name);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    private JsonSchemaRegistry.Schema findSchema(String name) {
+        return schemaRegistry.find(name).orElseThrow(() -> unknownSchema(name));
+    }
+
+    static ResponseStatusException unknownSchema(String name) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown schema " + name);
+    }
+}
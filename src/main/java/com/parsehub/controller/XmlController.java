@@ -1,28 +1,46 @@
 package com.parsehub.controller;
 
+import com.parsehub.service.ResultCache;
+import com.parsehub.service.XmlSchemaRegistry;
 import com.parsehub.service.XmlService;
+import com.parsehub.util.ConversionType;
 import com.parsehub.util.ValidationResult;
+import com.parsehub.util.XmlRecordOptions;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Controller for handling XML-related API endpoints.
  * This controller provides operations for validating, minifying, and converting XML data into other formats like JSON, YAML, and CSV.
+ * Record-oriented feeds can also be streamed into JSON, JSON Lines or CSV one record at a time, given the {@code record} path.
  */
 @RestController
 @RequestMapping("/api/v1/xml")
 public class XmlController {
+    private static final String JSON_LINES = "jsonl";
 
     private final XmlService xmlService;
+    private final ResultCache resultCache;
+    private final XmlSchemaRegistry schemaRegistry;
 
     /**
      * Constructor for XmlController.
      *
      * @param xmlService the XmlService to handle XML operations
+     * @param resultCache the cache answering repeated requests
+     * @param schemaRegistry the registry of the XML Schemas XML can be validated against
      */
     @Autowired
-    public XmlController(XmlService xmlService) {
+    public XmlController(XmlService xmlService, ResultCache resultCache, XmlSchemaRegistry schemaRegistry) {
         this.xmlService = xmlService;
+        this.resultCache = resultCache;
+        this.schemaRegistry = schemaRegistry;
     }
 
     /**
@@ -33,7 +51,25 @@ public class XmlController {
      */
     @PostMapping("/validate")
     public ValidationResult validateXml(@RequestBody String xml) {
-        return xmlService.validateXml(xml);
+        return resultCache.validate(xml, "xml/validate", xmlService::validateXml);
+    }
+
+    /**
+     * Validates the provided XML against a named XML Schema, registered through the {@code /schemas} endpoints.
+     * The request body is validated as a stream while it is parsed, and every violation is reported with its
+     * line and column.
+     *
+     * @param xml the request body stream containing the XML to validate
+     * @param schema the name of the schema the XML must match
+     * @return ValidationResult indicating if the XML is well-formed and matches the schema
+     * @throws IOException if reading the request fails
+     */
+    @PostMapping(value = "/validate", params = "schema")
+    public ValidationResult validateXml(InputStream xml, @RequestParam String schema) throws IOException {
+        XmlSchemaRegistry.Schema registered = schemaRegistry.find(schema)
+                .orElseThrow(() -> XmlSchemaController.unknownSchema(schema));
+        return resultCache.validate(xml, "xml/validate", registered.digest(),
+                input -> xmlService.validateXml(input, registered));
     }
 
     /**
@@ -44,39 +80,121 @@ public class XmlController {
      */
     @PostMapping("/minify")
     public String minifyXml(@RequestBody String xml) {
-        return xmlService.minifyXml(xml);
+        return resultCache.apply(xml, "xml/minify", null, xmlService::minifyXml);
     }
 
     /**
-     * Converts the provided XML string to JSON format.
+     * Converts the provided XML to JSON format.
      *
-     * @param xml the XML string to convert
-     * @return the converted JSON string
+     * @param xml the request body stream containing the XML to convert
+     * @param response the response the JSON is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/convert/json")
-    public String convertXmlToJson(@RequestBody String xml) {
-        return xmlService.convertXmlToJson(xml);
+    public void convertXmlToJson(InputStream xml, HttpServletResponse response) throws IOException {
+        convert(xml, response, ConversionType.JSON);
+    }
+
+    /**
+     * Converts the records of a record-oriented XML feed into a JSON array, streaming one record at a time.
+     *
+     * @param xml the request body stream containing the XML to convert
+     * @param record the path of the repeating record element, e.g. {@code /records/record}
+     * @param arrays the comma-separated names of the elements always read as arrays, or null for none
+     * @param response the response the JSON is written to
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping(value = "/convert/json", params = "record")
+    public void convertXmlRecordsToJson(InputStream xml, @RequestParam String record,
+                                        @RequestParam(required = false) String arrays,
+                                        HttpServletResponse response) throws IOException {
+        XmlRecordOptions options = XmlRecordOptions.of(record, arrays);
+        response.setContentType(ConversionType.JSON.getMediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resultCache.transform(xml, response.getOutputStream(), "xml/convert", ConversionType.JSON, options,
+                (input, output) -> xmlService.convertRecordsToJson(input, output, options));
+    }
+
+    /**
+     * Converts the records of a record-oriented XML feed into JSON Lines, one object per record, each written as
+     * soon as its element is closed.
+     *
+     * @param xml the request body stream containing the XML to convert
+     * @param record the path of the repeating record element, e.g. {@code /records/record}
+     * @param arrays the comma-separated names of the elements always read as arrays, or null for none
+     * @param response the response the JSON Lines are written to
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping("/convert/jsonl")
+    public void convertXmlRecordsToJsonLines(InputStream xml, @RequestParam String record,
+                                             @RequestParam(required = false) String arrays,
+                                             HttpServletResponse response) throws IOException {
+        XmlRecordOptions options = XmlRecordOptions.of(record, arrays);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resultCache.transform(xml, response.getOutputStream(), "xml/convert", JSON_LINES, options,
+                (input, output) -> xmlService.convertRecordsToJsonLines(input, output, options));
     }
 
     /**
-     * Converts the provided XML string to YAML format.
+     * Converts the provided XML to YAML format.
      *
-     * @param xml the XML string to convert
-     * @return the converted YAML string
+     * @param xml the request body stream containing the XML to convert
+     * @param response the response the YAML is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/convert/yaml")
-    public String convertXmlToYaml(@RequestBody String xml) {
-        return xmlService.convertXmlToYaml(xml);
+    public void convertXmlToYaml(InputStream xml, HttpServletResponse response) throws IOException {
+        convert(xml, response, ConversionType.YAML);
     }
 
     /**
-     * Converts the provided XML string to CSV format.
+     * Converts the provided XML to CSV format.
      *
-     * @param xml the XML string to convert
-     * @return the converted CSV string
+     * @param xml the request body stream containing the XML to convert
+     * @param response the response the CSV is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/convert/csv")
-    public String convertXmlToCsv(@RequestBody String xml) {
-        return xmlService.convertXmlToCsv(xml);
+    public void convertXmlToCsv(InputStream xml, HttpServletResponse response) throws IOException {
+        convert(xml, response, ConversionType.CSV);
+    }
+
+    /**
+     * Converts the records of a record-oriented XML feed into CSV, one row per record, streaming one record at
+     * a time. Nested elements and attributes become dotted column names.
+     *
+     * @param xml the request body stream containing the XML to convert
+     * @param record the path of the repeating record element, e.g. {@code /records/record}
+     * @param arrays the comma-separated names of the elements always read as arrays, or null for none
+     * @param columns the comma-separated column names, or null for the columns of every record
+     * @param response the response the CSV is written to
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping(value = "/convert/csv", params = "record")
+    public void convertXmlRecordsToCsv(InputStream xml, @RequestParam String record,
+                                       @RequestParam(required = false) String arrays,
+                                       @RequestParam(required = false) String columns,
+                                       HttpServletResponse response) throws IOException {
+        XmlRecordOptions options = XmlRecordOptions.of(record, arrays, columns);
+        response.setContentType(ConversionType.CSV.getMediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resultCache.transform(xml, response.getOutputStream(), "xml/convert", ConversionType.CSV, options,
+                (input, output) -> xmlService.convertRecordsToCsv(input, output, options));
+    }
+
+    /**
+     * Streams the converted request body into the response.
+     *
+     * @param xml the request body stream containing the XML to convert
+     * @param response the response the converted data is written to
+     * @param type the target conversion format
+     * @throws IOException if reading the request or writing the response fails
+     */
+    private void convert(InputStream xml, HttpServletResponse response, ConversionType type) throws IOException {
+        response.setContentType(type.getMediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resultCache.transform(xml, response.getOutputStream(), "xml/convert", type,
+                (input, output) -> xmlService.convertData(input, output, type));
     }
 }
@@ -1,10 +1,17 @@
 package com.parsehub.controller;
 
+import com.parsehub.service.ResultCache;
 import com.parsehub.service.YamlService;
+import com.parsehub.util.ConversionType;
 import com.parsehub.util.ValidationResult;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Controller for handling YAML-related API endpoints.
  * This controller provides operations for validating, minifying, and converting YAML data into other formats like JSON, XML, and CSV.
@@ -14,15 +21,18 @@ import org.springframework.web.bind.annotation.*;
 public class YamlController {
 
     private final YamlService yamlService;
+    private final ResultCache resultCache;
 
     /**
      * Constructor for YamlController.
      *
      * @param yamlService the YamlService to handle YAML operations
+     * @param resultCache the cache answering repeated requests
      */
     @Autowired
-    public YamlController(YamlService yamlService) {
+    public YamlController(YamlService yamlService, ResultCache resultCache) {
         this.yamlService = yamlService;
+        this.resultCache = resultCache;
     }
 
     /**
@@ -33,7 +43,7 @@ public class YamlController {
      */
     @PostMapping("/validate")
     public ValidationResult validateYaml(@RequestBody String yaml) {
-        return yamlService.validateYaml(yaml);
+        return resultCache.validate(yaml, "yaml/validate", yamlService::validateYaml);
     }
 
     /**
@@ -44,39 +54,57 @@ public class YamlController {
      */
     @PostMapping("/minify")
     public String minifyYaml(@RequestBody String yaml) {
-        return yamlService.minifyYaml(yaml);
+        return resultCache.apply(yaml, "yaml/minify", null, yamlService::minifyYaml);
     }
 
     /**
-     * Converts the provided YAML string to JSON format.
+     * Converts the provided YAML to JSON format.
      *
-     * @param yaml the YAML string to convert
-     * @return the converted JSON string
+     * @param yaml the request body stream containing the YAML to convert
+     * @param response the response the JSON is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/convert/json")
-    public String convertYamlToJson(@RequestBody String yaml) {
-        return yamlService.convertYamlToJson(yaml);
+    public void convertYamlToJson(InputStream yaml, HttpServletResponse response) throws IOException {
+        convert(yaml, response, ConversionType.JSON);
     }
 
     /**
-     * Converts the provided YAML string to XML format.
+     * Converts the provided YAML to XML format.
      *
-     * @param yaml the YAML string to convert
-     * @return the converted XML string
+     * @param yaml the request body stream containing the YAML to convert
+     * @param response the response the XML is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/convert/xml")
-    public String convertYamlToXml(@RequestBody String yaml) {
-        return yamlService.convertYamlToXml(yaml);
+    public void convertYamlToXml(InputStream yaml, HttpServletResponse response) throws IOException {
+        convert(yaml, response, ConversionType.XML);
     }
 
     /**
-     * Converts the provided YAML string to CSV format.
+     * Converts the provided YAML to CSV format.
      *
-     * @param yaml the YAML string to convert
-     * @return the converted CSV string
+     * @param yaml the request body stream containing the YAML to convert
+     * @param response the response the CSV is written to
+     * @throws IOException if reading the request or writing the response fails
      */
     @PostMapping("/convert/csv")
-    public String convertYamlToCsv(@RequestBody String yaml) {
-        return yamlService.convertYamlToCsv(yaml);
+    public void convertYamlToCsv(InputStream yaml, HttpServletResponse response) throws IOException {
+        convert(yaml, response, ConversionType.CSV);
+    }
+
+    /**
+     * Streams the converted request body into the response.
+     *
+     * @param yaml the request body stream containing the YAML to convert
+     * @param response the response the converted data is written to
+     * @param type the target conversion format
+     * @throws IOException if reading the request or writing the response fails
+     */
+    private void convert(InputStream yaml, HttpServletResponse response, ConversionType type) throws IOException {
+        response.setContentType(type.getMediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resultCache.transform(yaml, response.getOutputStream(), "yaml/convert", type,
+                (input, output) -> yamlService.convertData(input, output, type));
     }
 }
@@ -1,4 +1,39 @@
 package com.parsehub.exception;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Turns the exceptions of the REST endpoints into error responses.
+ * Failures caused by the request, such as an unknown format or an input that cannot be converted,
+ * are answered with 400 instead of a server error. The failures are counted by the operation metrics.
+ */
+@RestControllerAdvice(basePackages = "com.parsehub.controller")
 public class GlobalExceptionHandler {
+
+    /**
+     * Answers requests naming an unknown format or conversion type, or whose input has the wrong shape
+     * for the conversion, such as a JSON object converted to CSV.
+     *
+     * @param e the exception
+     * @return a 400 response with the message of the exception
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    /**
+     * Answers requests whose input could not be parsed where the operation does not report it in its output.
+     *
+     * @param e the exception
+     * @return a 400 response with the parser message
+     */
+    @ExceptionHandler(JsonProcessingException.class)
+    public ResponseEntity<String> handleMalformedInput(JsonProcessingException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Malformed input: " + e.getOriginalMessage());
+    }
 }
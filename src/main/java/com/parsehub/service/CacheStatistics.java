@@ -0,0 +1,83 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * A snapshot of the result cache counters, reported to clients.
+ * Hits and misses count lookups over both tiers; bypassed counts inputs too large to be cached.
+ */
+@JsonPropertyOrder({"hits", "misses", "hitRate", "bypassed", "memoryEntries", "memoryBytes", "memoryEvictions",
+        "diskEntries", "diskBytes", "diskEvictions"})
+public class CacheStatistics {
+    private final long hits;
+    private final long misses;
+    private final long bypassed;
+    private long memoryEntries;
+    private long memoryBytes;
+    private long memoryEvictions;
+    private long diskEntries;
+    private long diskBytes;
+    private long diskEvictions;
+
+    CacheStatistics(long hits, long misses, long bypassed) {
+        this.hits = hits;
+        this.misses = misses;
+        this.bypassed = bypassed;
+    }
+
+    void setMemory(long entries, long bytes, long evictions) {
+        this.memoryEntries = entries;
+        this.memoryBytes = bytes;
+        this.memoryEvictions = evictions;
+    }
+
+    void setDisk(long entries, long bytes, long evictions) {
+        this.diskEntries = entries;
+        this.diskBytes = bytes;
+        this.diskEvictions = evictions;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the share of lookups answered from the cache, 0 before the first lookup
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public long getBypassed() {
+        return bypassed;
+    }
+
+    public long getMemoryEntries() {
+        return memoryEntries;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public long getMemoryEvictions() {
+        return memoryEvictions;
+    }
+
+    public long getDiskEntries() {
+        return diskEntries;
+    }
+
+    public long getDiskBytes() {
+        return diskBytes;
+    }
+
+    public long getDiskEvictions() {
+        return diskEvictions;
+    }
+}
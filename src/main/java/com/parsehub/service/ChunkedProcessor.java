@@ -0,0 +1,217 @@
+package com.parsehub.service;
+
+import com.parsehub.config.ParseHubProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Splits large line-oriented inputs into chunks that end on record boundaries and processes the chunks
+ * in parallel on a fork-join pool. Results are handed back in input order.
+ * The input is read on the calling thread; at most two chunks per pool thread are in flight at once,
+ * so memory use is bounded by the parallelism and the chunk size, not by the input size.
+ */
+@Component
+public class ChunkedProcessor {
+    private final int parallelism;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor that takes the configured parallelism and chunk size.
+     *
+     * @param properties the application settings
+     */
+    @Autowired
+    public ChunkedProcessor(ParseHubProperties properties) {
+        this.parallelism = Math.max(1, properties.getParallelism());
+        this.chunkSize = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, properties.getChunkSize().toBytes()));
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Reads the input in chunks and processes every chunk.
+     * An input that fits into a single chunk, or any input when the parallelism is 1, is processed on the calling thread.
+     *
+     * @param input    the stream to split
+     * @param boundary where records end
+     * @param handler  processes a single chunk, possibly on a pool thread
+     * @param results  receives the result of every chunk in input order, on the calling thread
+     * @throws IOException if reading the input, processing a chunk or writing a result fails
+     */
+    public void process(InputStream input, Boundary boundary, ChunkHandler handler, ResultWriter results) throws IOException {
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        try {
+            byte[] buffer = new byte[chunkSize];
+            int length = 0;
+            int index = 0;
+            long firstLine = 1;
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                int read = input.readNBytes(buffer, length, buffer.length - length);
+                length += read;
+                endOfInput = length < buffer.length;
+
+                int end = endOfInput ? length : boundary.end(buffer, length);
+                if (end == 0) {
+                    if (!endOfInput) {
+                        // a single record is longer than the buffer
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    continue;
+                }
+
+                Chunk chunk = new Chunk(index++, firstLine, buffer, end);
+                if (!endOfInput) {
+                    firstLine += chunk.lineCount();
+                    byte[] next = new byte[Math.max(chunkSize, length - end)];
+                    System.arraycopy(buffer, end, next, 0, length - end);
+                    length -= end;
+                    buffer = next;
+                }
+
+                if (pool == null || (endOfInput && pending.isEmpty() && chunk.index() == 0)) {
+                    results.write(handler.process(chunk));
+                    continue;
+                }
+                pending.add(pool.submit(() -> {
+                    try {
+                        return handler.process(chunk);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+                if (pending.size() >= 2 * parallelism) {
+                    results.write(await(pending.poll()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                results.write(await(pending.poll()));
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a chunk");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Shuts the pool down when the application context closes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Decides where the last complete record of a buffer ends.
+     */
+    public enum Boundary {
+        /**
+         * Records are single lines, as in JSON Lines.
+         */
+        LINE {
+            @Override
+            int end(byte[] buffer, int length) {
+                for (int i = length - 1; i >= 0; i--) {
+                    if (buffer[i] == '\n') {
+                        return i + 1;
+                    }
+                }
+                return 0;
+            }
+        },
+        /**
+         * Records are CSV rows, which may contain line breaks inside quoted fields.
+         * A chunk always starts outside quotes, so the quote state is tracked from its first byte.
+         */
+        CSV_RECORD {
+            @Override
+            int end(byte[] buffer, int length) {
+                boolean quoted = false;
+                int end = 0;
+                for (int i = 0; i < length; i++) {
+                    byte b = buffer[i];
+                    if (b == '"') {
+                        quoted = !quoted;
+                    } else if (b == '\n' && !quoted) {
+                        end = i + 1;
+                    }
+                }
+                return end;
+            }
+        };
+
+        /**
+         * @param buffer the buffer, starting at a record boundary
+         * @param length the number of bytes in the buffer
+         * @return the offset after the last complete record, or 0 if the buffer holds no complete record
+         */
+        abstract int end(byte[] buffer, int length);
+    }
+
+    /**
+     * A part of the input that starts and ends on a record boundary.
+     *
+     * @param index     the position of the chunk in the input, starting at 0
+     * @param firstLine the 1-based line number of the first line of the chunk
+     * @param data      the buffer holding the chunk, starting at offset 0
+     * @param length    the number of bytes of the chunk
+     */
+    public record Chunk(int index, long firstLine, byte[] data, int length) {
+        long lineCount() {
+            long lines = 0;
+            for (int i = 0; i < length; i++) {
+                if (data[i] == '\n') {
+                    lines++;
+                }
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * Processes a single chunk into its result.
+     */
+    @FunctionalInterface
+    public interface ChunkHandler {
+        byte[] process(Chunk chunk) throws IOException;
+    }
+
+    /**
+     * Writes the result of a chunk.
+     */
+    @FunctionalInterface
+    public interface ResultWriter {
+        void write(byte[] result) throws IOException;
+    }
+}
@@ -0,0 +1,512 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.CsvOptions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.xml.namespace.QName;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Converts data between any pair of {@link ConversionType}s in a single pass.
+ * Tokens are copied from a parser of the source format straight to a generator of the target format,
+ * so no intermediate tree or string is built for the whole document.
+ */
+@Component
+public class ConversionEngine {
+    private static final String XML_OBJECT_ROOT = "ObjectNode";
+    private static final String XML_ARRAY_ROOT = "ArrayNode";
+    private static final String XML_VALUE_ROOT = "ValueNode";
+    private static final String XML_ARRAY_ITEM = "item";
+    private static final SerializedString ROOT_VALUE_SEPARATOR = new SerializedString("\n");
+    private static final SerializedString CSV_ROW_SEPARATOR = new SerializedString(",");
+    private static final int CSV_HEADER_BUFFER_SIZE = 64 * 1024;
+    private static final int CSV_SAMPLE_SIZE = 64 * 1024;
+
+    private final MapperRegistry mappers;
+    private final ChunkedProcessor chunkedProcessor;
+
+    /**
+     * Constructor that takes the shared mappers for every format.
+     *
+     * @param mappers          the shared mapper registry
+     * @param chunkedProcessor splits large CSV inputs into chunks converted in parallel
+     */
+    @Autowired
+    public ConversionEngine(MapperRegistry mappers, ChunkedProcessor chunkedProcessor) {
+        this.mappers = mappers;
+        this.chunkedProcessor = chunkedProcessor;
+    }
+
+    /**
+     * Converts data read from a stream and writes the result to another stream.
+     * The output stream is flushed but left open. CSV input is split into chunks of rows that are converted in parallel.
+     *
+     * @param input  the stream containing data in the source format
+     * @param source the format of the input
+     * @param output the stream the converted data is written to
+     * @param target the format to convert to
+     * @throws IOException if the input cannot be parsed or the output cannot be written
+     */
+    public void convert(InputStream input, ConversionType source, OutputStream output, ConversionType target) throws IOException {
+        convert(input, source, output, target, new LongAdder());
+    }
+
+    /**
+     * Converts data read from a stream and writes the result to another stream, counting the records written.
+     * A record is an element of a root array, such as a CSV row, or any other root value.
+     *
+     * @param input   the stream containing data in the source format
+     * @param source  the format of the input
+     * @param output  the stream the converted data is written to
+     * @param target  the format to convert to
+     * @param records incremented for every record written, so that another thread can follow the progress
+     * @throws IOException if the input cannot be parsed or the output cannot be written
+     */
+    public void convert(InputStream input, ConversionType source, OutputStream output, ConversionType target,
+                        LongAdder records) throws IOException {
+        if (source == ConversionType.CSV) {
+            convertCsv(input, CsvOptions.TEXT, output, target, false, records);
+            return;
+        }
+        try (JsonParser parser = createParser(source, input)) {
+            transfer(parser, source, target, mapper -> mapper.createGenerator(output), records);
+        }
+    }
+
+    /**
+     * Converts a string from the source format to the target format.
+     *
+     * @param input  the data in the source format
+     * @param source the format of the input
+     * @param target the format to convert to
+     * @return the converted data
+     * @throws IOException if the input cannot be parsed or converted
+     */
+    public String convert(String input, ConversionType source, ConversionType target) throws IOException {
+        StringWriter output = new StringWriter();
+        try (JsonParser parser = createParser(source, input)) {
+            transfer(parser, source, target, mapper -> mapper.createGenerator(output), new LongAdder());
+        }
+        return output.toString();
+    }
+
+    /**
+     * Converts the values of an already open parser and writes the result to a stream.
+     * The parser is read to its end but not closed, and the output stream is flushed but left open.
+     *
+     * @param parser the parser of the source format, positioned before the first token
+     * @param source the format of the input
+     * @param output the stream the converted data is written to
+     * @param target the format to convert to
+     * @throws IOException if the input cannot be parsed or the output cannot be written
+     */
+    public void convert(JsonParser parser, ConversionType source, OutputStream output, ConversionType target) throws IOException {
+        transfer(parser, source, target, mapper -> mapper.createGenerator(output), new LongAdder());
+    }
+
+    private JsonParser createParser(ConversionType source, InputStream input) throws IOException {
+        return switch (source) {
+            case XML -> xmlTreeParser(mappers.xml().createParser(input));
+            case CSV -> csvReader().createParser(input);
+            case YAML -> new YamlAliasParser(mappers.yaml().createParser(input));
+            default -> mappers.mapper(source).createParser(input);
+        };
+    }
+
+    private JsonParser createParser(ConversionType source, String input) throws IOException {
+        return switch (source) {
+            case XML -> xmlTreeParser(mappers.xml().createParser(input));
+            case CSV -> csvReader().createParser(input);
+            case YAML -> new YamlAliasParser(mappers.yaml().createParser(input));
+            default -> mappers.mapper(source).createParser(input);
+        };
+    }
+
+    /**
+     * XML is read into a tree before conversion: the streaming XML parser reports repeated elements as
+     * duplicate fields, and only the tree reader merges them into arrays. Record-oriented feeds can be streamed
+     * record by record instead, see {@link XmlRecordConverter}.
+     *
+     * @param parser the XML parser
+     * @return a parser over the merged tree
+     * @throws IOException if the XML cannot be parsed
+     */
+    private JsonParser xmlTreeParser(JsonParser parser) throws IOException {
+        try (parser) {
+            JsonNode tree = mappers.xml().readTree(parser);
+            return (tree == null ? mappers.json().missingNode() : tree).traverse(mappers.json());
+        }
+    }
+
+    /**
+     * CSV rows are read as objects keyed by the header line and exposed as a single array.
+     *
+     * @return a reader producing CSV parsers
+     */
+    private ObjectReader csvReader() {
+        return mappers.csv().readerFor(JsonNode.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .with(CsvParser.Feature.WRAP_AS_ARRAY);
+    }
+
+    /**
+     * Copies every root value from the parser to the target output.
+     * Multiple root values, such as the documents of a YAML stream, are written one per line in JSON
+     * and as separate documents in YAML; for XML each of them becomes a document with its own root element.
+     *
+     * @param parser the parser of the source format, positioned before the first token
+     * @param source the format of the input
+     * @param target the format to convert to
+     * @param output  opens generators on the conversion output
+     * @param records counts the records written
+     * @throws IOException if reading or writing fails
+     */
+    private void transfer(JsonParser parser, ConversionType source, ConversionType target, Output output,
+                          LongAdder records) throws IOException {
+        ObjectMapper mapper = mappers.mapper(target);
+        if (target == ConversionType.XML) {
+            for (int documents = 0; parser.nextToken() != null; documents++) {
+                try (JsonGenerator generator = open(output, mapper)) {
+                    if (documents > 0) {
+                        generator.writeRaw('\n');
+                    }
+                    writeXmlRoot(parser, (ToXmlGenerator) generator, records);
+                }
+            }
+            return;
+        }
+
+        try (JsonGenerator generator = open(output, mapper)) {
+            if (target == ConversionType.CSV) {
+                writeCsv(parser, source, generator, records);
+                return;
+            }
+            if (target == ConversionType.JSON) {
+                generator.setRootValueSeparator(ROOT_VALUE_SEPARATOR);
+            }
+            while (parser.nextToken() != null) {
+                if (parser.currentToken() != JsonToken.START_ARRAY) {
+                    generator.copyCurrentStructure(parser);
+                    records.increment();
+                    continue;
+                }
+                generator.writeStartArray();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    generator.copyCurrentStructure(parser);
+                    records.increment();
+                }
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private JsonGenerator open(Output output, ObjectMapper mapper) throws IOException {
+        return output.open(mapper).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * XML needs a named root element. Objects and scalars become the root directly,
+     * array elements are wrapped in item elements below the root.
+     */
+    private void writeXmlRoot(JsonParser parser, ToXmlGenerator generator, LongAdder records) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT -> {
+                generator.setNextName(new QName(XML_OBJECT_ROOT));
+                generator.copyCurrentStructure(parser);
+                records.increment();
+            }
+            case START_ARRAY -> {
+                generator.setNextName(new QName(XML_ARRAY_ROOT));
+                generator.writeStartObject();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    generator.writeFieldName(XML_ARRAY_ITEM);
+                    generator.copyCurrentStructure(parser);
+                    records.increment();
+                }
+                generator.writeEndObject();
+            }
+            default -> {
+                generator.setNextName(new QName(XML_VALUE_ROOT));
+                generator.copyCurrentStructure(parser);
+                records.increment();
+            }
+        }
+    }
+
+    /**
+     * Writes each element of the root array as one CSV row, reading one element at a time.
+     * The header is taken from the fields of the first element. Further root arrays, such as the documents
+     * of a YAML stream, append rows under the same header.
+     */
+    private void writeCsv(JsonParser parser, ConversionType source, JsonGenerator generator, LongAdder records) throws IOException {
+        SequenceWriter rows = null;
+        try {
+            while (parser.nextToken() != null) {
+                if (parser.currentToken() != JsonToken.START_ARRAY) {
+                    throw new IllegalArgumentException(switch (source) {
+                        case XML -> "XML must represent an array-like structure for CSV conversion";
+                        case YAML -> "YAML must be a sequence to convert to CSV";
+                        default -> "JSON must be an array to convert to CSV";
+                    });
+                }
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    JsonNode row = mappers.json().readTree(parser);
+                    if (rows == null) {
+                        List<String> columns = new ArrayList<>();
+                        row.fieldNames().forEachRemaining(columns::add);
+                        rows = mappers.csvWriter(columns).writeValues(generator);
+                    }
+                    rows.write(row);
+                    records.increment();
+                }
+            }
+        } finally {
+            if (rows != null) {
+                rows.flush();
+            }
+        }
+    }
+
+    /**
+     * Converts CSV read from a stream and writes the result to another stream, counting the rows written.
+     * The column names come from the header line or the explicit schema of the options; the values of typed
+     * columns are converted to numbers, booleans or nulls, except for a CSV target, which keeps the text.
+     * The output stream is flushed but left open.
+     *
+     * @param input   the stream containing the CSV
+     * @param options where the column names come from and how the values are typed
+     * @param output  the stream the converted data is written to
+     * @param target  the format to convert to
+     * @param records incremented for every row written
+     * @throws IOException if the input cannot be parsed or the output cannot be written
+     */
+    public void convertCsv(InputStream input, CsvOptions options, OutputStream output, ConversionType target,
+                           LongAdder records) throws IOException {
+        convertCsv(input, options, output, target, false, records);
+    }
+
+    /**
+     * Converts CSV read from a stream into JSON Lines, one object per row, and writes it to another stream.
+     *
+     * @param input   the stream containing the CSV
+     * @param options where the column names come from and how the values are typed
+     * @param output  the stream the JSON Lines are written to
+     * @param records incremented for every row written
+     * @throws IOException if the input cannot be parsed or the output cannot be written
+     */
+    public void convertCsvToJsonLines(InputStream input, CsvOptions options, OutputStream output,
+                                      LongAdder records) throws IOException {
+        convertCsv(input, options, output, ConversionType.JSON, true, records);
+    }
+
+    /**
+     * Converts CSV in chunks of whole rows. The header line is read first; every chunk is then parsed with the
+     * header's columns on a pool thread and converted into a fragment of the target document, such as the items
+     * of the XML root or the elements of the JSON array. The fragments are joined in input order, which gives
+     * the same output as converting the whole input in one pass.
+     * <p>
+     * Column types that are neither declared nor disabled are inferred from the rows of the first
+     * {@value #CSV_SAMPLE_SIZE} bytes after the header, which are read ahead and then converted like the rest,
+     * so memory stays bounded by the sample and the chunks in flight.
+     */
+    private void convertCsv(InputStream input, CsvOptions options, OutputStream output, ConversionType target,
+                            boolean lines, LongAdder records) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input, CSV_HEADER_BUFFER_SIZE);
+        List<String> columns = null;
+        if (options.isHeader()) {
+            byte[] headerLine = readCsvRecord(in);
+            if (headerLine.length == 0) {
+                if (!lines) {
+                    // no header: let the single-pass reader report it
+                    try (JsonParser parser = createParser(ConversionType.CSV, in)) {
+                        transfer(parser, ConversionType.CSV, target, mapper -> mapper.createGenerator(output), records);
+                    }
+                }
+                output.flush();
+                return;
+            }
+            columns = Arrays.asList(mappers.csv().readerFor(String[].class).<String[]>readValue(headerLine));
+        }
+        if (options.getColumns() != null) {
+            columns = options.getColumns().stream().map(CsvOptions.Column::name).toList();
+        }
+        CsvSchema.Builder schemaBuilder = CsvSchema.builder();
+        columns.forEach(schemaBuilder::addColumn);
+        CsvSchema schema = schemaBuilder.build();
+        ObjectReader rows = mappers.csv().readerFor(JsonNode.class).with(schema);
+
+        Map<String, CsvOptions.ColumnType> types = target == ConversionType.CSV ? null
+                : csvColumnTypes(in, rows, columns, options);
+
+        Fragments fragments = lines ? new Fragments(output, "", "", "", "") : switch (target) {
+            case JSON -> new Fragments(output, "[", ",", "]", "[]");
+            case XML -> new Fragments(output, "<" + XML_ARRAY_ROOT + ">", "", "</" + XML_ARRAY_ROOT + ">", "<" + XML_ARRAY_ROOT + "/>");
+            case YAML -> new Fragments(output, "", "", "", "[]\n");
+            case CSV -> new Fragments(output, mappers.csv().writeValueAsString(columns), "", "", "");
+        };
+        chunkedProcessor.process(in, ChunkedProcessor.Boundary.CSV_RECORD,
+                chunk -> convertCsvChunk(chunk, rows, schema, types, target, lines, records), fragments::write);
+        fragments.finish();
+    }
+
+    /**
+     * Returns the types of the CSV columns, inferring the undeclared ones from a sample read ahead of the stream,
+     * or null if every column holds strings.
+     */
+    private static Map<String, CsvOptions.ColumnType> csvColumnTypes(BufferedInputStream in, ObjectReader rows,
+                                                                     List<String> columns, CsvOptions options) throws IOException {
+        CsvColumnTypes columnTypes = CsvColumnTypes.declared(columns, options);
+        if (options.isInferTypes() && columnTypes.isIncomplete()) {
+            in.mark(CSV_SAMPLE_SIZE);
+            byte[] sample = in.readNBytes(CSV_SAMPLE_SIZE);
+            in.reset();
+            // a partial last row would be inferred from its truncated value
+            int end = sample.length < CSV_SAMPLE_SIZE ? sample.length
+                    : ChunkedProcessor.Boundary.CSV_RECORD.end(sample, sample.length);
+            try (MappingIterator<JsonNode> sampleRows = rows.readValues(sample, 0, end)) {
+                columnTypes.infer(sampleRows);
+            }
+        }
+        return columnTypes.isTyped() ? columnTypes.byName() : null;
+    }
+
+    private byte[] convertCsvChunk(ChunkedProcessor.Chunk chunk, ObjectReader rows, CsvSchema schema,
+                                   Map<String, CsvOptions.ColumnType> types, ConversionType target, boolean lines,
+                                   LongAdder records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(chunk.length() + chunk.length() / 2);
+        try (MappingIterator<JsonNode> iterator = rows.readValues(chunk.data(), 0, chunk.length())) {
+            if (!iterator.hasNextValue()) {
+                return out.toByteArray();
+            }
+            if (target == ConversionType.XML) {
+                ObjectWriter item = mappers.xml().writer().withRootName(XML_ARRAY_ITEM);
+                while (iterator.hasNextValue()) {
+                    item.writeValue(out, typed(iterator.nextValue(), types));
+                    records.increment();
+                }
+                return out.toByteArray();
+            }
+            try (JsonGenerator generator = mappers.mapper(target).createGenerator(out)) {
+                switch (target) {
+                    case JSON -> {
+                        generator.setRootValueSeparator(lines ? ROOT_VALUE_SEPARATOR : CSV_ROW_SEPARATOR);
+                        while (iterator.hasNextValue()) {
+                            generator.writeTree(typed(iterator.nextValue(), types));
+                            records.increment();
+                        }
+                        if (lines) {
+                            generator.writeRaw('\n');
+                        }
+                    }
+                    case CSV -> {
+                        try (SequenceWriter writer = mappers.csv().writer(schema).writeValues(generator)) {
+                            while (iterator.hasNextValue()) {
+                                writer.write(iterator.nextValue());
+                                records.increment();
+                            }
+                        }
+                    }
+                    default -> {
+                        generator.writeStartArray();
+                        while (iterator.hasNextValue()) {
+                            generator.writeTree(typed(iterator.nextValue(), types));
+                            records.increment();
+                        }
+                        generator.writeEndArray();
+                    }
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static JsonNode typed(JsonNode row, Map<String, CsvOptions.ColumnType> types) {
+        return types == null ? row : CsvColumnTypes.apply(row, types);
+    }
+
+    /**
+     * Reads the first CSV record, including its line break. Line breaks inside quoted fields do not end the record.
+     */
+    private static byte[] readCsvRecord(InputStream input) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        boolean quoted = false;
+        for (int b = input.read(); b != -1; b = input.read()) {
+            record.write(b);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                break;
+            }
+        }
+        return record.toByteArray();
+    }
+
+    /**
+     * Joins the converted fragments of a document: writes the opening part before the first non-empty fragment,
+     * a separator between fragments and the closing part at the end, or the empty document if no fragment had content.
+     */
+    private static final class Fragments {
+        private final OutputStream output;
+        private final byte[] start;
+        private final byte[] separator;
+        private final byte[] end;
+        private final byte[] empty;
+        private boolean started;
+
+        Fragments(OutputStream output, String start, String separator, String end, String empty) {
+            this.output = output;
+            this.start = start.getBytes(StandardCharsets.UTF_8);
+            this.separator = separator.getBytes(StandardCharsets.UTF_8);
+            this.end = end.getBytes(StandardCharsets.UTF_8);
+            this.empty = empty.getBytes(StandardCharsets.UTF_8);
+        }
+
+        void write(byte[] fragment) throws IOException {
+            if (fragment.length == 0) {
+                return;
+            }
+            output.write(started ? separator : start);
+            output.write(fragment);
+            started = true;
+        }
+
+        void finish() throws IOException {
+            output.write(started ? end : empty);
+            output.flush();
+        }
+    }
+
+    /**
+     * Opens a generator of the given mapper on the conversion output.
+     */
+    @FunctionalInterface
+    private interface Output {
+        JsonGenerator open(ObjectMapper mapper) throws IOException;
+    }
+}
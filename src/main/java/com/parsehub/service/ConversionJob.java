@@ -0,0 +1,199 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.CountingInputStream;
+import com.parsehub.util.JobStatus;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An asynchronous conversion of an uploaded input file into a result file.
+ * The getters form the status reported to clients; they may be called from any thread while the job runs.
+ */
+@JsonPropertyOrder({"id", "source", "target", "status", "bytesRead", "totalBytes", "records", "outputBytes", "error",
+        "submittedAt", "finishedAt"})
+public class ConversionJob {
+    private final String id;
+    private final ConversionType source;
+    private final ConversionType target;
+    private final Path input;
+    private final Path output;
+    private final Instant submittedAt = Instant.now();
+    private final LongAdder records = new LongAdder();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private volatile JobStatus status = JobStatus.UPLOADING;
+    private volatile long totalBytes;
+    private volatile long outputBytes;
+    private volatile String error;
+    private volatile Instant finishedAt;
+    private volatile CountingInputStream reader;
+    private volatile Future<?> future;
+
+    ConversionJob(String id, ConversionType source, ConversionType target, Path input, Path output) {
+        this.id = id;
+        this.source = source;
+        this.target = target;
+        this.input = input;
+        this.output = output;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ConversionType getSource() {
+        return source;
+    }
+
+    public ConversionType getTarget() {
+        return target;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the number of input bytes converted so far.
+     *
+     * @return the bytes read from the spooled input
+     */
+    public long getBytesRead() {
+        CountingInputStream current = reader;
+        return status == JobStatus.COMPLETED ? totalBytes : current == null ? 0 : current.getCount();
+    }
+
+    /**
+     * Returns the size of the input, which is known once the upload is complete.
+     *
+     * @return the bytes of the uploaded input, or 0 while it is uploading
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the number of records written so far: array elements, CSV rows or other root values.
+     *
+     * @return the records emitted
+     */
+    public long getRecords() {
+        return records.sum();
+    }
+
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    Path input() {
+        return input;
+    }
+
+    Path output() {
+        return output;
+    }
+
+    LongAdder recordCounter() {
+        return records;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Moves an uploaded job to queued, unless it was cancelled or failed during the upload.
+     */
+    synchronized boolean queue(long totalBytes) {
+        if (status != JobStatus.UPLOADING) {
+            return false;
+        }
+        this.totalBytes = totalBytes;
+        status = JobStatus.QUEUED;
+        return true;
+    }
+
+    /**
+     * Moves a queued job to running, unless it was cancelled while waiting.
+     */
+    synchronized boolean start(CountingInputStream reader) {
+        if (status != JobStatus.QUEUED) {
+            return false;
+        }
+        this.reader = reader;
+        status = JobStatus.RUNNING;
+        return true;
+    }
+
+    synchronized void complete(long outputBytes) {
+        if (status == JobStatus.RUNNING) {
+            this.outputBytes = outputBytes;
+            finish(JobStatus.COMPLETED);
+        }
+    }
+
+    synchronized void fail(String error) {
+        if (!status.isFinished()) {
+            this.error = error;
+            finish(JobStatus.FAILED);
+        }
+    }
+
+    /**
+     * Cancels the job and interrupts the conversion if it is running.
+     *
+     * @return false if the job had already finished
+     */
+    synchronized boolean cancel() {
+        if (status.isFinished()) {
+            return false;
+        }
+        finish(JobStatus.CANCELLED);
+        Future<?> running = future;
+        if (running != null) {
+            running.cancel(true);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until the job has completed, failed or been cancelled.
+     *
+     * @param timeout how long to wait at most
+     * @return whether the job finished within the timeout
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public boolean awaitFinished(Duration timeout) throws InterruptedException {
+        return finished.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publishes the final status. The status is written last: a thread that reads a finished status through the
+     * volatile field also sees the finish time, the error and the output size written before it.
+     */
+    private void finish(JobStatus status) {
+        this.finishedAt = Instant.now();
+        this.status = status;
+        finished.countDown();
+    }
+}
@@ -0,0 +1,233 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.node.BigIntegerNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.parsehub.util.CsvOptions;
+import com.parsehub.util.CsvOptions.ColumnType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The value types of the columns of CSV input, declared in the options or inferred from a sample of the rows,
+ * and the conversion of the strings read by the CSV parser into typed values.
+ * <p>
+ * A column is inferred as boolean if all its sampled values are {@code true} or {@code false}, as integer if they
+ * are integers without leading zeros (so codes such as {@code 007} stay strings), as number if they are
+ * JSON numbers, and as string otherwise. Empty values are ignored by the inference and become null in a
+ * typed column. A value that does not match the type of its column, such as a value after the sample that
+ * breaks the inferred type, is kept as a string rather than failing the conversion.
+ */
+final class CsvColumnTypes {
+    private final List<String> names;
+    private final ColumnType[] types;
+
+    private CsvColumnTypes(List<String> names, ColumnType[] types) {
+        this.names = names;
+        this.types = types;
+    }
+
+    /**
+     * Returns the declared types of the columns; a column without a declared type has none yet.
+     *
+     * @param names   the column names, in input order
+     * @param options the options, with the declared types of an explicit schema
+     * @return the column types
+     */
+    static CsvColumnTypes declared(List<String> names, CsvOptions options) {
+        ColumnType[] types = new ColumnType[names.size()];
+        List<CsvOptions.Column> columns = options.getColumns();
+        if (columns != null) {
+            for (int i = 0; i < types.length && i < columns.size(); i++) {
+                types[i] = columns.get(i).type();
+            }
+        }
+        return new CsvColumnTypes(names, types);
+    }
+
+    /**
+     * Returns whether some column has no declared type.
+     */
+    boolean isIncomplete() {
+        for (ColumnType type : types) {
+            if (type == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Infers the types of the columns without a declared type from sample rows. Columns with only empty values
+     * in the sample are strings.
+     *
+     * @param rows the sample rows, as objects keyed by the column names
+     * @throws IOException if the sample cannot be parsed
+     */
+    void infer(MappingIterator<JsonNode> rows) throws IOException {
+        ColumnType[] inferred = new ColumnType[types.length];
+        while (rows.hasNextValue()) {
+            JsonNode row = rows.nextValue();
+            for (int i = 0; i < types.length; i++) {
+                JsonNode value = types[i] == null ? row.get(names.get(i)) : null;
+                if (value != null && !value.asText().isEmpty()) {
+                    inferred[i] = merge(inferred[i], typeOf(value.asText()));
+                }
+            }
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == null) {
+                types[i] = inferred[i] == null ? ColumnType.STRING : inferred[i];
+            }
+        }
+    }
+
+    /**
+     * Returns whether the values of some column are converted from strings.
+     */
+    boolean isTyped() {
+        for (ColumnType type : types) {
+            if (type != null && type != ColumnType.STRING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the type of every column by name; columns without a type are strings.
+     */
+    Map<String, ColumnType> byName() {
+        Map<String, ColumnType> byName = new HashMap<>();
+        for (int i = 0; i < types.length; i++) {
+            byName.put(names.get(i), types[i] == null ? ColumnType.STRING : types[i]);
+        }
+        return byName;
+    }
+
+    /**
+     * Replaces the string values of a row with values of the types of their columns.
+     *
+     * @param row    the row, as an object keyed by the column names
+     * @param byName the column types by name
+     * @return the row
+     */
+    static JsonNode apply(JsonNode row, Map<String, ColumnType> byName) {
+        for (Iterator<Map.Entry<String, JsonNode>> fields = row.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            ColumnType type = byName.get(field.getKey());
+            if (type != null && type != ColumnType.STRING && field.getValue().isTextual()) {
+                JsonNode value = value(field.getValue().asText(), type);
+                if (value != null) {
+                    field.setValue(value);
+                }
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Returns whether a value is valid in a column of the type. Empty values are valid in every column.
+     *
+     * @param text the value
+     * @param type the type of its column
+     * @return whether the value has the type
+     */
+    static boolean accepts(String text, ColumnType type) {
+        return text.isEmpty() || type == ColumnType.STRING || value(text, type) != null;
+    }
+
+    /**
+     * Converts a value to the type of its column.
+     *
+     * @return the typed value, or null if the value does not have the type
+     */
+    private static JsonNode value(String text, ColumnType type) {
+        if (text.isEmpty()) {
+            return NullNode.getInstance();
+        }
+        return switch (type) {
+            case BOOLEAN -> text.equalsIgnoreCase("true") ? BooleanNode.TRUE
+                    : text.equalsIgnoreCase("false") ? BooleanNode.FALSE : null;
+            case INTEGER -> !isNumber(text, true) ? null
+                    : text.length() < 19 ? LongNode.valueOf(Long.parseLong(text))
+                    : BigIntegerNode.valueOf(new BigInteger(text));
+            case NUMBER -> isNumber(text, false) ? DecimalNode.valueOf(new BigDecimal(text)) : null;
+            case STRING -> null;
+        };
+    }
+
+    private static ColumnType typeOf(String text) {
+        if (text.equalsIgnoreCase("true") || text.equalsIgnoreCase("false")) {
+            return ColumnType.BOOLEAN;
+        }
+        if (isNumber(text, true)) {
+            return ColumnType.INTEGER;
+        }
+        return isNumber(text, false) ? ColumnType.NUMBER : ColumnType.STRING;
+    }
+
+    private static ColumnType merge(ColumnType seen, ColumnType value) {
+        if (seen == null || seen == value) {
+            return value;
+        }
+        boolean numbers = (seen == ColumnType.INTEGER || seen == ColumnType.NUMBER)
+                && (value == ColumnType.INTEGER || value == ColumnType.NUMBER);
+        return numbers ? ColumnType.NUMBER : ColumnType.STRING;
+    }
+
+    /**
+     * Returns whether the text is a JSON number, or a JSON integer if {@code integer} is set.
+     */
+    private static boolean isNumber(String text, boolean integer) {
+        int length = text.length();
+        int i = text.charAt(0) == '-' ? 1 : 0;
+        int digits = i;
+        while (i < length && isDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i == digits || (text.charAt(digits) == '0' && i - digits > 1)) {
+            return false;
+        }
+        if (integer) {
+            return i == length;
+        }
+        if (i < length && text.charAt(i) == '.') {
+            int fraction = ++i;
+            while (i < length && isDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == fraction) {
+                return false;
+            }
+        }
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                i++;
+            }
+            int exponent = i;
+            while (i < length && isDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == exponent) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
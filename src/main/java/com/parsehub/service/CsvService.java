@@ -0,0 +1,234 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.CsvOptions;
+import com.parsehub.util.OperationFailure;
+import com.parsehub.util.ValidationResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service class for handling CSV input: validation and streaming conversion into JSON, JSON Lines, XML and YAML.
+ * The column names come from the header line or an explicit schema, see {@link CsvOptions}.
+ * Rows are read one at a time, so memory use does not grow with the input.
+ */
+@Service
+public class CsvService implements IDataService {
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final ObjectReader rowReader;
+    private final ConversionEngine conversionEngine;
+
+    /**
+     * Constructor that takes the shared mappers and the conversion engine.
+     *
+     * @param mappers          the shared mapper registry
+     * @param conversionEngine the engine converting CSV into other formats
+     */
+    @Autowired
+    public CsvService(MapperRegistry mappers, ConversionEngine conversionEngine) {
+        this.rowReader = mappers.csv().readerFor(String[].class).with(CsvParser.Feature.WRAP_AS_ARRAY);
+        this.conversionEngine = conversionEngine;
+    }
+
+    /**
+     * Validates a CSV string with a header line.
+     *
+     * @param csv the CSV string to validate
+     * @return ValidationResult indicating whether the CSV is valid
+     */
+    public ValidationResult validateCsv(String csv) {
+        return validateCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), CsvOptions.DEFAULT);
+    }
+
+    /**
+     * Validates CSV with a header line read from a stream.
+     *
+     * @param csv the input stream containing the CSV to validate
+     * @return ValidationResult indicating whether the CSV is valid
+     */
+    public ValidationResult validateCsv(InputStream csv) {
+        return validateCsv(csv, CsvOptions.DEFAULT);
+    }
+
+    /**
+     * Validates CSV read from a stream, one row at a time. Every row must have as many values as the header line,
+     * or as the explicit schema has columns, and the values of declared column types must have that type.
+     * The header names must be unique and not empty. Quoting errors stop the validation; the first
+     * {@value #MAX_REPORTED_ERRORS} other errors are reported with their line numbers.
+     *
+     * @param csv     the input stream containing the CSV to validate
+     * @param options where the column names come from and the declared column types
+     * @return ValidationResult indicating whether the CSV is valid
+     */
+    public ValidationResult validateCsv(InputStream csv, CsvOptions options) {
+        ValidationResult result = new ValidationResult();
+        List<CsvOptions.Column> columns = options.getColumns();
+        int expected = columns == null ? -1 : columns.size();
+        boolean header = options.isHeader();
+        long errors = 0;
+
+        try (MappingIterator<String[]> rows = rowReader.readValues(csv)) {
+            JsonParser parser = rows.getParser();
+            long line = 1;
+            while (rows.hasNextValue()) {
+                String[] row = rows.nextValue();
+                long start = line;
+                line = parser.currentLocation().getLineNr();
+                if (header) {
+                    header = false;
+                    if (columns == null) {
+                        expected = row.length;
+                        errors += checkHeader(row, result, errors);
+                    }
+                    continue;
+                }
+                if (row.length != expected) {
+                    errors += report(result, errors, "Line " + start + ": expected " + expected + " columns, found " + row.length);
+                } else if (columns != null) {
+                    for (int i = 0; i < row.length; i++) {
+                        CsvOptions.ColumnType type = columns.get(i).type();
+                        if (type != null && !CsvColumnTypes.accepts(row[i], type)) {
+                            errors += report(result, errors, "Line " + start + ": '" + row[i] + "' in column "
+                                    + columns.get(i).name() + " is not " + (type == CsvOptions.ColumnType.INTEGER ? "an " : "a ")
+                                    + type.name().toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+            }
+            if (header) {
+                errors += report(result, errors, "CSV is empty: expected a header line");
+            }
+        } catch (JsonProcessingException e) {
+            JsonLocation location = e.getLocation();
+            result.addErrorMessage("CSV Parsing Error: " + e.getOriginalMessage().replaceAll("\\R\\s*", " ")
+                    + (location == null ? "" : " (line " + location.getLineNr() + ", column " + location.getColumnNr() + ")"));
+            errors++;
+        } catch (IOException e) {
+            result.addErrorMessage("CSV Parsing Error: " + e.getMessage());
+            errors++;
+        }
+
+        if (errors > MAX_REPORTED_ERRORS) {
+            result.addErrorMessage("... and " + (errors - MAX_REPORTED_ERRORS) + " more errors");
+        }
+        result.setValid(errors == 0);
+        return result;
+    }
+
+    private static long checkHeader(String[] names, ValidationResult result, long errors) {
+        long found = 0;
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].isBlank()) {
+                found += report(result, errors + found, "Line 1: column " + (i + 1) + " has no name");
+            } else if (!seen.add(names[i])) {
+                found += report(result, errors + found, "Line 1: duplicate column " + names[i]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds the error message unless enough errors have been reported already.
+     *
+     * @return 1, the number of errors found
+     */
+    private static long report(ValidationResult result, long reported, String message) {
+        if (reported < MAX_REPORTED_ERRORS) {
+            result.addErrorMessage(message);
+        }
+        return 1;
+    }
+
+    /**
+     * Converts a CSV string with a header line into the specified format, inferring the column types.
+     *
+     * @param csv        the input CSV string
+     * @param targetType the target conversion format
+     * @return the converted data as a string
+     */
+    public String convertData(String csv, ConversionType targetType) {
+        if (targetType == ConversionType.CSV) {
+            return csv;
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            convert(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), output, targetType, CsvOptions.DEFAULT);
+        } catch (IOException e) {
+            return OperationFailure.message("Invalid CSV format: " + e.getMessage());
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts CSV with a header line read from a stream into the specified format, inferring the column types,
+     * and writes it to the output stream.
+     *
+     * @param csv        the input stream containing the CSV to convert
+     * @param output     the output stream the converted data is written to
+     * @param targetType the target conversion format
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void convertData(InputStream csv, OutputStream output, ConversionType targetType) throws IOException {
+        convert(csv, output, targetType, CsvOptions.DEFAULT);
+    }
+
+    /**
+     * Converts CSV read from a stream into the specified format and writes it to the output stream.
+     * On invalid input the error message is written after the rows converted so far.
+     *
+     * @param csv        the input stream containing the CSV to convert
+     * @param output     the output stream the converted data is written to
+     * @param targetType the target conversion format
+     * @param options    where the column names come from and how the values are typed
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void convert(InputStream csv, OutputStream output, ConversionType targetType, CsvOptions options) throws IOException {
+        try {
+            conversionEngine.convertCsv(csv, options, output, targetType, new LongAdder());
+        } catch (JsonProcessingException e) {
+            writeError(output, e);
+        }
+    }
+
+    /**
+     * Converts CSV read from a stream into JSON Lines, one object per row, and writes it to the output stream.
+     * On invalid input the error message is written after the rows converted so far.
+     *
+     * @param csv     the input stream containing the CSV to convert
+     * @param output  the output stream the JSON Lines are written to
+     * @param options where the column names come from and how the values are typed
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void convertToJsonLines(InputStream csv, OutputStream output, CsvOptions options) throws IOException {
+        try {
+            conversionEngine.convertCsvToJsonLines(csv, options, output, new LongAdder());
+        } catch (JsonProcessingException e) {
+            writeError(output, e);
+        }
+    }
+
+    private static void writeError(OutputStream output, JsonProcessingException e) throws IOException {
+        OperationFailure.write(output, "Invalid CSV: " + e.getMessage());
+        output.flush();
+    }
+}
@@ -0,0 +1,43 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * The outcome of an operation of the file mode, reported to clients.
+ */
+@JsonPropertyOrder({"source", "target", "inputBytes", "outputBytes", "durationMillis"})
+public class FileResult {
+    private final String source;
+    private final String target;
+    private final long inputBytes;
+    private final long outputBytes;
+    private final long durationMillis;
+
+    FileResult(String source, String target, long inputBytes, long outputBytes, long durationMillis) {
+        this.source = source;
+        this.target = target;
+        this.inputBytes = inputBytes;
+        this.outputBytes = outputBytes;
+        this.durationMillis = durationMillis;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
@@ -0,0 +1,349 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.util.ChannelOutputStream;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.FlattenOptions;
+import com.parsehub.util.Format;
+import com.parsehub.util.JsonByteFormatter;
+import com.parsehub.util.MappedInputStream;
+import com.parsehub.util.SortOptions;
+import com.parsehub.util.ValidationResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Service class running operations on files on the local disk, the file mode.
+ * The source is read through memory-mapped windows ({@link MappedInputStream}) by the byte-based parsers,
+ * and the result is written to a temp file next to the target, which is renamed into place once it is complete;
+ * a failed operation leaves the target untouched. The generators write into a direct buffer that is handed to the
+ * {@link FileChannel} whenever it is full ({@link ChannelOutputStream}), so the output is copied once, from the
+ * generator's buffer into the direct one, rather than once more by the JDK.
+ * <p>
+ * JSON, YAML and CSV are streamed and never held as a whole, so their size is only limited by the disk. XML is read
+ * into a tree before it is converted or minified, see {@link ConversionEngine}, so XML files larger than
+ * {@code parsehub.files.max-xml-size} are refused; validating XML streams it like the other formats.
+ * <p>
+ * Only files under the configured {@code parsehub.files.roots} can be read or written, and the file mode is
+ * disabled while no root is configured.
+ */
+@Service
+public class FileService {
+    private final MapperRegistry mappers;
+    private final JsonService jsonService;
+    private final XmlService xmlService;
+    private final YamlService yamlService;
+    private final ConversionEngine conversionEngine;
+    private final JsonKeySorter keySorter;
+    private final JsonCsvFlattener csvFlattener;
+    private final OperationMetrics metrics;
+    private final List<Path> roots = new ArrayList<>();
+    private final long maxXmlSize;
+
+    /**
+     * Constructor that takes the services running the operations and the allowed directories.
+     *
+     * @param mappers          the shared mapper registry
+     * @param jsonService      the service validating JSON
+     * @param xmlService       the service validating XML
+     * @param yamlService      the service validating YAML
+     * @param conversionEngine the engine converting between formats
+     * @param keySorter        the sorter of the keys of JSON documents
+     * @param csvFlattener     the flattener of nested JSON records into CSV
+     * @param metrics          the metrics the operations are recorded in
+     * @param properties       the application settings
+     */
+    @Autowired
+    public FileService(MapperRegistry mappers, JsonService jsonService, XmlService xmlService, YamlService yamlService,
+                       ConversionEngine conversionEngine, JsonKeySorter keySorter, JsonCsvFlattener csvFlattener,
+                       OperationMetrics metrics, ParseHubProperties properties) {
+        this.mappers = mappers;
+        this.jsonService = jsonService;
+        this.xmlService = xmlService;
+        this.yamlService = yamlService;
+        this.conversionEngine = conversionEngine;
+        this.keySorter = keySorter;
+        this.csvFlattener = csvFlattener;
+        this.metrics = metrics;
+        for (String root : properties.getFiles().getRoots()) {
+            Path path = Path.of(root).toAbsolutePath().normalize();
+            try {
+                path = path.toRealPath();
+            } catch (IOException e) {
+                // a root that does not exist yet is compared as configured
+            }
+            roots.add(path);
+        }
+        this.maxXmlSize = properties.getFiles().getMaxXmlSize().toBytes();
+    }
+
+    /**
+     * Validates a file.
+     *
+     * @param source the absolute path of the file
+     * @param format the format of the file: JSON, XML or YAML
+     * @return the validation result
+     * @throws IOException if the file does not exist, may not be read or cannot be read
+     */
+    public ValidationResult validate(String source, ConversionType format) throws IOException {
+        Function<InputStream, ValidationResult> validator = switch (format) {
+            case JSON -> jsonService::validateJson;
+            case XML -> xmlService::validateXml;
+            case YAML -> yamlService::validateYaml;
+            default -> throw new IllegalArgumentException("Validating " + format + " files is not supported");
+        };
+        Path input = source(source);
+        OperationMetrics.Measurement measurement = metrics.start(name(format) + "/file-validate", null);
+        try (InputStream in = new MappedInputStream(FileChannel.open(input, StandardOpenOption.READ))) {
+            measurement.inputSize(Files.size(input));
+            ValidationResult result = validator.apply(in);
+            measurement.result();
+            if (!result.isValid()) {
+                measurement.invalid();
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            measurement.failed(e);
+            throw e;
+        } finally {
+            measurement.stop();
+        }
+    }
+
+    /**
+     * Converts a file into another format.
+     *
+     * @param source     the absolute path of the file to convert
+     * @param target     the absolute path the result is written to
+     * @param sourceType the format of the file
+     * @param targetType the format to convert to
+     * @param overwrite  whether an existing target is replaced
+     * @return the sizes of the input and the result
+     * @throws IOException if the input is malformed, or a file may not or cannot be read or written
+     * @throws IllegalArgumentException if the source is an XML file larger than {@code parsehub.files.max-xml-size}
+     */
+    public FileResult convert(String source, String target, ConversionType sourceType, ConversionType targetType,
+                              boolean overwrite) throws IOException {
+        if (sourceType == ConversionType.XML) {
+            checkXmlSize(source);
+        }
+        return transform(source, target, overwrite, name(sourceType) + "/file-convert", targetType,
+                (in, out) -> conversionEngine.convert(in, sourceType, out, targetType));
+    }
+
+    /**
+     * Formats a JSON file with the specified indentation.
+     *
+     * @param source    the absolute path of the file to format
+     * @param target    the absolute path the result is written to, which may be the source itself
+     * @param format    the indentation format
+     * @param overwrite whether an existing target is replaced
+     * @return the sizes of the input and the result
+     * @throws IOException if the input is malformed, or a file may not or cannot be read or written
+     */
+    public FileResult formatJson(String source, String target, Format format, boolean overwrite) throws IOException {
+        return transform(source, target, overwrite, "json/file-format", format,
+                (in, out) -> JsonByteFormatter.format(in, out, format));
+    }
+
+    /**
+     * Minifies a file.
+     *
+     * @param source    the absolute path of the file to minify
+     * @param target    the absolute path the result is written to, which may be the source itself
+     * @param format    the format of the file: JSON or XML
+     * @param overwrite whether an existing target is replaced
+     * @return the sizes of the input and the result
+     * @throws IOException if the input is malformed, or a file may not or cannot be read or written
+     * @throws IllegalArgumentException if the source is an XML file larger than {@code parsehub.files.max-xml-size}
+     */
+    public FileResult minify(String source, String target, ConversionType format, boolean overwrite) throws IOException {
+        ResultCache.StreamOperation operation = switch (format) {
+            case JSON -> (in, out) -> JsonByteFormatter.format(in, out, Format.COMPACT);
+            case XML -> (in, out) -> conversionEngine.convert(in, ConversionType.XML, out, ConversionType.XML);
+            default -> throw new IllegalArgumentException("Minifying " + format + " files is not supported");
+        };
+        if (format == ConversionType.XML) {
+            checkXmlSize(source);
+        }
+        return transform(source, target, overwrite, name(format) + "/file-minify", null, operation);
+    }
+
+    /**
+     * Sorts the keys of a JSON file at every level.
+     *
+     * @param source    the absolute path of the file to sort
+     * @param target    the absolute path the result is written to, which may be the source itself
+     * @param options   the key order and whether arrays are sorted too
+     * @param overwrite whether an existing target is replaced
+     * @return the sizes of the input and the result
+     * @throws IOException if the input is malformed, or a file may not or cannot be read or written
+     */
+    public FileResult sortJson(String source, String target, SortOptions options, boolean overwrite) throws IOException {
+        return transform(source, target, overwrite, "json/file-sort", options, (in, out) -> {
+            try (JsonParser parser = mappers.json().getFactory().createParser(in)) {
+                keySorter.sort(parser, out, options);
+            }
+        });
+    }
+
+    /**
+     * Converts the records of a JSON file into CSV, flattening nested objects and arrays into one column per path.
+     * The file is mapped twice, once to find the columns and once to write the rows, without being copied.
+     *
+     * @param source    the absolute path of the file to convert
+     * @param target    the absolute path the CSV is written to
+     * @param options   the path style, the column order, the type hints and the columns
+     * @param overwrite whether an existing target is replaced
+     * @return the sizes of the input and the result
+     * @throws IOException if the input is malformed, or a file may not or cannot be read or written
+     */
+    public FileResult flattenJsonToCsv(String source, String target, FlattenOptions options, boolean overwrite) throws IOException {
+        return transformFile(source, target, overwrite, "json/file-flatten", options, (input, out) -> csvFlattener.flatten(
+                () -> new MappedInputStream(FileChannel.open(input, StandardOpenOption.READ)), out, options));
+    }
+
+    private FileResult transform(String source, String target, boolean overwrite, String operation, Object option,
+                                 ResultCache.StreamOperation compute) throws IOException {
+        return transformFile(source, target, overwrite, operation, option, (input, out) -> {
+            try (InputStream in = new MappedInputStream(FileChannel.open(input, StandardOpenOption.READ))) {
+                compute.apply(in, out);
+            }
+        });
+    }
+
+    /**
+     * Refuses an XML file that is too large to be read into a tree.
+     */
+    private void checkXmlSize(String source) throws IOException {
+        long size = Files.size(source(source));
+        if (size > maxXmlSize) {
+            throw new IllegalArgumentException("XML files are read into memory to be converted, " + source + " has "
+                    + size + " bytes and parsehub.files.max-xml-size allows " + maxXmlSize);
+        }
+    }
+
+    /**
+     * Writes the result of an operation reading the source file by itself, as many times as it needs.
+     */
+    private FileResult transformFile(String source, String target, boolean overwrite, String operation, Object option,
+                                     FileOperation compute) throws IOException {
+        Path input = source(source);
+        Path output = target(target, overwrite);
+        OperationMetrics.Measurement measurement = metrics.start(operation, option);
+        long start = System.nanoTime();
+        long inputBytes = Files.size(input);
+        measurement.inputSize(inputBytes);
+        Path temp = Files.createTempFile(output.getParent(), "." + output.getFileName() + "-", ".tmp");
+        try {
+            try (OutputStream out = new ChannelOutputStream(FileChannel.open(temp, StandardOpenOption.WRITE))) {
+                compute.apply(input, measurement.measure(out));
+            }
+            move(temp, output);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            measurement.failed(e);
+            throw e;
+        } finally {
+            measurement.stop();
+        }
+        return new FileResult(input.toString(), output.toString(), inputBytes, Files.size(output),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * An operation writing its result from a file it opens itself.
+     */
+    @FunctionalInterface
+    private interface FileOperation {
+        void apply(Path input, OutputStream output) throws IOException;
+    }
+
+    /**
+     * Renames the complete result into place. The temp file is in the target directory, so this is a rename
+     * on the same file system and no data is copied.
+     */
+    private static void move(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Resolves the path of a file to read, following links, and checks that it lies under a root.
+     */
+    private Path source(String source) throws IOException {
+        Path path = absolute(source).toRealPath();
+        checkAllowed(path, source);
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("Not a regular file: " + source);
+        }
+        return path;
+    }
+
+    /**
+     * Resolves the path of a file to write, following links in its directory, and checks that it lies under a root.
+     */
+    private Path target(String target, boolean overwrite) throws IOException {
+        Path path = absolute(target);
+        if (path.getFileName() == null) {
+            throw new IllegalArgumentException("Not a file path: " + target);
+        }
+        path = path.getParent().toRealPath().resolve(path.getFileName());
+        checkAllowed(path, target);
+        if (Files.isDirectory(path)) {
+            throw new IllegalArgumentException("Not a file path: " + target);
+        }
+        if (!overwrite && Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            throw new FileAlreadyExistsException(target);
+        }
+        return path;
+    }
+
+    private static Path absolute(String path) {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("A file path is required");
+        }
+        Path absolute = Path.of(path);
+        if (!absolute.isAbsolute()) {
+            throw new IllegalArgumentException("File paths must be absolute: " + path);
+        }
+        return absolute.normalize();
+    }
+
+    private void checkAllowed(Path path, String requested) throws AccessDeniedException {
+        if (roots.isEmpty()) {
+            throw new AccessDeniedException(requested, null, "the file mode is disabled, set parsehub.files.roots to enable it");
+        }
+        for (Path root : roots) {
+            if (path.startsWith(root)) {
+                return;
+            }
+        }
+        throw new AccessDeniedException(requested, null, "outside of the directories in parsehub.files.roots");
+    }
+
+    private static String name(ConversionType format) {
+        return format.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,7 +2,22 @@ package com.parsehub.service;
 
 import com.parsehub.util.ConversionType;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 public interface IDataService
 {
     public String convertData(String json, ConversionType type);
+
+    /**
+     * Converts data read from a stream into the given format, writing the result to another stream
+     * in a single pass.
+     *
+     * @param input  the stream containing the data to convert
+     * @param output the stream the converted data is written to
+     * @param type   the target conversion format
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void convertData(InputStream input, OutputStream output, ConversionType type) throws IOException;
 }
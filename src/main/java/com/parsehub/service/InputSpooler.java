@@ -0,0 +1,67 @@
+package com.parsehub.service;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.util.MappedInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Makes a stream that can only be read once readable by the several passes of a conversion. An input within the
+ * memory limit is read from memory, a larger one is spooled to a temporary file that every pass maps, and which is
+ * deleted once the passes are done.
+ */
+final class InputSpooler {
+    private final int memoryLimit;
+    private final Path directory;
+
+    /**
+     * @param settings the flatten settings, which hold the memory limit and the spool directory
+     */
+    InputSpooler(ParseHubProperties.Flatten settings) {
+        this.memoryLimit = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(0, settings.getMemoryLimit().toBytes()));
+        this.directory = Path.of(settings.getDirectory());
+    }
+
+    /**
+     * Runs the passes over the whole input.
+     *
+     * @param input  the stream containing the input; it is read to its end
+     * @param passes the passes, given a source that opens a new stream over the input for each of them
+     * @throws IOException if reading or spooling the input fails, or the passes fail
+     */
+    void spool(InputStream input, Passes passes) throws IOException {
+        byte[] head = input.readNBytes(memoryLimit);
+        int next = head.length < memoryLimit ? -1 : input.read();
+        if (next < 0) {
+            passes.run(() -> new ByteArrayInputStream(head));
+            return;
+        }
+        Files.createDirectories(directory);
+        Path spool = Files.createTempFile(directory, "parsehub-spool-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(spool)) {
+                out.write(head);
+                out.write(next);
+                input.transferTo(out);
+            }
+            passes.run(() -> new MappedInputStream(FileChannel.open(spool, StandardOpenOption.READ)));
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    /**
+     * The passes of a conversion over a spooled input.
+     */
+    @FunctionalInterface
+    interface Passes {
+        void run(JsonCsvFlattener.Source source) throws IOException;
+    }
+}
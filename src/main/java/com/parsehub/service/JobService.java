@@ -0,0 +1,268 @@
+package com.parsehub.service;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.ChannelOutputStream;
+import com.parsehub.util.CountingInputStream;
+import com.parsehub.util.JobStatus;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service class running conversions as asynchronous jobs.
+ * The input is uploaded to a temp file and the conversion runs on a bounded pool of job workers,
+ * writing its result to another temp file that can be downloaded once the job has completed.
+ * A job exists from the start of its upload, so that its id can be returned before the input has arrived, but it
+ * only takes a place in the queue once the upload is complete; no worker waits for a slow upload.
+ * When every worker is busy and the queue is full, new jobs are rejected instead of piling up.
+ */
+@Service
+public class JobService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ConversionEngine conversionEngine;
+    private final OperationMetrics metrics;
+    private final ThreadPoolExecutor executor;
+    private final Path directory;
+    private final Duration retention;
+    private final Map<String, ConversionJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor that takes the conversion engine, the operation metrics and the job settings.
+     *
+     * @param conversionEngine the engine running the conversions
+     * @param metrics          the metrics the conversions are recorded in
+     * @param properties       the application settings
+     */
+    @Autowired
+    public JobService(ConversionEngine conversionEngine, OperationMetrics metrics, ParseHubProperties properties) {
+        ParseHubProperties.Jobs settings = properties.getJobs();
+        this.conversionEngine = conversionEngine;
+        this.metrics = metrics;
+        this.directory = Path.of(settings.getDirectory());
+        this.retention = settings.getRetention();
+        int workers = Math.max(1, settings.getWorkers());
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity())), workerThreads());
+    }
+
+    /**
+     * Spools the input to a temp file and queues its conversion, on the calling thread.
+     *
+     * @param input  the stream containing data in the source format
+     * @param source the format of the input
+     * @param target the format to convert to
+     * @return the queued job
+     * @throws IOException                if the input cannot be spooled
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public ConversionJob submit(InputStream input, ConversionType source, ConversionType target) throws IOException {
+        ConversionJob job = create(source, target);
+        try (OutputStream out = openInput(job)) {
+            input.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            jobs.remove(job.getId());
+            deleteFiles(job);
+            throw e;
+        }
+        uploaded(job);
+        return job;
+    }
+
+    /**
+     * Creates a job whose input is uploaded next. The input is written to {@link #openInput(ConversionJob)},
+     * and the job is queued by {@link #uploaded(ConversionJob)} once it is complete, or failed by
+     * {@link #uploadFailed(ConversionJob, Throwable)}. Until then the job is {@link JobStatus#UPLOADING}.
+     *
+     * @param source the format of the input
+     * @param target the format to convert to
+     * @return the uploading job
+     * @throws IOException                if the temp files cannot be created
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public ConversionJob create(ConversionType source, ConversionType target) throws IOException {
+        purgeExpired();
+        if (executor.getQueue().remainingCapacity() == 0) {
+            // reject before receiving a large body that could not be queued anyway
+            throw new RejectedExecutionException("The job queue is full");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Files.createDirectories(directory);
+        ConversionJob job = new ConversionJob(id, source, target,
+                Files.createTempFile(directory, "parsehub-job-", ".in"),
+                Files.createTempFile(directory, "parsehub-job-", ".out"));
+        jobs.put(id, job);
+        return job;
+    }
+
+    /**
+     * Opens the input file of an uploading job for writing.
+     *
+     * @param job the job created by {@link #create(ConversionType, ConversionType)}
+     * @return the stream the input is written to, which the caller closes before the job is queued
+     * @throws IOException if the file cannot be opened
+     */
+    public OutputStream openInput(ConversionJob job) throws IOException {
+        return new ChannelOutputStream(FileChannel.open(job.input(), StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Queues the conversion of a job whose input has been uploaded. A job cancelled during its upload stays
+     * cancelled, and a job that can no longer be queued because the queue filled up during its upload fails.
+     *
+     * @param job the job whose input is complete
+     */
+    public void uploaded(ConversionJob job) {
+        try {
+            if (job.queue(Files.size(job.input()))) {
+                job.setFuture(executor.submit(() -> run(job)));
+            }
+        } catch (IOException | RejectedExecutionException e) {
+            uploadFailed(job, e);
+        }
+    }
+
+    /**
+     * Fails a job whose upload broke off, and deletes its input.
+     *
+     * @param job   the job
+     * @param error the failure of the upload
+     */
+    public void uploadFailed(ConversionJob job, Throwable error) {
+        job.fail("The upload failed: " + error.getMessage());
+        deleteFile(job.input());
+    }
+
+    /**
+     * Looks up a job.
+     *
+     * @param id the job id
+     * @return the job, or empty if it does not exist or has expired
+     */
+    public Optional<ConversionJob> find(String id) {
+        purgeExpired();
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /**
+     * Returns the result file of a job. It is complete once the job status is COMPLETED.
+     *
+     * @param job the job
+     * @return the path of the result file
+     */
+    public Path resultFile(ConversionJob job) {
+        return job.output();
+    }
+
+    /**
+     * Cancels a job and deletes its files. A running conversion is interrupted.
+     *
+     * @param id the job id
+     * @return the cancelled job, or empty if it does not exist
+     */
+    public Optional<ConversionJob> cancel(String id) {
+        ConversionJob job = jobs.remove(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        job.cancel();
+        deleteFiles(job);
+        return Optional.of(job);
+    }
+
+    private void run(ConversionJob job) {
+        OperationMetrics.Measurement measurement = null;
+        try (CountingInputStream in = new CountingInputStream(Files.newInputStream(job.input()));
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(job.output()), BUFFER_SIZE)) {
+            if (!job.start(in)) {
+                return;
+            }
+            measurement = metrics.start(job.getSource().name().toLowerCase(Locale.ROOT) + "/job", job.getTarget());
+            measurement.inputSize(job.getTotalBytes());
+            conversionEngine.convert(in, job.getSource(), measurement.measure(out), job.getTarget(), job.recordCounter());
+            out.flush();
+            job.complete(Files.size(job.output()));
+        } catch (IOException | RuntimeException e) {
+            job.fail(e.getMessage());
+            if (measurement != null) {
+                measurement.failed(e);
+            }
+        } finally {
+            if (measurement != null) {
+                measurement.stop();
+            }
+            deleteFile(job.input());
+        }
+    }
+
+    /**
+     * Drops finished jobs whose retention has passed, together with their result files.
+     */
+    private void purgeExpired() {
+        Instant expiry = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> {
+            Instant finishedAt = job.getFinishedAt();
+            if (finishedAt == null || finishedAt.isAfter(expiry)) {
+                return false;
+            }
+            deleteFiles(job);
+            return true;
+        });
+    }
+
+    private void deleteFiles(ConversionJob job) {
+        deleteFile(job.input());
+        deleteFile(job.output());
+    }
+
+    private static void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // best effort, the file is left in the temp directory
+        }
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "conversion-job-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Stops the workers and deletes the files of all jobs when the application context closes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        jobs.values().forEach(this::deleteFiles);
+        jobs.clear();
+    }
+}
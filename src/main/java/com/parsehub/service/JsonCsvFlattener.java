@@ -0,0 +1,397 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.util.CsvOptions;
+import com.parsehub.util.FlattenOptions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flattens JSON records of any shape into CSV rows, one column per path to a value: nested fields are joined with
+ * dots, such as {@code address.city}, and array elements are named by their index, such as {@code items.0.sku} or
+ * {@code items[0].sku}. The records are the elements of a root array, or the root values themselves; a record that
+ * is a single value has the column {@code value}. A value missing from a record leaves its column empty, and so
+ * does a null, while empty objects and arrays have no column at all.
+ * <p>
+ * The columns are the union of the paths of every record, so the input is read twice: a first pass only tokenizes
+ * it to collect the paths and the types of their values, a second pass writes the rows. Neither pass builds a tree;
+ * memory holds a trie of the distinct paths, which is bounded by {@link ParseHubProperties.Flatten#getMaxPaths()},
+ * and one row. A stream that does not fit into the memory limit is spooled to disk and read back mapped, files are
+ * mapped directly. With explicit columns and no type hints a single pass over the stream is enough, and the paths
+ * outside of the columns are skipped without being tracked.
+ */
+@Component
+public class JsonCsvFlattener {
+    private static final String VALUE_COLUMN = "value";
+    /** Marks the paths outside of the explicit columns. */
+    private static final Node SKIP = new Node(null);
+
+    // the types of the values found in a column
+    private static final int INTEGER = 1;
+    private static final int NUMBER = 2;
+    private static final int BOOLEAN = 4;
+    private static final int STRING = 8;
+
+    /**
+     * Opens the input of a flattening, once for each pass.
+     */
+    @FunctionalInterface
+    public interface Source {
+        /**
+         * Opens a stream over the whole input.
+         *
+         * @return a new stream, which the flattener closes
+         * @throws IOException if the input cannot be opened
+         */
+        InputStream open() throws IOException;
+    }
+
+    private final MapperRegistry mappers;
+    private final InputSpooler spooler;
+    private final int maxPaths;
+
+    /**
+     * Constructor that takes the shared mappers and the flatten settings.
+     *
+     * @param mappers    the shared mapper registry
+     * @param properties the application settings
+     */
+    @Autowired
+    public JsonCsvFlattener(MapperRegistry mappers, ParseHubProperties properties) {
+        this.mappers = mappers;
+        this.spooler = new InputSpooler(properties.getFlatten());
+        this.maxPaths = properties.getFlatten().getMaxPaths();
+    }
+
+    /**
+     * Flattens JSON read from a stream that can only be read once. When the options need the column pass,
+     * an input within the memory limit is read twice from memory, a larger one is spooled to a temporary file
+     * that both passes map, and which is deleted afterwards.
+     *
+     * @param input   the stream containing the JSON
+     * @param output  the stream the CSV is written to; it is flushed but left open
+     * @param options the path style, the column order, the type hints and the columns
+     * @throws IOException if reading, spooling or writing fails, or the JSON is not well-formed
+     * @throws IllegalArgumentException if the records have more distinct paths than allowed, before anything is written
+     */
+    public void flatten(InputStream input, OutputStream output, FlattenOptions options) throws IOException {
+        if (!options.needsColumnPass()) {
+            flattenRows(input, output, new Paths(options));
+            return;
+        }
+        spooler.spool(input, source -> flatten(source, output, options));
+    }
+
+    /**
+     * Flattens JSON from an input that can be opened again, such as a file, reading it once to find the columns
+     * and once more to write the rows, or only once if the options list the columns without type hints.
+     *
+     * @param source  opens the input containing the JSON
+     * @param output  the stream the CSV is written to; it is flushed but left open
+     * @param options the path style, the column order, the type hints and the columns
+     * @throws IOException if reading or writing fails, or the JSON is not well-formed
+     * @throws IllegalArgumentException if the records have more distinct paths than allowed, before anything is written
+     */
+    public void flatten(Source source, OutputStream output, FlattenOptions options) throws IOException {
+        Paths paths = new Paths(options);
+        if (options.needsColumnPass()) {
+            try (InputStream in = source.open(); JsonParser parser = mappers.json().createParser(in)) {
+                for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                    if (token == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            scan(parser, paths.root, paths);
+                        }
+                    } else {
+                        scan(parser, paths.root, paths);
+                    }
+                }
+            }
+        }
+        try (InputStream in = source.open()) {
+            flattenRows(in, output, paths);
+        }
+    }
+
+    private void flattenRows(InputStream input, OutputStream output, Paths paths) throws IOException {
+        List<String> header = paths.header();
+        String[] row = new String[header.size()];
+        // without columns there are no records, or only empty ones: there is no header to write
+        try (JsonParser parser = mappers.json().createParser(input);
+             JsonGenerator generator = mappers.csv().createGenerator(output).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+             SequenceWriter rows = header.isEmpty() ? null : mappers.csvWriter(header).writeValues(generator)) {
+            for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                if (token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        writeRow(parser, paths, row, rows);
+                    }
+                } else {
+                    writeRow(parser, paths, row, rows);
+                }
+            }
+        }
+    }
+
+    private void writeRow(JsonParser parser, Paths paths, String[] row, SequenceWriter rows) throws IOException {
+        // the CSV writer skips null array elements, which would shift the values that follow
+        Arrays.fill(row, "");
+        fill(parser, paths.root, paths, row);
+        if (rows != null) {
+            rows.write(row);
+        }
+    }
+
+    /**
+     * Collects the paths and value types of the value the parser is positioned on.
+     */
+    private void scan(JsonParser parser, Node node, Paths paths) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT -> {
+                for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+                    parser.nextToken();
+                    Node child = paths.field(node, name);
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else {
+                        scan(parser, child, paths);
+                    }
+                }
+            }
+            case START_ARRAY -> {
+                for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+                    Node child = paths.element(node, i);
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else {
+                        scan(parser, child, paths);
+                    }
+                }
+            }
+            case VALUE_NUMBER_INT -> paths.value(node, INTEGER);
+            case VALUE_NUMBER_FLOAT -> paths.value(node, NUMBER);
+            case VALUE_TRUE, VALUE_FALSE -> paths.value(node, BOOLEAN);
+            case VALUE_NULL -> paths.value(node, 0);
+            default -> paths.value(node, STRING);
+        }
+    }
+
+    /**
+     * Puts the values of the value the parser is positioned on into the row.
+     */
+    private void fill(JsonParser parser, Node node, Paths paths, String[] row) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT -> {
+                for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+                    parser.nextToken();
+                    Node child = paths.field(node, name);
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else {
+                        fill(parser, child, paths, row);
+                    }
+                }
+            }
+            case START_ARRAY -> {
+                for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+                    Node child = paths.element(node, i);
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else {
+                        fill(parser, child, paths, row);
+                    }
+                }
+            }
+            case VALUE_NULL -> {
+                // an empty cell
+            }
+            default -> {
+                if (node.column != null && node.column.index >= 0) {
+                    row[node.column.index] = parser.getText();
+                }
+            }
+        }
+    }
+
+    /**
+     * A path of the records, in a trie of the paths found so far. The path of the record itself is null.
+     */
+    private static final class Node {
+        final String path;
+        Map<String, Node> fields;
+        Node[] elements;
+        Column column;
+
+        Node(String path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * A CSV column. Paths written the same way, such as the field {@code "a.b"} and the field {@code b} nested in
+     * the field {@code a}, share their column.
+     */
+    private static final class Column {
+        final String name;
+        int types;
+        /** The position in the row, or -1 until the columns are ordered. */
+        int index = -1;
+
+        Column(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * The trie of the paths found in the records, and the columns they map to.
+     */
+    private final class Paths {
+        final FlattenOptions options;
+        final Node root = new Node(null);
+        /** The columns in the order they are found, or as listed in the options. */
+        final Map<String, Column> columns = new LinkedHashMap<>();
+        /** The paths leading to the explicit columns, or null to track every path. */
+        final Set<String> prefixes;
+        final boolean bracket;
+        int size = 1;
+        int skipped;
+
+        Paths(FlattenOptions options) {
+            this.options = options;
+            this.bracket = options.getPathStyle() == FlattenOptions.PathStyle.BRACKET;
+            if (options.getColumns() == null) {
+                prefixes = null;
+                return;
+            }
+            prefixes = new HashSet<>();
+            for (String name : options.getColumns()) {
+                Column column = new Column(name);
+                column.index = columns.size();
+                columns.put(name, column);
+                for (int i = 1; i < name.length(); i++) {
+                    char c = name.charAt(i);
+                    if (c == '.' || c == '[') {
+                        prefixes.add(name.substring(0, i));
+                    }
+                }
+            }
+            root.column = columns.get(VALUE_COLUMN);
+        }
+
+        /**
+         * Returns the node of a field, or null if it leads to none of the explicit columns.
+         */
+        Node field(Node parent, String name) {
+            if (parent.fields == null) {
+                parent.fields = new HashMap<>();
+            }
+            Node child = parent.fields.get(name);
+            if (child == null) {
+                child = add(parent.path == null ? name : parent.path + '.' + name);
+                if (child != SKIP || skipped++ < maxPaths) {
+                    parent.fields.put(name, child);
+                }
+            }
+            return child == SKIP ? null : child;
+        }
+
+        /**
+         * Returns the node of an array element, or null if it leads to none of the explicit columns.
+         */
+        Node element(Node parent, int index) {
+            Node[] elements = parent.elements;
+            Node child = elements != null && index < elements.length ? elements[index] : null;
+            if (child == null) {
+                String base = parent.path == null ? "" : parent.path;
+                child = add(bracket ? base + '[' + index + ']' : parent.path == null ? Integer.toString(index) : base + '.' + index);
+                if (child != SKIP || skipped++ < maxPaths) {
+                    if (elements == null || index >= elements.length) {
+                        elements = parent.elements = Arrays.copyOf(elements == null ? new Node[0] : elements,
+                                Math.max(elements == null ? 4 : elements.length * 2, index + 1));
+                    }
+                    elements[index] = child;
+                }
+            }
+            return child == SKIP ? null : child;
+        }
+
+        /**
+         * Creates the node of a path not found before, or returns {@link #SKIP} if the path leads to none of the
+         * explicit columns. Skipped paths are remembered up to the path limit, and looked up again beyond it.
+         */
+        private Node add(String path) {
+            if (prefixes != null) {
+                Column column = columns.get(path);
+                if (column == null && !prefixes.contains(path)) {
+                    return SKIP;
+                }
+                Node node = new Node(path);
+                node.column = column;
+                return node;
+            }
+            if (++size > maxPaths) {
+                throw new IllegalArgumentException("The records have more than " + maxPaths
+                        + " distinct paths; list the columns to convert them");
+            }
+            return new Node(path);
+        }
+
+        /**
+         * Records a value of the given type at a path.
+         */
+        void value(Node node, int type) {
+            if (node.column == null) {
+                if (prefixes != null) {
+                    return;
+                }
+                String name = node.path == null ? VALUE_COLUMN : node.path;
+                node.column = columns.computeIfAbsent(name, Column::new);
+            }
+            node.column.types |= type;
+        }
+
+        /**
+         * Orders the columns, unless they are explicit, and returns the header.
+         */
+        List<String> header() {
+            List<Column> ordered = new ArrayList<>(columns.values());
+            if (prefixes == null && options.getOrder() != null) {
+                Comparator<String> comparator = options.getOrder().comparator();
+                ordered.sort((a, b) -> comparator.compare(a.name, b.name));
+            }
+            List<String> header = new ArrayList<>(ordered.size());
+            for (Column column : ordered) {
+                column.index = header.size();
+                header.add(options.isTypeHints() ? new CsvOptions.Column(column.name, type(column.types)).toString() : column.name);
+            }
+            return header;
+        }
+    }
+
+    /**
+     * Returns the narrowest type holding every value of a column; a column of nulls is typed as strings.
+     */
+    private static CsvOptions.ColumnType type(int types) {
+        return switch (types) {
+            case INTEGER -> CsvOptions.ColumnType.INTEGER;
+            case NUMBER, INTEGER | NUMBER -> CsvOptions.ColumnType.NUMBER;
+            case BOOLEAN -> CsvOptions.ColumnType.BOOLEAN;
+            default -> CsvOptions.ColumnType.STRING;
+        };
+    }
+}
@@ -0,0 +1,560 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.util.SortOptions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts the keys of the objects at every level of a JSON document, streaming it from a parser to compact output.
+ * <p>
+ * Every object collects its entries, each a key with its already sorted value, and writes them in key order when it
+ * ends. While the entries buffered for the whole document fit into the memory limit, objects are sorted in memory.
+ * Beyond it the largest buffer is moved to disk: the entries of an object as a sorted run, or a single large value
+ * as a file of its own. An object with runs is written by merging them, so objects with millions of keys and deeply
+ * nested documents are sorted with bounded memory.
+ * <p>
+ * The sort is stable: entries with equal keys keep their input order. Arrays keep the order of their elements
+ * unless {@link SortOptions#isSortArrays()} is set; then the elements are ordered by their compact JSON text,
+ * so a single element has to fit into the memory limit. Numbers and strings are copied as the parser reports them.
+ */
+@Component
+public class JsonKeySorter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_FAN_IN = 64;
+    /** Rough heap size of an entry besides its key and value bytes. */
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    // how the value of a record in a run is stored
+    private static final byte INLINE = 0;
+    private static final byte FILE = 1;
+    private static final byte KEY_ONLY = 2;
+
+    private final long memoryLimit;
+    private final Path directory;
+
+    /**
+     * Constructor that takes the memory limit and the directory of the sorted runs.
+     *
+     * @param properties the application settings
+     */
+    @Autowired
+    public JsonKeySorter(ParseHubProperties properties) {
+        this.memoryLimit = Math.max(1, properties.getSort().getMemoryLimit().toBytes());
+        this.directory = Path.of(properties.getSort().getDirectory());
+    }
+
+    /**
+     * Sorts every root value read from the parser and writes them compactly, separated by a space.
+     * On a parse error whatever was written before stays in the output.
+     *
+     * @param parser  the parser of the document
+     * @param output  the stream the sorted document is written to
+     * @param options how the keys are sorted
+     * @throws IOException if reading, writing or spilling fails, or the document is malformed
+     */
+    public void sort(JsonParser parser, OutputStream output, SortOptions options) throws IOException {
+        OutputStream out = new BufferedOutputStream(output, BUFFER_SIZE);
+        Sorting sorting = new Sorting(options);
+        try {
+            JsonToken token;
+            boolean first = true;
+            while ((token = parser.nextToken()) != null) {
+                if (!first) {
+                    out.write(' ');
+                }
+                first = false;
+                sorting.value(parser, token, out);
+            }
+        } catch (JsonProcessingException e) {
+            out.flush();
+            throw e;
+        } finally {
+            sorting.close();
+        }
+        out.flush();
+    }
+
+    /**
+     * The state of sorting a single document.
+     */
+    private final class Sorting {
+        private final Comparator<String> order;
+        private final Comparator<Entry> entryOrder;
+        private final boolean sortArrays;
+        /** The collectors of the objects and sorted arrays being read, innermost first. */
+        private final Deque<Collector> open = new ArrayDeque<>();
+        private final List<Path> files = new ArrayList<>();
+        private long used;
+
+        Sorting(SortOptions options) {
+            this.order = options.getKeyOrder().comparator();
+            this.entryOrder = Comparator.comparing(entry -> entry.key, order);
+            this.sortArrays = options.isSortArrays();
+        }
+
+        void value(JsonParser parser, JsonToken token, OutputStream out) throws IOException {
+            switch (token) {
+                case START_OBJECT -> object(parser, out);
+                case START_ARRAY -> {
+                    if (sortArrays) {
+                        sortedArray(parser, out);
+                    } else {
+                        array(parser, out);
+                    }
+                }
+                case VALUE_STRING -> writeString(parser.getText(), out);
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> out.write(parser.getText().getBytes(StandardCharsets.US_ASCII));
+                case VALUE_TRUE -> out.write(TRUE);
+                case VALUE_FALSE -> out.write(FALSE);
+                case VALUE_NULL -> out.write(NULL);
+                default -> throw new IllegalStateException("Unexpected token " + token);
+            }
+        }
+
+        private void object(JsonParser parser, OutputStream out) throws IOException {
+            Collector collector = new Collector(false);
+            open.push(collector);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.currentName();
+                value(parser, parser.nextToken(), collector.start(key));
+                collector.finish();
+            }
+            open.pop();
+            collector.writeTo(out);
+        }
+
+        private void sortedArray(JsonParser parser, OutputStream out) throws IOException {
+            Collector collector = new Collector(true);
+            open.push(collector);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                value(parser, token, collector.start(null));
+                collector.finish();
+            }
+            open.pop();
+            collector.writeTo(out);
+        }
+
+        private void array(JsonParser parser, OutputStream out) throws IOException {
+            out.write('[');
+            JsonToken token;
+            boolean first = true;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                value(parser, token, out);
+            }
+            out.write(']');
+        }
+
+        /**
+         * Accounts for bytes buffered in memory and spills the largest buffer once the limit is exceeded.
+         */
+        void allocate(long bytes) throws IOException {
+            used += bytes;
+            if (used <= memoryLimit) {
+                return;
+            }
+            Collector largestEntries = null;
+            Value largestValue = null;
+            for (Collector collector : open) {
+                if (largestEntries == null || collector.memory > largestEntries.memory) {
+                    largestEntries = collector;
+                }
+                if (collector.value.canSpill() && (largestValue == null || collector.value.count > largestValue.count)) {
+                    largestValue = collector.value;
+                }
+            }
+            long entries = largestEntries == null ? 0 : largestEntries.memory;
+            long value = largestValue == null ? 0 : largestValue.count;
+            // what cannot be spilled, such as objects being written, must not make tiny runs pile up
+            if (Math.max(entries, value) < memoryLimit / 64) {
+                return;
+            }
+            if (entries >= value) {
+                largestEntries.spill();
+            } else {
+                largestValue.spill();
+            }
+        }
+
+        Path newFile() throws IOException {
+            if (files.isEmpty()) {
+                Files.createDirectories(directory);
+            }
+            Path file = Files.createTempFile(directory, "parsehub-sort-", ".tmp");
+            files.add(file);
+            return file;
+        }
+
+        void close() {
+            for (Collector collector : open) {
+                collector.value.closeQuietly();
+            }
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    System.err.println("Error deleting file: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Collects the entries of an object, or the elements of a sorted array, which are entries without a value.
+         */
+        private final class Collector {
+            final boolean array;
+            final Value value;
+            List<Entry> entries = new ArrayList<>();
+            final List<Path> runs = new ArrayList<>();
+            /** Bytes of the entries in memory. */
+            long memory;
+            String key;
+
+            Collector(boolean array) {
+                this.array = array;
+                this.value = new Value(array);
+            }
+
+            OutputStream start(String key) {
+                this.key = key;
+                return value;
+            }
+
+            void finish() throws IOException {
+                Entry entry;
+                long size = ENTRY_OVERHEAD;
+                if (array) {
+                    // the compact text of the element is both its key and what is written
+                    entry = new Entry(new String(value.buffer, 0, value.count, StandardCharsets.UTF_8), null, null);
+                } else if (value.file != null) {
+                    entry = new Entry(key, null, value.closeFile());
+                    size += 2L * key.length();
+                } else {
+                    entry = new Entry(key, Arrays.copyOf(value.buffer, value.count), null);
+                    size += 2L * key.length();
+                }
+                entries.add(entry);
+                // the value bytes were accounted for as they were written, they only move to the entry
+                memory += size + value.reset();
+                allocate(size);
+            }
+
+            /**
+             * Writes the entries in memory to disk as a sorted run.
+             */
+            void spill() throws IOException {
+                entries.sort(entryOrder);
+                Path run = newFile();
+                try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))) {
+                    for (Entry entry : entries) {
+                        writeRecord(data, entry.key.getBytes(StandardCharsets.UTF_8), entry.value, entry.file);
+                    }
+                }
+                runs.add(run);
+                entries = new ArrayList<>();
+                used -= memory;
+                memory = 0;
+            }
+
+            void writeTo(OutputStream out) throws IOException {
+                out.write(array ? '[' : '{');
+                if (runs.isEmpty()) {
+                    entries.sort(entryOrder);
+                    boolean first = true;
+                    for (Entry entry : entries) {
+                        if (!first) {
+                            out.write(',');
+                        }
+                        first = false;
+                        writeEntry(out, entry.key, entry.value, entry.file);
+                    }
+                    used -= memory;
+                    memory = 0;
+                } else {
+                    if (!entries.isEmpty()) {
+                        spill();
+                    }
+                    merge(out);
+                }
+                out.write(array ? ']' : '}');
+            }
+
+            private void writeEntry(OutputStream out, String key, byte[] value, Path file) throws IOException {
+                if (array) {
+                    out.write(key.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                writeString(key, out);
+                out.write(':');
+                if (file != null) {
+                    Files.copy(file, out);
+                    Files.delete(file);
+                } else {
+                    out.write(value);
+                }
+            }
+
+            /**
+             * Merges the runs into the output, first into fewer runs when there are too many to open at once.
+             */
+            private void merge(OutputStream out) throws IOException {
+                while (runs.size() > MAX_FAN_IN) {
+                    List<Path> inputs = new ArrayList<>(runs.subList(0, MAX_FAN_IN));
+                    runs.subList(0, MAX_FAN_IN).clear();
+                    Path merged = newFile();
+                    try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(merged), BUFFER_SIZE))) {
+                        merge(inputs, reader -> writeRecord(data, reader.keyBytes, reader.readValue(), reader.readFile()));
+                    }
+                    // the merged runs hold the earliest entries, so it goes first to keep equal keys in input order
+                    runs.add(0, merged);
+                }
+                boolean[] first = {true};
+                merge(runs, reader -> {
+                    if (!first[0]) {
+                        out.write(',');
+                    }
+                    first[0] = false;
+                    writeEntry(out, reader.key, reader.readValue(), reader.readFile());
+                });
+            }
+
+            private void merge(List<Path> inputs, RecordHandler handler) throws IOException {
+                PriorityQueue<RunReader> queue = new PriorityQueue<>(
+                        Comparator.<RunReader, String>comparing(reader -> reader.key, order).thenComparingInt(reader -> reader.index));
+                List<RunReader> readers = new ArrayList<>();
+                try {
+                    for (int i = 0; i < inputs.size(); i++) {
+                        RunReader reader = new RunReader(inputs.get(i), i);
+                        readers.add(reader);
+                        if (reader.next()) {
+                            queue.add(reader);
+                        }
+                    }
+                    while (!queue.isEmpty()) {
+                        RunReader reader = queue.poll();
+                        handler.handle(reader);
+                        if (reader.next()) {
+                            queue.add(reader);
+                        }
+                    }
+                } finally {
+                    for (RunReader reader : readers) {
+                        reader.data.close();
+                    }
+                }
+                for (Path input : inputs) {
+                    Files.delete(input);
+                }
+            }
+        }
+
+        /**
+         * Buffers the value of the entry being read. A large value is moved to a file of its own, except for the
+         * elements of sorted arrays, which are compared by their text.
+         */
+        private final class Value extends OutputStream {
+            private final boolean keepInMemory;
+            byte[] buffer = new byte[256];
+            int count;
+            Path file;
+            OutputStream fileOutput;
+
+            Value(boolean keepInMemory) {
+                this.keepInMemory = keepInMemory;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                if (fileOutput != null) {
+                    fileOutput.write(b);
+                    return;
+                }
+                if (count == buffer.length) {
+                    grow(1);
+                }
+                buffer[count++] = (byte) b;
+                allocate(1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (fileOutput != null) {
+                    fileOutput.write(b, off, len);
+                    return;
+                }
+                if (buffer.length - count < len) {
+                    grow(len);
+                }
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                allocate(len);
+            }
+
+            private void grow(int length) {
+                if (keepInMemory && count + (long) length > memoryLimit) {
+                    throw new IllegalArgumentException("Array element is larger than the sort memory limit of "
+                            + memoryLimit + " bytes, so the array cannot be sorted");
+                }
+                buffer = Arrays.copyOf(buffer, (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max(2L * buffer.length, (long) count + length)));
+            }
+
+            boolean canSpill() {
+                return !keepInMemory && fileOutput == null;
+            }
+
+            void spill() throws IOException {
+                file = newFile();
+                fileOutput = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+                fileOutput.write(buffer, 0, count);
+                used -= count;
+                count = 0;
+                buffer = new byte[256];
+            }
+
+            Path closeFile() throws IOException {
+                fileOutput.close();
+                Path closed = file;
+                fileOutput = null;
+                file = null;
+                return closed;
+            }
+
+            /**
+             * Empties the buffer for the next value.
+             *
+             * @return the number of bytes that were buffered
+             */
+            int reset() {
+                int length = count;
+                count = 0;
+                if (buffer.length > BUFFER_SIZE) {
+                    buffer = new byte[256];
+                }
+                return length;
+            }
+
+            void closeQuietly() {
+                if (fileOutput != null) {
+                    try {
+                        fileOutput.close();
+                    } catch (IOException ignored) {
+                        // the file is deleted anyway
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An entry of an object, with its value either in memory or in a file, or an element of a sorted array,
+     * which is its key alone.
+     */
+    private static final class Entry {
+        final String key;
+        final byte[] value;
+        final Path file;
+
+        Entry(String key, byte[] value, Path file) {
+            this.key = key;
+            this.value = value;
+            this.file = file;
+        }
+    }
+
+    private static void writeRecord(DataOutputStream data, byte[] key, byte[] value, Path file) throws IOException {
+        data.writeInt(key.length);
+        data.write(key);
+        if (file != null) {
+            data.writeByte(FILE);
+            data.writeUTF(file.toString());
+        } else if (value != null) {
+            data.writeByte(INLINE);
+            data.writeInt(value.length);
+            data.write(value);
+        } else {
+            data.writeByte(KEY_ONLY);
+        }
+    }
+
+    private static void writeString(String text, OutputStream out) throws IOException {
+        out.write('"');
+        out.write(JsonStringEncoder.getInstance().quoteAsUTF8(text));
+        out.write('"');
+    }
+
+    /**
+     * Reads the records of a sorted run one by one; the value of a record is read after its key was compared.
+     */
+    private static final class RunReader {
+        final DataInputStream data;
+        final int index;
+        byte[] keyBytes;
+        String key;
+        private byte kind;
+
+        RunReader(Path run, int index) throws IOException {
+            this.data = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), BUFFER_SIZE));
+            this.index = index;
+        }
+
+        boolean next() throws IOException {
+            int length;
+            try {
+                length = data.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            keyBytes = data.readNBytes(length);
+            key = new String(keyBytes, StandardCharsets.UTF_8);
+            kind = data.readByte();
+            return true;
+        }
+
+        /**
+         * Reads the value of the current record if it is stored inline, to be called before {@link #readFile()}.
+         */
+        byte[] readValue() throws IOException {
+            return kind == INLINE ? data.readNBytes(data.readInt()) : null;
+        }
+
+        Path readFile() throws IOException {
+            return kind == FILE ? Path.of(data.readUTF()) : null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordHandler {
+        void handle(RunReader reader) throws IOException;
+    }
+}
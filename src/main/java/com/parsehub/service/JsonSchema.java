@@ -0,0 +1,544 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A JSON Schema compiled into a graph of nodes, one per subschema, that {@link JsonSchemaValidator} walks alongside
+ * the tokens of a document.
+ * <p>
+ * Compiling does the work that would otherwise be repeated for every value: the types become a bit mask, the
+ * properties a hash map, the required properties an index table, patterns are compiled once, the numeric limits are
+ * parsed into {@link BigDecimal}s and the enum and const values are normalized so that they compare in constant time.
+ * Local {@code $ref}s point straight at the node of their target, so recursive schemas become cycles in the graph.
+ * A cycle must pass through a keyword that applies a subschema to a property or an item: one made only of
+ * {@code $ref}s and combinators, such as {@code {"$ref": "#"}}, would apply the schema to the same value forever,
+ * and is rejected.
+ * <p>
+ * The validation keywords of draft 2020-12 are supported, together with the draft 7 forms of {@code items},
+ * {@code additionalItems}, {@code definitions} and {@code dependencies} on property lists. {@code format} is an
+ * annotation only. Keywords whose result depends on other keywords, such as {@code unevaluatedProperties}, and
+ * references outside the schema document are rejected rather than silently ignored.
+ */
+final class JsonSchema {
+    static final int NULL = 1;
+    static final int BOOLEAN = 1 << 1;
+    static final int OBJECT = 1 << 2;
+    static final int ARRAY = 1 << 3;
+    static final int NUMBER = 1 << 4;
+    static final int STRING = 1 << 5;
+    static final int INTEGER = 1 << 6;
+
+    private static final String[] TYPE_NAMES = {"null", "boolean", "object", "array", "number", "string", "integer"};
+    private static final Set<String> UNSUPPORTED = Set.of("unevaluatedProperties", "unevaluatedItems",
+            "dependentSchemas", "$dynamicRef", "$recursiveRef");
+    private static final int MAX_VALUE_TEXT = 80;
+
+    /** A {@code false} schema, which no value matches. */
+    boolean rejectsAll;
+    /** The allowed types as a mask of the type bits, 0 for any type. */
+    int types;
+
+    Set<JsonNode> enumValues;
+    String enumText;
+    JsonNode constValue;
+    String constText;
+    /** Whether enum or const has objects or arrays, which are compared as trees. */
+    boolean comparesContainers;
+
+    BigDecimal minimum;
+    BigDecimal maximum;
+    BigDecimal exclusiveMinimum;
+    BigDecimal exclusiveMaximum;
+    BigDecimal multipleOf;
+    boolean hasNumberKeywords;
+
+    int minLength;
+    int maxLength = -1;
+    Pattern pattern;
+    boolean hasStringKeywords;
+
+    JsonSchema[] prefixItems;
+    JsonSchema items;
+    JsonSchema contains;
+    int minContains = 1;
+    int maxContains = -1;
+    int minItems;
+    int maxItems = -1;
+    boolean uniqueItems;
+    boolean hasArrayKeywords;
+
+    Map<String, JsonSchema> properties;
+    Pattern[] patternKeys;
+    JsonSchema[] patternSchemas;
+    JsonSchema additionalProperties;
+    /** The required properties by name, with their index into a table of seen properties. */
+    Map<String, Integer> required;
+    String[] requiredNames;
+    int minProperties;
+    int maxProperties = -1;
+    JsonSchema propertyNames;
+    Map<String, String[]> dependentRequired;
+    boolean hasObjectKeywords;
+
+    JsonSchema ref;
+    JsonSchema[] allOf;
+    JsonSchema[] anyOf;
+    JsonSchema[] oneOf;
+    JsonSchema not;
+    JsonSchema ifSchema;
+    JsonSchema thenSchema;
+    JsonSchema elseSchema;
+    /** Whether the schema has a {@code $ref} or a combinator, which apply further subschemas to the same value. */
+    boolean hasApplicators;
+
+    private JsonSchema() {
+    }
+
+    /**
+     * Compiles a schema document.
+     *
+     * @param document the schema
+     * @return the root node of the compiled schema
+     * @throws IllegalArgumentException if the document is not a valid schema or uses an unsupported feature
+     */
+    static JsonSchema compile(JsonNode document) {
+        Compiler compiler = new Compiler(document);
+        JsonSchema root = compiler.compile(document, "");
+        compiler.checkCycles(root);
+        return root;
+    }
+
+    /**
+     * Returns whether the values of this schema must be read as a tree to be checked.
+     */
+    boolean needsTree() {
+        return comparesContainers || uniqueItems;
+    }
+
+    /**
+     * Returns the names of the types of a mask, e.g. {@code string or null}.
+     */
+    static String typeNames(int types) {
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < TYPE_NAMES.length; i++) {
+            if ((types & (1 << i)) != 0) {
+                names.append(names.isEmpty() ? "" : " or ").append(TYPE_NAMES[i]);
+            }
+        }
+        return names.toString();
+    }
+
+    /**
+     * Normalizes a value so that equal JSON values are equal nodes: numbers compare by their numeric value,
+     * so {@code 1} equals {@code 1.0}, and objects regardless of the order of their properties.
+     *
+     * @param value the value
+     * @return the normalized value
+     */
+    static JsonNode canonical(JsonNode value) {
+        if (value.isNumber()) {
+            return DecimalNode.valueOf(value.decimalValue().stripTrailingZeros());
+        }
+        if (value.isObject()) {
+            ObjectNode object = JsonNodeFactory.instance.objectNode();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = value.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                object.set(field.getKey(), canonical(field.getValue()));
+            }
+            return object;
+        }
+        if (value.isArray()) {
+            ArrayNode array = JsonNodeFactory.instance.arrayNode(value.size());
+            for (JsonNode element : value) {
+                array.add(canonical(element));
+            }
+            return array;
+        }
+        return value;
+    }
+
+    private static String text(JsonNode value) {
+        String text = value.toString();
+        return text.length() <= MAX_VALUE_TEXT ? text : text.substring(0, MAX_VALUE_TEXT) + "...";
+    }
+
+    /**
+     * Compiles the subschemas of a document. Every subschema is compiled once, under the JSON Pointer of its
+     * location, which is also how {@code $ref}s find their targets.
+     */
+    private static final class Compiler {
+        private final JsonNode document;
+        private final Map<String, JsonSchema> compiled = new HashMap<>();
+
+        Compiler(JsonNode document) {
+            this.document = document;
+        }
+
+        JsonSchema compile(JsonNode node, String pointer) {
+            JsonSchema schema = compiled.get(pointer);
+            if (schema != null) {
+                return schema;
+            }
+            schema = new JsonSchema();
+            // registered before the keywords, so that a $ref back to this schema ends the recursion
+            compiled.put(pointer, schema);
+            if (node.isBoolean()) {
+                schema.rejectsAll = !node.booleanValue();
+                return schema;
+            }
+            if (!node.isObject()) {
+                throw invalid(pointer, "a schema must be an object or a boolean");
+            }
+            for (String keyword : UNSUPPORTED) {
+                if (node.has(keyword)) {
+                    throw invalid(pointer, "the keyword " + keyword + " is not supported");
+                }
+            }
+
+            compileDefinitions(node, pointer, "$defs");
+            compileDefinitions(node, pointer, "definitions");
+            if (node.has("$ref")) {
+                schema.ref = resolve(node.get("$ref"), pointer);
+            }
+            compileGeneric(schema, node, pointer);
+            compileNumber(schema, node, pointer);
+            compileString(schema, node, pointer);
+            compileArray(schema, node, pointer);
+            compileObject(schema, node, pointer);
+            compileApplicators(schema, node, pointer);
+            schema.hasApplicators = schema.ref != null || schema.allOf != null || schema.anyOf != null
+                    || schema.oneOf != null || schema.not != null || schema.ifSchema != null;
+            return schema;
+        }
+
+        /**
+         * Rejects a cycle of subschemas that apply each other to the same value, through {@code $ref}s and
+         * combinators only, which the validator would follow until the stack overflows.
+         */
+        void checkCycles(JsonSchema root) {
+            Map<JsonSchema, String> pointers = new IdentityHashMap<>();
+            compiled.forEach((pointer, schema) -> pointers.put(schema, pointer));
+            Set<JsonSchema> checked = Collections.newSetFromMap(new IdentityHashMap<>());
+            checkCycles(root, new ArrayList<>(), checked, pointers);
+            for (JsonSchema schema : compiled.values()) {
+                checkCycles(schema, new ArrayList<>(), checked, pointers);
+            }
+        }
+
+        private static void checkCycles(JsonSchema schema, List<JsonSchema> applying, Set<JsonSchema> checked,
+                                        Map<JsonSchema, String> pointers) {
+            if (checked.contains(schema)) {
+                return;
+            }
+            int start = applying.indexOf(schema);
+            if (start >= 0) {
+                StringBuilder cycle = new StringBuilder();
+                for (JsonSchema step : applying.subList(start, applying.size())) {
+                    cycle.append('#').append(pointers.get(step)).append(" -> ");
+                }
+                String pointer = pointers.get(schema);
+                throw invalid(pointer, "the subschemas " + cycle + "#" + pointer
+                        + " apply each other to the same value without reaching a property or an item");
+            }
+            applying.add(schema);
+            for (JsonSchema applied : new JsonSchema[]{schema.ref, schema.not, schema.ifSchema, schema.thenSchema,
+                    schema.elseSchema}) {
+                if (applied != null) {
+                    checkCycles(applied, applying, checked, pointers);
+                }
+            }
+            for (JsonSchema[] applied : new JsonSchema[][]{schema.allOf, schema.anyOf, schema.oneOf}) {
+                if (applied != null) {
+                    for (JsonSchema subschema : applied) {
+                        checkCycles(subschema, applying, checked, pointers);
+                    }
+                }
+            }
+            applying.remove(applying.size() - 1);
+            checked.add(schema);
+        }
+
+        private void compileDefinitions(JsonNode node, String pointer, String keyword) {
+            JsonNode definitions = node.get(keyword);
+            if (definitions == null) {
+                return;
+            }
+            if (!definitions.isObject()) {
+                throw invalid(pointer, keyword + " must be an object");
+            }
+            for (Iterator<Map.Entry<String, JsonNode>> fields = definitions.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                compile(field.getValue(), child(pointer, keyword, field.getKey()));
+            }
+        }
+
+        private JsonSchema resolve(JsonNode ref, String pointer) {
+            if (!ref.isTextual() || !ref.asText().startsWith("#")) {
+                throw invalid(pointer, "only $refs within the schema, starting with #, are supported: " + ref);
+            }
+            String target = URLDecoder.decode(ref.asText().substring(1), StandardCharsets.UTF_8);
+            if (!target.isEmpty() && !target.startsWith("/")) {
+                throw invalid(pointer, "only $refs to JSON Pointers are supported: " + ref.asText());
+            }
+            JsonNode node = document.at(JsonPointer.compile(target));
+            if (node.isMissingNode()) {
+                throw invalid(pointer, "the $ref " + ref.asText() + " does not resolve");
+            }
+            return compile(node, target);
+        }
+
+        private void compileGeneric(JsonSchema schema, JsonNode node, String pointer) {
+            JsonNode type = node.get("type");
+            if (type != null) {
+                if (type.isArray()) {
+                    for (JsonNode name : type) {
+                        schema.types |= type(name, pointer);
+                    }
+                } else {
+                    schema.types = type(type, pointer);
+                }
+            }
+            JsonNode values = node.get("enum");
+            if (values != null) {
+                if (!values.isArray()) {
+                    throw invalid(pointer, "enum must be an array");
+                }
+                schema.enumValues = new HashSet<>();
+                for (JsonNode value : values) {
+                    schema.enumValues.add(canonical(value));
+                    schema.comparesContainers |= value.isContainerNode();
+                }
+                schema.enumText = text(values);
+            }
+            JsonNode constValue = node.get("const");
+            if (constValue != null) {
+                schema.constValue = canonical(constValue);
+                schema.constText = text(constValue);
+                schema.comparesContainers |= constValue.isContainerNode();
+            }
+        }
+
+        private static int type(JsonNode name, String pointer) {
+            for (int i = 0; i < TYPE_NAMES.length; i++) {
+                if (TYPE_NAMES[i].equals(name.asText())) {
+                    return 1 << i;
+                }
+            }
+            throw invalid(pointer, "unknown type " + name);
+        }
+
+        private void compileNumber(JsonSchema schema, JsonNode node, String pointer) {
+            schema.minimum = number(node, "minimum", pointer);
+            schema.maximum = number(node, "maximum", pointer);
+            JsonNode exclusiveMinimum = node.get("exclusiveMinimum");
+            if (exclusiveMinimum != null && exclusiveMinimum.isBoolean()) {
+                // draft 4: a flag making minimum exclusive
+                if (exclusiveMinimum.booleanValue()) {
+                    schema.exclusiveMinimum = schema.minimum;
+                    schema.minimum = null;
+                }
+            } else {
+                schema.exclusiveMinimum = number(node, "exclusiveMinimum", pointer);
+            }
+            JsonNode exclusiveMaximum = node.get("exclusiveMaximum");
+            if (exclusiveMaximum != null && exclusiveMaximum.isBoolean()) {
+                if (exclusiveMaximum.booleanValue()) {
+                    schema.exclusiveMaximum = schema.maximum;
+                    schema.maximum = null;
+                }
+            } else {
+                schema.exclusiveMaximum = number(node, "exclusiveMaximum", pointer);
+            }
+            schema.multipleOf = number(node, "multipleOf", pointer);
+            if (schema.multipleOf != null && schema.multipleOf.signum() <= 0) {
+                throw invalid(pointer, "multipleOf must be greater than 0");
+            }
+            schema.hasNumberKeywords = schema.minimum != null || schema.maximum != null || schema.exclusiveMinimum != null
+                    || schema.exclusiveMaximum != null || schema.multipleOf != null;
+        }
+
+        private void compileString(JsonSchema schema, JsonNode node, String pointer) {
+            schema.minLength = count(node, "minLength", pointer, 0);
+            schema.maxLength = count(node, "maxLength", pointer, -1);
+            JsonNode pattern = node.get("pattern");
+            if (pattern != null) {
+                schema.pattern = pattern(pattern.asText(), pointer);
+            }
+            schema.hasStringKeywords = schema.minLength > 0 || schema.maxLength >= 0 || schema.pattern != null;
+        }
+
+        private void compileArray(JsonSchema schema, JsonNode node, String pointer) {
+            JsonNode items = node.get("items");
+            if (items != null && items.isArray()) {
+                // draft 7: a tuple, followed by additionalItems
+                schema.prefixItems = schemas(node, "items", pointer);
+                schema.items = subschema(node, "additionalItems", pointer);
+            } else {
+                schema.prefixItems = schemas(node, "prefixItems", pointer);
+                schema.items = subschema(node, "items", pointer);
+            }
+            schema.contains = subschema(node, "contains", pointer);
+            schema.minContains = count(node, "minContains", pointer, 1);
+            schema.maxContains = count(node, "maxContains", pointer, -1);
+            schema.minItems = count(node, "minItems", pointer, 0);
+            schema.maxItems = count(node, "maxItems", pointer, -1);
+            schema.uniqueItems = node.path("uniqueItems").asBoolean(false);
+            schema.hasArrayKeywords = schema.prefixItems != null || schema.items != null || schema.contains != null
+                    || schema.minItems > 0 || schema.maxItems >= 0 || schema.uniqueItems;
+        }
+
+        private void compileObject(JsonSchema schema, JsonNode node, String pointer) {
+            JsonNode properties = node.get("properties");
+            if (properties != null) {
+                schema.properties = new HashMap<>();
+                for (Iterator<Map.Entry<String, JsonNode>> fields = properties.fields(); fields.hasNext(); ) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    schema.properties.put(field.getKey(), compile(field.getValue(), child(pointer, "properties", field.getKey())));
+                }
+            }
+            JsonNode patternProperties = node.get("patternProperties");
+            if (patternProperties != null) {
+                List<Pattern> keys = new ArrayList<>();
+                List<JsonSchema> schemas = new ArrayList<>();
+                for (Iterator<Map.Entry<String, JsonNode>> fields = patternProperties.fields(); fields.hasNext(); ) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    keys.add(pattern(field.getKey(), pointer));
+                    schemas.add(compile(field.getValue(), child(pointer, "patternProperties", field.getKey())));
+                }
+                schema.patternKeys = keys.toArray(new Pattern[0]);
+                schema.patternSchemas = schemas.toArray(new JsonSchema[0]);
+            }
+            schema.additionalProperties = subschema(node, "additionalProperties", pointer);
+            JsonNode required = node.get("required");
+            if (required != null && !required.isEmpty()) {
+                schema.required = new LinkedHashMap<>();
+                for (JsonNode name : required) {
+                    schema.required.putIfAbsent(name.asText(), schema.required.size());
+                }
+                schema.requiredNames = schema.required.keySet().toArray(new String[0]);
+            }
+            schema.minProperties = count(node, "minProperties", pointer, 0);
+            schema.maxProperties = count(node, "maxProperties", pointer, -1);
+            schema.propertyNames = subschema(node, "propertyNames", pointer);
+            compileDependencies(schema, node.get("dependentRequired"), pointer);
+            compileDependencies(schema, node.get("dependencies"), pointer);
+            schema.hasObjectKeywords = schema.properties != null || schema.patternKeys != null
+                    || schema.additionalProperties != null || schema.required != null || schema.minProperties > 0
+                    || schema.maxProperties >= 0 || schema.propertyNames != null || schema.dependentRequired != null;
+        }
+
+        private static void compileDependencies(JsonSchema schema, JsonNode dependencies, String pointer) {
+            if (dependencies == null) {
+                return;
+            }
+            for (Iterator<Map.Entry<String, JsonNode>> fields = dependencies.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!field.getValue().isArray()) {
+                    throw invalid(pointer, "schema dependencies are not supported, only lists of required properties");
+                }
+                List<String> names = new ArrayList<>();
+                field.getValue().forEach(name -> names.add(name.asText()));
+                if (schema.dependentRequired == null) {
+                    schema.dependentRequired = new HashMap<>();
+                }
+                schema.dependentRequired.put(field.getKey(), names.toArray(new String[0]));
+            }
+        }
+
+        private void compileApplicators(JsonSchema schema, JsonNode node, String pointer) {
+            schema.allOf = schemas(node, "allOf", pointer);
+            schema.anyOf = schemas(node, "anyOf", pointer);
+            schema.oneOf = schemas(node, "oneOf", pointer);
+            schema.not = subschema(node, "not", pointer);
+            schema.ifSchema = subschema(node, "if", pointer);
+            if (schema.ifSchema != null) {
+                schema.thenSchema = subschema(node, "then", pointer);
+                schema.elseSchema = subschema(node, "else", pointer);
+            }
+        }
+
+        private JsonSchema subschema(JsonNode node, String keyword, String pointer) {
+            JsonNode value = node.get(keyword);
+            return value == null ? null : compile(value, child(pointer, keyword));
+        }
+
+        private JsonSchema[] schemas(JsonNode node, String keyword, String pointer) {
+            JsonNode values = node.get(keyword);
+            if (values == null) {
+                return null;
+            }
+            if (!values.isArray() || values.isEmpty()) {
+                throw invalid(pointer, keyword + " must be a non-empty array of schemas");
+            }
+            JsonSchema[] schemas = new JsonSchema[values.size()];
+            for (int i = 0; i < schemas.length; i++) {
+                schemas[i] = compile(values.get(i), child(pointer, keyword, Integer.toString(i)));
+            }
+            return schemas;
+        }
+
+        private static BigDecimal number(JsonNode node, String keyword, String pointer) {
+            JsonNode value = node.get(keyword);
+            if (value == null) {
+                return null;
+            }
+            if (!value.isNumber()) {
+                throw invalid(pointer, keyword + " must be a number");
+            }
+            return value.decimalValue();
+        }
+
+        private static int count(JsonNode node, String keyword, String pointer, int absent) {
+            JsonNode value = node.get(keyword);
+            if (value == null) {
+                return absent;
+            }
+            if (!value.canConvertToExactIntegral() || value.asInt() < 0) {
+                throw invalid(pointer, keyword + " must be a non-negative integer");
+            }
+            return value.asInt();
+        }
+
+        private static Pattern pattern(String pattern, String pointer) {
+            try {
+                return Pattern.compile(pattern);
+            } catch (PatternSyntaxException e) {
+                throw invalid(pointer, "invalid pattern " + pattern + ": " + e.getDescription());
+            }
+        }
+
+        private static String child(String pointer, String... segments) {
+            StringBuilder child = new StringBuilder(pointer);
+            for (String segment : segments) {
+                child.append('/').append(segment.replace("~", "~0").replace("/", "~1"));
+            }
+            return child.toString();
+        }
+
+        private static IllegalArgumentException invalid(String pointer, String message) {
+            return new IllegalArgumentException("Invalid JSON Schema at " + (pointer.isEmpty() ? "the root" : pointer)
+                    + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parsehub.config.ParseHubProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Registry of the named JSON Schemas documents can be validated against.
+ * A schema is compiled into a validator graph when it is registered, see {@link JsonSchema}.
+ */
+@Service
+public class JsonSchemaRegistry extends SchemaRegistry<JsonSchema> {
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor that takes the shared mappers and the schema settings.
+     *
+     * @param mappers    the shared mapper registry, used to parse the schemas
+     * @param properties the application settings
+     */
+    @Autowired
+    public JsonSchemaRegistry(MapperRegistry mappers, ParseHubProperties properties) {
+        super(properties.getSchema());
+        this.objectMapper = mappers.json();
+    }
+
+    @Override
+    protected JsonSchema compile(String text) {
+        JsonNode document;
+        try {
+            document = objectMapper.readTree(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON Schema: " + e.getOriginalMessage());
+        }
+        if (document == null || document.isMissingNode()) {
+            throw new IllegalArgumentException("Invalid JSON Schema: the schema is empty");
+        }
+        return JsonSchema.compile(document);
+    }
+}
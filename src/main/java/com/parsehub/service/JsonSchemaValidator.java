@@ -0,0 +1,631 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.parsehub.util.ValidationError;
+import com.parsehub.util.ValidationResult;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validates a JSON document against a compiled {@link JsonSchema} in a single pass over the parser's tokens.
+ * <p>
+ * Every value is checked against the set of subschemas that apply to it. Before the value is read, the
+ * applicators of those subschemas are expanded into that set: {@code $ref} and {@code allOf} add their schemas,
+ * while {@code anyOf}, {@code oneOf}, {@code not} and {@code if} add theirs with an error sink of their own, which
+ * decides after the value whether the applicator passed. Scalars are checked from the current token, and objects
+ * and arrays hand each member the subschemas selected by {@code properties}, {@code items} and their kin, so the
+ * document is never built. Only a value checked by {@code uniqueItems}, or by an {@code enum} or {@code const} with
+ * objects or arrays, is read as a tree, and then only that value. A value no subschema applies to is skipped, and
+ * a branch that has already failed stops receiving members.
+ * <p>
+ * Errors carry the JSON Pointer of the value, computed only when an error is reported.
+ */
+final class JsonSchemaValidator {
+    private final Path path = new Path();
+
+    private JsonSchemaValidator() {
+    }
+
+    /**
+     * Validates every root value read from the parser and adds the errors to the result, up to
+     * {@code maxErrors} of them followed by the number of the others.
+     *
+     * @param parser    the parser positioned before the first token, with a codec to read trees
+     * @param schema    the compiled schema
+     * @param result    the result the errors are added to
+     * @param maxErrors the number of errors reported
+     * @throws IOException if the document cannot be parsed
+     */
+    static void validate(JsonParser parser, JsonSchema schema, ValidationResult result, int maxErrors) throws IOException {
+        JsonSchemaValidator validator = new JsonSchemaValidator();
+        Errors errors = Errors.root(result, maxErrors);
+        while (parser.nextToken() != null) {
+            validator.validate(parser, List.of(new Check(schema, errors)));
+        }
+        if (errors.count > maxErrors) {
+            result.addErrorMessage("... and " + (errors.count - maxErrors) + " more errors");
+        }
+    }
+
+    /**
+     * Validates the value at the current token against the subschemas and leaves the parser on its last token.
+     */
+    private void validate(JsonParser parser, List<Check> applied) throws IOException {
+        List<Check> checks = applied;
+        List<Runnable> verdicts = List.of();
+        if (needsExpansion(applied)) {
+            checks = new ArrayList<>(applied.size() + 4);
+            verdicts = new ArrayList<>(0);
+            for (Check check : applied) {
+                expand(check.schema, check.errors, checks, verdicts);
+            }
+        }
+
+        JsonToken token = parser.currentToken();
+        if (checks.isEmpty()) {
+            parser.skipChildren();
+        } else if (token.isStructStart() && needsTree(checks)) {
+            JsonNode tree = parser.readValueAsTree();
+            try (JsonParser treeParser = tree.traverse(parser.getCodec())) {
+                treeParser.nextToken();
+                check(treeParser, token, checks, tree);
+            }
+        } else {
+            check(parser, token, checks, null);
+        }
+
+        // inner applicators were expanded last, and decide first
+        for (int i = verdicts.size() - 1; i >= 0; i--) {
+            verdicts.get(i).run();
+        }
+    }
+
+    /**
+     * Adds a subschema and the subschemas its applicators apply to the same value.
+     */
+    private void expand(JsonSchema schema, Errors errors, List<Check> checks, List<Runnable> verdicts) {
+        if (errors.isDone()) {
+            return;
+        }
+        if (schema.rejectsAll) {
+            errors.add(path, "is not allowed");
+            return;
+        }
+        checks.add(new Check(schema, errors));
+        if (schema.ref != null) {
+            expand(schema.ref, errors, checks, verdicts);
+        }
+        if (schema.allOf != null) {
+            for (JsonSchema subschema : schema.allOf) {
+                expand(subschema, errors, checks, verdicts);
+            }
+        }
+        if (schema.anyOf != null) {
+            Errors[] branches = branches(schema.anyOf, checks, verdicts);
+            verdicts.add(() -> {
+                if (matches(branches) == 0) {
+                    errors.add(path, "must match at least one schema in anyOf");
+                }
+            });
+        }
+        if (schema.oneOf != null) {
+            Errors[] branches = branches(schema.oneOf, checks, verdicts);
+            verdicts.add(() -> {
+                int matches = matches(branches);
+                if (matches != 1) {
+                    errors.add(path, "must match exactly one schema in oneOf, but matches " + matches);
+                }
+            });
+        }
+        if (schema.not != null) {
+            Errors branch = Errors.speculative();
+            expand(schema.not, branch, checks, verdicts);
+            verdicts.add(() -> {
+                if (branch.isValid()) {
+                    errors.add(path, "must not match the schema in not");
+                }
+            });
+        }
+        if (schema.ifSchema != null) {
+            Errors condition = Errors.speculative();
+            expand(schema.ifSchema, condition, checks, verdicts);
+            Errors then = schema.thenSchema == null ? null : errors.deferred();
+            Errors otherwise = schema.elseSchema == null ? null : errors.deferred();
+            if (then != null) {
+                expand(schema.thenSchema, then, checks, verdicts);
+            }
+            if (otherwise != null) {
+                expand(schema.elseSchema, otherwise, checks, verdicts);
+            }
+            verdicts.add(() -> {
+                Errors chosen = condition.isValid() ? then : otherwise;
+                if (chosen != null) {
+                    chosen.forwardTo(errors);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns whether a subschema has applicators to expand, or is one that must be dropped, so that the common
+     * case of plain subschemas is checked without copying them.
+     */
+    private static boolean needsExpansion(List<Check> applied) {
+        for (Check check : applied) {
+            if (check.schema.hasApplicators || check.schema.rejectsAll || check.errors.isDone()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Errors[] branches(JsonSchema[] schemas, List<Check> checks, List<Runnable> verdicts) {
+        Errors[] branches = new Errors[schemas.length];
+        for (int i = 0; i < schemas.length; i++) {
+            branches[i] = Errors.speculative();
+            expand(schemas[i], branches[i], checks, verdicts);
+        }
+        return branches;
+    }
+
+    private static int matches(Errors[] branches) {
+        int matches = 0;
+        for (Errors branch : branches) {
+            if (branch.isValid()) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static boolean needsTree(List<Check> checks) {
+        for (Check check : checks) {
+            if (check.schema.needsTree()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks the value at the current token, which is also available as a tree if {@code tree} is not null.
+     */
+    private void check(JsonParser parser, JsonToken token, List<Check> checks, JsonNode tree) throws IOException {
+        int type = switch (token) {
+            case START_OBJECT -> JsonSchema.OBJECT;
+            case START_ARRAY -> JsonSchema.ARRAY;
+            case VALUE_STRING -> JsonSchema.STRING;
+            case VALUE_NUMBER_INT -> JsonSchema.NUMBER | JsonSchema.INTEGER;
+            case VALUE_NUMBER_FLOAT -> JsonSchema.NUMBER;
+            case VALUE_TRUE, VALUE_FALSE -> JsonSchema.BOOLEAN;
+            default -> JsonSchema.NULL;
+        };
+        BigDecimal number = null;
+        if (token == JsonToken.VALUE_NUMBER_FLOAT && distinguishesIntegers(checks)) {
+            number = parser.getDecimalValue();
+            // 1.0 is an integer to JSON Schema
+            if (number.signum() == 0 || number.stripTrailingZeros().scale() <= 0) {
+                type |= JsonSchema.INTEGER;
+            }
+        }
+        JsonNode scalar = null;
+
+        for (Check check : checks) {
+            JsonSchema schema = check.schema;
+            Errors errors = check.errors;
+            if (schema.types != 0 && (schema.types & type) == 0) {
+                errors.add(path, "must be of type " + JsonSchema.typeNames(schema.types)
+                        + ", but is " + JsonSchema.typeNames((type & JsonSchema.INTEGER) != 0 ? JsonSchema.INTEGER : type));
+            }
+            if (schema.enumValues != null || schema.constValue != null) {
+                if (scalar == null) {
+                    scalar = JsonSchema.canonical(tree != null ? tree : scalar(parser, token));
+                }
+                if (schema.enumValues != null && !schema.enumValues.contains(scalar)) {
+                    errors.add(path, "must be one of " + schema.enumText);
+                }
+                if (schema.constValue != null && !schema.constValue.equals(scalar)) {
+                    errors.add(path, "must be " + schema.constText);
+                }
+            }
+            if (schema.hasNumberKeywords && (type & JsonSchema.NUMBER) != 0) {
+                if (number == null) {
+                    number = decimal(parser);
+                }
+                checkNumber(schema, number, errors);
+            }
+            if (schema.hasStringKeywords && token == JsonToken.VALUE_STRING) {
+                checkString(schema, parser.getText(), errors);
+            }
+        }
+
+        if (token == JsonToken.START_OBJECT) {
+            checkObject(parser, checks);
+        } else if (token == JsonToken.START_ARRAY) {
+            checkArray(parser, checks, tree);
+        }
+    }
+
+    /**
+     * Returns whether a subschema allows integers but not every number, so that a number with a fraction part of
+     * zeros needs to be told apart from other numbers.
+     */
+    private static boolean distinguishesIntegers(List<Check> checks) {
+        for (Check check : checks) {
+            if ((check.schema.types & (JsonSchema.INTEGER | JsonSchema.NUMBER)) == JsonSchema.INTEGER) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number at the current token, without parsing its text again when it fits a long.
+     */
+    private static BigDecimal decimal(JsonParser parser) throws IOException {
+        JsonParser.NumberType numberType = parser.getNumberType();
+        if (numberType == JsonParser.NumberType.INT || numberType == JsonParser.NumberType.LONG) {
+            return BigDecimal.valueOf(parser.getLongValue());
+        }
+        return parser.getDecimalValue();
+    }
+
+    private static JsonNode scalar(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_STRING -> TextNode.valueOf(parser.getText());
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> DecimalNode.valueOf(decimal(parser));
+            case VALUE_TRUE -> BooleanNode.TRUE;
+            case VALUE_FALSE -> BooleanNode.FALSE;
+            default -> NullNode.getInstance();
+        };
+    }
+
+    private void checkNumber(JsonSchema schema, BigDecimal number, Errors errors) {
+        if (schema.minimum != null && number.compareTo(schema.minimum) < 0) {
+            errors.add(path, "must be >= " + schema.minimum.toPlainString());
+        }
+        if (schema.maximum != null && number.compareTo(schema.maximum) > 0) {
+            errors.add(path, "must be <= " + schema.maximum.toPlainString());
+        }
+        if (schema.exclusiveMinimum != null && number.compareTo(schema.exclusiveMinimum) <= 0) {
+            errors.add(path, "must be > " + schema.exclusiveMinimum.toPlainString());
+        }
+        if (schema.exclusiveMaximum != null && number.compareTo(schema.exclusiveMaximum) >= 0) {
+            errors.add(path, "must be < " + schema.exclusiveMaximum.toPlainString());
+        }
+        if (schema.multipleOf != null && number.remainder(schema.multipleOf).signum() != 0) {
+            errors.add(path, "must be a multiple of " + schema.multipleOf.toPlainString());
+        }
+    }
+
+    private void checkString(JsonSchema schema, String text, Errors errors) {
+        if (schema.minLength > 0 || schema.maxLength >= 0) {
+            int length = text.codePointCount(0, text.length());
+            if (length < schema.minLength) {
+                errors.add(path, "must be at least " + schema.minLength + " characters long");
+            }
+            if (schema.maxLength >= 0 && length > schema.maxLength) {
+                errors.add(path, "must be at most " + schema.maxLength + " characters long");
+            }
+        }
+        if (schema.pattern != null && !schema.pattern.matcher(text).find()) {
+            errors.add(path, "must match the pattern " + schema.pattern.pattern());
+        }
+    }
+
+    private void checkObject(JsonParser parser, List<Check> checks) throws IOException {
+        int size = checks.size();
+        boolean[][] seenRequired = new boolean[size][];
+        List<Set<String>> names = null;
+        for (int i = 0; i < size; i++) {
+            JsonSchema schema = checks.get(i).schema;
+            if (schema.required != null) {
+                seenRequired[i] = new boolean[schema.required.size()];
+            }
+            if (schema.dependentRequired != null) {
+                if (names == null) {
+                    names = new ArrayList<>(Collections.nCopies(size, null));
+                }
+                names.set(i, new HashSet<>());
+            }
+        }
+
+        int count = 0;
+        List<Check> members = new ArrayList<>();
+        for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+            parser.nextToken();
+            count++;
+            path.push(name);
+            members.clear();
+            for (int i = 0; i < size; i++) {
+                Check check = checks.get(i);
+                JsonSchema schema = check.schema;
+                if (!schema.hasObjectKeywords || check.errors.isDone()) {
+                    continue;
+                }
+                if (seenRequired[i] != null) {
+                    Integer index = schema.required.get(name);
+                    if (index != null) {
+                        seenRequired[i][index] = true;
+                    }
+                }
+                if (names != null && names.get(i) != null) {
+                    names.get(i).add(name);
+                }
+                if (schema.propertyNames != null && !matches(schema.propertyNames, TextNode.valueOf(name), parser)) {
+                    check.errors.add(path, "is not a valid property name");
+                }
+                boolean matched = false;
+                JsonSchema property = schema.properties == null ? null : schema.properties.get(name);
+                if (property != null) {
+                    members.add(new Check(property, check.errors));
+                    matched = true;
+                }
+                if (schema.patternKeys != null) {
+                    for (int p = 0; p < schema.patternKeys.length; p++) {
+                        if (schema.patternKeys[p].matcher(name).find()) {
+                            members.add(new Check(schema.patternSchemas[p], check.errors));
+                            matched = true;
+                        }
+                    }
+                }
+                if (!matched && schema.additionalProperties != null) {
+                    members.add(new Check(schema.additionalProperties, check.errors));
+                }
+            }
+            validate(parser, members);
+            path.pop();
+        }
+
+        for (int i = 0; i < size; i++) {
+            Check check = checks.get(i);
+            JsonSchema schema = check.schema;
+            if (!schema.hasObjectKeywords) {
+                continue;
+            }
+            if (seenRequired[i] != null) {
+                for (int r = 0; r < seenRequired[i].length; r++) {
+                    if (!seenRequired[i][r]) {
+                        check.errors.add(path, "is missing required property " + schema.requiredNames[r]);
+                    }
+                }
+            }
+            if (count < schema.minProperties) {
+                check.errors.add(path, "must have at least " + schema.minProperties + " properties");
+            }
+            if (schema.maxProperties >= 0 && count > schema.maxProperties) {
+                check.errors.add(path, "must have at most " + schema.maxProperties + " properties");
+            }
+            if (schema.dependentRequired != null) {
+                Set<String> present = names.get(i);
+                schema.dependentRequired.forEach((name, dependents) -> {
+                    if (present.contains(name)) {
+                        for (String dependent : dependents) {
+                            if (!present.contains(dependent)) {
+                                check.errors.add(path, "must have property " + dependent + " when " + name + " is present");
+                            }
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private void checkArray(JsonParser parser, List<Check> checks, JsonNode tree) throws IOException {
+        int size = checks.size();
+        int[] containing = null;
+        Errors[] contains = null;
+        for (Check check : checks) {
+            if (check.schema.contains != null) {
+                containing = new int[size];
+                contains = new Errors[size];
+                break;
+            }
+        }
+        int count = 0;
+        List<Check> items = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            path.push(count);
+            items.clear();
+            if (contains != null) {
+                Arrays.fill(contains, null);
+            }
+            for (int i = 0; i < size; i++) {
+                Check check = checks.get(i);
+                JsonSchema schema = check.schema;
+                if (!schema.hasArrayKeywords || check.errors.isDone()) {
+                    continue;
+                }
+                JsonSchema item = schema.prefixItems != null && count < schema.prefixItems.length
+                        ? schema.prefixItems[count] : schema.items;
+                if (item != null) {
+                    items.add(new Check(item, check.errors));
+                }
+                if (schema.contains != null) {
+                    contains[i] = Errors.speculative();
+                    items.add(new Check(schema.contains, contains[i]));
+                }
+            }
+            validate(parser, items);
+            for (int i = 0; contains != null && i < size; i++) {
+                if (contains[i] != null && contains[i].isValid()) {
+                    containing[i]++;
+                }
+            }
+            path.pop();
+            count++;
+        }
+
+        for (int i = 0; i < size; i++) {
+            Check check = checks.get(i);
+            JsonSchema schema = check.schema;
+            if (!schema.hasArrayKeywords) {
+                continue;
+            }
+            if (count < schema.minItems) {
+                check.errors.add(path, "must have at least " + schema.minItems + " items");
+            }
+            if (schema.maxItems >= 0 && count > schema.maxItems) {
+                check.errors.add(path, "must have at most " + schema.maxItems + " items");
+            }
+            if (schema.contains != null) {
+                if (containing[i] < schema.minContains) {
+                    check.errors.add(path, "must contain at least " + schema.minContains + " items matching contains");
+                }
+                if (schema.maxContains >= 0 && containing[i] > schema.maxContains) {
+                    check.errors.add(path, "must contain at most " + schema.maxContains + " items matching contains");
+                }
+            }
+            if (schema.uniqueItems && tree != null) {
+                Set<JsonNode> seen = new HashSet<>();
+                for (JsonNode item : tree) {
+                    if (!seen.add(JsonSchema.canonical(item))) {
+                        check.errors.add(path, "must not contain duplicate items");
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether a value that is not part of the document, such as a property name, matches a subschema.
+     */
+    private boolean matches(JsonSchema schema, JsonNode value, JsonParser parser) throws IOException {
+        Errors errors = Errors.speculative();
+        try (JsonParser valueParser = value.traverse(parser.getCodec())) {
+            valueParser.nextToken();
+            validate(valueParser, List.of(new Check(schema, errors)));
+        }
+        return errors.isValid();
+    }
+
+    /**
+     * A subschema applied to a value, with the sink its errors go to.
+     */
+    private record Check(JsonSchema schema, Errors errors) {
+    }
+
+    /**
+     * Collects the errors of a subschema. The root sink adds them to the result; a speculative sink, such as a
+     * branch of {@code anyOf}, only needs to know whether there was one; a deferred sink, such as {@code then},
+     * holds them until it is known whether they count.
+     */
+    private static final class Errors {
+        private final ValidationResult result;
+        private final List<ValidationError> held;
+        private final int limit;
+        private long count;
+
+        private Errors(ValidationResult result, List<ValidationError> held, int limit) {
+            this.result = result;
+            this.held = held;
+            this.limit = limit;
+        }
+
+        static Errors root(ValidationResult result, int limit) {
+            return new Errors(result, null, limit);
+        }
+
+        static Errors speculative() {
+            return new Errors(null, null, 0);
+        }
+
+        Errors deferred() {
+            return result == null && held == null ? speculative() : new Errors(null, new ArrayList<>(), limit);
+        }
+
+        void add(Path path, String message) {
+            count++;
+            if (result != null && count <= limit) {
+                result.addError(path.pointer(), message);
+            } else if (held != null && held.size() < limit) {
+                held.add(new ValidationError(path.pointer(), message));
+            }
+        }
+
+        void forwardTo(Errors target) {
+            if (held == null) {
+                target.count += count;
+                return;
+            }
+            for (ValidationError error : held) {
+                target.count++;
+                if (target.result != null && target.count <= target.limit) {
+                    target.result.addError(error.path(), error.message());
+                } else if (target.held != null && target.held.size() < target.limit) {
+                    target.held.add(error);
+                }
+            }
+            target.count += count - held.size();
+        }
+
+        boolean isValid() {
+            return count == 0;
+        }
+
+        /**
+         * Returns whether further errors make no difference, so the subschemas of this sink can be skipped.
+         */
+        boolean isDone() {
+            return result == null && held == null && count > 0;
+        }
+    }
+
+    /**
+     * The location of the current value, as a stack of property names and array indexes.
+     */
+    private static final class Path {
+        private String[] names = new String[16];
+        private int[] indexes = new int[16];
+        private int depth;
+
+        void push(String name) {
+            grow();
+            names[depth++] = name;
+        }
+
+        void push(int index) {
+            grow();
+            names[depth] = null;
+            indexes[depth++] = index;
+        }
+
+        void pop() {
+            depth--;
+        }
+
+        private void grow() {
+            if (depth == names.length) {
+                names = Arrays.copyOf(names, depth * 2);
+                indexes = Arrays.copyOf(indexes, depth * 2);
+            }
+        }
+
+        String pointer() {
+            StringBuilder pointer = new StringBuilder();
+            for (int i = 0; i < depth; i++) {
+                pointer.append('/');
+                if (names[i] == null) {
+                    pointer.append(indexes[i]);
+                } else {
+                    pointer.append(names[i].replace("~", "~0").replace("/", "~1"));
+                }
+            }
+            return pointer.toString();
+        }
+    }
+}
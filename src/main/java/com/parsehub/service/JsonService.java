@@ -4,18 +4,21 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.parsehub.util.ConversionType;
 import com.parsehub.util.ValidationResult;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectWriter;
+import com.parsehub.util.FlattenOptions;
 import com.parsehub.util.Format;
-import com.parsehub.util.CustomPrettyPrinter;
+import com.parsehub.util.OperationFailure;
+import com.parsehub.util.JsonByteFormatter;
+import com.parsehub.util.SortOptions;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvSchema;
-import org.yaml.snakeyaml.DumperOptions;
-import org.yaml.snakeyaml.Yaml;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.TreeMap;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Service class for handling JSON-related operations such as validation, formatting, and conversion.
@@ -23,12 +26,29 @@ import java.util.TreeMap;
 @Service
 public class JsonService implements IDataService {
     private final ObjectMapper objectMapper;
+    private final ConversionEngine conversionEngine;
+    private final JsonKeySorter keySorter;
+    private final JsonSchemaRegistry schemaRegistry;
+    private final JsonCsvFlattener csvFlattener;
 
     /**
-     * Constructor initializes the ObjectMapper for handling JSON operations.
+     * Constructor that takes the shared mappers, the conversion engine, the key sorter, the schema registry
+     * and the CSV flattener used for JSON operations.
+     *
+     * @param mappers          the shared mapper registry, whose JSON mapper parses the documents
+     * @param conversionEngine the engine converting JSON into other formats
+     * @param keySorter        the sorter of the keys of JSON documents
+     * @param schemaRegistry   the registry of the schemas documents are validated against
+     * @param csvFlattener     the flattener of nested JSON records into CSV
      */
-    public JsonService() {
-        this.objectMapper = new ObjectMapper();
+    @Autowired
+    public JsonService(MapperRegistry mappers, ConversionEngine conversionEngine, JsonKeySorter keySorter,
+                       JsonSchemaRegistry schemaRegistry, JsonCsvFlattener csvFlattener) {
+        this.objectMapper = mappers.json();
+        this.conversionEngine = conversionEngine;
+        this.keySorter = keySorter;
+        this.schemaRegistry = schemaRegistry;
+        this.csvFlattener = csvFlattener;
     }
 
     /**
@@ -38,19 +58,80 @@ public class JsonService implements IDataService {
      * @return ValidationResult object indicating whether the JSON is valid
      */
     public ValidationResult validateJson(String json) {
-        ValidationResult result = new ValidationResult();
         try {
-            objectMapper.readTree(json);
+            return validateJson(objectMapper.getFactory().createParser(json));
+        } catch (IOException e) {
+            return invalidJson(e);
+        }
+    }
+
+    /**
+     * Validates JSON read directly from a stream.
+     * The input is tokenized without building a tree, so memory use does not grow with the document size.
+     *
+     * @param json the input stream containing the JSON document
+     * @return ValidationResult object indicating whether the JSON is valid
+     */
+    public ValidationResult validateJson(InputStream json) {
+        try {
+            return validateJson(objectMapper.getFactory().createParser(json));
+        } catch (IOException e) {
+            return invalidJson(e);
+        }
+    }
+
+    /**
+     * Pulls every token from the parser to check well-formedness.
+     *
+     * @param parser the parser positioned before the first token
+     * @return ValidationResult object indicating whether the JSON is valid
+     */
+    private ValidationResult validateJson(JsonParser parser) {
+        ValidationResult result = new ValidationResult();
+        try (parser) {
+            // nextFieldName() is the parser's fast path and reports errors the same way readTree() does
+            do {
+                parser.nextFieldName();
+            } while (parser.currentToken() != null);
             result.setValid(true);
         } catch (IOException e) {
-            result.setValid(false);
-            result.addErrorMessage("Invalid JSON: " + e.getMessage());
+            return invalidJson(e);
         }
         return result;
     }
 
+    /**
+     * Validates JSON read from a stream against a registered JSON Schema, in the same single pass that checks
+     * its syntax. Each error is located by the JSON Pointer of the offending value.
+     * Only the values checked by {@code uniqueItems}, or by an {@code enum} or {@code const} listing objects or
+     * arrays, are read into memory.
+     *
+     * @param json   the input stream containing the JSON document
+     * @param schema the schema the document must match
+     * @return ValidationResult object indicating whether the JSON is valid and matches the schema
+     */
+    public ValidationResult validateJson(InputStream json, JsonSchemaRegistry.Schema schema) {
+        JsonSchema compiled = schemaRegistry.compiled(schema);
+        ValidationResult result = new ValidationResult();
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            JsonSchemaValidator.validate(parser, compiled, result, schemaRegistry.maxErrors());
+        } catch (IOException e) {
+            return invalidJson(e);
+        }
+        result.setValid(result.getErrorMessages().isEmpty());
+        return result;
+    }
+
+    private ValidationResult invalidJson(IOException e) {
+        ValidationResult result = new ValidationResult();
+        result.setValid(false);
+        result.addErrorMessage("Invalid JSON: " + e.getMessage());
+        return result;
+    }
+
     /**
      * Formats the given JSON string with the specified indentation format.
+     * The JSON is reindented byte by byte without building a tree, see {@link JsonByteFormatter}.
      *
      * @param json   the input JSON string to format
      * @param format the desired format (e.g., SPACE_2, SPACE_4)
@@ -58,19 +139,31 @@ public class JsonService implements IDataService {
      */
     public String formatJson(String json, Format format) {
         try {
-            JsonNode jsonNode = objectMapper.readTree(json);
-            ObjectWriter writer = switch (format) {
-                case SPACE_2 -> objectMapper.writer(new CustomPrettyPrinter(2));
-                case SPACE_3 -> objectMapper.writer(new CustomPrettyPrinter(3));
-                case SPACE_4 -> objectMapper.writer(new CustomPrettyPrinter(4));
-                default -> objectMapper.writer();
-            };
-            return writer.writeValueAsString(jsonNode);
+            return new String(JsonByteFormatter.format(json.getBytes(StandardCharsets.UTF_8), format), StandardCharsets.UTF_8);
         } catch (JsonProcessingException e) {
-            return "Invalid JSON format: " + e.getMessage();
+            return OperationFailure.message("Invalid JSON format: " + e.getMessage());
         }
     }
 
+    /**
+     * Formats JSON read from a stream in a single pass over its bytes, without tokenizing it or building a tree.
+     * The output matches {@link #formatJson(String, Format)}; on invalid input the error message
+     * follows whatever was written before the error.
+     *
+     * @param json   the input stream containing the JSON to format
+     * @param output the output stream the formatted JSON is written to
+     * @param format the desired format (e.g., SPACE_2, SPACE_4)
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void formatJson(InputStream json, OutputStream output, Format format) throws IOException {
+        try {
+            JsonByteFormatter.format(json, output, format);
+        } catch (JsonProcessingException e) {
+            OperationFailure.write(output, "Invalid JSON format: " + e.getMessage());
+        }
+        output.flush();
+    }
+
     /**
      * Minifies the given JSON string by removing all unnecessary spaces and newlines.
      *
@@ -81,6 +174,17 @@ public class JsonService implements IDataService {
         return formatJson(json, Format.COMPACT);
     }
 
+    /**
+     * Minifies JSON read from a stream in a single streaming pass.
+     *
+     * @param json   the input stream containing the JSON to minify
+     * @param output the output stream the minified JSON is written to
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void minifyJson(InputStream json, OutputStream output) throws IOException {
+        formatJson(json, output, Format.COMPACT);
+    }
+
     /**
      * Converts the given JSON string into the specified format (XML, YAML, or CSV).
      *
@@ -90,92 +194,146 @@ public class JsonService implements IDataService {
      */
     public String convertData(String json, ConversionType type) {
         try {
-            JsonNode jsonNode = objectMapper.readTree(json);
-            return switch (type) {
-                case XML -> convertJsonToXml(jsonNode);
-                case YAML -> convertJsonToYaml(jsonNode);
-                case CSV -> convertJsonToCsv(jsonNode);
-                default -> json;
-            };
+            return conversionEngine.convert(json, ConversionType.JSON, type);
         } catch (IOException e) {
-            return "Invalid JSON format: " + e.getMessage();
+            return OperationFailure.message("Invalid JSON format: " + e.getMessage());
         }
     }
 
-
     /**
-     * Converts JSON to YAML.
+     * Converts JSON read from a stream into the specified format in a single streaming pass.
+     * Arrays are converted one element at a time, so heap use does not grow with the document size.
      *
-     * @param json the input JSON string
-     * @return the converted YAML string
+     * @param json   the input stream containing the JSON to convert
+     * @param output the output stream the converted data is written to
+     * @param type   the target conversion format
+     * @throws IOException if reading the input or writing the output fails
      */
-    private String convertJsonToYaml(String json) {
+    public void convertData(InputStream json, OutputStream output, ConversionType type) throws IOException {
         try {
-            JsonNode jsonNode = objectMapper.readTree(json);
-            return objectMapper.writeValueAsString(jsonNode);
-        } catch (IOException e) {
-            return "Invalid JSON format: " + e.getMessage();
+            conversionEngine.convert(json, ConversionType.JSON, output, type);
+        } catch (JsonProcessingException e) {
+            OperationFailure.write(output, "Invalid JSON format: " + e.getMessage());
+            output.flush();
         }
     }
 
     /**
-     * Converts JSON to XML.
+     * Converts JSON records of any shape read from a stream into CSV, flattening nested objects and arrays into
+     * one column per path, such as {@code address.city} or {@code items[0].sku}. Unlike {@link #convertData},
+     * which takes the columns from the first element of a root array, the columns are the union of the paths of
+     * every record, and root values other than arrays are records too. Finding the columns takes a first pass,
+     * for which an input beyond the memory limit is spooled to disk, see {@link JsonCsvFlattener}.
+     * On invalid input the error message follows whatever was written before the error.
      *
-     * @param jsonNode the parsed JSON data
-     * @return the converted XML string
-     * @throws JsonProcessingException if the conversion fails
+     * @param json    the input stream containing the JSON to convert
+     * @param output  the output stream the CSV is written to
+     * @param options the path style, the column order, the type hints and the columns
+     * @throws IOException if reading the input or writing the output fails
      */
-    private String convertJsonToXml(JsonNode jsonNode) throws JsonProcessingException {
-        XmlMapper xmlMapper = new XmlMapper();
-        return xmlMapper.writeValueAsString(jsonNode);
+    public void convertJsonToCsv(InputStream json, OutputStream output, FlattenOptions options) throws IOException {
+        try {
+            csvFlattener.flatten(json, output, options);
+        } catch (JsonProcessingException e) {
+            OperationFailure.write(output, "Invalid JSON format: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            OperationFailure.write(output, e.getMessage());
+        }
+        output.flush();
     }
 
+    /**
+     * Converts JSON records of any shape into CSV like {@link #convertJsonToCsv(InputStream, OutputStream, FlattenOptions)},
+     * from an input that is opened again for the second pass instead of being spooled, such as a mapped file.
+     *
+     * @param json    opens the input containing the JSON to convert
+     * @param output  the output stream the CSV is written to
+     * @param options the path style, the column order, the type hints and the columns
+     * @throws IOException if opening or reading the input or writing the output fails
+     */
+    public void convertJsonToCsv(JsonCsvFlattener.Source json, OutputStream output, FlattenOptions options) throws IOException {
+        try {
+            csvFlattener.flatten(json, output, options);
+        } catch (JsonProcessingException e) {
+            OperationFailure.write(output, "Invalid JSON format: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            OperationFailure.write(output, e.getMessage());
+        }
+        output.flush();
+    }
 
-    private String convertJsonToYaml(JsonNode jsonNode) {
-        DumperOptions options = new DumperOptions();
-        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-
-        Yaml yaml = new Yaml(options);
-        Object object = objectMapper.convertValue(jsonNode, Object.class);
-        return yaml.dump(object);
+    /**
+     * Sorts the JSON keys alphabetically, in nested objects as well.
+     *
+     * @param json the input JSON string to sort
+     * @return the sorted JSON string
+     */
+    public String sortJson(String json) {
+        return sortJson(json, SortOptions.DEFAULT);
     }
 
     /**
-     * Converts JSON to CSV.
+     * Sorts the JSON keys at every level with the given options.
      *
-     * @param jsonNode the parsed JSON data
-     * @return the converted CSV string
-     * @throws JsonProcessingException if the conversion fails
+     * @param json    the input JSON string to sort
+     * @param options the key order and whether arrays are sorted too
+     * @return the sorted JSON string
      */
-    private String convertJsonToCsv(JsonNode jsonNode) throws JsonProcessingException {
-        if (!jsonNode.isArray()) {
-            throw new IllegalArgumentException("JSON must be an array to convert to CSV");
+    public String sortJson(String json, SortOptions options) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            keySorter.sort(parser, output, options);
+        } catch (JsonProcessingException e) {
+            return OperationFailure.message("Invalid JSON format: " + e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return output.toString(StandardCharsets.UTF_8);
+    }
 
-        CsvMapper csvMapper = new CsvMapper();
-        CsvSchema.Builder schemaBuilder = CsvSchema.builder();
-
-        // Build schema based on the first element of the array (assumed to be an object)
-        JsonNode firstElement = jsonNode.elements().next();
-        firstElement.fieldNames().forEachRemaining(fieldName -> schemaBuilder.addColumn(fieldName));
+    /**
+     * Sorts the keys of JSON read from a stream alphabetically, in nested objects as well.
+     *
+     * @param json   the input stream containing the JSON to sort
+     * @param output the output stream the sorted JSON is written to
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void sortJson(InputStream json, OutputStream output) throws IOException {
+        sortJson(json, output, SortOptions.DEFAULT);
+    }
 
-        CsvSchema schema = schemaBuilder.build().withHeader();
-        return csvMapper.writer(schema).writeValueAsString(jsonNode);
+    /**
+     * Sorts the keys of JSON read from a stream at every level with the given options.
+     * The document is streamed through {@link JsonKeySorter}, which spills large objects to disk,
+     * so memory use is bounded whatever the size of the document and of its objects.
+     * On invalid input the error message follows whatever was written before the error.
+     *
+     * @param json    the input stream containing the JSON to sort
+     * @param output  the output stream the sorted JSON is written to
+     * @param options the key order and whether arrays are sorted too
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void sortJson(InputStream json, OutputStream output, SortOptions options) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            keySorter.sort(parser, output, options);
+        } catch (JsonProcessingException e) {
+            OperationFailure.write(output, "Invalid JSON format: " + e.getMessage());
+        }
+        output.flush();
     }
 
     /**
-     * Sorts the JSON keys alphabetically.
+     * Sorts the keys of an already parsed JSON document alphabetically, in nested objects as well.
      *
-     * @param json the input JSON string to sort
+     * @param jsonNode the parsed JSON document
      * @return the sorted JSON string
+     * @throws IOException if the document cannot be sorted or written
      */
-    public String sortJson(String json) {
-        try {
-            JsonNode jsonNode = objectMapper.readTree(json);
-            TreeMap<String, Object> sortedMap = new TreeMap<>(objectMapper.convertValue(jsonNode, TreeMap.class));
-            return objectMapper.writeValueAsString(sortedMap);
-        } catch (IOException e) {
-            return "Invalid JSON format: " + e.getMessage();
+    String sortJson(JsonNode jsonNode) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonParser parser = objectMapper.treeAsTokens(jsonNode)) {
+            keySorter.sort(parser, output, SortOptions.DEFAULT);
         }
+        return output.toString(StandardCharsets.UTF_8);
     }
 }
@@ -0,0 +1,168 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.CustomPrettyPrinter;
+import com.parsehub.util.Format;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared registry of pre-configured Jackson mappers and writers.
+ * Mappers and writers are thread-safe once configured, so a single instance is shared by all services
+ * instead of constructing them on every call.
+ */
+@Component
+public class MapperRegistry {
+    private static final int MAX_CSV_WRITERS = 256;
+
+    private final ObjectMapper jsonMapper;
+    private final XmlMapper xmlMapper;
+    private final CsvMapper csvMapper;
+    private final YAMLMapper yamlMapper;
+    private final Map<Format, ObjectWriter> jsonWriters = new EnumMap<>(Format.class);
+    private final Map<List<String>, ObjectWriter> csvWriters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the mappers, builds a JSON writer for every {@link Format} and warms up the serializer caches.
+     */
+    public MapperRegistry() {
+        this.jsonMapper = new ObjectMapper();
+        this.xmlMapper = new XmlMapper();
+        this.csvMapper = new CsvMapper();
+        this.yamlMapper = YAMLMapper.builder(new YamlAliasParser.Factory())
+                .disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)
+                .enable(YAMLGenerator.Feature.MINIMIZE_QUOTES)
+                .enable(YAMLGenerator.Feature.ALWAYS_QUOTE_NUMBERS_AS_STRINGS)
+                .build();
+
+        for (Format format : Format.values()) {
+            jsonWriters.put(format, switch (format) {
+                case SPACE_2 -> jsonMapper.writer(new CustomPrettyPrinter(2));
+                case SPACE_3 -> jsonMapper.writer(new CustomPrettyPrinter(3));
+                case SPACE_4 -> jsonMapper.writer(new CustomPrettyPrinter(4));
+                default -> jsonMapper.writer();
+            });
+        }
+        warmUp();
+    }
+
+    /**
+     * Returns the shared JSON mapper.
+     *
+     * @return the JSON ObjectMapper
+     */
+    public ObjectMapper json() {
+        return jsonMapper;
+    }
+
+    /**
+     * Returns the shared XML mapper.
+     *
+     * @return the XmlMapper
+     */
+    public XmlMapper xml() {
+        return xmlMapper;
+    }
+
+    /**
+     * Returns the shared CSV mapper.
+     *
+     * @return the CsvMapper
+     */
+    public CsvMapper csv() {
+        return csvMapper;
+    }
+
+    /**
+     * Returns the shared YAML mapper, configured for block style output without a document start marker.
+     * Strings are only quoted where a YAML reader would otherwise read them as another type. Its parsers can be
+     * wrapped in a {@link YamlAliasParser} to resolve aliases and merge keys.
+     *
+     * @return the YAMLMapper
+     */
+    public YAMLMapper yaml() {
+        return yamlMapper;
+    }
+
+    /**
+     * Returns the shared mapper for the given data format.
+     *
+     * @param type the data format
+     * @return the mapper reading and writing that format
+     */
+    public ObjectMapper mapper(ConversionType type) {
+        return switch (type) {
+            case JSON -> jsonMapper;
+            case XML -> xmlMapper;
+            case CSV -> csvMapper;
+            case YAML -> yamlMapper;
+        };
+    }
+
+    /**
+     * Returns the JSON writer for the given output format.
+     *
+     * @param format the desired format (e.g., SPACE_2, COMPACT)
+     * @return the cached ObjectWriter for the format
+     */
+    public ObjectWriter jsonWriter(Format format) {
+        return jsonWriters.get(format);
+    }
+
+    /**
+     * Returns a CSV writer with a header row for the given columns.
+     * Writers are cached per column list, the cache is reset once it grows past a fixed size.
+     *
+     * @param columns the column names, in output order
+     * @return the cached ObjectWriter for the schema
+     */
+    public ObjectWriter csvWriter(List<String> columns) {
+        ObjectWriter writer = csvWriters.get(columns);
+        if (writer == null) {
+            if (csvWriters.size() >= MAX_CSV_WRITERS) {
+                csvWriters.clear();
+            }
+            CsvSchema.Builder schemaBuilder = CsvSchema.builder();
+            columns.forEach(schemaBuilder::addColumn);
+            writer = csvMapper.writer(schemaBuilder.build().withHeader());
+            csvWriters.put(List.copyOf(columns), writer);
+        }
+        return writer;
+    }
+
+    /**
+     * Runs a small document through every mapper and writer so that serializers are resolved and cached
+     * before the first request arrives.
+     */
+    private void warmUp() {
+        try {
+            ObjectNode row = jsonMapper.createObjectNode().put("name", "warm-up").put("size", 1).put("enabled", true);
+            ArrayNode rows = jsonMapper.createArrayNode().add(row);
+            JsonNode document = jsonMapper.readTree(jsonMapper.writeValueAsString(rows));
+
+            for (ObjectWriter writer : jsonWriters.values()) {
+                writer.writeValueAsString(document);
+            }
+            xmlMapper.readTree(xmlMapper.writeValueAsString(row));
+            yamlMapper.readTree(yamlMapper.writeValueAsString(document));
+            csvWriter(List.of("name", "size", "enabled")).writeValueAsString(document);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to warm up mappers", e);
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.parsehub.service.ChunkedProcessor.Chunk;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.Format;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Service class for batch processing newline-delimited JSON (NDJSON / JSON Lines).
+ * The input is split into chunks of whole lines that are processed in parallel and written back in input order,
+ * so a batch of any size is handled in a single request with bounded memory.
+ * A malformed record does not stop the batch: its error is written inline, in place of the result.
+ */
+@Service
+public class NdjsonService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] YAML_DOCUMENT_SEPARATOR = "---\n".getBytes(StandardCharsets.UTF_8);
+
+    private final MapperRegistry mappers;
+    private final JsonService jsonService;
+    private final ConversionEngine conversionEngine;
+    private final ChunkedProcessor chunkedProcessor;
+
+    /**
+     * Constructor that takes the shared mappers and the services applied to every record.
+     *
+     * @param mappers          the shared mapper registry
+     * @param jsonService      the service sorting single JSON documents
+     * @param conversionEngine the engine converting records into other formats
+     * @param chunkedProcessor splits large batches into chunks processed in parallel
+     */
+    @Autowired
+    public NdjsonService(MapperRegistry mappers, JsonService jsonService, ConversionEngine conversionEngine,
+                         ChunkedProcessor chunkedProcessor) {
+        this.mappers = mappers;
+        this.jsonService = jsonService;
+        this.conversionEngine = conversionEngine;
+        this.chunkedProcessor = chunkedProcessor;
+    }
+
+    /**
+     * Validates every record and writes one validation result per record.
+     *
+     * @param input  the stream containing the NDJSON records
+     * @param output the stream the NDJSON results are written to
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void validate(InputStream input, OutputStream output) throws IOException {
+        process(input, output, ConversionType.JSON, chunk -> (line, data, offset, length, out) -> {
+            String error = null;
+            Integer column = null;
+            try (JsonParser parser = createParser(data, offset, length)) {
+                parser.skipChildren();
+                requireEnd(parser);
+            } catch (JsonProcessingException e) {
+                error = "Invalid JSON: " + e.getOriginalMessage();
+                column = column(e);
+            }
+            try (JsonGenerator generator = mappers.json().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeNumberField("line", line);
+                generator.writeBooleanField("valid", error == null);
+                if (column != null) {
+                    generator.writeNumberField("column", column);
+                }
+                generator.writeArrayFieldStart("errorMessages");
+                if (error != null) {
+                    generator.writeString(error);
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            out.write('\n');
+        });
+    }
+
+    /**
+     * Formats every record with the specified indentation format.
+     *
+     * @param input  the stream containing the NDJSON records
+     * @param output the stream the formatted records are written to, separated by newlines
+     * @param format the desired format (e.g., SPACE_2, COMPACT)
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void format(InputStream input, OutputStream output, Format format) throws IOException {
+        ObjectWriter writer = mappers.jsonWriter(format);
+        process(input, output, ConversionType.JSON, chunk -> (line, data, offset, length, out) -> {
+            try (JsonParser parser = createParser(data, offset, length);
+                 JsonGenerator generator = writer.createGenerator(out)) {
+                generator.copyCurrentStructure(parser);
+                requireEnd(parser);
+            }
+            out.write('\n');
+        });
+    }
+
+    /**
+     * Minifies every record, writing one compact record per line.
+     *
+     * @param input  the stream containing the NDJSON records
+     * @param output the stream the NDJSON results are written to
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void minify(InputStream input, OutputStream output) throws IOException {
+        format(input, output, Format.COMPACT);
+    }
+
+    /**
+     * Sorts the keys of every record alphabetically.
+     *
+     * @param input  the stream containing the NDJSON records
+     * @param output the stream the NDJSON results are written to
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void sort(InputStream input, OutputStream output) throws IOException {
+        process(input, output, ConversionType.JSON, chunk -> (line, data, offset, length, out) -> {
+            JsonNode tree = readTree(data, offset, length);
+            if (!tree.isObject()) {
+                throw new IllegalArgumentException("Record must be an object to sort its keys");
+            }
+            String sorted = jsonService.sortJson(tree);
+            out.write(sorted.getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        });
+    }
+
+    /**
+     * Converts every record into the specified format.
+     * JSON records are written one per line, XML records as one document each, YAML records as the documents
+     * of a single YAML stream and CSV records as rows under the header taken from the first record.
+     * Errors are written as comments of the target format.
+     *
+     * @param input  the stream containing the NDJSON records
+     * @param output the stream the converted records are written to
+     * @param type   the target conversion format
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void convert(InputStream input, OutputStream output, ConversionType type) throws IOException {
+        switch (type) {
+            case JSON -> minify(input, output);
+            case CSV -> {
+                Map<Integer, CompletableFuture<Set<String>>> headers = new ConcurrentHashMap<>();
+                process(input, output, type, chunk -> new CsvRecords(chunk.index(), headers));
+            }
+            case XML -> process(input, output, type, chunk -> (line, data, offset, length, out) -> {
+                try (JsonParser parser = readTree(data, offset, length).traverse(mappers.json())) {
+                    conversionEngine.convert(parser, ConversionType.JSON, out, type);
+                }
+                out.write('\n');
+            });
+            case YAML -> process(input, output, type, chunk -> new RecordHandler() {
+                private boolean firstDocument = chunk.index() == 0;
+
+                @Override
+                public void handle(long line, byte[] data, int offset, int length, OutputStream out) throws IOException {
+                    if (!firstDocument) {
+                        out.write(YAML_DOCUMENT_SEPARATOR);
+                    }
+                    try (JsonParser parser = readTree(data, offset, length).traverse(mappers.json())) {
+                        conversionEngine.convert(parser, ConversionType.JSON, out, type);
+                    }
+                    firstDocument = false;
+                }
+            });
+        }
+    }
+
+    /**
+     * Splits the input into chunks of whole lines and passes every non-blank line of a chunk to the chunk's handler.
+     *
+     * @param input       the stream containing the NDJSON records
+     * @param output      the stream the results are written to
+     * @param errorFormat the format of the output, which decides how errors are written
+     * @param handlers    creates the handler processing the records of a chunk
+     * @throws IOException if reading the input or writing the output fails
+     */
+    private void process(InputStream input, OutputStream output, ConversionType errorFormat,
+                         Function<Chunk, RecordHandler> handlers) throws IOException {
+        OutputStream out = new BufferedOutputStream(output, BUFFER_SIZE);
+        chunkedProcessor.process(input, ChunkedProcessor.Boundary.LINE,
+                chunk -> processChunk(chunk, errorFormat, handlers.apply(chunk)), out::write);
+        out.flush();
+    }
+
+    /**
+     * Processes the lines of a single chunk.
+     * Each result is collected in a record buffer first, so a record that fails halfway leaves no partial output
+     * behind and is replaced by an error in the format of the output.
+     */
+    private byte[] processChunk(Chunk chunk, ConversionType errorFormat, RecordHandler handler) throws IOException {
+        byte[] data = chunk.data();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(chunk.length() + chunk.length() / 4);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        long line = chunk.firstLine();
+        try {
+            for (int start = 0; start < chunk.length(); line++) {
+                int end = start;
+                while (end < chunk.length() && data[end] != '\n') {
+                    end++;
+                }
+                int offset = start;
+                start = end + 1;
+                if (isBlank(data, offset, end)) {
+                    continue;
+                }
+                result.reset();
+                try {
+                    handler.handle(line, data, offset, end - offset, result);
+                } catch (JsonProcessingException e) {
+                    result.reset();
+                    writeError(result, errorFormat, line, column(e), e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    result.reset();
+                    writeError(result, errorFormat, line, null, e.getMessage());
+                }
+                result.writeTo(out);
+            }
+        } finally {
+            handler.finish();
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isBlank(byte[] data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Opens a parser on a single record, positioned on its first token.
+     */
+    private JsonParser createParser(byte[] data, int offset, int length) throws IOException {
+        JsonParser parser = mappers.json().createParser(data, offset, length);
+        parser.nextToken();
+        return parser;
+    }
+
+    private JsonNode readTree(byte[] data, int offset, int length) throws IOException {
+        try (JsonParser parser = createParser(data, offset, length)) {
+            JsonNode tree = mappers.json().readTree(parser);
+            requireEnd(parser);
+            return tree;
+        }
+    }
+
+    /**
+     * A line holds exactly one JSON value; anything after it is an error rather than a second record.
+     */
+    private static void requireEnd(JsonParser parser) throws IOException {
+        if (parser.nextToken() != null) {
+            throw new JsonParseException(parser, "Unexpected content after the end of the record");
+        }
+    }
+
+    private static Integer column(JsonProcessingException e) {
+        JsonLocation location = e.getLocation();
+        return location == null || location.getColumnNr() < 1 ? null : location.getColumnNr();
+    }
+
+    /**
+     * Writes an error for a record: an error object in JSON, a comment in the other formats.
+     */
+    private void writeError(OutputStream out, ConversionType format, long line, Integer column, String message) throws IOException {
+        if (format == ConversionType.JSON) {
+            try (JsonGenerator generator = mappers.json().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeNumberField("line", line);
+                if (column != null) {
+                    generator.writeNumberField("column", column);
+                }
+                generator.writeStringField("error", message);
+                generator.writeEndObject();
+            }
+            out.write('\n');
+            return;
+        }
+
+        String text = "line " + line + (column == null ? "" : ", column " + column) + ": "
+                + String.valueOf(message).replaceAll("\\s*[\\r\\n]+\\s*", " ");
+        String comment = format == ConversionType.XML
+                ? "<!-- " + text.replace("--", "- -") + " -->\n"
+                : "# " + text + "\n";
+        out.write(comment.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes records as CSV rows. The columns are taken from the first record, which also writes the header;
+     * later records must be flat objects whose fields are among those columns.
+     * Chunks hand the columns on in input order: a chunk waits for the columns found by the chunks before it
+     * only when it reaches its first record.
+     */
+    private class CsvRecords implements RecordHandler {
+        private final int index;
+        private final Map<Integer, CompletableFuture<Set<String>>> headers;
+        private boolean inherited;
+        private Set<String> columns;
+        private ObjectWriter rowWriter;
+
+        CsvRecords(int index, Map<Integer, CompletableFuture<Set<String>>> headers) {
+            this.index = index;
+            this.headers = headers;
+        }
+
+        @Override
+        public void handle(long line, byte[] data, int offset, int length, OutputStream out) throws IOException {
+            JsonNode row = readTree(data, offset, length);
+            if (!row.isObject()) {
+                throw new IllegalArgumentException("Record must be an object to convert to CSV");
+            }
+            inherit();
+            if (columns != null) {
+                checkRow(row);
+                rowWriter.writeValue(out, row);
+                return;
+            }
+
+            Set<String> fields = new LinkedHashSet<>();
+            row.fieldNames().forEachRemaining(fields::add);
+            columns = fields;
+            checkRow(row);
+            CsvSchema schema = schema(columns);
+            rowWriter = mappers.csv().writer(schema);
+            mappers.csv().writer(schema.withHeader()).writeValue(out, row);
+        }
+
+        @Override
+        public void finish() {
+            try {
+                inherit();
+            } finally {
+                header(index).complete(columns);
+            }
+        }
+
+        private void inherit() {
+            if (!inherited) {
+                inherited = true;
+                if (index > 0) {
+                    columns = header(index - 1).join();
+                    headers.remove(index - 1);
+                    if (columns != null) {
+                        rowWriter = mappers.csv().writer(schema(columns));
+                    }
+                }
+            }
+        }
+
+        private CompletableFuture<Set<String>> header(int chunk) {
+            return headers.computeIfAbsent(chunk, key -> new CompletableFuture<>());
+        }
+
+        private CsvSchema schema(Set<String> columns) {
+            CsvSchema.Builder schemaBuilder = CsvSchema.builder();
+            columns.forEach(schemaBuilder::addColumn);
+            return schemaBuilder.build();
+        }
+
+        private void checkRow(JsonNode row) {
+            row.fields().forEachRemaining(field -> {
+                if (!columns.contains(field.getKey())) {
+                    throw new IllegalArgumentException("Field '" + field.getKey() + "' is not a column of the CSV header");
+                }
+                if (field.getValue().isContainerNode()) {
+                    throw new IllegalArgumentException("Field '" + field.getKey() + "' is nested and cannot be written to CSV");
+                }
+            });
+        }
+    }
+
+    /**
+     * Processes a single NDJSON record and writes its result.
+     */
+    @FunctionalInterface
+    private interface RecordHandler {
+        /**
+         * @param line   the 1-based line number of the record
+         * @param data   the buffer holding the record
+         * @param offset the offset of the record in the buffer
+         * @param length the length of the record, without the line break
+         * @param out    the buffer the result is written to
+         * @throws IOException if the record is malformed or cannot be processed
+         */
+        void handle(long line, byte[] data, int offset, int length, OutputStream out) throws IOException;
+
+        /**
+         * Called once all records of the chunk have been handled, also when handling failed.
+         */
+        default void finish() {
+        }
+    }
+}
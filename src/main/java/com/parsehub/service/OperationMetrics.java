@@ -0,0 +1,244 @@
+package com.parsehub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the duration, the input and output sizes and the errors of data operations in Micrometer.
+ * Every meter is tagged with the format, the operation and its option, such as the target of a conversion,
+ * so that the hot conversion pairs stand out; the timers are also tagged with a bucket of the input size,
+ * which shows the latency percentiles by payload size.
+ * The histograms the percentiles are computed from are configured with the {@code management.metrics.distribution.*}
+ * properties.
+ */
+@Service
+public class OperationMetrics {
+    static final String OPERATION = "parsehub.operation";
+    static final String FIRST_OUTPUT = "parsehub.operation.first.output";
+    static final String INPUT = "parsehub.operation.input";
+    static final String OUTPUT = "parsehub.operation.output";
+    static final String ERRORS = "parsehub.operation.errors";
+
+    private static final long[] SIZE_BUCKETS = {1L << 10, 64L << 10, 1L << 20, 16L << 20};
+    private static final String[] SIZE_LABELS = {"1KB", "64KB", "1MB", "16MB"};
+
+    private final MeterRegistry registry;
+
+    /**
+     * Constructor that takes the registry the meters are published to.
+     *
+     * @param registry the meter registry
+     */
+    @Autowired
+    public OperationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Starts measuring an operation.
+     *
+     * @param operation the format and the name of the operation, e.g. {@code json/convert}
+     * @param option    the option of the operation, such as the format or the conversion type, or null
+     * @return the measurement, to be stopped once the operation has finished
+     */
+    public Measurement start(String operation, Object option) {
+        int separator = operation.indexOf('/');
+        return new Measurement(operation.substring(0, separator), operation.substring(separator + 1),
+                option == null ? "none" : option.toString().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the label of the size bucket of an input, the smallest bucket the input fits in.
+     *
+     * @param bytes the input size
+     * @return the bucket label, e.g. {@code 64KB}, or {@code larger} above the largest bucket
+     */
+    static String sizeBucket(long bytes) {
+        for (int i = 0; i < SIZE_BUCKETS.length; i++) {
+            if (bytes <= SIZE_BUCKETS[i]) {
+                return SIZE_LABELS[i];
+            }
+        }
+        return "larger";
+    }
+
+    /**
+     * The measurement of a single operation. It is used by the thread running the operation only.
+     */
+    public final class Measurement {
+        private final Tags tags;
+        private final long start = System.nanoTime();
+        private long firstOutput = -1;
+        private long inputBytes;
+        private long outputBytes = -1;
+        private String cache = "none";
+        private String outcome = "success";
+        private Throwable error;
+
+        private Measurement(String format, String operation, String option) {
+            this.tags = Tags.of("format", format, "operation", operation, "option", option);
+        }
+
+        /**
+         * Sets the size of the input.
+         *
+         * @param bytes the number of bytes read
+         */
+        public void inputSize(long bytes) {
+            this.inputBytes = bytes;
+        }
+
+        /**
+         * Sets the size of the output, for operations returning it at once instead of writing it to a stream.
+         *
+         * @param bytes the number of bytes returned
+         */
+        public void outputSize(long bytes) {
+            this.outputBytes = bytes;
+        }
+
+        /**
+         * Wraps the output of the operation, counting the bytes written and noting when the first one is written.
+         * The time until then is recorded as the time to the first output.
+         *
+         * @param output the output of the operation
+         * @return the measured output
+         */
+        public OutputStream measure(OutputStream output) {
+            outputBytes = 0;
+            return new MeasuredOutputStream(output);
+        }
+
+        /**
+         * Notes that the result of an operation returning it at once, instead of writing it to a stream, is complete.
+         * Its first byte can be written from then on, so the time until then is recorded as the time to the first
+         * output.
+         */
+        public void result() {
+            if (firstOutput < 0) {
+                firstOutput = System.nanoTime();
+            }
+        }
+
+        /**
+         * Sets how the result cache answered, e.g. {@code hit}, {@code miss} or {@code bypass}.
+         *
+         * @param cache the cache result
+         */
+        public void cache(String cache) {
+            this.cache = cache;
+        }
+
+        /**
+         * Marks the input as invalid; the operation itself succeeded in reporting it.
+         */
+        public void invalid() {
+            this.outcome = "invalid";
+        }
+
+        /**
+         * Marks the operation as failed.
+         *
+         * @param error the failure
+         */
+        public void failed(Throwable error) {
+            this.outcome = "error";
+            this.error = error;
+        }
+
+        /**
+         * Stops the measurement and records it.
+         */
+        public void stop() {
+            long end = System.nanoTime();
+            Timer.builder(OPERATION)
+                    .description("Duration of data operations")
+                    .tags(tags)
+                    .tag("size", sizeBucket(inputBytes))
+                    .tag("cache", cache)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(end - start, TimeUnit.NANOSECONDS);
+            // a failed operation may have written part of an output, but never answers with it
+            if (firstOutput >= 0 && error == null) {
+                Timer.builder(FIRST_OUTPUT)
+                        .description("Time from the start of data operations to their first output byte")
+                        .tags(tags)
+                        .tag("size", sizeBucket(inputBytes))
+                        .tag("cache", cache)
+                        .register(registry)
+                        .record(firstOutput - start, TimeUnit.NANOSECONDS);
+            }
+            DistributionSummary.builder(INPUT)
+                    .description("Size of the inputs of data operations")
+                    .baseUnit("bytes")
+                    .tags(tags)
+                    .register(registry)
+                    .record(inputBytes);
+            if (outputBytes >= 0) {
+                DistributionSummary.builder(OUTPUT)
+                        .description("Size of the outputs of data operations")
+                        .baseUnit("bytes")
+                        .tags(tags)
+                        .register(registry)
+                        .record(outputBytes);
+            }
+            if (error != null) {
+                Counter.builder(ERRORS)
+                        .description("Data operations that failed with an exception")
+                        .tags(tags)
+                        .tag("exception", error.getClass().getSimpleName())
+                        .register(registry)
+                        .increment();
+            }
+        }
+
+        /**
+         * Counts the output and notes the time of its first byte.
+         */
+        private final class MeasuredOutputStream extends OutputStream {
+            private final OutputStream output;
+
+            MeasuredOutputStream(OutputStream output) {
+                this.output = output;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                written(1);
+                output.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                written(len);
+                output.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                // flushing a response before its first byte commits it, and an error could no longer set its status
+                if (firstOutput >= 0) {
+                    output.flush();
+                }
+            }
+
+            private void written(int len) {
+                if (firstOutput < 0 && len > 0) {
+                    firstOutput = System.nanoTime();
+                }
+                outputBytes += len;
+            }
+        }
+    }
+}
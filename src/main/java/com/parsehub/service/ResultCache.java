@@ -0,0 +1,560 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.util.CountingInputStream;
+import com.parsehub.util.OperationFailure;
+import com.parsehub.util.ValidationResult;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Cache of operation results, keyed by the content of the input.
+ * The key is a SHA-256 digest of the operation, its option and the input bytes, so a repeated request is answered
+ * with the stored result without parsing the input again.
+ * Results are kept in memory up to a total size, with Caffeine's W-TinyLFU eviction; when a disk directory is set,
+ * large results are written to files instead, so that they do not fill the heap.
+ * Inputs larger than the configured limit bypass the cache, since the whole input is needed for its key.
+ * Buffering the input delays the first output byte until the whole input has arrived, so the cache is off unless
+ * {@code parsehub.cache.enabled} is set; with it off, operations stream straight from the input to the output.
+ * Every operation run through the cache is measured, whether it is answered from the cache or not.
+ */
+@Service
+public class ResultCache {
+    private final ObjectMapper objectMapper;
+    private final OperationMetrics metrics;
+    private final boolean enabled;
+    private final int maxInputSize;
+    private final int maxResultSize;
+    private final int diskThreshold;
+    private final Cache<String, byte[]> memory;
+    private final Cache<String, Path> disk;
+    private final Path diskDirectory;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    /**
+     * Constructor that takes the shared mappers, the operation metrics and the cache settings.
+     *
+     * @param mappers    the shared mapper registry, used to store validation results
+     * @param metrics    the metrics every operation run through the cache is recorded in
+     * @param properties the application settings
+     * @throws IOException if the directory of the disk tier cannot be created
+     */
+    @Autowired
+    public ResultCache(MapperRegistry mappers, OperationMetrics metrics, ParseHubProperties properties) throws IOException {
+        ParseHubProperties.Cache settings = properties.getCache();
+        this.objectMapper = mappers.json();
+        this.metrics = metrics;
+        this.enabled = settings.isEnabled();
+        this.maxInputSize = toInt(settings.getMaxInputSize().toBytes());
+        this.maxResultSize = toInt(settings.getMaxResultSize().toBytes());
+        this.diskThreshold = toInt(settings.getDiskThreshold().toBytes());
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(settings.getMaxSize().toBytes())
+                .weigher((String key, byte[] value) -> key.length() + value.length)
+                .recordStats()
+                .build();
+
+        if (enabled && settings.getDiskDirectory() != null) {
+            Path parent = Files.createDirectories(Path.of(settings.getDiskDirectory()));
+            this.diskDirectory = Files.createTempDirectory(parent, "parsehub-cache-");
+            this.disk = Caffeine.newBuilder()
+                    .maximumWeight(settings.getDiskMaxSize().toBytes())
+                    .weigher((String key, Path file) -> toInt(size(file)))
+                    // delete on the calling thread, so that no file outlives the cache at shutdown
+                    .executor(Runnable::run)
+                    .removalListener((String key, Path file, RemovalCause cause) -> delete(file))
+                    .recordStats()
+                    .build();
+        } else {
+            this.diskDirectory = null;
+            this.disk = null;
+        }
+    }
+
+    /**
+     * Runs a streaming operation through the cache.
+     * On a hit the stored result is written to the output; on a miss the operation runs and its result is
+     * written to the output while being recorded. A failed operation is not cached, whether it throws or reports
+     * the failure with an error message in its output, see {@link OperationFailure}.
+     * Either way the operation is measured, tagged with how the cache answered.
+     *
+     * @param input     the stream containing the input
+     * @param output    the stream the result is written to
+     * @param operation the format and the name of the operation, e.g. {@code json/format}
+     * @param option    the option of the operation, such as the format or the conversion type, or null
+     * @param compute   the operation, run on a miss
+     * @throws IOException if reading the input, running the operation or writing the output fails
+     */
+    public void transform(InputStream input, OutputStream output, String operation, Object option,
+                          StreamOperation compute) throws IOException {
+        transform(input, output, operation, option, null, compute);
+    }
+
+    /**
+     * Runs a streaming operation through the cache, with settings that change its result but are too varied
+     * to tag the metrics with, such as the explicit columns of CSV input. They are only part of the cache key.
+     *
+     * @param input     the stream containing the input
+     * @param output    the stream the result is written to
+     * @param operation the format and the name of the operation, e.g. {@code json/format}
+     * @param option    the option of the operation, such as the format or the conversion type, or null
+     * @param settings  the further settings of the operation, or null
+     * @param compute   the operation, run on a miss
+     * @throws IOException if reading the input, running the operation or writing the output fails
+     */
+    public void transform(InputStream input, OutputStream output, String operation, Object option, Object settings,
+                          StreamOperation compute) throws IOException {
+        OperationMetrics.Measurement measurement = metrics.start(operation, option);
+        CountingInputStream counting = new CountingInputStream(input);
+        try {
+            transform(counting, measurement.measure(output), bytes -> key(operation, option, settings, bytes), compute,
+                    measurement);
+        } catch (IOException | RuntimeException e) {
+            measurement.failed(e);
+            throw e;
+        } finally {
+            measurement.inputSize(counting.getCount());
+            measurement.stop();
+        }
+    }
+
+    private void transform(InputStream input, OutputStream output, Function<byte[], String> keys,
+                           StreamOperation compute, OperationMetrics.Measurement measurement) throws IOException {
+        if (!enabled) {
+            measurement.cache("disabled");
+            compute(input, output, compute, measurement);
+            return;
+        }
+        byte[] bytes = input.readNBytes(maxInputSize + 1);
+        if (bytes.length > maxInputSize) {
+            bypassed.increment();
+            measurement.cache("bypass");
+            compute(new SequenceInputStream(new ByteArrayInputStream(bytes), input), output, compute, measurement);
+            return;
+        }
+
+        String key = keys.apply(bytes);
+        byte[] cached = lookup(key, measurement);
+        if (cached != null) {
+            output.write(cached);
+            output.flush();
+            return;
+        }
+        RecordingOutputStream recording = new RecordingOutputStream(output, maxResultSize);
+        boolean failed = compute(new ByteArrayInputStream(bytes), recording, compute, measurement);
+        if (!failed && !recording.isOverflowed()) {
+            store(key, recording.toByteArray());
+        }
+    }
+
+    /**
+     * Runs a streaming operation, marking the input as invalid when the operation reports a failure.
+     *
+     * @return whether the operation reported a failure
+     */
+    private static boolean compute(InputStream input, OutputStream output, StreamOperation compute,
+                                   OperationMetrics.Measurement measurement) throws IOException {
+        try (OperationFailure.Tracker failure = OperationFailure.track()) {
+            compute.apply(input, output);
+            return failed(failure, measurement);
+        }
+    }
+
+    /**
+     * Marks the input as invalid when the operation reported a failure: it answered with an error message.
+     *
+     * @return whether the operation reported a failure
+     */
+    private static boolean failed(OperationFailure.Tracker failure, OperationMetrics.Measurement measurement) {
+        if (failure.isFailed()) {
+            measurement.invalid();
+        }
+        return failure.isFailed();
+    }
+
+    /**
+     * Runs an operation on a string through the cache.
+     *
+     * @param input     the input string
+     * @param operation the format and the name of the operation, e.g. {@code json/format}
+     * @param option    the option of the operation, such as the format or the conversion type, or null
+     * @param compute   the operation, run on a miss
+     * @return the result of the operation
+     */
+    public String apply(String input, String operation, Object option, UnaryOperator<String> compute) {
+        OperationMetrics.Measurement measurement = metrics.start(operation, option);
+        try {
+            byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+            measurement.inputSize(bytes.length);
+            return apply(bytes, input, operation, option, compute, measurement);
+        } catch (RuntimeException e) {
+            measurement.failed(e);
+            throw e;
+        } finally {
+            measurement.stop();
+        }
+    }
+
+    private String apply(byte[] bytes, String input, String operation, Object option, UnaryOperator<String> compute,
+                         OperationMetrics.Measurement measurement) {
+        if (!enabled || bytes.length > maxInputSize) {
+            if (enabled) {
+                bypassed.increment();
+            }
+            measurement.cache(enabled ? "bypass" : "disabled");
+            String result;
+            try (OperationFailure.Tracker failure = OperationFailure.track()) {
+                result = compute.apply(input);
+                failed(failure, measurement);
+            }
+            measurement.result();
+            measurement.outputSize(result.getBytes(StandardCharsets.UTF_8).length);
+            return result;
+        }
+
+        String key = key(operation, option, null, bytes);
+        byte[] cached = lookup(key, measurement);
+        if (cached != null) {
+            measurement.result();
+            measurement.outputSize(cached.length);
+            return new String(cached, StandardCharsets.UTF_8);
+        }
+        String result;
+        boolean failed;
+        try (OperationFailure.Tracker failure = OperationFailure.track()) {
+            result = compute.apply(input);
+            failed = failed(failure, measurement);
+        }
+        measurement.result();
+        byte[] encoded = result.getBytes(StandardCharsets.UTF_8);
+        measurement.outputSize(encoded.length);
+        if (!failed && encoded.length <= maxResultSize) {
+            store(key, encoded);
+        }
+        return result;
+    }
+
+    /**
+     * Runs a validation of a stream through the cache.
+     *
+     * @param input     the stream containing the input
+     * @param operation the format and the name of the validation, e.g. {@code json/validate}
+     * @param validator the validation, run on a miss
+     * @return the validation result
+     * @throws IOException if reading the input fails
+     */
+    public ValidationResult validate(InputStream input, String operation,
+                                     Function<InputStream, ValidationResult> validator) throws IOException {
+        return validate(input, operation, null, validator);
+    }
+
+    /**
+     * Runs a validation of a stream through the cache, with settings that change its result, such as the
+     * explicit columns of CSV input. They are only part of the cache key, not of the metric tags.
+     *
+     * @param input     the stream containing the input
+     * @param operation the format and the name of the validation, e.g. {@code csv/validate}
+     * @param settings  the settings of the validation, or null
+     * @param validator the validation, run on a miss
+     * @return the validation result
+     * @throws IOException if reading the input fails
+     */
+    public ValidationResult validate(InputStream input, String operation, Object settings,
+                                     Function<InputStream, ValidationResult> validator) throws IOException {
+        OperationMetrics.Measurement measurement = metrics.start(operation, null);
+        CountingInputStream counting = new CountingInputStream(input);
+        try {
+            ValidationResult result;
+            if (!enabled) {
+                measurement.cache("disabled");
+                result = validator.apply(counting);
+            } else {
+                byte[] bytes = counting.readNBytes(maxInputSize + 1);
+                if (bytes.length > maxInputSize) {
+                    bypassed.increment();
+                    measurement.cache("bypass");
+                    result = validator.apply(new SequenceInputStream(new ByteArrayInputStream(bytes), counting));
+                } else {
+                    result = validate(bytes, operation, settings, () -> validator.apply(new ByteArrayInputStream(bytes)),
+                            measurement);
+                }
+            }
+            return measured(result, measurement);
+        } catch (IOException | RuntimeException e) {
+            measurement.failed(e);
+            throw e;
+        } finally {
+            measurement.inputSize(counting.getCount());
+            measurement.stop();
+        }
+    }
+
+    /**
+     * Runs a validation of a string through the cache.
+     *
+     * @param input     the input string
+     * @param operation the format and the name of the validation, e.g. {@code xml/validate}
+     * @param validator the validation, run on a miss
+     * @return the validation result
+     */
+    public ValidationResult validate(String input, String operation, Function<String, ValidationResult> validator) {
+        OperationMetrics.Measurement measurement = metrics.start(operation, null);
+        try {
+            byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+            measurement.inputSize(bytes.length);
+            ValidationResult result;
+            if (!enabled || bytes.length > maxInputSize) {
+                if (enabled) {
+                    bypassed.increment();
+                }
+                measurement.cache(enabled ? "bypass" : "disabled");
+                result = validator.apply(input);
+            } else {
+                result = validate(bytes, operation, null, () -> validator.apply(input), measurement);
+            }
+            return measured(result, measurement);
+        } catch (RuntimeException e) {
+            measurement.failed(e);
+            throw e;
+        } finally {
+            measurement.stop();
+        }
+    }
+
+    private ValidationResult validate(byte[] input, String operation, Object settings,
+                                      Supplier<ValidationResult> validator, OperationMetrics.Measurement measurement) {
+        String key = key(operation, null, settings, input);
+        try {
+            byte[] cached = lookup(key, measurement);
+            if (cached != null) {
+                return objectMapper.readValue(cached, ValidationResult.class);
+            }
+            ValidationResult result = validator.get();
+            store(key, objectMapper.writeValueAsBytes(result));
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ValidationResult measured(ValidationResult result, OperationMetrics.Measurement measurement) {
+        measurement.result();
+        if (!result.isValid()) {
+            measurement.invalid();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the hit and miss counts and the size of both tiers.
+     *
+     * @return the current statistics
+     */
+    public CacheStatistics getStatistics() {
+        CacheStatistics statistics = new CacheStatistics(hits.sum(), misses.sum(), bypassed.sum());
+        statistics.setMemory(memory.estimatedSize(), weightedSize(memory), memory.stats().evictionCount());
+        if (disk != null) {
+            statistics.setDisk(disk.estimatedSize(), weightedSize(disk), disk.stats().evictionCount());
+        }
+        return statistics;
+    }
+
+    private static long weightedSize(Cache<String, ?> cache) {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * Removes every cached result.
+     */
+    public void clear() {
+        memory.invalidateAll();
+        if (disk != null) {
+            disk.invalidateAll();
+        }
+    }
+
+    /**
+     * Computes the key of an input: the digest of the operation, its option and the input bytes.
+     */
+    private static String key(String operation, Object option, Object settings, byte[] input) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        // the separators keep e.g. operation "a" with option "bc" apart from operation "ab" with option "c"
+        digest.update(operation.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.valueOf(option).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        if (settings != null) {
+            digest.update(settings.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        digest.update(input);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private byte[] lookup(String key, OperationMetrics.Measurement measurement) {
+        byte[] result = memory.getIfPresent(key);
+        if (result == null && disk != null) {
+            Path file = disk.getIfPresent(key);
+            if (file != null) {
+                try {
+                    result = Files.readAllBytes(file);
+                } catch (IOException e) {
+                    // evicted and deleted since the lookup
+                    result = null;
+                }
+            }
+        }
+        if (result == null) {
+            misses.increment();
+            measurement.cache("miss");
+        } else {
+            hits.increment();
+            measurement.cache("hit");
+        }
+        return result;
+    }
+
+    private void store(String key, byte[] result) {
+        if (disk == null || result.length <= diskThreshold) {
+            memory.put(key, result);
+            return;
+        }
+        try {
+            Path file = Files.createTempFile(diskDirectory, "result-", ".tmp");
+            Files.write(file, result);
+            disk.put(key, file);
+        } catch (IOException e) {
+            // a result that cannot be written is simply not cached
+            System.err.println("Error writing cached result: " + e.getMessage());
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void delete(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting cached result: " + e.getMessage());
+        }
+    }
+
+    private static int toInt(long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, bytes);
+    }
+
+    /**
+     * Deletes the disk tier when the application context closes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        clear();
+        if (diskDirectory != null) {
+            try (Stream<Path> files = Files.list(diskDirectory)) {
+                files.forEach(ResultCache::delete);
+            } catch (IOException e) {
+                System.err.println("Error deleting cache directory: " + e.getMessage());
+            }
+            delete(diskDirectory);
+        }
+    }
+
+    /**
+     * A streaming operation reading the input and writing the result.
+     */
+    @FunctionalInterface
+    public interface StreamOperation {
+        void apply(InputStream input, OutputStream output) throws IOException;
+    }
+
+    /**
+     * Passes the result through to the output while keeping a copy of it, up to a limit.
+     */
+    private static final class RecordingOutputStream extends OutputStream {
+        private final OutputStream output;
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        RecordingOutputStream(OutputStream output, int limit) {
+            this.output = output;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            output.write(b);
+            record(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            output.write(b, off, len);
+            record(b, off, len);
+        }
+
+        private void record(byte[] b, int off, int len) {
+            if (copy == null) {
+                return;
+            }
+            if (copy.size() + len > limit) {
+                // too large to cache, stop recording
+                copy = null;
+                return;
+            }
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            output.flush();
+        }
+
+        boolean isOverflowed() {
+            return copy == null;
+        }
+
+        byte[] toByteArray() {
+            return copy.toByteArray();
+        }
+    }
+}
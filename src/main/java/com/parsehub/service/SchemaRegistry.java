@@ -0,0 +1,141 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.parsehub.config.ParseHubProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the named schemas documents can be validated against.
+ * A schema is compiled when it is registered, and the compiled schemas are kept in a bounded cache keyed by the
+ * SHA-256 digest of the schema text, so a schema registered under several names is compiled once.
+ * A schema evicted from the cache is compiled again when it is next used.
+ *
+ * @param <T> the compiled form of a schema, which must be safe to share between threads
+ */
+public abstract class SchemaRegistry<T> {
+    private final int maxSchemas;
+    private final int maxErrors;
+    private final Map<String, Schema> schemas = new ConcurrentHashMap<>();
+    private final Cache<String, T> compiled;
+
+    /**
+     * A registered schema.
+     *
+     * @param name   the name the schema is registered under
+     * @param digest the SHA-256 digest of the schema text, in hexadecimal
+     * @param text   the schema text
+     */
+    public record Schema(String name, String digest, @JsonIgnore String text) {
+    }
+
+    /**
+     * Constructor that takes the schema settings.
+     *
+     * @param settings the limits of the registry and of the validation
+     */
+    protected SchemaRegistry(ParseHubProperties.Schema settings) {
+        this.maxSchemas = settings.getMaxSchemas();
+        this.maxErrors = settings.getMaxErrors();
+        this.compiled = Caffeine.newBuilder()
+                .maximumSize(settings.getCacheSize())
+                .build();
+    }
+
+    /**
+     * Compiles a schema text.
+     *
+     * @param text the schema text
+     * @return the compiled schema
+     * @throws IllegalArgumentException if the schema is not valid
+     */
+    protected abstract T compile(String text);
+
+    /**
+     * Compiles a schema and registers it under the given name, replacing the schema registered under it before.
+     *
+     * @param name the name of the schema
+     * @param text the schema text
+     * @return the registered schema
+     * @throws IllegalArgumentException if the name is blank, the schema is not valid, or too many schemas are registered
+     */
+    public Schema register(String name, String text) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("The schema name must not be empty");
+        }
+        String digest = digest(text);
+        compiled.asMap().computeIfAbsent(digest, key -> compile(text));
+        Schema schema = new Schema(name, digest, text);
+        synchronized (schemas) {
+            if (!schemas.containsKey(name) && schemas.size() >= maxSchemas) {
+                throw new IllegalArgumentException("Too many schemas: at most " + maxSchemas + " can be registered");
+            }
+            schemas.put(name, schema);
+        }
+        return schema;
+    }
+
+    /**
+     * Returns the schema registered under the given name.
+     *
+     * @param name the name of the schema
+     * @return the schema, or empty if no schema is registered under the name
+     */
+    public Optional<Schema> find(String name) {
+        return Optional.ofNullable(schemas.get(name));
+    }
+
+    /**
+     * Removes the schema registered under the given name.
+     *
+     * @param name the name of the schema
+     * @return whether a schema was registered under the name
+     */
+    public boolean remove(String name) {
+        return schemas.remove(name) != null;
+    }
+
+    /**
+     * Returns the names of the registered schemas, in alphabetical order.
+     *
+     * @return the schema names
+     */
+    public List<String> names() {
+        List<String> names = new ArrayList<>(schemas.keySet());
+        names.sort(null);
+        return names;
+    }
+
+    /**
+     * Returns the compiled form of a registered schema, compiling it again if it was evicted from the cache.
+     */
+    T compiled(Schema schema) {
+        return compiled.get(schema.digest(), key -> compile(schema.text()));
+    }
+
+    /**
+     * Returns how many errors a validation reports before it only counts the others.
+     */
+    int maxErrors() {
+        return maxErrors;
+    }
+
+    private static String digest(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
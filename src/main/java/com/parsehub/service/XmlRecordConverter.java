@@ -0,0 +1,188 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.util.XmlRecordOptions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts the records of a record-oriented XML feed, such as {@code <records><record>...</record></records>},
+ * into JSON, JSON Lines or CSV, one record at a time, so memory use depends on the size of a record rather than of
+ * the document.
+ * <p>
+ * The input is read twice: a first pass collects the shapes of the element paths of every record, see
+ * {@link XmlRecordReader}, so that the second pass writes every field with the same shape in every record.
+ * Like {@link JsonCsvFlattener}, an input within {@link ParseHubProperties.Flatten#getMemoryLimit()} is read
+ * twice from memory and a larger one is spooled to disk; the number of element paths is bounded by
+ * {@link ParseHubProperties.Flatten#getMaxPaths()}. Invalid XML is found by the first pass, before anything is written.
+ * CSV makes one more pass, between the two, to collect the columns of every record.
+ */
+@Component
+public class XmlRecordConverter {
+    private final MapperRegistry mappers;
+    private final InputSpooler spooler;
+    private final int maxPaths;
+
+    /**
+     * Constructor that takes the shared mappers and the flatten settings.
+     *
+     * @param mappers    the shared mapper registry
+     * @param properties the application settings
+     */
+    @Autowired
+    public XmlRecordConverter(MapperRegistry mappers, ParseHubProperties properties) {
+        this.mappers = mappers;
+        this.spooler = new InputSpooler(properties.getFlatten());
+        this.maxPaths = properties.getFlatten().getMaxPaths();
+    }
+
+    /**
+     * Converts the records into a JSON array. The output stream is flushed but left open.
+     *
+     * @param input   the stream containing the XML
+     * @param options the record path and the elements always read as arrays
+     * @param output  the stream the JSON is written to
+     * @throws IOException if the input cannot be parsed or spooled, or the output cannot be written
+     * @throws IllegalArgumentException if the records have more distinct element paths than allowed, before
+     *                                  anything is written
+     */
+    public void convertToJson(InputStream input, XmlRecordOptions options, OutputStream output) throws IOException {
+        spooler.spool(input, source -> convertToJson(source, options, output, false));
+    }
+
+    /**
+     * Converts the records into JSON Lines, one object per record. The output stream is flushed but left open.
+     *
+     * @param input   the stream containing the XML
+     * @param options the record path and the elements always read as arrays
+     * @param output  the stream the JSON Lines are written to
+     * @throws IOException if the input cannot be parsed or spooled, or the output cannot be written
+     * @throws IllegalArgumentException if the records have more distinct element paths than allowed, before
+     *                                  anything is written
+     */
+    public void convertToJsonLines(InputStream input, XmlRecordOptions options, OutputStream output) throws IOException {
+        spooler.spool(input, source -> convertToJson(source, options, output, true));
+    }
+
+    /**
+     * Converts the records into CSV, one row per record. Nested elements and attributes are flattened into dotted
+     * column names, see {@link XmlRecordReader.Flattener}. Unless the options list the columns, the columns of
+     * every record are collected by a pass over the input before the rows are written, in the order they are first
+     * found, and bounded like the element paths. The output stream is flushed but left open.
+     *
+     * @param input   the stream containing the XML
+     * @param options the record path, the elements always read as arrays and the columns
+     * @param output  the stream the CSV is written to
+     * @throws IOException if the input cannot be parsed or spooled, or the output cannot be written
+     * @throws IllegalArgumentException if the records have more distinct element paths or columns than allowed,
+     *                                  before anything is written; explicit columns leave the others out
+     */
+    public void convertToCsv(InputStream input, XmlRecordOptions options, OutputStream output) throws IOException {
+        spooler.spool(input, source -> convertToCsv(source, options, output));
+    }
+
+    private void convertToJson(JsonCsvFlattener.Source source, XmlRecordOptions options, OutputStream output,
+                               boolean lines) throws IOException {
+        XmlRecordReader.Shapes shapes = scan(source, options);
+        try (InputStream in = source.open(); XmlRecordReader reader = reader(in, options);
+             JsonGenerator generator = mappers.json().createGenerator(output)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            if (lines) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            for (JsonNode record = reader.next(shapes); record != null; record = reader.next(shapes)) {
+                XmlRecordReader.write(record, generator);
+                if (lines) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (!lines) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private void convertToCsv(JsonCsvFlattener.Source source, XmlRecordOptions options,
+                              OutputStream output) throws IOException {
+        XmlRecordReader.Shapes shapes = scan(source, options);
+        List<String> path = options.getPath();
+        String recordName = path.get(path.size() - 1);
+        List<String> columns = options.getColumns() != null ? options.getColumns()
+                : columns(source, options, shapes, recordName);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            index.put(columns.get(i), i);
+        }
+
+        XmlRecordReader.Flattener flattener = new XmlRecordReader.Flattener(recordName);
+        String[] row = new String[columns.size()];
+        // without columns no record was found, and there is no header to write
+        try (InputStream in = source.open(); XmlRecordReader reader = reader(in, options);
+             JsonGenerator generator = mappers.csv().createGenerator(output).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+             SequenceWriter rows = columns.isEmpty() ? null : mappers.csvWriter(columns).writeValues(generator)) {
+            for (JsonNode record = reader.next(shapes); record != null; record = reader.next(shapes)) {
+                // the CSV writer skips null array elements, which would shift the values that follow
+                Arrays.fill(row, "");
+                flattener.flatten(record, (column, value) -> {
+                    Integer position = index.get(column);
+                    if (position != null) {
+                        row[position] = value;
+                    }
+                });
+                if (rows != null) {
+                    rows.write(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the shapes of the records in a first pass over the input.
+     */
+    private XmlRecordReader.Shapes scan(JsonCsvFlattener.Source source, XmlRecordOptions options) throws IOException {
+        XmlRecordReader.Shapes shapes = new XmlRecordReader.Shapes(options, maxPaths);
+        try (InputStream in = source.open(); XmlRecordReader reader = reader(in, options)) {
+            reader.scan(shapes);
+        }
+        return shapes;
+    }
+
+    /**
+     * Returns the flattened columns of every record, in the order they are first found.
+     */
+    private List<String> columns(JsonCsvFlattener.Source source, XmlRecordOptions options,
+                                 XmlRecordReader.Shapes shapes, String recordName) throws IOException {
+        XmlRecordReader.Flattener flattener = new XmlRecordReader.Flattener(recordName);
+        Set<String> columns = new LinkedHashSet<>();
+        try (InputStream in = source.open(); XmlRecordReader reader = reader(in, options)) {
+            for (JsonNode record = reader.next(shapes); record != null; record = reader.next(shapes)) {
+                flattener.flatten(record, (column, value) -> {
+                    if (columns.add(column) && columns.size() > maxPaths) {
+                        throw new IllegalArgumentException("The records have more than " + maxPaths
+                                + " distinct columns; list the columns to convert them");
+                    }
+                });
+            }
+        }
+        return List.copyOf(columns);
+    }
+
+    private XmlRecordReader reader(InputStream input, XmlRecordOptions options) throws IOException {
+        return new XmlRecordReader(mappers.xml().getFactory().getXMLInputFactory(), input, options);
+    }
+}
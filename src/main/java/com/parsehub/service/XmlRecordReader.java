@@ -0,0 +1,388 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.parsehub.util.XmlRecordOptions;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the records of a record-oriented XML feed one at a time, pulling StAX events from the stream.
+ * Only the record being read is held in memory; the elements around the records are skipped.
+ * <p>
+ * A record reads like the Jackson XML tree reader would read it: attributes and child elements become fields
+ * named after their local names, text becomes a string, and the text of an element that also has attributes or
+ * children goes into the field named {@code ""}. Unlike the tree reader, every path of the records has the same
+ * shape in every record, given by the {@link Shapes} a first pass {@linkplain #scan(Shapes) collects} from the
+ * whole input:
+ * <ul>
+ *     <li>an element is an array in every record if it is listed in the options, or repeated within its parent
+ *     in any record, so a single {@code <tag>} still reads as {@code ["a"]} when another record has two;</li>
+ *     <li>an element is an object in every record if it has attributes or children in any record, so an empty
+ *     occurrence reads as {@code {}} and one with only text as {@code {"": "text"}};</li>
+ *     <li>any other element is a string, which is empty for an empty element.</li>
+ * </ul>
+ */
+final class XmlRecordReader implements Closeable {
+    private static final String TEXT_FIELD = "";
+
+    private final XMLStreamReader reader;
+    private final XmlRecordOptions options;
+    private final JsonNodeFactory nodes = JsonNodeFactory.instance;
+    private String[] elements = new String[16];
+    private int depth;
+
+    /**
+     * @param factory the StAX factory, which must not resolve DTDs or external entities
+     * @param input   the stream containing the XML; it is not closed by the reader
+     * @param options the record path and the elements read as arrays
+     * @throws IOException if the stream cannot be opened
+     */
+    XmlRecordReader(XMLInputFactory factory, InputStream input, XmlRecordOptions options) throws IOException {
+        try {
+            this.reader = factory.createXMLStreamReader(input);
+        } catch (XMLStreamException e) {
+            throw parseError(e);
+        }
+        this.options = options;
+    }
+
+    /**
+     * Collects the shapes of every record up to the end of the document.
+     *
+     * @param shapes the shapes found so far, which are completed with those of the records read
+     * @throws IOException if the XML is not well-formed
+     * @throws IllegalArgumentException if the records have more distinct element paths than the shapes allow
+     */
+    void scan(Shapes shapes) throws IOException {
+        try {
+            while (nextRecord()) {
+                scanElement(shapes.root, shapes);
+            }
+        } catch (XMLStreamException e) {
+            throw parseError(e);
+        }
+    }
+
+    /**
+     * Reads the next record, skipping the content around it.
+     *
+     * @param shapes the shapes of the records, collected by a pass over the same input
+     * @return the record, or null at the end of the document
+     * @throws IOException if the XML is not well-formed
+     */
+    JsonNode next(Shapes shapes) throws IOException {
+        try {
+            return nextRecord() ? readElement(shapes.root) : null;
+        } catch (XMLStreamException e) {
+            throw parseError(e);
+        }
+    }
+
+    /**
+     * Moves the reader to the start tag of the next record.
+     *
+     * @return whether there is another record
+     */
+    private boolean nextRecord() throws XMLStreamException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    push(reader.getLocalName());
+                    if (options.matches(elements, depth)) {
+                        depth--;
+                        return true;
+                    }
+                }
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                default -> {
+                    // text, comments and processing instructions outside of the records
+                }
+            }
+        }
+        return false;
+    }
+
+    private void push(String name) {
+        if (depth == elements.length) {
+            elements = Arrays.copyOf(elements, depth * 2);
+        }
+        elements[depth++] = name;
+    }
+
+    /**
+     * Collects the shape of the element the reader is positioned on, up to and including its end tag.
+     */
+    private void scanElement(Shapes.Shape shape, Shapes shapes) throws XMLStreamException {
+        if (reader.getAttributeCount() > 0) {
+            shape.object = true;
+        }
+        long occurrence = shapes.occurrence();
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    shape.object = true;
+                    Shapes.Shape child = shapes.child(shape, reader.getLocalName());
+                    if (child.parent == occurrence) {
+                        child.array = true;
+                    }
+                    child.parent = occurrence;
+                    scanElement(child, shapes);
+                }
+                case XMLStreamConstants.END_ELEMENT -> {
+                    return;
+                }
+                default -> {
+                    // text only matters to the shape along with attributes or children
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the element the reader is positioned on, up to and including its end tag.
+     */
+    private JsonNode readElement(Shapes.Shape shape) throws XMLStreamException {
+        ObjectNode object = shape.object ? nodes.objectNode() : null;
+        int attributes = reader.getAttributeCount();
+        for (int i = 0; i < attributes; i++) {
+            object.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+        String text = null;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    String name = reader.getLocalName();
+                    Shapes.Shape child = shape.children.get(name);
+                    add(object, name, child.array, readElement(child));
+                }
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        text = text == null ? reader.getText() : text + reader.getText();
+                case XMLStreamConstants.END_ELEMENT -> {
+                    if (object == null) {
+                        return nodes.textNode(text == null ? "" : text);
+                    }
+                    if (text != null && !text.isBlank()) {
+                        object.set(TEXT_FIELD, nodes.textNode(text));
+                    }
+                    return object;
+                }
+                default -> {
+                    // comments and processing instructions
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a child value, to the array of the field if the element is an array.
+     * Values read from elements are never arrays themselves, so an array field always holds repeated elements.
+     * An element that is not an array only meets an existing field when it has the name of an attribute.
+     */
+    private void add(ObjectNode object, String name, boolean array, JsonNode value) {
+        JsonNode existing = object.get(name);
+        if (existing == null) {
+            object.set(name, array ? nodes.arrayNode().add(value) : value);
+        } else if (existing instanceof ArrayNode elements) {
+            elements.add(value);
+        } else {
+            // replacing the field keeps its position, at the first occurrence of the element
+            object.set(name, nodes.arrayNode().add(existing).add(value));
+        }
+    }
+
+    /**
+     * The shapes of the element paths of the records, relative to the record element, which a first pass over the
+     * input collects for the records to be read alike. The number of paths is bounded, so that a feed with ever new
+     * element names cannot fill the heap.
+     */
+    static final class Shapes {
+        private final Set<String> arrays;
+        private final int maxPaths;
+        private final Shape root = new Shape();
+        private int size = 1;
+        private long occurrences;
+
+        /**
+         * @param options  the options of the records, which list the elements that are always arrays
+         * @param maxPaths the number of distinct element paths the records may have, counting the record itself
+         */
+        Shapes(XmlRecordOptions options, int maxPaths) {
+            this.arrays = options.getArrays();
+            this.maxPaths = maxPaths;
+        }
+
+        /**
+         * Returns the shape of a child element, adding it if the element was not found under the parent before.
+         */
+        private Shape child(Shape parent, String name) {
+            Shape child = parent.children.get(name);
+            if (child == null) {
+                if (++size > maxPaths) {
+                    throw new IllegalArgumentException("The records have more than " + maxPaths + " distinct element paths");
+                }
+                child = new Shape();
+                child.array = arrays.contains(name);
+                parent.children.put(name, child);
+            }
+            return child;
+        }
+
+        /**
+         * Numbers an occurrence of an element, which tells the repeated children apart from those found in
+         * another occurrence of the parent.
+         */
+        private long occurrence() {
+            return ++occurrences;
+        }
+
+        /**
+         * The shape of an element path.
+         */
+        private static final class Shape {
+            final Map<String, Shape> children = new HashMap<>();
+            /** Whether the element is listed, or repeated within its parent in any record. */
+            boolean array;
+            /** Whether the element has attributes or children in any record. */
+            boolean object;
+            /** The occurrence of the parent the element was last found in. */
+            long parent;
+        }
+    }
+
+    /**
+     * Writes a record read by this class. Records only hold objects, arrays and strings, which are written
+     * straight to the generator, without the serializer lookups of {@link JsonGenerator#writeTree}.
+     *
+     * @param record    the record
+     * @param generator the generator the record is written to
+     * @throws IOException if writing fails
+     */
+    static void write(JsonNode record, JsonGenerator generator) throws IOException {
+        if (record instanceof ObjectNode object) {
+            generator.writeStartObject();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = object.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                generator.writeFieldName(field.getKey());
+                write(field.getValue(), generator);
+            }
+            generator.writeEndObject();
+        } else if (record instanceof ArrayNode array) {
+            generator.writeStartArray();
+            for (JsonNode element : array) {
+                write(element, generator);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeString(record.textValue());
+        }
+    }
+
+    /**
+     * Flattens the records read by this class into CSV columns. Nested fields are named by their path with dots,
+     * such as {@code address.city}, the elements of an array by their index, such as {@code tag.0}, and the text
+     * of an element with attributes or children by the name of the element itself. A record that is only text
+     * has a single column named after the record element.
+     * <p>
+     * The records of a feed repeat the same paths, so the column names are joined once and then looked up.
+     */
+    static final class Flattener {
+        private final String recordName;
+        private final Map<String, Map<String, String>> fieldNames = new HashMap<>();
+        private final Map<String, String[]> indexNames = new HashMap<>();
+
+        /**
+         * @param recordName the local name of the record element
+         */
+        Flattener(String recordName) {
+            this.recordName = recordName;
+        }
+
+        /**
+         * Flattens a record.
+         *
+         * @param record the record
+         * @param column receives the name and the value of every column of the record
+         */
+        void flatten(JsonNode record, BiConsumer<String, String> column) {
+            flatten(record, null, column);
+        }
+
+        private void flatten(JsonNode node, String prefix, BiConsumer<String, String> column) {
+            if (node instanceof ObjectNode object) {
+                for (Iterator<Map.Entry<String, JsonNode>> fields = object.fields(); fields.hasNext(); ) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    flatten(field.getValue(), fieldName(prefix, field.getKey()), column);
+                }
+            } else if (node instanceof ArrayNode array) {
+                for (int i = 0; i < array.size(); i++) {
+                    flatten(array.get(i), indexName(prefix, i), column);
+                }
+            } else {
+                column.accept(prefix == null ? recordName : prefix, node.textValue());
+            }
+        }
+
+        /**
+         * Returns the column name of a field, given the name of its parent, which is null for the record itself.
+         */
+        private String fieldName(String prefix, String name) {
+            if (name.isEmpty()) {
+                return prefix;
+            }
+            return fieldNames.computeIfAbsent(prefix, key -> new HashMap<>())
+                    .computeIfAbsent(name, key -> prefix == null ? name : prefix + '.' + name);
+        }
+
+        private String indexName(String prefix, int index) {
+            String[] names = indexNames.get(prefix);
+            if (names == null || index >= names.length) {
+                int length = Math.max(names == null ? 4 : names.length * 2, index + 1);
+                names = names == null ? new String[length] : Arrays.copyOf(names, length);
+                indexNames.put(prefix, names);
+            }
+            if (names[index] == null) {
+                names[index] = (prefix == null ? recordName : prefix) + '.' + index;
+            }
+            return names[index];
+        }
+    }
+
+    private static JsonParseException parseError(XMLStreamException e) {
+        Location location = e.getLocation();
+        String message = e.getNestedException() != null ? e.getNestedException().getMessage() : e.getMessage();
+        if (location != null && location.getLineNumber() > 0 && message.contains("\n")) {
+            // the StAX message repeats the location on a second line
+            message = message.substring(0, message.indexOf('\n'));
+        }
+        return new JsonParseException((JsonParser) null, location == null || location.getLineNumber() < 0 ? message
+                : "Line " + location.getLineNumber() + ", column " + location.getColumnNumber() + ": " + message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw parseError(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.parsehub.service;
+
+import com.parsehub.config.ParseHubProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.SchemaFactory;
+import java.io.StringReader;
+
+/**
+ * Registry of the named XML Schemas (XSD) documents can be validated against.
+ * A schema is compiled into a {@link javax.xml.validation.Schema} when it is registered; a compiled schema is
+ * immutable and shared by the validations on every thread, each of which only creates a lightweight validator
+ * from it.
+ * Schemas may not load anything: external DTDs, and XSD imports and includes by location, are refused.
+ */
+@Service
+public class XmlSchemaRegistry extends SchemaRegistry<javax.xml.validation.Schema> {
+
+    /**
+     * Constructor that takes the schema settings.
+     *
+     * @param properties the application settings
+     */
+    @Autowired
+    public XmlSchemaRegistry(ParseHubProperties properties) {
+        super(properties.getSchema());
+    }
+
+    @Override
+    protected javax.xml.validation.Schema compile(String text) {
+        // a SchemaFactory is not thread-safe, and compiling is rare enough to create one each time
+        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            return factory.newSchema(new StreamSource(new StringReader(text)));
+        } catch (SAXParseException e) {
+            throw new IllegalArgumentException("Invalid XML Schema at line " + e.getLineNumber() + ", column "
+                    + e.getColumnNumber() + ": " + e.getMessage());
+        } catch (SAXException e) {
+            throw new IllegalArgumentException("Invalid XML Schema: " + e.getMessage());
+        }
+    }
+}
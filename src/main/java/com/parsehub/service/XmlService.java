@@ -1,17 +1,29 @@
 package com.parsehub.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.parsehub.util.ValidationResult;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.yaml.snakeyaml.DumperOptions;
-import org.yaml.snakeyaml.Yaml;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.validation.Validator;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import com.parsehub.util.ConversionType;
+import com.parsehub.util.OperationFailure;
+import com.parsehub.util.XmlRecordOptions;
 
 /**
  * Service class for handling XML-related operations such as validation, formatting, and conversion.
@@ -19,17 +31,45 @@ import com.parsehub.util.ConversionType;
 @Service
 public class XmlService implements IDataService {
     private final XmlMapper xmlMapper;
-    private final ObjectMapper objectMapper;
-    private final CsvMapper csvMapper;
+    private final ConversionEngine conversionEngine;
+    private final XmlSchemaRegistry schemaRegistry;
+    private final XmlRecordConverter recordConverter;
+    private final SAXParserFactory parserFactory;
 
     /**
-     * Constructor that initializes singleton mappers.
-     * ObjectMapper, XmlMapper, and CsvMapper are reused across the service methods.
+     * Constructor that takes the shared mappers, the conversion engine, the schema registry and the record converter.
+     *
+     * @param mappers          the shared mapper registry
+     * @param conversionEngine the engine converting XML into other formats
+     * @param schemaRegistry   the registry of the XML Schemas documents are validated against
+     * @param recordConverter  the converter of the records of record-oriented XML feeds
      */
-    public XmlService() {
-        this.xmlMapper = new XmlMapper(); // Reused for XML-related operations
-        this.objectMapper = new ObjectMapper(); // Reused for JSON operations
-        this.csvMapper = new CsvMapper(); // Reused for CSV operations
+    @Autowired
+    public XmlService(MapperRegistry mappers, ConversionEngine conversionEngine, XmlSchemaRegistry schemaRegistry,
+                      XmlRecordConverter recordConverter) {
+        this.xmlMapper = mappers.xml(); // Reused for XML-related operations
+        this.conversionEngine = conversionEngine;
+        this.schemaRegistry = schemaRegistry;
+        this.recordConverter = recordConverter;
+        this.parserFactory = secureParserFactory();
+    }
+
+    /**
+     * Creates the factory of the parsers feeding the XML Schema validation. A document type declaration is
+     * rejected, so no DTD is read and no entity is expanded, and the parsers never open a connection.
+     */
+    private static SAXParserFactory secureParserFactory() {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IllegalStateException("The XML parser does not support secure processing", e);
+        }
+        return factory;
     }
 
     /**
@@ -39,20 +79,128 @@ public class XmlService implements IDataService {
      * @return ValidationResult object indicating whether the XML is valid
      */
     public ValidationResult validateXml(String xml) {
-        ValidationResult result = new ValidationResult();
+        try {
+            return validateXml(xmlMapper.getFactory().createParser(new StringReader(xml)));
+        } catch (IOException e) {
+            return invalidXml(e);
+        }
+    }
 
+    /**
+     * Validates XML read from a stream. The tokens are pulled one by one without building a tree.
+     *
+     * @param xml the input stream containing the XML to validate
+     * @return ValidationResult object indicating whether the XML is valid
+     */
+    public ValidationResult validateXml(InputStream xml) {
         try {
-            // Check if the XML is well-formed
-            xmlMapper.readTree(new StringReader(xml));
+            return validateXml(xmlMapper.getFactory().createParser(xml));
+        } catch (IOException e) {
+            return invalidXml(e);
+        }
+    }
+
+    private ValidationResult validateXml(JsonParser parser) {
+        ValidationResult result = new ValidationResult();
+        try (parser) {
+            while (parser.nextToken() != null) {
+                // reading the tokens is enough to check well-formedness
+            }
             result.setValid(true);
         } catch (IOException e) {
-            result.setValid(false);
-            result.addErrorMessage("XML Parsing Error: " + e.getMessage());
+            return invalidXml(e);
         }
+        return result;
+    }
+
+    private static ValidationResult invalidXml(Exception e) {
+        ValidationResult result = new ValidationResult();
+        result.setValid(false);
+        result.addErrorMessage("XML Parsing Error: " + e.getMessage());
+        return result;
+    }
 
+    /**
+     * Validates XML read from a stream against a registered XML Schema. The document is parsed as a SAX stream
+     * and checked as it is read, so memory use does not depend on its size. Every violation is reported with its
+     * line and column, up to the configured number of errors; the validation only stops at a well-formedness
+     * error. Documents with a document type declaration are rejected.
+     *
+     * @param xml    the input stream containing the XML to validate
+     * @param schema the schema the document must match
+     * @return ValidationResult object indicating whether the XML is well-formed and matches the schema
+     */
+    public ValidationResult validateXml(InputStream xml, XmlSchemaRegistry.Schema schema) {
+        ValidationResult result = new ValidationResult();
+        ViolationCollector violations = new ViolationCollector(result, schemaRegistry.maxErrors());
+        try {
+            Validator validator = schemaRegistry.compiled(schema).newValidator();
+            validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            validator.setErrorHandler(violations);
+            XMLReader reader = parserFactory.newSAXParser().getXMLReader();
+            validator.validate(new SAXSource(reader, new InputSource(xml)));
+        } catch (SAXParseException e) {
+            result.addErrorMessage("XML Parsing Error: " + location(e) + e.getMessage());
+            violations.count++;
+        } catch (SAXException | ParserConfigurationException | IOException e) {
+            result.addErrorMessage("XML Parsing Error: " + e.getMessage());
+            violations.count++;
+        }
+        violations.finish();
         return result;
     }
 
+    private static String location(SAXParseException e) {
+        return e.getLineNumber() < 0 ? "" : "Line " + e.getLineNumber() + ", column " + e.getColumnNumber() + ": ";
+    }
+
+    /**
+     * Adds the schema violations to the validation result as they are found, letting the validation go on,
+     * up to a number of them followed by the number of the others. The validator reports some violations twice
+     * at the same position, so a repeat of the previous violation is skipped.
+     */
+    private static final class ViolationCollector implements ErrorHandler {
+        private final ValidationResult result;
+        private final int limit;
+        private long count;
+        private String previous;
+
+        ViolationCollector(ValidationResult result, int limit) {
+            this.result = result;
+            this.limit = limit;
+        }
+
+        @Override
+        public void warning(SAXParseException e) {
+            // warnings do not make a document invalid
+        }
+
+        @Override
+        public void error(SAXParseException e) {
+            String message = location(e) + e.getMessage();
+            if (message.equals(previous)) {
+                return;
+            }
+            previous = message;
+            if (++count <= limit) {
+                result.addErrorMessage(message);
+            }
+        }
+
+        @Override
+        public void fatalError(SAXParseException e) throws SAXParseException {
+            throw e;
+        }
+
+        void finish() {
+            if (count > limit) {
+                result.addErrorMessage("... and " + (count - limit) + " more errors");
+            }
+            result.setValid(count == 0);
+        }
+    }
+
     /**
      * Converts the given XML string into the specified format (JSON, YAML, or CSV).
      *
@@ -69,7 +217,87 @@ public class XmlService implements IDataService {
                 default -> xml;
             };
         } catch (Exception e) {
-            return "Invalid XML format: " + e.getMessage();
+            return OperationFailure.message("Invalid XML format: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts XML read from a stream into the specified format and writes it to the output stream.
+     *
+     * @param xml        the input stream containing the XML to convert
+     * @param output     the output stream the converted data is written to
+     * @param targetType the target conversion format
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void convertData(InputStream xml, OutputStream output, ConversionType targetType) throws IOException {
+        try {
+            conversionEngine.convert(xml, ConversionType.XML, output, targetType);
+        } catch (JsonProcessingException e) {
+            writeError(output, e);
+        }
+    }
+
+    private static void writeError(OutputStream output, JsonProcessingException e) throws IOException {
+        OperationFailure.write(output, "Invalid XML: " + e.getMessage());
+        output.flush();
+    }
+
+    /**
+     * Converts the records of a record-oriented XML feed, such as {@code <records><record>...</record></records>},
+     * into a JSON array of objects. The document is read as a stream of StAX events, once to find the shape of
+     * every field and once to write the records one at a time, so memory use does not grow with the number of
+     * records and a field has the same shape in every record, see {@link XmlRecordConverter}.
+     * On invalid input the error message is written instead of the records.
+     *
+     * @param xml     the input stream containing the XML to convert
+     * @param output  the output stream the JSON is written to
+     * @param options the record path and the elements always read as arrays
+     * @throws IOException if reading the input or writing the output fails
+     * @throws IllegalArgumentException if the records have more distinct element paths than allowed
+     */
+    public void convertRecordsToJson(InputStream xml, OutputStream output, XmlRecordOptions options) throws IOException {
+        try {
+            recordConverter.convertToJson(xml, options, output);
+        } catch (JsonProcessingException e) {
+            writeError(output, e);
+        }
+    }
+
+    /**
+     * Converts the records of a record-oriented XML feed into JSON Lines, one object per record, with the same
+     * shapes as {@link #convertRecordsToJson}. On invalid input the error message is written instead of the records.
+     *
+     * @param xml     the input stream containing the XML to convert
+     * @param output  the output stream the JSON Lines are written to
+     * @param options the record path and the elements always read as arrays
+     * @throws IOException if reading the input or writing the output fails
+     * @throws IllegalArgumentException if the records have more distinct element paths than allowed
+     */
+    public void convertRecordsToJsonLines(InputStream xml, OutputStream output, XmlRecordOptions options) throws IOException {
+        try {
+            recordConverter.convertToJsonLines(xml, options, output);
+        } catch (JsonProcessingException e) {
+            writeError(output, e);
+        }
+    }
+
+    /**
+     * Converts the records of a record-oriented XML feed into CSV, one row per record, with the same shapes as
+     * {@link #convertRecordsToJson}. Nested elements and attributes become dotted column names, such as
+     * {@code address.city} or {@code tag.0}; unless the options list the columns, they are collected from every
+     * record before the first row is written. On invalid input the error message is written instead of the rows.
+     *
+     * @param xml     the input stream containing the XML to convert
+     * @param output  the output stream the CSV is written to
+     * @param options the record path, the elements always read as arrays and the columns
+     * @throws IOException if reading the input or writing the output fails
+     * @throws IllegalArgumentException if the records have more distinct element paths or columns than allowed
+     */
+    public void convertRecordsToCsv(InputStream xml, OutputStream output, XmlRecordOptions options) throws IOException {
+        try {
+            recordConverter.convertToCsv(xml, options, output);
+        } catch (JsonProcessingException e) {
+            writeError(output, e);
         }
     }
 
@@ -80,60 +308,28 @@ public class XmlService implements IDataService {
      * @return the converted JSON string
      */
     public String convertXmlToJson(String xml) {
-        try {
-            JsonNode jsonNode = xmlMapper.readTree(new StringReader(xml));
-            return objectMapper.writeValueAsString(jsonNode);
-        } catch (IOException e) {
-            return "Invalid XML: " + e.getMessage();
-        }
+        return convert(xml, ConversionType.JSON);
     }
 
     /**
-     * Converts XML to YAML format by first converting it to JSON and then to YAML.
+     * Converts XML to YAML format.
      *
      * @param xml the input XML string
      * @return the converted YAML string
      */
     public String convertXmlToYaml(String xml) {
-        try {
-            String json = convertXmlToJson(xml); // First, convert XML to JSON
-            JsonNode jsonNode = objectMapper.readTree(json);
-
-            // Convert JSON to YAML
-            DumperOptions options = new DumperOptions();
-            options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-            Yaml yaml = new Yaml(options);
-            Object object = objectMapper.convertValue(jsonNode, Object.class);
-            return yaml.dump(object);
-        } catch (IOException e) {
-            return "Invalid XML: " + e.getMessage();
-        }
+        return convert(xml, ConversionType.YAML);
     }
 
     /**
-     * Converts XML to CSV format by first converting it to JSON and then to CSV.
+     * Converts XML to CSV format. The root element must read as an array of records, and the columns are those
+     * of the first record; see {@link #convertRecordsToCsv} to stream the records of a feed.
      *
      * @param xml the input XML string
      * @return the converted CSV string
      */
     public String convertXmlToCsv(String xml) {
-        try {
-            JsonNode jsonNode = xmlMapper.readTree(new StringReader(xml));
-            CsvSchema.Builder schemaBuilder = CsvSchema.builder();
-
-            if (!jsonNode.isArray()) {
-                throw new IllegalArgumentException("XML must represent an array-like structure for CSV conversion");
-            }
-
-            // Build schema from the first element of the array
-            JsonNode firstElement = jsonNode.elements().next();
-            firstElement.fieldNames().forEachRemaining(schemaBuilder::addColumn);
-
-            CsvSchema schema = schemaBuilder.build().withHeader();
-            return csvMapper.writer(schema).writeValueAsString(jsonNode);
-        } catch (IOException e) {
-            return "Invalid XML: " + e.getMessage();
-        }
+        return convert(xml, ConversionType.CSV);
     }
 
     /**
@@ -143,11 +339,25 @@ public class XmlService implements IDataService {
      * @return the minified XML string
      */
     public String minifyXml(String xml) {
+        return convert(xml, ConversionType.XML);
+    }
+
+    /**
+     * Minifies XML read from a stream and writes it to the output stream.
+     *
+     * @param xml    the input stream containing the XML to minify
+     * @param output the output stream the minified XML is written to
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void minifyXml(InputStream xml, OutputStream output) throws IOException {
+        convertData(xml, output, ConversionType.XML);
+    }
+
+    private String convert(String xml, ConversionType targetType) {
         try {
-            JsonNode tree = xmlMapper.readTree(new StringReader(xml));
-            return xmlMapper.writeValueAsString(tree); // Return minified XML
+            return conversionEngine.convert(xml, ConversionType.XML, targetType);
         } catch (IOException e) {
-            return "Invalid XML: " + e.getMessage();
+            return OperationFailure.message("Invalid XML: " + e.getMessage());
         }
     }
 }
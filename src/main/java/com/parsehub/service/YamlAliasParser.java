@@ -0,0 +1,359 @@
+package com.parsehub.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLParser;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads YAML like a SnakeYAML loader would, with aliases and merge keys resolved, while still streaming tokens.
+ * The Jackson YAML parser reports an alias as a string holding the anchor name and a merge key as a field named
+ * {@code <<}; this parser replays the anchored value instead, and merges the fields of the referenced mappings
+ * into the mapping holding the merge key.
+ * <p>
+ * Only the anchored values are buffered, as tokens, and only until the end of their document. A mapping with a
+ * merge key is buffered from the merge key to its end, since its own keys take precedence over the merged ones,
+ * as does the first of several merged mappings. Like the SnakeYAML loader, the number of aliases to mappings and
+ * sequences is limited by {@link LoaderOptions#getMaxAliasesForCollections()}, so that nested aliases cannot
+ * expand a small document into a huge one.
+ */
+final class YamlAliasParser extends JsonParserDelegate {
+    private static final String MERGE_KEY = "<<";
+
+    private final Source source;
+    private final int maxAliases;
+    private final Map<String, TokenBuffer> anchors = new HashMap<>();
+    /** The parsers an alias or a merged mapping is replayed over, innermost last. */
+    private final Deque<JsonParser> outer = new ArrayDeque<>();
+    /** The anchored values being buffered, innermost last. */
+    private final List<Anchor> recording = new ArrayList<>();
+    /** The first of the anchored values that is given the tokens read; those before it wait for a merge. */
+    private int recordFrom;
+    private int aliases;
+    /** The keys of the open mappings, from the index in {@link #starts} on; -1 for a sequence. */
+    private final List<String> keys = new ArrayList<>();
+    private int[] starts = new int[16];
+    private int depth;
+
+    /**
+     * @param parser a parser created by a {@link Factory}
+     */
+    YamlAliasParser(JsonParser parser) {
+        super(parser);
+        this.source = (Source) parser;
+        this.maxAliases = source.loaderOptions.getMaxAliasesForCollections();
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        return next(true);
+    }
+
+    @Override
+    public JsonToken nextValue() throws IOException {
+        JsonToken token = nextToken();
+        return token == JsonToken.FIELD_NAME ? nextToken() : token;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException {
+        if (currentToken() == JsonToken.START_OBJECT || currentToken() == JsonToken.START_ARRAY) {
+            // every token goes through nextToken, so that anchors within the skipped value are still recorded
+            for (int open = 1; open > 0; ) {
+                JsonToken token = nextToken();
+                if (token == null) {
+                    break;
+                }
+                open += token.isStructStart() ? 1 : token.isStructEnd() ? -1 : 0;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public String currentName() throws IOException {
+        // a replayed value does not know the field it is the value of, the parser it replaces does
+        if (!outer.isEmpty() && delegate.getParsingContext().inRoot()) {
+            return outer.peek().currentName();
+        }
+        return delegate.currentName();
+    }
+
+    @Override
+    @Deprecated
+    public String getCurrentName() throws IOException {
+        return currentName();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the parser being read may be a replay
+        source.close();
+    }
+
+    /**
+     * Reads the next token, replaying the value of an alias in place of it and recording the anchored values.
+     *
+     * @param merge whether a merge key is merged, rather than returned, which it is everywhere except among the
+     *              keys {@link #merge()} reads
+     */
+    private JsonToken next(boolean merge) throws IOException {
+        JsonToken token = delegate.nextToken();
+        while (token == null && !outer.isEmpty()) {
+            delegate = outer.pop();
+            token = delegate.nextToken();
+        }
+        if (token != null && delegate == source) {
+            if (token == JsonToken.FIELD_NAME && merge && source.isMergeKey()) {
+                return merge();
+            }
+            if (source.isCurrentAlias()) {
+                token = alias();
+            } else if (token != JsonToken.FIELD_NAME && !token.isStructEnd()) {
+                String anchor = source.anchor();
+                if (anchor != null) {
+                    recording.add(new Anchor(anchor, new TokenBuffer(source.getCodec(), false)));
+                }
+            }
+        }
+        if (token != null) {
+            record(token);
+            track(token);
+        }
+        return token;
+    }
+
+    private JsonToken alias() throws IOException {
+        String name = source.getText();
+        TokenBuffer value = anchors.get(name);
+        if (value == null) {
+            throw new JsonParseException(source, "Unknown alias *" + name);
+        }
+        JsonParser replay = value.asParser(source.getCodec());
+        JsonToken token = replay.nextToken();
+        if (token.isStructStart() && ++aliases > maxAliases) {
+            throw new JsonParseException(source, "Number of aliases for non-scalar nodes exceeds the specified max="
+                    + maxAliases);
+        }
+        outer.push(delegate);
+        delegate = replay;
+        return token;
+    }
+
+    /**
+     * Gives the token to the anchored values being recorded, and keeps those that are complete.
+     */
+    private void record(JsonToken token) throws IOException {
+        for (int i = recordFrom; i < recording.size(); i++) {
+            Anchor anchor = recording.get(i);
+            anchor.value.copyCurrentEvent(delegate);
+            anchor.depth += token.isStructStart() ? 1 : token.isStructEnd() ? -1 : 0;
+        }
+        // the innermost values end first
+        while (recording.size() > recordFrom && recording.get(recording.size() - 1).depth == 0) {
+            Anchor anchor = recording.remove(recording.size() - 1);
+            anchors.put(anchor.name, anchor.value);
+        }
+    }
+
+    /**
+     * Follows the open mappings and sequences, and the keys read so far in each mapping.
+     */
+    private void track(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT, START_ARRAY -> {
+                if (depth == starts.length) {
+                    starts = Arrays.copyOf(starts, depth * 2);
+                }
+                starts[depth++] = token == JsonToken.START_OBJECT ? keys.size() : -1;
+            }
+            case END_OBJECT, END_ARRAY -> {
+                int start = starts[--depth];
+                if (start >= 0) {
+                    keys.subList(start, keys.size()).clear();
+                }
+            }
+            case FIELD_NAME -> keys.add(delegate.currentName());
+            default -> {
+                // scalars
+            }
+        }
+        if (depth == 0 && recording.isEmpty()) {
+            // anchors are scoped to their document
+            anchors.clear();
+            aliases = 0;
+        }
+    }
+
+    /**
+     * Reads the rest of the mapping holding a merge key, from the merge key on, and replays it with the merged
+     * fields in place of the merge key. The keys of the mapping take precedence over the merged ones wherever
+     * they are, and the fields of an earlier merged mapping over those of a later one.
+     *
+     * @return the first token of the replayed fields
+     */
+    private JsonToken merge() throws IOException {
+        int mapping = starts[depth - 1];
+        Set<String> explicit = new HashSet<>(keys.subList(mapping, keys.size()));
+        Map<String, JsonNode> fields = new LinkedHashMap<>();
+        int waiting = recordFrom;
+        // the mappings being recorded get the merged fields once they are known
+        recordFrom = recording.size();
+        mergeFields(readValue(), explicit, fields);
+        for (JsonToken token = next(false); token != JsonToken.END_OBJECT; token = next(false)) {
+            boolean mergeKey = delegate == source && source.isMergeKey();
+            String name = delegate.currentName();
+            JsonNode value = readValue();
+            if (mergeKey) {
+                mergeFields(value, explicit, fields);
+            } else {
+                explicit.add(name);
+                fields.put(name, value);
+            }
+        }
+        recordFrom = waiting;
+        // the mapping is still open until the replayed fields end it
+        starts[depth++] = keys.size();
+
+        ObjectNode merged = JsonNodeFactory.instance.objectNode();
+        merged.setAll(fields);
+        JsonParser replay = merged.traverse(source.getCodec());
+        replay.nextToken();
+        outer.push(delegate);
+        delegate = replay;
+        return next(true);
+    }
+
+    private JsonNode readValue() throws IOException {
+        next(true);
+        return source.getCodec().readTree(this);
+    }
+
+    private void mergeFields(JsonNode value, Set<String> explicit, Map<String, JsonNode> fields) throws IOException {
+        if (value.isObject()) {
+            value.fields().forEachRemaining(field -> {
+                if (!explicit.contains(field.getKey())) {
+                    fields.putIfAbsent(field.getKey(), field.getValue());
+                }
+            });
+        } else if (value.isArray()) {
+            for (JsonNode element : value) {
+                if (!element.isObject()) {
+                    throw new JsonParseException(source, "A merge key needs a mapping or a sequence of mappings");
+                }
+                mergeFields(element, explicit, fields);
+            }
+        } else {
+            throw new JsonParseException(source, "A merge key needs a mapping or a sequence of mappings");
+        }
+    }
+
+    /**
+     * An anchored value being recorded.
+     */
+    private static final class Anchor {
+        final String name;
+        final TokenBuffer value;
+        int depth;
+
+        Anchor(String name, TokenBuffer value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Creates the YAML parsers this class reads from, which tell the anchor of the current value and the merge
+     * keys apart from other keys.
+     */
+    static final class Factory extends YAMLFactory {
+        private static final long serialVersionUID = 1L;
+
+        Factory() {
+        }
+
+        private Factory(Factory factory) {
+            super(factory, null);
+        }
+
+        @Override
+        public YAMLFactory copy() {
+            return new Factory(this);
+        }
+
+        @Override
+        protected YAMLParser _createParser(InputStream input, IOContext context) throws IOException {
+            return _createParser(_createReader(input, null, context), context);
+        }
+
+        @Override
+        protected YAMLParser _createParser(Reader reader, IOContext context) {
+            return new Source(context, _parserFeatures, _yamlParserFeatures, _loaderOptions, _objectCodec, reader);
+        }
+
+        @Override
+        protected YAMLParser _createParser(char[] data, int offset, int length, IOContext context, boolean recyclable) {
+            return _createParser(new CharArrayReader(data, offset, length), context);
+        }
+
+        @Override
+        protected YAMLParser _createParser(byte[] data, int offset, int length, IOContext context) throws IOException {
+            return _createParser(_createReader(data, offset, length, null, context), context);
+        }
+    }
+
+    /**
+     * A Jackson YAML parser that exposes the SnakeYAML event of the current token.
+     */
+    private static final class Source extends YAMLParser {
+        final LoaderOptions loaderOptions;
+
+        Source(IOContext context, int parserFeatures, int yamlFeatures, LoaderOptions loaderOptions, ObjectCodec codec,
+               Reader reader) {
+            super(context, parserFeatures, yamlFeatures, loaderOptions, codec, reader);
+            // the factory leaves the options unset unless they are configured, and the parser uses the defaults
+            this.loaderOptions = loaderOptions == null ? new LoaderOptions() : loaderOptions;
+        }
+
+        /**
+         * Returns the anchor of the current value, or null if it has none.
+         */
+        String anchor() {
+            return _lastEvent instanceof NodeEvent node && !(_lastEvent instanceof AliasEvent) ? node.getAnchor() : null;
+        }
+
+        /**
+         * Whether the current field name is a merge key, which is a plain {@code <<}.
+         */
+        boolean isMergeKey() {
+            return _lastEvent instanceof ScalarEvent scalar && scalar.isPlain() && MERGE_KEY.equals(scalar.getValue());
+        }
+    }
+}
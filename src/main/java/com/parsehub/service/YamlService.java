@@ -1,16 +1,26 @@
 package com.parsehub.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.parsehub.util.ConversionType;
 import com.parsehub.util.ValidationResult;
 import com.parsehub.util.Format;
+import com.parsehub.util.OperationFailure;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.constructor.Constructor;
 import org.yaml.snakeyaml.parser.ParserException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Service class for handling YAML-related operations such as validation, formatting, and conversion.
@@ -18,15 +28,20 @@ import java.util.Map;
 @Service
 public class YamlService implements IDataService {
     private final Yaml yamlParser;
+    private final ConversionEngine conversionEngine;
 
     /**
      * Initializes the service with a singleton instance of SnakeYAML parser.
      * The parser is initialized with custom LoaderOptions and Constructor for performance and flexibility.
+     *
+     * @param conversionEngine the engine converting YAML into other formats
      */
-    public YamlService() {
+    @Autowired
+    public YamlService(ConversionEngine conversionEngine) {
         LoaderOptions loaderOptions = new LoaderOptions();
         Constructor constructor = new Constructor(loaderOptions);
         this.yamlParser = new Yaml(constructor);
+        this.conversionEngine = conversionEngine;
     }
 
     /**
@@ -36,9 +51,23 @@ public class YamlService implements IDataService {
      * @return ValidationResult indicating whether the YAML is valid
      */
     public ValidationResult validateYaml(String yaml) {
+        return validateYaml(() -> yamlParser.load(yaml));
+    }
+
+    /**
+     * Validates YAML read from a stream by parsing it into a map.
+     *
+     * @param yaml the input stream containing the YAML to validate
+     * @return ValidationResult indicating whether the YAML is valid
+     */
+    public ValidationResult validateYaml(InputStream yaml) {
+        return validateYaml(() -> yamlParser.load(yaml));
+    }
+
+    private ValidationResult validateYaml(Supplier<Map<String, Object>> loader) {
         ValidationResult result = new ValidationResult();
         try {
-            Map<String, Object> yamlData = yamlParser.load(yaml);
+            Map<String, Object> yamlData = loader.get();
             if (yamlData != null) {
                 result.setValid(true);
             } else {
@@ -63,24 +92,52 @@ public class YamlService implements IDataService {
      * @return the formatted YAML string
      */
     public String formatYaml(String yaml, Format format) {
+        StringWriter writer = new StringWriter();
+        String error = formatYaml(() -> yamlParser.load(yaml), format, writer);
+        return error != null ? error : writer.toString();
+    }
+
+    /**
+     * Formats YAML read from a stream and writes it to the output stream.
+     * On invalid input only the error message is written.
+     *
+     * @param yaml   the input stream containing the YAML to format
+     * @param output the output stream the formatted YAML is written to
+     * @param format the format type (pretty or compact)
+     * @throws IOException if writing the output fails
+     */
+    public void formatYaml(InputStream yaml, OutputStream output, Format format) throws IOException {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        String error = formatYaml(() -> yamlParser.load(yaml), format, writer);
+        if (error != null) {
+            writer.write(error);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Loads the YAML and dumps it to the writer.
+     *
+     * @return the error message if the YAML could not be loaded, otherwise null
+     */
+    private String formatYaml(Supplier<Map<String, Object>> loader, Format format, Writer writer) {
         try {
-            Map<String, Object> yamlData = yamlParser.load(yaml);
+            Map<String, Object> yamlData = loader.get();
             if (yamlData == null) {
-                return "Invalid YAML: empty or null";
+                return OperationFailure.message("Invalid YAML: empty or null");
             }
 
-            StringWriter writer = new StringWriter();
             if (format == Format.COMPACT) {
                 yamlParser.dump(yamlData, writer); // Minified YAML
             } else {
                 Yaml prettyPrinter = new Yaml();  // Use default Yaml for pretty-printing
                 prettyPrinter.dump(yamlData, writer);
             }
-            return writer.toString();
+            return null;
         } catch (ParserException e) {
-            return "YAML Formatting Error: " + e.getMessage();
+            return OperationFailure.message("YAML Formatting Error: " + e.getMessage());
         } catch (Exception e) {
-            return "YAML Formatting Generic Error: " + e.getMessage();
+            return OperationFailure.message("YAML Formatting Generic Error: " + e.getMessage());
         }
     }
 
@@ -100,77 +157,70 @@ public class YamlService implements IDataService {
                 default -> yaml;
             };
         } catch (Exception e) {
-            return "Invalid YAML format: " + e.getMessage();
+            return OperationFailure.message("Invalid YAML format: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts YAML read from a stream into the specified format and writes it to the output stream.
+     *
+     * @param yaml       the input stream containing the YAML to convert
+     * @param output     the output stream the converted data is written to
+     * @param targetType the target conversion format
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void convertData(InputStream yaml, OutputStream output, ConversionType targetType) throws IOException {
+        try {
+            conversionEngine.convert(yaml, ConversionType.YAML, output, targetType);
+        } catch (JsonProcessingException e) {
+            OperationFailure.write(output, "Invalid YAML format: " + e.getMessage());
+            output.flush();
         }
     }
 
     /**
-     * Converts YAML to JSON format.
+     * Converts YAML to JSON format. A stream of several documents yields one JSON value per line.
      *
      * @param yaml the YAML string
      * @return the converted JSON string
      */
     public String convertYamlToJson(String yaml) {
-        try {
-            Map<String, Object> yamlData = yamlParser.load(yaml);
-            if (yamlData == null) {
-                return "Invalid YAML: empty or null";
-            }
-
-            StringBuilder jsonBuilder = new StringBuilder();
-            jsonBuilder.append("{");
-            yamlData.forEach((key, value) -> jsonBuilder.append("\"").append(key).append("\": \"").append(value).append("\", "));
-            if (jsonBuilder.length() > 1) {
-                jsonBuilder.setLength(jsonBuilder.length() - 2); // Remove the last comma
-            }
-            jsonBuilder.append("}");
-            return jsonBuilder.toString();
-        } catch (ParserException e) {
-            return "YAML to JSON Conversion Error: " + e.getMessage();
-        }
+        return convert(yaml, ConversionType.JSON);
     }
 
     /**
-     * Converts YAML to XML format.
+     * Converts YAML to XML format. A stream of several documents yields one XML document per line.
      *
      * @param yaml the YAML string
      * @return the converted XML string
      */
     public String convertYamlToXml(String yaml) {
-        try {
-            Map<String, Object> yamlData = yamlParser.load(yaml);
-            if (yamlData == null) {
-                return "Invalid YAML: empty or null";
-            }
-
-            StringBuilder xmlBuilder = new StringBuilder();
-            xmlBuilder.append("<root>");
-            yamlData.forEach((key, value) -> xmlBuilder.append("<").append(key).append(">").append(value).append("</").append(key).append(">"));
-            xmlBuilder.append("</root>");
-            return xmlBuilder.toString();
-        } catch (ParserException e) {
-            return "YAML to XML Conversion Error: " + e.getMessage();
-        }
+        return convert(yaml, ConversionType.XML);
     }
 
     /**
-     * Converts YAML to CSV format.
+     * Converts a YAML sequence of mappings to CSV format, one row per mapping.
      *
      * @param yaml the YAML string
      * @return the converted CSV string
      */
     public String convertYamlToCsv(String yaml) {
-        try {
-            Map<String, Object> yamlData = yamlParser.load(yaml);
-            if (yamlData == null) {
-                return "Invalid YAML: empty or null";
-            }
+        return convert(yaml, ConversionType.CSV);
+    }
 
-            StringBuilder csvBuilder = new StringBuilder();
-            yamlData.forEach((key, value) -> csvBuilder.append(key).append(",").append(value).append("\n"));
-            return csvBuilder.toString();
-        } catch (ParserException e) {
-            return "YAML to CSV Conversion Error: " + e.getMessage();
+    /**
+     * Streams the YAML through the conversion engine, without loading it into a map first.
+     *
+     * @param yaml       the YAML string
+     * @param targetType the target format type
+     * @return the converted string
+     */
+    private String convert(String yaml, ConversionType targetType) {
+        try {
+            String result = conversionEngine.convert(yaml, ConversionType.YAML, targetType);
+            return result.isEmpty() ? OperationFailure.message("Invalid YAML: empty or null") : result;
+        } catch (IOException e) {
+            return OperationFailure.message("YAML to " + targetType + " Conversion Error: " + e.getMessage());
         }
     }
 
@@ -183,4 +233,15 @@ public class YamlService implements IDataService {
     public String minifyYaml(String yaml) {
         return formatYaml(yaml, Format.COMPACT);
     }
+
+    /**
+     * Minifies YAML read from a stream and writes it to the output stream.
+     *
+     * @param yaml   the input stream containing the YAML to minify
+     * @param output the output stream the minified YAML is written to
+     * @throws IOException if writing the output fails
+     */
+    public void minifyYaml(InputStream yaml, OutputStream output) throws IOException {
+        formatYaml(yaml, output, Format.COMPACT);
+    }
 }
@@ -0,0 +1,12 @@
+package com.parsehub.ui;
+
+import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
+
+/**
+ * Application shell settings. Server push lets operations running in the background update the view
+ * as soon as they make progress or finish.
+ */
+@Push
+public class AppShell implements AppShellConfigurator {
+}
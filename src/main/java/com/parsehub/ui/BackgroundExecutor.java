@@ -0,0 +1,81 @@
+package com.parsehub.ui;
+
+import com.parsehub.config.ParseHubProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs UI operations outside of the request thread, so a long conversion holds neither the request thread
+ * nor the session lock. All sessions share a fixed number of workers; every view runs one operation at a time,
+ * so a single user cannot occupy more than one worker.
+ */
+@Component
+public class BackgroundExecutor {
+    private static final long PROGRESS_INTERVAL_MILLIS = 250;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService progress;
+
+    /**
+     * Constructor that takes the configured number of workers.
+     *
+     * @param properties the application settings
+     */
+    @Autowired
+    public BackgroundExecutor(ParseHubProperties properties) {
+        int size = Math.max(1, properties.getUi().getWorkers());
+        this.workers = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threads("ui-operation-"));
+        this.progress = Executors.newSingleThreadScheduledExecutor(threads("ui-progress-"));
+    }
+
+    /**
+     * Queues an operation for a worker.
+     *
+     * @param operation the operation to run
+     * @return the future of the operation; cancelling it interrupts a running operation
+     */
+    public Future<?> submit(Runnable operation) {
+        return workers.submit(operation);
+    }
+
+    /**
+     * Runs a progress update repeatedly until the returned future is cancelled.
+     * The update should only hand the current progress to the UI; it must not block.
+     *
+     * @param update the progress update
+     * @return the future to cancel once the operation has finished
+     */
+    public ScheduledFuture<?> scheduleProgress(Runnable update) {
+        return progress.scheduleWithFixedDelay(update, PROGRESS_INTERVAL_MILLIS, PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Interrupts the running operations when the application context closes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        progress.shutdownNow();
+    }
+}
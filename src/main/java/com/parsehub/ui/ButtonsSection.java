@@ -3,6 +3,7 @@ package com.parsehub.ui;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
 
 public class ButtonsSection extends VerticalLayout {
 
@@ -13,6 +14,8 @@ public class ButtonsSection extends VerticalLayout {
     private final ComboBox<String> indentationComboBox;
     private final ComboBox<String> conversionComboBox;
     private final Button convertButton;
+    private final ProgressBar progressBar;
+    private final Button cancelButton;
 
     public ButtonsSection() {
         validateButton = createButton("Validate");
@@ -27,6 +30,12 @@ public class ButtonsSection extends VerticalLayout {
         conversionComboBox = createComboBox("Convert to", "JSON", "XML", "YAML", "CSV");
         conversionComboBox.setValue("JSON");
 
+        // shown while an operation runs in the background
+        progressBar = new ProgressBar();
+        progressBar.setVisible(false);
+        cancelButton = createButton("Cancel");
+        cancelButton.setVisible(false);
+
         // add all components to the layout
         addComponentsToLayout();
         setSpacing(true);
@@ -61,7 +70,33 @@ public class ButtonsSection extends VerticalLayout {
      */
     private void addComponentsToLayout() {
         add(validateButton, minifyButton, sortButton, indentationComboBox,
-                formatButton, conversionComboBox, convertButton);
+                formatButton, conversionComboBox, convertButton, progressBar, cancelButton);
+    }
+
+    /**
+     * Switches between the operation buttons and the progress of a running operation.
+     * While an operation runs, the operation buttons are disabled and the progress bar and cancel button are shown.
+     *
+     * @param running whether an operation is running
+     */
+    public void setRunning(boolean running) {
+        validateButton.setEnabled(!running);
+        formatButton.setEnabled(!running);
+        minifyButton.setEnabled(!running);
+        sortButton.setEnabled(!running);
+        convertButton.setEnabled(!running);
+        progressBar.setValue(0);
+        progressBar.setVisible(running);
+        cancelButton.setVisible(running);
+    }
+
+    /**
+     * Shows the progress of the running operation.
+     *
+     * @param progress the share of the input processed so far, between 0 and 1
+     */
+    public void setProgress(double progress) {
+        progressBar.setValue(Math.max(0, Math.min(1, progress)));
     }
 
     /**
@@ -127,6 +162,15 @@ public class ButtonsSection extends VerticalLayout {
         return convertButton;
     }
 
+    /**
+     * Returns the cancel button, shown while an operation is running.
+     *
+     * @return the cancel button
+     */
+    public Button getCancelButton() {
+        return cancelButton;
+    }
+
     /**
      * Returns the ComboBox used for selecting the indentation level.
      *
@@ -0,0 +1,83 @@
+package com.parsehub.ui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Helpers for showing the beginning of a file that is too large to display in full.
+ */
+final class FilePreview {
+
+    private FilePreview() {
+    }
+
+    /**
+     * Reads the beginning of a file as UTF-8 text.
+     * A character cut in half at the end of the preview is dropped instead of being replaced.
+     *
+     * @param file  the file to read
+     * @param limit the maximum number of bytes to read
+     * @return the text of the first bytes of the file
+     */
+    static String read(Path file, int limit) {
+        try (InputStream input = Files.newInputStream(file)) {
+            byte[] bytes = input.readNBytes(limit);
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer text = CharBuffer.allocate(bytes.length);
+            // without endOfInput, an incomplete sequence at the end stays in the buffer instead of being decoded
+            decoder.decode(ByteBuffer.wrap(bytes), text, false);
+            return text.flip().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Describes a preview for the helper text below a text area.
+     *
+     * @param file  the previewed file
+     * @param limit the preview size in bytes
+     * @return a note saying how much of the file is shown
+     */
+    static String describe(Path file, int limit) {
+        try {
+            long size = Files.size(file);
+            return size <= limit
+                    ? "Showing the whole file (" + formatSize(size) + ")"
+                    : "Showing the first " + formatSize(limit) + " of " + formatSize(size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Formats a byte count for display, e.g. 64 KB or 312.5 MB.
+     *
+     * @param bytes the number of bytes
+     * @return the size with a unit
+     */
+    static String formatSize(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        String[] units = {"KB", "MB", "GB", "TB"};
+        double size = bytes;
+        int unit = -1;
+        while (size >= 1024 && unit < units.length - 1) {
+            size /= 1024;
+            unit++;
+        }
+        return (size == Math.floor(size) ? String.valueOf((long) size) : String.format(Locale.ROOT, "%.1f", size)) + " " + units[unit];
+    }
+}
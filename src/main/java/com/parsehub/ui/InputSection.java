@@ -7,9 +7,10 @@ import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.component.radiobutton.RadioButtonGroup;
 import com.vaadin.flow.component.textfield.TextArea;
 import com.vaadin.flow.component.upload.Upload;
-import com.vaadin.flow.component.upload.receivers.MemoryBuffer;
+import com.vaadin.flow.component.upload.receivers.FileBuffer;
 import java.nio.charset.StandardCharsets;
-import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.io.IOException;
 
 public class InputSection extends VerticalLayout {
@@ -18,8 +19,18 @@ public class InputSection extends VerticalLayout {
     private final RadioButtonGroup<String> formatSelector;
     private final Button copyButton;
     private final Upload upload;
+    private final int previewSize;
 
-    public InputSection() {
+    /**
+     * The uploaded file while in the large-file mode, otherwise null.
+     */
+    private Path largeFile;
+
+    /**
+     * @param previewSize the number of bytes of an uploaded file to display; larger files switch to the large-file mode
+     */
+    public InputSection(int previewSize) {
+        this.previewSize = previewSize;
         Span inputLabel = createLabel("Input");
         copyButton = createCopyButton();
         formatSelector = createFormatSelector();
@@ -30,22 +41,37 @@ public class InputSection extends VerticalLayout {
         add(inputControls, inputArea);
         configureLayoutSettings();
         setClassName("input-section");
+
+        // Typing into the preview replaces the uploaded file with the text area content
+        inputArea.addValueChangeListener(event -> {
+            if (event.isFromClient()) {
+                leaveLargeFileMode();
+            }
+        });
+        // a resynchronization detaches and re-attaches the view, so only clean up when the UI is closed
+        addDetachListener(event -> {
+            if (event.getUI().isClosing()) {
+                leaveLargeFileMode();
+            }
+        });
     }
 
     /**
      * Creates an Upload component for uploading files.
      * - Accepted file types: JSON, XML, YAML, and TXT formats.
      * - Disables the drag-and-drop functionality, using a standard "Upload File" button instead.
-     * - When a file is successfully uploaded, its content is read and displayed in the input text area.
+     * - Uploads are spooled to a temp file. A file up to the preview size is displayed in the input text area;
+     *   a larger one switches to the large-file mode, which displays only its beginning.
      *
      * @return The configured Upload component with the necessary event listeners and styles.
      */
     private Upload createUpload() {
-        MemoryBuffer buffer = new MemoryBuffer();
+        FileBuffer buffer = new FileBuffer(fileName -> Files.createTempFile("parsehub-upload-", ".tmp").toFile());
         Upload upload = new Upload(buffer);
 
-        // Set accepted file types to JSON, XML, YAML, and TXT
-        upload.setAcceptedFileTypes("application/json", "application/xml", "application/x-yaml", "text/plain", ".json", ".xml", ".yaml", ".txt");
+        // Set accepted file types to JSON, XML, YAML, CSV, and TXT
+        upload.setAcceptedFileTypes("application/json", "application/xml", "application/x-yaml", "text/csv", "text/plain",
+                ".json", ".xml", ".yaml", ".csv", ".txt");
 
         // Disable the drag-and-drop functionality, show only button
         upload.setDropAllowed(false);
@@ -54,13 +80,25 @@ public class InputSection extends VerticalLayout {
 
         // Add the upload success listener to handle the uploaded file
         upload.addSucceededListener(event -> {
+            leaveLargeFileMode();
+            Path file = buffer.getFileData().getFile().toPath();
             try {
-                InputStream inputStream = buffer.getInputStream();
-                byte[] bytes = inputStream.readAllBytes();
-                String content = new String(bytes, StandardCharsets.UTF_8);
-                inputArea.setValue(content);
+                if (Files.size(file) <= previewSize) {
+                    inputArea.setValue(Files.readString(file, StandardCharsets.UTF_8));
+                } else {
+                    largeFile = file;
+                    inputArea.setValue(FilePreview.read(file, previewSize));
+                    inputArea.setHelperText("Large file: " + FilePreview.describe(file, previewSize)
+                            + ". Operations run on the whole file; editing the text discards it.");
+                }
             } catch (IOException e) {
                 System.err.println("Error reading file: " + e.getMessage());
+                leaveLargeFileMode();
+            } finally {
+                // only the upload of the large-file mode is kept, a file that failed to read is deleted too
+                if (file != largeFile) {
+                    delete(file);
+                }
             }
         });
 
@@ -70,6 +108,25 @@ public class InputSection extends VerticalLayout {
         return upload;
     }
 
+    /**
+     * Leaves the large-file mode and deletes the uploaded file, if there is one.
+     */
+    private void leaveLargeFileMode() {
+        if (largeFile == null) {
+            return;
+        }
+        delete(largeFile);
+        largeFile = null;
+        inputArea.setHelperText(null);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting file: " + e.getMessage());
+        }
+    }
 
     /**
      * Creates a label component.
@@ -101,7 +158,7 @@ public class InputSection extends VerticalLayout {
      */
     private RadioButtonGroup<String> createFormatSelector() {
         RadioButtonGroup<String> radioGroup = new RadioButtonGroup<>();
-        radioGroup.setItems("JSON", "XML", "YAML");
+        radioGroup.setItems("JSON", "XML", "YAML", "CSV");
         radioGroup.setValue("JSON");  // Default value
         return radioGroup;
     }
@@ -161,6 +218,16 @@ public class InputSection extends VerticalLayout {
         return inputArea.getValue();
     }
 
+    /**
+     * Returns the uploaded file while in the large-file mode.
+     * Operations should then stream this file instead of using {@link #getInputValue()}, which holds only a preview.
+     *
+     * @return The uploaded file, or null if the input is the text area content.
+     */
+    public Path getLargeFile() {
+        return largeFile;
+    }
+
     /**
      * Provides access to the format selector for further customization if needed.
      *
@@ -1,19 +1,40 @@
 package com.parsehub.ui;
 
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.CsvService;
 import com.parsehub.service.JsonService;
 import com.parsehub.service.XmlService;
 import com.parsehub.service.YamlService;
+import com.parsehub.util.CountingInputStream;
 import com.parsehub.util.ValidationResult;
 import com.parsehub.util.Format;
 import com.parsehub.util.ConversionType;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.spring.annotation.SpringComponent;
+import com.vaadin.flow.spring.annotation.UIScope;
 import com.vaadin.flow.component.dependency.CssImport;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
+
 @SpringComponent
+@UIScope
 @Route("")
 @CssImport("./styles/styles.css")
 public class MainView extends VerticalLayout {
@@ -21,18 +42,32 @@ public class MainView extends VerticalLayout {
     private final JsonService jsonService;
     private final XmlService xmlService;
     private final YamlService yamlService;
+    private final CsvService csvService;
+    private final BackgroundExecutor backgroundExecutor;
+    private final int previewSize;
 
     private final InputSection inputSection;
     private final ButtonsSection buttonsSection;
     private final OutputSection outputSection;
 
+    /**
+     * Identifies the operation running in the background, null when none is running.
+     * Only accessed while holding the session lock.
+     */
+    private Object runningOperation;
+    private Future<?> runningFuture;
+
     @Autowired
-    public MainView(JsonService jsonService, XmlService xmlService, YamlService yamlService) {
+    public MainView(JsonService jsonService, XmlService xmlService, YamlService yamlService, CsvService csvService,
+                    BackgroundExecutor backgroundExecutor, ParseHubProperties properties) {
         this.jsonService = jsonService;
         this.xmlService = xmlService;
         this.yamlService = yamlService;
+        this.csvService = csvService;
+        this.backgroundExecutor = backgroundExecutor;
+        this.previewSize = (int) Math.min(Integer.MAX_VALUE, properties.getUi().getPreviewSize().toBytes());
 
-        inputSection = new InputSection();
+        inputSection = new InputSection(previewSize);
         buttonsSection = new ButtonsSection();
         outputSection = new OutputSection();
 
@@ -40,6 +75,12 @@ public class MainView extends VerticalLayout {
 
         inputSection.getFormatSelector().addValueChangeListener(event -> adjustButtonsVisibility(event.getValue()));
         wireButtonActions();
+        // a resynchronization detaches and re-attaches the view, so only clean up when the UI is closed
+        addDetachListener(event -> {
+            if (event.getUI().isClosing()) {
+                cancelOperation();
+            }
+        });
     }
 
     /**
@@ -61,6 +102,10 @@ public class MainView extends VerticalLayout {
         buttonsSection.getMinifyButton().addClickListener(event -> minifyData());
         buttonsSection.getConvertButton().addClickListener(event -> convertData());
         buttonsSection.getSortButton().addClickListener(event -> sortData());
+        buttonsSection.getCancelButton().addClickListener(event -> {
+            cancelOperation();
+            outputSection.setOutputValue("Operation cancelled");
+        });
     }
 
     /**
@@ -75,57 +120,57 @@ public class MainView extends VerticalLayout {
         buttonsSection.getFormatButton().setVisible(isJson);
         buttonsSection.getIndentationComboBox().setVisible(isJson);
         buttonsSection.getSortButton().setVisible(isJson);
+        buttonsSection.getMinifyButton().setVisible(!"CSV".equalsIgnoreCase(selectedFormat));
     }
 
     /**
      * Sorts the JSON data if applicable and updates the output section.
      */
     private void sortData() {
-        String input = inputSection.getInputValue();
         String format = inputSection.getSelectedFormat();
-        String result;
 
         if ("JSON".equalsIgnoreCase(format)) {
-            result = jsonService.sortJson(input);
+            transform(jsonService::sortJson);
         } else {
             outputSection.setOutputValue("Unsupported format");
-            return;
         }
-
-        outputSection.setOutputValue(result);
     }
 
     /**
      * Validates the input data based on the selected format and displays the result in the output section.
      */
     private void validateData() {
-        String input = inputSection.getInputValue();
         String format = inputSection.getSelectedFormat();
-        ValidationResult result;
+        Function<InputStream, ValidationResult> validator;
 
         switch (format.toUpperCase()) {
             case "JSON":
-                result = jsonService.validateJson(input);
+                validator = jsonService::validateJson;
                 break;
             case "XML":
-                result = xmlService.validateXml(input);
+                validator = xmlService::validateXml;
                 break;
             case "YAML":
-                result = yamlService.validateYaml(input);
+                validator = yamlService::validateYaml;
+                break;
+            case "CSV":
+                validator = csvService::validateCsv;
                 break;
             default:
                 outputSection.setOutputValue("Unsupported format");
                 return;
         }
 
-        outputSection.setOutputValue(result.isValid() ? "Valid " + format : "Invalid " + format + "\nErrors: " + result.getErrorMessages());
+        runInBackground(input -> {
+            ValidationResult result = validator.apply(input);
+            return () -> outputSection.setOutputValue(result.isValid() ? "Valid " + format : "Invalid " + format + "\nErrors: " + result.getErrorMessages());
+        });
     }
 
     /**
      * Formats the input JSON data according to the selected indentation and updates the output section.
      */
     private void formatData() {
-        String input = inputSection.getInputValue();
         String format = inputSection.getSelectedFormat();
         String selectedIndentation = buttonsSection.getSelectedIndentation();
         Format indentationFormat;
@@ -137,64 +182,205 @@ public class MainView extends VerticalLayout {
             indentationFormat = Format.valueOf(selectedIndentation);
         }
 
-        String result;
-
         if ("JSON".equalsIgnoreCase(format)) {
-            result = jsonService.formatJson(input, indentationFormat);
+            Format jsonFormat = indentationFormat;
+            transform((in, out) -> jsonService.formatJson(in, out, jsonFormat));
         } else {
             outputSection.setOutputValue("Unsupported format");
-            return;
         }
-
-        outputSection.setOutputValue(result);
     }
 
     /**
      * Minifies the input data based on the selected format and updates the output section.
      */
     private void minifyData() {
-        String input = inputSection.getInputValue();
         String format = inputSection.getSelectedFormat();
-        String result;
 
         switch (format.toUpperCase()) {
-            case "JSON":
-                result = jsonService.minifyJson(input);
-                break;
-            case "XML":
-                result = xmlService.minifyXml(input);
-                break;
-            case "YAML":
-                result = yamlService.minifyYaml(input);
-                break;
-            default:
-                outputSection.setOutputValue("Unsupported format");
-                return;
+            case "JSON" -> transform(jsonService::minifyJson);
+            case "XML" -> transform(xmlService::minifyXml);
+            case "YAML" -> transform(yamlService::minifyYaml);
+            default -> outputSection.setOutputValue("Unsupported format");
         }
-
-        outputSection.setOutputValue(result);
     }
 
     /**
      * Converts the input data from one format to another and updates the output section.
      */
     private void convertData() {
-        String input = inputSection.getInputValue();
         String format = inputSection.getSelectedFormat();
         ConversionType targetFormat = ConversionType.valueOf(buttonsSection.getSelectedConversionType().toUpperCase());
 
-        String result;
+        switch (format.toUpperCase()) {
+            case "JSON" -> transform((in, out) -> jsonService.convertData(in, out, targetFormat));
+            case "XML" -> transform((in, out) -> xmlService.convertData(in, out, targetFormat));
+            case "YAML" -> transform((in, out) -> yamlService.convertData(in, out, targetFormat));
+            case "CSV" -> transform((in, out) -> csvService.convertData(in, out, targetFormat));
+            default -> outputSection.setOutputValue("Unsupported input format");
+        }
+    }
 
-        try {
-            result = switch (format.toUpperCase()) {
-                case "JSON" -> jsonService.convertData(input, targetFormat);
-                case "XML" -> xmlService.convertData(input, targetFormat);
-                case "YAML" -> yamlService.convertData(input, targetFormat);
-                default -> "Unsupported input format";
+    /**
+     * Runs a streaming operation in the background and shows its output.
+     * In the large-file mode the output goes to a temp file and only a preview is displayed,
+     * otherwise it is collected in memory and displayed in full.
+     *
+     * @param operation The streaming operation of the selected format.
+     */
+    private void transform(FileOperation operation) {
+        if (inputSection.getLargeFile() == null) {
+            runInBackground(input -> {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                operation.apply(input, output);
+                String result = output.toString(StandardCharsets.UTF_8);
+                return () -> outputSection.setOutputValue(result);
+            });
+            return;
+        }
+
+        runInBackground(input -> {
+            Path output = Files.createTempFile("parsehub-output-", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+                operation.apply(input, out);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Operation cancelled");
+                }
+            } catch (IOException | RuntimeException e) {
+                deleteQuietly(output);
+                throw e;
+            }
+            return new Result() {
+                @Override
+                public void show() {
+                    outputSection.setOutputFile(output, previewSize);
+                }
+
+                @Override
+                public void discard() {
+                    deleteQuietly(output);
+                }
             };
-            outputSection.setOutputValue(result);
-        } catch (Exception e) {
-            outputSection.setOutputValue("Conversion error: " + e.getMessage());
+        });
+    }
+
+    /**
+     * Runs an operation on a background worker, so that neither the request thread nor the session lock
+     * is held while it runs. The input is read through a counting stream that drives the progress bar;
+     * cancelling interrupts the worker, which makes the next read of the input fail.
+     * The result is shown through {@link UI#access}, which server push delivers without a client round trip.
+     *
+     * @param task The operation, reading the input and returning how to show its result.
+     */
+    private void runInBackground(BackgroundTask task) {
+        if (runningOperation != null) {
+            return;
+        }
+        UI ui = UI.getCurrent();
+        Path largeFile = inputSection.getLargeFile();
+        byte[] text = largeFile == null ? inputSection.getInputValue().getBytes(StandardCharsets.UTF_8) : null;
+        Object operation = new Object();
+
+        runningOperation = operation;
+        buttonsSection.setRunning(true);
+        runningFuture = backgroundExecutor.submit(() -> {
+            Result result;
+            ScheduledFuture<?> progress = null;
+            try (CountingInputStream input = new CountingInputStream(
+                    largeFile != null ? Files.newInputStream(largeFile) : new ByteArrayInputStream(text))) {
+                long total = largeFile != null ? Files.size(largeFile) : text.length;
+                progress = backgroundExecutor.scheduleProgress(() -> ui.access(() -> {
+                    if (runningOperation == operation) {
+                        buttonsSection.setProgress(total == 0 ? 1 : (double) input.getCount() / total);
+                    }
+                }));
+                result = task.run(input);
+            } catch (IOException | RuntimeException e) {
+                result = () -> outputSection.setOutputValue("Processing error: " + e.getMessage());
+            } finally {
+                if (progress != null) {
+                    progress.cancel(false);
+                }
+            }
+
+            // clear the interrupt, so that it cannot break the push of the result
+            if (Thread.interrupted()) {
+                result.discard();
+                return;
+            }
+            Result finished = result;
+            try {
+                ui.access(() -> {
+                    if (runningOperation != operation) {
+                        finished.discard();
+                        return;
+                    }
+                    runningOperation = null;
+                    runningFuture = null;
+                    buttonsSection.setRunning(false);
+                    finished.show();
+                });
+            } catch (UIDetachedException e) {
+                finished.discard();
+            }
+        });
+    }
+
+    /**
+     * Cancels the running operation, if there is one, and interrupts its worker.
+     * A queued operation is dropped before it starts.
+     */
+    private void cancelOperation() {
+        if (runningOperation == null) {
+            return;
+        }
+        runningFuture.cancel(true);
+        runningOperation = null;
+        runningFuture = null;
+        buttonsSection.setRunning(false);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A streaming operation reading the input and writing the output.
+     */
+    @FunctionalInterface
+    private interface FileOperation {
+        void apply(InputStream input, OutputStream output) throws IOException;
+    }
+
+    /**
+     * An operation run in the background.
+     */
+    @FunctionalInterface
+    private interface BackgroundTask {
+        /**
+         * @param input The input, read through a counting and interruptible stream.
+         * @return The result, shown once the operation has finished.
+         */
+        Result run(InputStream input) throws IOException;
+    }
+
+    /**
+     * The result of a background operation.
+     */
+    @FunctionalInterface
+    private interface Result {
+        /**
+         * Shows the result; called with the session lock held.
+         */
+        void show();
+
+        /**
+         * Releases what the result holds if it is never shown, because the operation was cancelled.
+         */
+        default void discard() {
         }
     }
 }
@@ -9,13 +9,22 @@ import com.vaadin.flow.component.orderedlayout.VerticalLayout;
 import com.vaadin.flow.server.StreamResource;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public class OutputSection extends VerticalLayout {
 
     private final TextArea outputArea;
     private final Anchor downloadAnchor;
 
+    /**
+     * The file holding the output while it is too large to display, otherwise null.
+     */
+    private Path outputFile;
+
     public OutputSection() {
         Span outputLabel = createLabel("Output");
         outputArea = createTextArea();
@@ -26,6 +35,12 @@ public class OutputSection extends VerticalLayout {
         add(controls, outputArea);
         configureLayoutSettings();
         setClassName("output-section");
+        // a resynchronization detaches and re-attaches the view, so only clean up when the UI is closed
+        addDetachListener(event -> {
+            if (event.getUI().isClosing()) {
+                discardOutputFile();
+            }
+        });
     }
 
     /**
@@ -90,10 +105,35 @@ public class OutputSection extends VerticalLayout {
      * @param value The value to be displayed in the output area.
      */
     public void setOutputValue(String value) {
+        discardOutputFile();
         outputArea.setValue(value);
+        outputArea.setHelperText(null);
         configureDownloadAnchor();  // Update the download link
     }
 
+    /**
+     * Displays the beginning of an output file and offers the whole file for download.
+     * The section takes over the file: it is read on every download and deleted once the output changes
+     * or the view is detached.
+     *
+     * @param file        The file holding the output.
+     * @param previewSize The number of bytes to display.
+     */
+    public void setOutputFile(Path file, int previewSize) {
+        discardOutputFile();
+        outputFile = file;
+        outputArea.setValue(FilePreview.read(file, previewSize));
+        outputArea.setHelperText(FilePreview.describe(file, previewSize));
+        StreamResource resource = new StreamResource("output.txt", () -> {
+            try {
+                return Files.newInputStream(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        setDownloadResource(resource);
+    }
+
     /**
      * Configures the download button to allow downloading the output as a file.
      * This method regenerates the download link based on the current output value.
@@ -102,7 +142,25 @@ public class OutputSection extends VerticalLayout {
         String outputData = outputArea.getValue();
         StreamResource resource = new StreamResource("output.txt",
                 () -> new ByteArrayInputStream(outputData.getBytes(StandardCharsets.UTF_8)));
+        setDownloadResource(resource);
+    }
+
+    /**
+     * Deletes the output file, if there is one.
+     */
+    private void discardOutputFile() {
+        if (outputFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(outputFile);
+        } catch (IOException e) {
+            System.err.println("Error deleting file: " + e.getMessage());
+        }
+        outputFile = null;
+    }
 
+    private void setDownloadResource(StreamResource resource) {
         downloadAnchor.setHref(resource);
         downloadAnchor.getElement().setAttribute("download", "output.txt");  // Forces the file to be downloaded
     }
@@ -0,0 +1,71 @@
+package com.parsehub.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Output stream writing to a file channel through a direct buffer.
+ * Writing a heap array to a channel makes the JDK copy it into a temporary direct buffer first;
+ * collecting the output in a direct buffer hands it to the kernel without that extra copy.
+ * Closing the stream flushes it and closes the channel.
+ */
+public class ChannelOutputStream extends OutputStream {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Constructs a stream writing to a channel at its current position.
+     *
+     * @param channel the channel of the file to write
+     */
+    public ChannelOutputStream(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int length = Math.min(len, buffer.remaining());
+            buffer.put(b, off, length);
+            off += length;
+            len -= length;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -1,8 +1,23 @@
 package com.parsehub.util;
 
 public enum ConversionType {
-    JSON,
-    XML,
-    CSV,
-    YAML
+    JSON("application/json"),
+    XML("application/xml"),
+    CSV("text/csv"),
+    YAML("application/yaml");
+
+    private final String mediaType;
+
+    ConversionType(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Returns the media type used when serving data in this format.
+     *
+     * @return the media type, e.g. application/json
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
 }
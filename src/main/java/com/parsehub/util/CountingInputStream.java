@@ -0,0 +1,71 @@
+package com.parsehub.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Input stream that counts the bytes read through it, so that another thread can follow the progress of a reader.
+ * Reads fail with an {@link InterruptedIOException} once the reading thread is interrupted,
+ * which makes long conversions over files cancellable.
+ */
+public class CountingInputStream extends FilterInputStream {
+    private volatile long count;
+
+    /**
+     * Constructs a counting stream over the given stream.
+     *
+     * @param in the stream to read from
+     */
+    public CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Returns the number of bytes read so far.
+     *
+     * @return the byte count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkInterrupted();
+        int b = super.read();
+        if (b != -1) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkInterrupted();
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Interrupted while reading");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.parsehub.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * How CSV input is read: where the column names come from and how the values are typed.
+ */
+public final class CsvOptions {
+    /**
+     * Column names from the header line, value types inferred from a sample of the rows.
+     */
+    public static final CsvOptions DEFAULT = new CsvOptions(true, null, true);
+
+    /**
+     * Column names from the header line, every value read as a string.
+     */
+    public static final CsvOptions TEXT = new CsvOptions(true, null, false);
+
+    /**
+     * The type of the values of a column.
+     */
+    public enum ColumnType {
+        STRING, INTEGER, NUMBER, BOOLEAN
+    }
+
+    /**
+     * A column of an explicit schema.
+     *
+     * @param name the column name
+     * @param type the type of its values, or null to infer it or read strings
+     */
+    public record Column(String name, ColumnType type) {
+        @Override
+        public String toString() {
+            return type == null ? name : name + ":" + type.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final boolean header;
+    private final List<Column> columns;
+    private final boolean inferTypes;
+
+    /**
+     * @param header     whether the first line holds the column names
+     * @param columns    the explicit schema, replacing the names of the header line, or null to use the header
+     * @param inferTypes whether the types of the columns without a declared type are inferred from a sample of the rows;
+     *                   otherwise their values are strings
+     */
+    public CsvOptions(boolean header, List<Column> columns, boolean inferTypes) {
+        if (!header && columns == null) {
+            throw new IllegalArgumentException("CSV input without a header line needs the columns");
+        }
+        this.header = header;
+        this.columns = columns == null ? null : List.copyOf(columns);
+        this.inferTypes = inferTypes;
+    }
+
+    /**
+     * Parses request parameters into options.
+     *
+     * @param header     whether the first line holds the column names
+     * @param columns    the explicit schema as comma-separated names, each optionally followed by a type,
+     *                   e.g. {@code id:integer,name,price:number}; null or blank to use the header
+     * @param inferTypes whether the types of the undeclared columns are inferred
+     * @return the options
+     * @throws IllegalArgumentException if a column is empty or repeated, or a type is unknown
+     */
+    public static CsvOptions of(boolean header, String columns, boolean inferTypes) {
+        if (columns == null || columns.isBlank()) {
+            return new CsvOptions(header, null, inferTypes);
+        }
+        List<Column> schema = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (String column : columns.split(",", -1)) {
+            int colon = column.lastIndexOf(':');
+            String name = (colon < 0 ? column : column.substring(0, colon)).trim();
+            ColumnType type = null;
+            if (colon >= 0) {
+                String typeName = column.substring(colon + 1).trim();
+                try {
+                    type = ColumnType.valueOf(typeName.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown column type: " + typeName);
+                }
+            }
+            if (name.isEmpty() || !names.add(name)) {
+                throw new IllegalArgumentException(name.isEmpty() ? "Empty column name" : "Duplicate column: " + name);
+            }
+            schema.add(new Column(name, type));
+        }
+        return new CsvOptions(header, schema, inferTypes);
+    }
+
+    public boolean isHeader() {
+        return header;
+    }
+
+    /**
+     * Returns the explicit schema.
+     *
+     * @return the columns, or null if the names come from the header line
+     */
+    public List<Column> getColumns() {
+        return columns == null ? null : Collections.unmodifiableList(columns);
+    }
+
+    public boolean isInferTypes() {
+        return inferTypes;
+    }
+
+    /**
+     * Returns the options as the result cache tells them apart,
+     * e.g. {@code header+infer} or {@code columns(id:integer,name)+text}.
+     */
+    @Override
+    public String toString() {
+        String names = columns == null ? "header"
+                : (header ? "header+" : "") + "columns(" + columns.stream().map(Column::toString).collect(Collectors.joining(",")) + ")";
+        return names + (inferTypes ? "+infer" : "+text");
+    }
+}
@@ -0,0 +1,135 @@
+package com.parsehub.util;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * How JSON records are flattened into CSV: how the column paths are written, the order of the columns, whether the
+ * header carries their types, and optionally the columns themselves.
+ */
+public final class FlattenOptions {
+    /**
+     * Dotted paths in the order the columns are first found, without types.
+     */
+    public static final FlattenOptions DEFAULT = new FlattenOptions(PathStyle.DOT, null, false, null);
+
+    /**
+     * How the path of a nested value is written as a column name.
+     */
+    public enum PathStyle {
+        /**
+         * Field names and array indexes joined by dots, e.g. {@code items.0.sku}.
+         */
+        DOT,
+        /**
+         * Field names joined by dots, array indexes in brackets, e.g. {@code items[0].sku}.
+         */
+        BRACKET
+    }
+
+    private final PathStyle pathStyle;
+    private final KeyOrder order;
+    private final boolean typeHints;
+    private final List<String> columns;
+
+    /**
+     * @param pathStyle how the column paths are written
+     * @param order     the order of the columns, or null for the order they are first found in
+     * @param typeHints whether the header names carry the type of the column values, as in
+     *                  {@code id:integer,name:string}, which the CSV input reads as an explicit schema
+     * @param columns   the columns to write, in this order, or null for every column of the records
+     */
+    public FlattenOptions(PathStyle pathStyle, KeyOrder order, boolean typeHints, List<String> columns) {
+        this.pathStyle = pathStyle;
+        this.order = order;
+        this.typeHints = typeHints;
+        this.columns = columns == null ? null : List.copyOf(columns);
+    }
+
+    /**
+     * Parses request parameters into options.
+     *
+     * @param paths     the path style: {@code dot} or {@code bracket}
+     * @param order     {@code input} for the order the columns are first found in, or a {@link KeyOrder}
+     * @param typeHints whether the header names carry the column types
+     * @param columns   the comma-separated columns to write, or null or blank for every column
+     * @return the options
+     * @throws IllegalArgumentException if the path style or the order is unknown, or a column is empty or repeated
+     */
+    public static FlattenOptions of(String paths, String order, boolean typeHints, String columns) {
+        PathStyle pathStyle;
+        try {
+            pathStyle = PathStyle.valueOf(paths.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown path style: " + paths);
+        }
+        KeyOrder keyOrder = null;
+        if (!order.trim().equalsIgnoreCase("input")) {
+            try {
+                keyOrder = KeyOrder.valueOf(order.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown column order: " + order);
+            }
+        }
+        List<String> names = null;
+        if (columns != null && !columns.isBlank()) {
+            Set<String> unique = new LinkedHashSet<>();
+            for (String column : columns.split(",", -1)) {
+                String name = column.trim();
+                if (name.isEmpty() || !unique.add(name)) {
+                    throw new IllegalArgumentException(name.isEmpty() ? "Empty column name" : "Duplicate column: " + name);
+                }
+            }
+            names = List.copyOf(unique);
+        }
+        return new FlattenOptions(pathStyle, keyOrder, typeHints, names);
+    }
+
+    public PathStyle getPathStyle() {
+        return pathStyle;
+    }
+
+    /**
+     * Returns the order of the columns.
+     *
+     * @return the key order the column names are sorted in, or null for the order they are first found in
+     */
+    public KeyOrder getOrder() {
+        return order;
+    }
+
+    public boolean isTypeHints() {
+        return typeHints;
+    }
+
+    /**
+     * Returns the explicit columns.
+     *
+     * @return the columns to write, or null for every column of the records
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Tells whether the columns are only known once every record has been read, which takes a pass of its own.
+     *
+     * @return whether the column union or the column types have to be computed first
+     */
+    public boolean needsColumnPass() {
+        return columns == null || typeHints;
+    }
+
+    /**
+     * Returns the options as the result cache tells them apart, e.g. {@code bracket+natural+types}.
+     */
+    @Override
+    public String toString() {
+        return pathStyle.name().toLowerCase(Locale.ROOT)
+                + (order == null ? "" : "+" + order.name().toLowerCase(Locale.ROOT))
+                + (typeHints ? "+types" : "")
+                + (columns == null ? "" : "+columns(" + String.join(",", columns) + ")");
+    }
+}
@@ -0,0 +1,22 @@
+package com.parsehub.util;
+
+/**
+ * Enum representing the lifecycle states of an asynchronous conversion job.
+ */
+public enum JobStatus {
+    UPLOADING,
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    /**
+     * Returns whether the job has stopped and will not change anymore.
+     *
+     * @return true for completed, failed and cancelled jobs
+     */
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
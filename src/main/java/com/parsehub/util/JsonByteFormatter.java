@@ -0,0 +1,608 @@
+package com.parsehub.util;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.io.ContentReference;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minifies or reindents UTF-8 JSON in a single pass over its bytes, without parsing it into tokens or a tree.
+ * Whitespace outside of string literals is dropped and, for the indented formats, re-inserted with the same layout
+ * as {@link CustomPrettyPrinter}. Strings and numbers are copied byte for byte as they are written in the input.
+ * <p>
+ * The input is still checked to be well-formed JSON: the nesting of brackets, the grammar of numbers and literals,
+ * string escapes and the UTF-8 encoding of strings. An error is reported as a {@link JsonParseException} with the
+ * line and column where it was found; whatever was written before stays in the output.
+ * <p>
+ * The scanner is a state machine fed with chunks of bytes, so that a token may span any number of chunks and no
+ * object is allocated per token. An instance formats a single document and is not thread-safe.
+ */
+public final class JsonByteFormatter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_DEPTH = 1000;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    /** Arrays are indented by two spaces per level whatever the format, see {@link CustomPrettyPrinter}. */
+    private static final int ARRAY_INDENT = 2;
+
+    // where the scanner is; the states below NUMBER_MINUS are outside of any token
+    private static final int ROOT_VALUE = 0;
+    private static final int ROOT_AFTER_VALUE = 1;
+    private static final int FIRST_KEY_OR_END = 2;
+    private static final int KEY = 3;
+    private static final int COLON = 4;
+    private static final int FIRST_VALUE_OR_END = 5;
+    private static final int VALUE = 6;
+    private static final int AFTER_VALUE = 7;
+    private static final int NUMBER_MINUS = 10;
+    private static final int NUMBER_ZERO = 11;
+    private static final int NUMBER_INT = 12;
+    private static final int NUMBER_DOT = 13;
+    private static final int NUMBER_FRACTION = 14;
+    private static final int NUMBER_E = 15;
+    private static final int NUMBER_E_SIGN = 16;
+    private static final int NUMBER_EXPONENT = 17;
+    private static final int LITERAL = 20;
+    private static final int STRING = 30;
+    private static final int STRING_ESCAPE = 31;
+    private static final int STRING_UNICODE = 32;
+    private static final int STRING_UTF8 = 33;
+
+    private static final byte OBJECT = 0;
+    private static final byte ARRAY = 1;
+
+    private final int indent;
+    private final OutputStream target;
+
+    private byte[] out;
+    private int outPos;
+
+    private int state = ROOT_VALUE;
+    private byte[] containers = new byte[32];
+    private int depth;
+    private boolean key;
+    private boolean rootScalar;
+    private long rootValues;
+    private byte[] literal;
+    private int literalPos;
+    private int pending;
+    private int nextMin;
+    private int nextMax;
+
+    private long offset;
+    private long base;
+    private int line = 1;
+    private long lineStart;
+
+    private JsonByteFormatter(Format format, OutputStream target, int capacity) {
+        this.indent = switch (format) {
+            case SPACE_2 -> 2;
+            case SPACE_3 -> 3;
+            case SPACE_4 -> 4;
+            // PRETTY has no pretty printer of its own and writes compact JSON, like MapperRegistry's writer for it
+            default -> 0;
+        };
+        this.target = target;
+        this.out = new byte[capacity];
+    }
+
+    /**
+     * Formats JSON read from a stream, writing it to another stream. The output stream is flushed but left open.
+     *
+     * @param input  the stream containing UTF-8 JSON
+     * @param output the stream the formatted JSON is written to
+     * @param format the indentation format
+     * @throws JsonParseException if the input is not well-formed JSON
+     * @throws IOException        if reading the input or writing the output fails
+     */
+    public static void format(InputStream input, OutputStream output, Format format) throws IOException {
+        JsonByteFormatter formatter = new JsonByteFormatter(format, output, BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            for (int read; (read = input.read(buffer)) != -1; ) {
+                formatter.feed(buffer, 0, read);
+            }
+            formatter.finish();
+        } finally {
+            formatter.flush();
+        }
+    }
+
+    /**
+     * Formats JSON held in a buffer, from its position to its limit, writing it to a stream.
+     * The buffer position is moved to its limit. A heap buffer is read in place, a direct buffer in chunks.
+     *
+     * @param input  the buffer containing UTF-8 JSON
+     * @param output the stream the formatted JSON is written to
+     * @param format the indentation format
+     * @throws JsonParseException if the input is not well-formed JSON
+     * @throws IOException        if writing the output fails
+     */
+    public static void format(ByteBuffer input, OutputStream output, Format format) throws IOException {
+        JsonByteFormatter formatter = new JsonByteFormatter(format, output, BUFFER_SIZE);
+        try {
+            if (input.hasArray()) {
+                formatter.feed(input.array(), input.arrayOffset() + input.position(), input.remaining());
+                input.position(input.limit());
+            } else {
+                byte[] buffer = new byte[Math.min(BUFFER_SIZE, input.remaining())];
+                while (input.hasRemaining()) {
+                    int length = Math.min(buffer.length, input.remaining());
+                    input.get(buffer, 0, length);
+                    formatter.feed(buffer, 0, length);
+                }
+            }
+            formatter.finish();
+        } finally {
+            formatter.flush();
+        }
+    }
+
+    /**
+     * Formats JSON held in memory.
+     *
+     * @param input  the UTF-8 JSON
+     * @param format the indentation format
+     * @return the formatted UTF-8 JSON
+     * @throws JsonParseException if the input is not well-formed JSON
+     */
+    public static byte[] format(byte[] input, Format format) throws JsonParseException {
+        // indenting grows the document, minifying shrinks it
+        JsonByteFormatter formatter = new JsonByteFormatter(format, null, Math.max(16, input.length + (input.length >> 1)));
+        try {
+            formatter.feed(input, 0, input.length);
+            formatter.finish();
+        } catch (JsonParseException e) {
+            throw e;
+        } catch (IOException e) {
+            // only the output stream can fail otherwise, and there is none
+            throw new IllegalStateException(e);
+        }
+        return Arrays.copyOf(formatter.out, formatter.outPos);
+    }
+
+    /**
+     * Scans a chunk of the input, continuing from where the previous chunk ended.
+     */
+    private void feed(byte[] buf, int from, int length) throws IOException {
+        // the offset of buf[0] in the input, so that base + i is the offset of buf[i]
+        base = offset - from;
+        int end = from + length;
+        int i = from;
+        if (offset == 0 && length >= 3 && buf[i] == (byte) 0xEF && buf[i + 1] == (byte) 0xBB && buf[i + 2] == (byte) 0xBF) {
+            // skip a byte order mark, as Jackson does
+            i += 3;
+        }
+        while (i < end) {
+            int b = buf[i];
+            switch (state) {
+                case STRING -> {
+                    // copy the plain run of the string at once
+                    int start = i;
+                    while (i < end && (b = buf[i]) >= 0x20 && b != '"' && b != '\\') {
+                        i++;
+                    }
+                    write(buf, start, i - start);
+                    if (i == end) {
+                        continue;
+                    }
+                    i = string(b, i);
+                }
+                case STRING_ESCAPE -> {
+                    if (b != '"' && b != '\\' && b != '/' && b != 'b' && b != 'f' && b != 'n' && b != 'r' && b != 't') {
+                        if (b != 'u') {
+                            throw error(i, "Unrecognized character escape " + describe(b));
+                        }
+                        pending = 4;
+                        state = STRING_UNICODE;
+                    } else {
+                        state = STRING;
+                    }
+                    write(b);
+                    i++;
+                }
+                case STRING_UNICODE -> {
+                    if (!isHexDigit(b)) {
+                        throw error(i, "Unexpected character " + describe(b) + ": expected a hex-digit for character escape sequence");
+                    }
+                    write(b);
+                    if (--pending == 0) {
+                        state = STRING;
+                    }
+                    i++;
+                }
+                case STRING_UTF8 -> {
+                    int unsigned = b & 0xFF;
+                    if (unsigned < nextMin || unsigned > nextMax) {
+                        throw error(i, "Invalid UTF-8 middle byte 0x" + Integer.toHexString(unsigned));
+                    }
+                    write(b);
+                    nextMin = 0x80;
+                    nextMax = 0xBF;
+                    if (--pending == 0) {
+                        state = STRING;
+                    }
+                    i++;
+                }
+                case NUMBER_INT, NUMBER_FRACTION, NUMBER_EXPONENT -> {
+                    int start = i;
+                    while (i < end && (b = buf[i]) >= '0' && b <= '9') {
+                        i++;
+                    }
+                    write(buf, start, i - start);
+                    if (i == end) {
+                        continue;
+                    }
+                    if (state != NUMBER_EXPONENT && (b == 'e' || b == 'E')) {
+                        write(b);
+                        state = NUMBER_E;
+                        i++;
+                    } else if (state == NUMBER_INT && b == '.') {
+                        write(b);
+                        state = NUMBER_DOT;
+                        i++;
+                    } else {
+                        // the number ends here, the byte is scanned again after it
+                        endValue(true);
+                    }
+                }
+                case NUMBER_MINUS, NUMBER_ZERO, NUMBER_DOT, NUMBER_E, NUMBER_E_SIGN -> i = number(b, i);
+                case LITERAL -> {
+                    if (b != literal[literalPos]) {
+                        throw error(i, "Unrecognized token: expected '" + new String(literal, StandardCharsets.US_ASCII) + "'");
+                    }
+                    write(b);
+                    if (++literalPos == literal.length) {
+                        endValue(true);
+                    }
+                    i++;
+                }
+                default -> i = structure(b, i);
+            }
+        }
+        offset += length;
+    }
+
+    /**
+     * Handles a byte outside of any token: whitespace, brackets, separators and the first byte of a value.
+     */
+    private int structure(int b, int i) throws IOException {
+        if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+            if (b == '\n') {
+                line++;
+                lineStart = base + i + 1;
+            }
+            if (state == ROOT_AFTER_VALUE) {
+                state = ROOT_VALUE;
+            }
+            return i + 1;
+        }
+        switch (state) {
+            case ROOT_VALUE, VALUE -> startValue(b, i);
+            case ROOT_AFTER_VALUE -> {
+                if (rootScalar) {
+                    throw error(i, "Unexpected character " + describe(b) + ": expected space separating root-level values");
+                }
+                startValue(b, i);
+            }
+            case FIRST_KEY_OR_END -> {
+                if (b == '}') {
+                    close(OBJECT, false);
+                } else if (b == '"') {
+                    indent(depth, indent);
+                    write(b);
+                    key = true;
+                    state = STRING;
+                } else {
+                    throw error(i, "Unexpected character " + describe(b) + ": was expecting double-quote to start field name");
+                }
+            }
+            case KEY -> {
+                if (b != '"') {
+                    throw error(i, "Unexpected character " + describe(b) + ": was expecting double-quote to start field name");
+                }
+                write(b);
+                key = true;
+                state = STRING;
+            }
+            case COLON -> {
+                if (b != ':') {
+                    throw error(i, "Unexpected character " + describe(b) + ": was expecting a colon to separate field name and value");
+                }
+                write(b);
+                if (indent > 0) {
+                    write(' ');
+                }
+                state = VALUE;
+            }
+            case FIRST_VALUE_OR_END -> {
+                if (b == ']') {
+                    close(ARRAY, false);
+                } else {
+                    indent(depth, ARRAY_INDENT);
+                    startValue(b, i);
+                }
+            }
+            case AFTER_VALUE -> {
+                byte container = containers[depth - 1];
+                if (b == ',') {
+                    write(b);
+                    if (container == OBJECT) {
+                        indent(depth, indent);
+                        state = KEY;
+                    } else {
+                        indent(depth, ARRAY_INDENT);
+                        state = VALUE;
+                    }
+                } else if (b == '}' && container == OBJECT) {
+                    close(OBJECT, true);
+                } else if (b == ']' && container == ARRAY) {
+                    close(ARRAY, true);
+                } else {
+                    throw error(i, "Unexpected character " + describe(b) + ": was expecting comma to separate "
+                            + (container == OBJECT ? "Object entries" : "Array entries"));
+                }
+            }
+            default -> throw new IllegalStateException("Unknown state " + state);
+        }
+        return i + 1;
+    }
+
+    /**
+     * Starts a value with its first byte.
+     */
+    private void startValue(int b, int i) throws IOException {
+        if (depth == 0 && rootValues++ > 0) {
+            // the root value separator of Jackson's generators
+            write(' ');
+        }
+        write(b);
+        switch (b) {
+            case '{', '[' -> {
+                if (depth == MAX_DEPTH) {
+                    throw error(i, "Document nesting depth (" + (depth + 1) + ") exceeds the maximum allowed (" + MAX_DEPTH + ")");
+                }
+                if (depth == containers.length) {
+                    containers = Arrays.copyOf(containers, depth * 2);
+                }
+                containers[depth++] = b == '{' ? OBJECT : ARRAY;
+                state = b == '{' ? FIRST_KEY_OR_END : FIRST_VALUE_OR_END;
+            }
+            case '"' -> {
+                key = false;
+                state = STRING;
+            }
+            case '-' -> state = NUMBER_MINUS;
+            case '0' -> state = NUMBER_ZERO;
+            case '1', '2', '3', '4', '5', '6', '7', '8', '9' -> state = NUMBER_INT;
+            case 't', 'f', 'n' -> {
+                literal = b == 't' ? TRUE : b == 'f' ? FALSE : NULL;
+                literalPos = 1;
+                state = LITERAL;
+            }
+            default -> throw error(i, "Unexpected character " + describe(b) + ": expected a valid value "
+                    + "(JSON String, Number, Array, Object or token 'null', 'true' or 'false')");
+        }
+    }
+
+    /**
+     * Handles the byte ending a plain run of a string.
+     */
+    private int string(int b, int i) throws IOException {
+        if (b == '"') {
+            write(b);
+            if (key) {
+                state = COLON;
+            } else {
+                endValue(false);
+            }
+        } else if (b == '\\') {
+            write(b);
+            state = STRING_ESCAPE;
+        } else if (b >= 0) {
+            throw error(i, "Illegal unquoted character (CTRL-CHAR, code " + b + "): has to be escaped using backslash to be included in string value");
+        } else {
+            // the lead byte of a multi-byte UTF-8 sequence, which sets the range of the next byte
+            int unsigned = b & 0xFF;
+            nextMin = 0x80;
+            nextMax = 0xBF;
+            if (unsigned >= 0xC2 && unsigned <= 0xDF) {
+                pending = 1;
+            } else if (unsigned >= 0xE0 && unsigned <= 0xEF) {
+                pending = 2;
+                if (unsigned == 0xE0) {
+                    nextMin = 0xA0;
+                } else if (unsigned == 0xED) {
+                    nextMax = 0x9F;
+                }
+            } else if (unsigned >= 0xF0 && unsigned <= 0xF4) {
+                pending = 3;
+                if (unsigned == 0xF0) {
+                    nextMin = 0x90;
+                } else if (unsigned == 0xF4) {
+                    nextMax = 0x8F;
+                }
+            } else {
+                throw error(i, "Invalid UTF-8 start byte 0x" + Integer.toHexString(unsigned));
+            }
+            write(b);
+            state = STRING_UTF8;
+        }
+        return i + 1;
+    }
+
+    /**
+     * Handles a byte of a number in the states that need a particular byte next.
+     */
+    private int number(int b, int i) throws IOException {
+        boolean digit = b >= '0' && b <= '9';
+        switch (state) {
+            case NUMBER_MINUS -> {
+                if (!digit) {
+                    throw error(i, "Unexpected character " + describe(b) + " in numeric value: expected digit (0-9) to follow minus sign");
+                }
+                state = b == '0' ? NUMBER_ZERO : NUMBER_INT;
+            }
+            case NUMBER_ZERO -> {
+                if (digit) {
+                    throw error(i, "Invalid numeric value: Leading zeroes not allowed");
+                } else if (b == '.') {
+                    state = NUMBER_DOT;
+                } else if (b == 'e' || b == 'E') {
+                    state = NUMBER_E;
+                } else {
+                    endValue(true);
+                    return i;
+                }
+            }
+            case NUMBER_DOT -> {
+                if (!digit) {
+                    throw error(i, "Unexpected character " + describe(b) + " in numeric value: Decimal point not followed by a digit");
+                }
+                state = NUMBER_FRACTION;
+            }
+            case NUMBER_E -> {
+                if (b == '+' || b == '-') {
+                    state = NUMBER_E_SIGN;
+                } else if (digit) {
+                    state = NUMBER_EXPONENT;
+                } else {
+                    throw error(i, "Unexpected character " + describe(b) + " in numeric value: Exponent indicator not followed by a digit");
+                }
+            }
+            default -> {
+                if (!digit) {
+                    throw error(i, "Unexpected character " + describe(b) + " in numeric value: Exponent indicator not followed by a digit");
+                }
+                state = NUMBER_EXPONENT;
+            }
+        }
+        write(b);
+        return i + 1;
+    }
+
+    /**
+     * Moves past a complete value.
+     *
+     * @param scalar whether the value is a number or a literal, which at the root must be followed by whitespace
+     */
+    private void endValue(boolean scalar) {
+        if (depth == 0) {
+            rootScalar = scalar;
+            state = ROOT_AFTER_VALUE;
+        } else {
+            state = AFTER_VALUE;
+        }
+    }
+
+    private void close(byte container, boolean hasEntries) throws IOException {
+        depth--;
+        if (hasEntries) {
+            indent(depth, container == OBJECT ? indent : ARRAY_INDENT);
+        } else if (indent > 0) {
+            // DefaultPrettyPrinter writes an empty container as "{ }" or "[ ]"
+            write(' ');
+        }
+        write(container == OBJECT ? '}' : ']');
+        endValue(false);
+    }
+
+    /**
+     * Checks that the input ended after a complete document.
+     */
+    private void finish() throws IOException {
+        switch (state) {
+            case NUMBER_ZERO, NUMBER_INT, NUMBER_FRACTION, NUMBER_EXPONENT -> endValue(true);
+            default -> {
+            }
+        }
+        if (state != ROOT_VALUE && state != ROOT_AFTER_VALUE) {
+            String expected = depth > 0
+                    ? "expected close marker for " + (containers[depth - 1] == OBJECT ? "Object" : "Array")
+                    : "expected the end of the value";
+            base = offset;
+            throw error(0, "Unexpected end-of-input: " + expected);
+        }
+    }
+
+    private void indent(int level, int width) throws IOException {
+        if (indent == 0) {
+            return;
+        }
+        write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+        int spaces = level * width;
+        ensure(spaces);
+        Arrays.fill(out, outPos, outPos + spaces, (byte) ' ');
+        outPos += spaces;
+    }
+
+    private void write(int b) throws IOException {
+        if (outPos == out.length) {
+            ensure(1);
+        }
+        out[outPos++] = (byte) b;
+    }
+
+    private void write(byte[] b, int from, int length) throws IOException {
+        while (length > 0) {
+            if (outPos == out.length) {
+                ensure(1);
+            }
+            int chunk = Math.min(length, out.length - outPos);
+            System.arraycopy(b, from, out, outPos, chunk);
+            outPos += chunk;
+            from += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Makes room for a number of bytes, by flushing the output buffer to the target or by growing it.
+     */
+    private void ensure(int length) throws IOException {
+        if (out.length - outPos >= length) {
+            return;
+        }
+        if (target != null && length <= out.length) {
+            target.write(out, 0, outPos);
+            outPos = 0;
+        } else {
+            out = Arrays.copyOf(out, Math.max(out.length * 2, outPos + length));
+        }
+    }
+
+    private void flush() throws IOException {
+        if (target != null) {
+            target.write(out, 0, outPos);
+            target.flush();
+            outPos = 0;
+        }
+    }
+
+    private JsonParseException error(int i, String message) {
+        long position = base + i;
+        int column = (int) (position - lineStart) + 1;
+        return new JsonParseException(null, message,
+                new JsonLocation(ContentReference.unknown(), position, line, column));
+    }
+
+    private static boolean isHexDigit(int b) {
+        return (b >= '0' && b <= '9') || (b >= 'a' && b <= 'f') || (b >= 'A' && b <= 'F');
+    }
+
+    private static String describe(int b) {
+        int unsigned = b & 0xFF;
+        return unsigned >= 0x20 && unsigned < 0x7F
+                ? "('" + (char) unsigned + "' (code " + unsigned + "))"
+                : "(code " + unsigned + ")";
+    }
+}
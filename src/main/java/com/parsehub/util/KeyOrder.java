@@ -0,0 +1,82 @@
+package com.parsehub.util;
+
+import java.util.Comparator;
+
+/**
+ * The order JSON keys are sorted in.
+ */
+public enum KeyOrder {
+    /**
+     * By UTF-16 code unit, as {@link String#compareTo} compares.
+     */
+    LEXICAL(Comparator.naturalOrder()),
+    /**
+     * Ignoring case; keys differing only in case are ordered lexically.
+     */
+    CASE_INSENSITIVE(String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder())),
+    /**
+     * Lexically, except that runs of digits are compared by their numeric value, so {@code item2} comes before
+     * {@code item10}. Keys differing only in leading zeros are ordered lexically.
+     */
+    NATURAL(((Comparator<String>) KeyOrder::compareNatural).thenComparing(Comparator.naturalOrder()));
+
+    private final Comparator<String> comparator;
+
+    KeyOrder(Comparator<String> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns the comparator of the keys.
+     *
+     * @return the comparator, consistent with {@link String#equals}
+     */
+    public Comparator<String> comparator() {
+        return comparator;
+    }
+
+    private static int compareNatural(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(j);
+            if (!isDigit(ca) || !isDigit(cb)) {
+                if (ca != cb) {
+                    return ca - cb;
+                }
+                i++;
+                j++;
+                continue;
+            }
+            // compare the numbers without their leading zeros: the longer one is larger, else the first differing digit
+            while (i < a.length() && a.charAt(i) == '0') {
+                i++;
+            }
+            while (j < b.length() && b.charAt(j) == '0') {
+                j++;
+            }
+            int endA = i;
+            while (endA < a.length() && isDigit(a.charAt(endA))) {
+                endA++;
+            }
+            int endB = j;
+            while (endB < b.length() && isDigit(b.charAt(endB))) {
+                endB++;
+            }
+            if (endA - i != endB - j) {
+                return (endA - i) - (endB - j);
+            }
+            for (; i < endA; i++, j++) {
+                if (a.charAt(i) != b.charAt(j)) {
+                    return a.charAt(i) - b.charAt(j);
+                }
+            }
+        }
+        return (a.length() - i) - (b.length() - j);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
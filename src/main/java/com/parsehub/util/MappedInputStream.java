@@ -0,0 +1,114 @@
+package com.parsehub.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream over a file channel that maps the file into memory one window at a time.
+ * Reads copy straight from the page cache into the reader's buffer, without a read system call per buffer
+ * and without ever holding the file in the heap, so files far larger than the heap or than a single mapping
+ * (2 GB) are read sequentially. Closing the stream closes the channel; a window is unmapped once it is
+ * garbage collected.
+ */
+public class MappedInputStream extends InputStream {
+    /**
+     * Size of the windows mapped by default.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+    private long position;
+    private MappedByteBuffer window;
+
+    /**
+     * Constructs a stream reading a channel from its current position to its end, in windows of the default size.
+     *
+     * @param channel the channel of the file to read
+     * @throws IOException if the size or position of the channel cannot be read
+     */
+    public MappedInputStream(FileChannel channel) throws IOException {
+        this(channel, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Constructs a stream reading a channel from its current position to its end.
+     *
+     * @param channel    the channel of the file to read
+     * @param windowSize the number of bytes mapped at once
+     * @throws IOException if the size or position of the channel cannot be read
+     */
+    public MappedInputStream(FileChannel channel, int windowSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.position = channel.position();
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return nextWindow() ? window.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextWindow()) {
+            return -1;
+        }
+        int length = Math.min(len, window.remaining());
+        window.get(b, off, length);
+        return length;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long remaining = window == null ? 0 : window.remaining();
+        if (n <= remaining) {
+            window.position(window.position() + (int) n);
+            return n;
+        }
+        // drop the current window and continue the mapping after the skipped bytes
+        long skipped = Math.min(n, remaining + size - position);
+        position += skipped - remaining;
+        window = null;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return window == null ? 0 : window.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Maps the next window when the current one has been read.
+     *
+     * @return false at the end of the file
+     */
+    private boolean nextWindow() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        if (position >= size) {
+            return false;
+        }
+        long length = Math.min(windowSize, size - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        position += length;
+        return true;
+    }
+}
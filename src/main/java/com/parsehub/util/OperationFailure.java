@@ -0,0 +1,82 @@
+package com.parsehub.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Error messages that take the place of the rest of a result when an operation fails on its input.
+ * The services answer invalid input with such a message instead of throwing, so the caller of an operation
+ * cannot tell a failure from its output; running the operation inside {@link #track()} tells it instead.
+ * The result cache relies on it to keep failed results out of the cache.
+ */
+public final class OperationFailure {
+    private static final ThreadLocal<Tracker> CURRENT = new ThreadLocal<>();
+
+    private OperationFailure() {
+    }
+
+    /**
+     * Starts tracking the failures reported on the current thread, until the returned tracker is closed.
+     *
+     * @return the tracker of the operation run on the current thread
+     */
+    public static Tracker track() {
+        Tracker tracker = new Tracker(CURRENT.get());
+        CURRENT.set(tracker);
+        return tracker;
+    }
+
+    /**
+     * Reports a failure whose error message is returned as the result of the operation.
+     *
+     * @param message the error message
+     * @return the error message
+     */
+    public static String message(String message) {
+        Tracker tracker = CURRENT.get();
+        if (tracker != null) {
+            tracker.failed = true;
+        }
+        return message;
+    }
+
+    /**
+     * Reports a failure and writes its error message to the output, after whatever was written before it.
+     *
+     * @param output the output of the operation
+     * @param message the error message
+     * @throws IOException if writing the output fails
+     */
+    public static void write(OutputStream output, String message) throws IOException {
+        output.write(message(message).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Whether an operation run on the current thread reported a failure since the tracker was started.
+     */
+    public static final class Tracker implements AutoCloseable {
+        private final Tracker outer;
+        private boolean failed;
+
+        private Tracker(Tracker outer) {
+            this.outer = outer;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        /**
+         * Stops tracking, and goes back to the tracker that was current before this one, if any.
+         */
+        @Override
+        public void close() {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.parsehub.util;
+
+import java.util.Locale;
+
+/**
+ * How the keys of a JSON document are sorted.
+ */
+public final class SortOptions {
+    /**
+     * Lexical key order, with arrays kept in their order.
+     */
+    public static final SortOptions DEFAULT = new SortOptions(KeyOrder.LEXICAL, false);
+
+    private final KeyOrder keyOrder;
+    private final boolean sortArrays;
+
+    /**
+     * @param keyOrder   the order of the keys
+     * @param sortArrays whether the elements of arrays are sorted as well, by their compact JSON text;
+     *                   otherwise arrays keep their order
+     */
+    public SortOptions(KeyOrder keyOrder, boolean sortArrays) {
+        this.keyOrder = keyOrder;
+        this.sortArrays = sortArrays;
+    }
+
+    public KeyOrder getKeyOrder() {
+        return keyOrder;
+    }
+
+    public boolean isSortArrays() {
+        return sortArrays;
+    }
+
+    /**
+     * Returns the options as the result cache and the metrics tell them apart, e.g. {@code natural+arrays}.
+     */
+    @Override
+    public String toString() {
+        return keyOrder.name().toLowerCase(Locale.ROOT) + (sortArrays ? "+arrays" : "");
+    }
+}
@@ -0,0 +1,10 @@
+package com.parsehub.util;
+
+/**
+ * An error found by a validation, located in the document.
+ *
+ * @param path    the JSON Pointer of the value the error is about, {@code ""} for the whole document
+ * @param message what is wrong with the value
+ */
+public record ValidationError(String path, String message) {
+}
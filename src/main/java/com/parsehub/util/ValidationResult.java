@@ -10,6 +10,7 @@ public class ValidationResult {
     
     private boolean valid;
     private List<String> errorMessages = new ArrayList<>();
+    private List<ValidationError> errors = new ArrayList<>();
 
     /**
      * Returns the validation status.
@@ -46,4 +47,25 @@ public class ValidationResult {
     public void addErrorMessage(String errorMessage) {
         this.errorMessages.add(errorMessage);
     }
+
+    /**
+     * Returns the errors located in the document, such as the values violating a JSON Schema.
+     * Each of them is also listed in the error messages.
+     *
+     * @return a list of located errors.
+     */
+    public List<ValidationError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Adds an error located in the document, and its message to the list of error messages.
+     *
+     * @param path    the JSON Pointer of the value the error is about, {@code ""} for the whole document.
+     * @param message what is wrong with the value.
+     */
+    public void addError(String path, String message) {
+        this.errors.add(new ValidationError(path, message));
+        this.errorMessages.add((path.isEmpty() ? "(root)" : path) + ": " + message);
+    }
 }
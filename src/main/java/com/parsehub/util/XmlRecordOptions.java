@@ -0,0 +1,150 @@
+package com.parsehub.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How a record-oriented XML feed is split into records: the path of the repeating record element, the child
+ * elements that always read as arrays and, for CSV output, the columns.
+ * <p>
+ * A path starting with {@code /}, such as {@code /records/record}, names the record element from the document root.
+ * A relative path, such as {@code record} or {@code batch/record}, matches the element wherever its last names
+ * match, outside of another record.
+ */
+public final class XmlRecordOptions {
+    private final List<String> path;
+    private final boolean absolute;
+    private final Set<String> arrays;
+    private final List<String> columns;
+
+    /**
+     * @param path     the local names of the elements leading to the record element, ending with its own name
+     * @param absolute whether the path starts at the document root
+     * @param arrays   the local names of the elements that are read as arrays even when they occur once
+     * @param columns  the flattened names of the CSV columns, or null for the columns of every record
+     */
+    public XmlRecordOptions(List<String> path, boolean absolute, Set<String> arrays, List<String> columns) {
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException("The record path must name the record element");
+        }
+        this.path = List.copyOf(path);
+        this.absolute = absolute;
+        this.arrays = Collections.unmodifiableSet(new LinkedHashSet<>(arrays));
+        this.columns = columns == null ? null : List.copyOf(columns);
+    }
+
+    /**
+     * Parses request parameters into options.
+     *
+     * @param record the path of the record element, e.g. {@code /records/record}
+     * @param arrays the comma-separated names of the elements always read as arrays, or null or blank for none
+     * @return the options
+     * @throws IllegalArgumentException if the path or an element name is empty
+     */
+    public static XmlRecordOptions of(String record, String arrays) {
+        return of(record, arrays, null);
+    }
+
+    /**
+     * Parses request parameters into options.
+     *
+     * @param record  the path of the record element, e.g. {@code /records/record}
+     * @param arrays  the comma-separated names of the elements always read as arrays, or null or blank for none
+     * @param columns the comma-separated flattened names of the CSV columns, e.g. {@code id,address.city,tag.0},
+     *                or null or blank to discover them
+     * @return the options
+     * @throws IllegalArgumentException if the path, an element name or a column is empty, or a column is repeated
+     */
+    public static XmlRecordOptions of(String record, String arrays, String columns) {
+        String trimmed = record == null ? "" : record.trim();
+        boolean absolute = trimmed.startsWith("/");
+        List<String> path = new ArrayList<>();
+        for (String name : (absolute ? trimmed.substring(1) : trimmed).split("/", -1)) {
+            if (name.isBlank()) {
+                throw new IllegalArgumentException("Invalid record path: '" + trimmed + "'");
+            }
+            path.add(name.trim());
+        }
+        Set<String> names = new LinkedHashSet<>();
+        if (arrays != null && !arrays.isBlank()) {
+            for (String name : arrays.split(",", -1)) {
+                if (name.isBlank()) {
+                    throw new IllegalArgumentException("Empty element name in arrays");
+                }
+                names.add(name.trim());
+            }
+        }
+        List<String> columnNames = null;
+        if (columns != null && !columns.isBlank()) {
+            Set<String> unique = new LinkedHashSet<>();
+            for (String column : columns.split(",", -1)) {
+                String name = column.trim();
+                if (name.isEmpty() || !unique.add(name)) {
+                    throw new IllegalArgumentException(name.isEmpty() ? "Empty column name" : "Duplicate column: " + name);
+                }
+            }
+            columnNames = new ArrayList<>(unique);
+        }
+        return new XmlRecordOptions(path, absolute, names, columnNames);
+    }
+
+    /**
+     * Returns the local names of the elements leading to the record element.
+     *
+     * @return the path, ending with the name of the record element
+     */
+    public List<String> getPath() {
+        return path;
+    }
+
+    public boolean isAbsolute() {
+        return absolute;
+    }
+
+    public Set<String> getArrays() {
+        return arrays;
+    }
+
+    /**
+     * Returns the explicit CSV columns.
+     *
+     * @return the flattened column names, or null for the columns of every record
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Tells whether the element on top of the given stack of open elements is a record.
+     *
+     * @param elements the local names of the open elements, from the root, of which the first {@code depth} are used
+     * @param depth    the number of open elements
+     * @return whether the innermost element is at the record path
+     */
+    public boolean matches(String[] elements, int depth) {
+        int offset = depth - path.size();
+        if (offset < 0 || (absolute && offset != 0)) {
+            return false;
+        }
+        for (int i = 0; i < path.size(); i++) {
+            if (!path.get(i).equals(elements[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the options as the result cache tells them apart,
+     * e.g. {@code record(/records/record)+arrays(tag)+columns(id,tag.0)}.
+     */
+    @Override
+    public String toString() {
+        return "record(" + (absolute ? "/" : "") + String.join("/", path) + ")"
+                + (arrays.isEmpty() ? "" : "+arrays(" + String.join(",", arrays) + ")")
+                + (columns == null ? "" : "+columns(" + String.join(",", columns) + ")");
+    }
+}
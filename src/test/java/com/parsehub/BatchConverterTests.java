@@ -0,0 +1,114 @@
+package com.parsehub;
+
+import com.parsehub.cli.BatchConverter;
+import com.parsehub.cli.BatchOptions;
+import com.parsehub.cli.BatchReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchConverterTest {
+
+    @TempDir
+    Path input;
+
+    @TempDir
+    Path output;
+
+    private Path write(String name, String content) throws IOException {
+        Path file = input.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    private static BatchReport run(String... args) throws IOException {
+        return new BatchConverter(BatchOptions.parse(args)).run();
+    }
+
+    private static List<String> files(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            return walk.filter(Files::isRegularFile).map(file -> directory.relativize(file).toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    void testConvert_MirrorsTheTree() throws IOException {
+        write("a.json", "[{\"name\":\"John\",\"age\":30}]");
+        write("nested/deeper/b.json", "{\"name\":\"Jane\"}");
+        write("nested/c.xml", "<root><name>Max</name></root>");
+        write("nested/ignored.json", "{}");
+        write("notes.txt", "not data");
+
+        BatchReport report = run("convert", "--to", "yaml", "--exclude", "ignored.*", "--threads", "2",
+                "--output", output.toString(), input.toString());
+
+        assertEquals(3, report.getSucceeded());
+        assertEquals(0, report.getFailed());
+        assertEquals(1, report.getSkipped());
+        assertEquals(List.of("a.yaml", "nested/c.yaml", "nested/deeper/b.yaml"), files(output));
+        assertEquals("name: Jane\n", Files.readString(output.resolve("nested/deeper/b.yaml")));
+        assertEquals(Files.size(output.resolve("a.yaml")) + Files.size(output.resolve("nested/c.yaml"))
+                + Files.size(output.resolve("nested/deeper/b.yaml")), report.getOutputBytes());
+    }
+
+    @Test
+    void testFailures_AreReportedWithoutStoppingTheRun() throws IOException {
+        write("good.json", "{\"b\":1,\"a\":2}");
+        write("sub/broken.json", "{\"a\": [1, 2}");
+
+        BatchReport report = run("sort", "--include", "**.json", "--output", output.toString(), input.toString());
+
+        assertEquals(1, report.getSucceeded());
+        assertEquals(1, report.getFailed());
+        BatchReport.Failure failure = report.getFailures().get(0);
+        assertEquals(Path.of("sub/broken.json"), failure.file());
+        assertTrue(failure.reason().contains("line 1, column 12"), failure.reason());
+        assertEquals(List.of("good.json"), files(output));
+        assertEquals("{\"a\":2,\"b\":1}", Files.readString(output.resolve("good.json")));
+    }
+
+    @Test
+    void testInPlace_ReplacesTheInputsButKeepsConvertedSources() throws IOException {
+        Path data = write("data.json", "{\"a\": [1, 2]}");
+
+        assertEquals(1, run("minify", "--in-place", input.toString()).getSucceeded());
+        assertEquals("{\"a\":[1,2]}", Files.readString(data));
+
+        assertEquals(1, run("convert", "--to", "xml", "--in-place", data.toString()).getSucceeded());
+        assertEquals(List.of("data.json", "data.xml"), files(input));
+
+        BatchReport again = run("convert", "--to", "xml", "--in-place", data.toString());
+        assertEquals(1, again.getFailed());
+        assertEquals(1, run("convert", "--to", "xml", "--in-place", "--overwrite", data.toString()).getSucceeded());
+    }
+
+    @Test
+    void testValidate_CountsInvalidFilesAsFailures() throws IOException {
+        write("valid.yaml", "a: 1");
+        write("invalid.xml", "<a><b></a>");
+
+        BatchReport report = run("validate", input.toString());
+
+        assertEquals(1, report.getSucceeded());
+        assertEquals(Path.of("invalid.xml"), report.getFailures().get(0).file());
+    }
+
+    @Test
+    void testParse_RejectsIncompleteCommandLines() {
+        assertThrows(IllegalArgumentException.class, () -> BatchOptions.parse("convert", "--in-place", "in"));
+        assertThrows(IllegalArgumentException.class, () -> BatchOptions.parse("minify", "in"));
+        assertThrows(IllegalArgumentException.class, () -> BatchOptions.parse("minify", "--in-place", "--output", "out", "in"));
+        assertThrows(IllegalArgumentException.class, () -> BatchOptions.parse("format", "--from", "xml", "--in-place", "in"));
+        assertThrows(IllegalArgumentException.class, () -> BatchOptions.parse("validate", "--threads", "0", "in"));
+        assertThrows(IllegalArgumentException.class, () -> BatchOptions.parse("validate", "--unknown", "in"));
+        assertThrows(IllegalArgumentException.class, () -> BatchOptions.parse("validate"));
+        assertNull(BatchOptions.parse("--help"));
+    }
+}
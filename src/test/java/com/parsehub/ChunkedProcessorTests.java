@@ -0,0 +1,92 @@
+package com.parsehub;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.util.ConversionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedProcessorTest {
+
+    private ChunkedProcessor chunkedProcessor;
+
+    @BeforeEach
+    void setUp() {
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.setParallelism(4);
+        properties.setChunkSize(DataSize.ofBytes(16));
+        chunkedProcessor = new ChunkedProcessor(properties);
+    }
+
+    private List<String> chunks(String input, ChunkedProcessor.Boundary boundary) throws IOException {
+        List<String> chunks = new ArrayList<>();
+        chunkedProcessor.process(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), boundary,
+                chunk -> new String(chunk.data(), 0, chunk.length(), StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_8),
+                result -> chunks.add(new String(result, StandardCharsets.UTF_8)));
+        return chunks;
+    }
+
+    @Test
+    void testLineChunks_EndOnLineBreaksInOrder() throws IOException {
+        List<String> chunks = chunks("line one\nline two\nline three is long\nfour", ChunkedProcessor.Boundary.LINE);
+
+        assertEquals(List.of("line one\n", "line two\n", "line three is long\nfour"), chunks);
+    }
+
+    @Test
+    void testCsvChunks_KeepQuotedLineBreaks() throws IOException {
+        List<String> chunks = chunks("a,b\n\"x\ny\",1\n\"multi\nline\",2\n", ChunkedProcessor.Boundary.CSV_RECORD);
+
+        assertEquals("a,b\n\"x\ny\",1\n\"multi\nline\",2\n", String.join("", chunks));
+        for (String chunk : chunks) {
+            assertEquals(0, chunk.chars().filter(c -> c == '"').count() % 2, chunk);
+        }
+    }
+
+    @Test
+    void testChunkFailure_IsRethrown() {
+        IOException e = assertThrows(IOException.class, () -> chunkedProcessor.process(
+                new ByteArrayInputStream("one\ntwo\nthree\nfour\nfive\nsix\n".getBytes(StandardCharsets.UTF_8)),
+                ChunkedProcessor.Boundary.LINE,
+                chunk -> {
+                    throw new IOException("failed chunk " + chunk.index());
+                },
+                result -> { }));
+
+        assertEquals("failed chunk 0", e.getMessage());
+    }
+
+    @Test
+    void testCsvConversion_ParallelMatchesSinglePass() throws IOException {
+        StringBuilder csv = new StringBuilder("name,age,note\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append("person ").append(i).append(',').append(20 + i % 50).append(",\"a note, with\nline break\"\n");
+        }
+        MapperRegistry mappers = new MapperRegistry();
+        ConversionEngine parallel = new ConversionEngine(mappers, chunkedProcessor);
+
+        for (String input : List.of(csv.toString(), "name,age\n")) {
+            for (ConversionType type : ConversionType.values()) {
+                String expected = parallel.convert(input, ConversionType.CSV, type);
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                parallel.convert(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), ConversionType.CSV, actual, type);
+
+                assertEquals(expected, actual.toString(StandardCharsets.UTF_8), type.name());
+            }
+        }
+        assertThrows(IOException.class, () -> parallel.convert(
+                new ByteArrayInputStream(new byte[0]), ConversionType.CSV, new ByteArrayOutputStream(), ConversionType.JSON));
+    }
+}
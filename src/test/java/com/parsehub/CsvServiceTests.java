@@ -0,0 +1,202 @@
+package com.parsehub;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.CsvService;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.CsvOptions;
+import com.parsehub.util.ValidationResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvServiceTest {
+
+    private static final String PRODUCTS = """
+            id,name,price,active,zip
+            1,Ann,9.50,true,007
+            2,"Bob, Jr.",,FALSE,010
+            """;
+
+    private CsvService csvService;
+
+    @BeforeEach
+    void setUp() {
+        csvService = createService(new ParseHubProperties());
+    }
+
+    private static CsvService createService(ParseHubProperties properties) {
+        MapperRegistry mappers = new MapperRegistry();
+        return new CsvService(mappers, new ConversionEngine(mappers, new ChunkedProcessor(properties)));
+    }
+
+    private static InputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String convert(String csv, ConversionType type, CsvOptions options) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        csvService.convert(stream(csv), output, type, options);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void validateCsv_shouldReturnValid_whenRowsMatchHeader() {
+        ValidationResult result = csvService.validateCsv(PRODUCTS);
+        assertTrue(result.isValid());
+        assertTrue(result.getErrorMessages().isEmpty());
+    }
+
+    @Test
+    void validateCsv_shouldReportLinesWithWrongColumnCount() {
+        String csv = """
+                id,note
+                1,"spans
+                two lines"
+                2,a,extra
+
+                3
+                """;
+
+        ValidationResult result = csvService.validateCsv(csv);
+
+        assertFalse(result.isValid());
+        // a blank line is a row of one empty value, which the conversion would turn into a record
+        assertEquals(List.of("Line 4: expected 2 columns, found 3", "Line 5: expected 2 columns, found 1",
+                "Line 6: expected 2 columns, found 1"), result.getErrorMessages());
+    }
+
+    @Test
+    void validateCsv_shouldReportQuotingErrors() {
+        ValidationResult result = csvService.validateCsv("id,name\n1,\"Ann\"x\n");
+
+        assertFalse(result.isValid());
+        assertEquals(1, result.getErrorMessages().size());
+        assertTrue(result.getErrorMessages().get(0).startsWith("CSV Parsing Error:"));
+        assertTrue(result.getErrorMessages().get(0).contains("line 2"));
+    }
+
+    @Test
+    void validateCsv_shouldReportDuplicateHeaderNames() {
+        ValidationResult result = csvService.validateCsv("id,name,id\n1,a,2\n");
+
+        assertFalse(result.isValid());
+        assertEquals(List.of("Line 1: duplicate column id"), result.getErrorMessages());
+    }
+
+    @Test
+    void validateCsv_shouldCheckDeclaredTypes_whenSchemaIsExplicit() {
+        CsvOptions options = CsvOptions.of(false, "id:integer,name,active:boolean", false);
+
+        ValidationResult result = csvService.validateCsv(stream("1,Ann,true\nx,Bob,yes\n3,Eve,\n"), options);
+
+        assertFalse(result.isValid());
+        assertEquals(List.of("Line 2: 'x' in column id is not an integer",
+                "Line 2: 'yes' in column active is not a boolean"), result.getErrorMessages());
+    }
+
+    @Test
+    void validateCsv_shouldLimitReportedErrors() {
+        StringBuilder csv = new StringBuilder("a,b\n");
+        for (int i = 0; i < 30; i++) {
+            csv.append("1\n");
+        }
+
+        ValidationResult result = csvService.validateCsv(csv.toString());
+
+        assertFalse(result.isValid());
+        assertEquals(21, result.getErrorMessages().size());
+        assertEquals("... and 10 more errors", result.getErrorMessages().get(20));
+    }
+
+    @Test
+    void convertCsvToJson_shouldInferColumnTypes() throws IOException {
+        String json = convert(PRODUCTS, ConversionType.JSON, CsvOptions.DEFAULT);
+
+        assertEquals("[{\"id\":1,\"name\":\"Ann\",\"price\":9.50,\"active\":true,\"zip\":\"007\"},"
+                + "{\"id\":2,\"name\":\"Bob, Jr.\",\"price\":null,\"active\":false,\"zip\":\"010\"}]", json);
+    }
+
+    @Test
+    void convertCsvToJson_shouldKeepStrings_whenInferenceIsDisabled() throws IOException {
+        String json = convert("id,price\n1,9.50\n", ConversionType.JSON, CsvOptions.TEXT);
+
+        assertEquals("[{\"id\":\"1\",\"price\":\"9.50\"}]", json);
+    }
+
+    @Test
+    void convertCsv_shouldUseExplicitColumns_whenThereIsNoHeader() throws IOException {
+        CsvOptions options = CsvOptions.of(false, "id:string,qty", true);
+
+        String yaml = convert("1,3\n2,4\n", ConversionType.YAML, options);
+
+        assertEquals("- id: \"1\"\n  qty: 3\n- id: \"2\"\n  qty: 4\n", yaml);
+    }
+
+    @Test
+    void convertCsv_shouldReplaceHeaderNames_whenColumnsAreExplicit() throws IOException {
+        CsvOptions options = CsvOptions.of(true, "a,b", false);
+
+        String xml = convert("x,y\n1,2\n", ConversionType.XML, options);
+
+        assertEquals("<ArrayNode><item><a>1</a><b>2</b></item></ArrayNode>", xml);
+    }
+
+    @Test
+    void convertToJsonLines_shouldWriteOneObjectPerRow() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        csvService.convertToJsonLines(stream(PRODUCTS), output, CsvOptions.DEFAULT);
+
+        assertEquals("{\"id\":1,\"name\":\"Ann\",\"price\":9.50,\"active\":true,\"zip\":\"007\"}\n"
+                + "{\"id\":2,\"name\":\"Bob, Jr.\",\"price\":null,\"active\":false,\"zip\":\"010\"}\n",
+                output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void convertToJsonLines_shouldMatchSingleChunk_whenSplitIntoParallelChunks() throws IOException {
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.setParallelism(4);
+        properties.setChunkSize(DataSize.ofKilobytes(4));
+        StringBuilder csv = new StringBuilder("id,score\n");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            // the sample only sees integers, so the value past it is kept as a string
+            String score = i == 19_999 ? "n/a" : Integer.toString(i % 100);
+            csv.append(i).append(',').append(score).append('\n');
+            expected.append("{\"id\":").append(i).append(",\"score\":")
+                    .append(i == 19_999 ? "\"n/a\"" : score).append("}\n");
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        createService(properties).convertToJsonLines(stream(csv.toString()), output, CsvOptions.DEFAULT);
+
+        assertEquals(expected.toString(), output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void convertCsv_shouldWriteError_whenQuoteIsNotClosed() throws IOException {
+        String result = convert("id,name\n1,\"Ann\n", ConversionType.JSON, CsvOptions.DEFAULT);
+
+        assertTrue(result.contains("Invalid CSV:"), result);
+    }
+
+    @Test
+    void csvOptions_shouldRejectInvalidColumns() {
+        assertThrows(IllegalArgumentException.class, () -> CsvOptions.of(true, "id:date", true));
+        assertThrows(IllegalArgumentException.class, () -> CsvOptions.of(true, "id,,name", true));
+        assertThrows(IllegalArgumentException.class, () -> CsvOptions.of(true, "id,id", true));
+        assertThrows(IllegalArgumentException.class, () -> CsvOptions.of(false, null, true));
+    }
+}
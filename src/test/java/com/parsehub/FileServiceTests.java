@@ -0,0 +1,199 @@
+package com.parsehub;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.FileResult;
+import com.parsehub.service.FileService;
+import com.parsehub.service.JsonCsvFlattener;
+import com.parsehub.service.JsonKeySorter;
+import com.parsehub.service.JsonSchemaRegistry;
+import com.parsehub.service.JsonService;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.service.OperationMetrics;
+import com.parsehub.service.XmlRecordConverter;
+import com.parsehub.service.XmlSchemaRegistry;
+import com.parsehub.service.XmlService;
+import com.parsehub.service.YamlService;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.FlattenOptions;
+import com.parsehub.util.Format;
+import com.parsehub.util.KeyOrder;
+import com.parsehub.util.MappedInputStream;
+import com.parsehub.util.SortOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileServiceTest {
+
+    @TempDir
+    Path root;
+
+    @TempDir
+    Path outside;
+
+    private FileService fileService;
+
+    @BeforeEach
+    void setUp() {
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.getFiles().setRoots(List.of(root.toString()));
+        fileService = fileService(properties);
+    }
+
+    private static FileService fileService(ParseHubProperties properties) {
+        MapperRegistry mappers = new MapperRegistry();
+        ConversionEngine conversionEngine = new ConversionEngine(mappers, new ChunkedProcessor(properties));
+        JsonKeySorter keySorter = new JsonKeySorter(properties);
+        JsonCsvFlattener csvFlattener = new JsonCsvFlattener(mappers, properties);
+        return new FileService(mappers, new JsonService(mappers, conversionEngine, keySorter,
+                new JsonSchemaRegistry(mappers, properties), csvFlattener),
+                new XmlService(mappers, conversionEngine, new XmlSchemaRegistry(properties),
+                        new XmlRecordConverter(mappers, properties)),
+                new YamlService(conversionEngine), conversionEngine,
+                keySorter, csvFlattener, new OperationMetrics(new SimpleMeterRegistry()), properties);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(root.resolve(name), content);
+    }
+
+    @Test
+    void testConvert_WritesTheTarget() throws IOException {
+        Path source = write("people.json", "[{\"name\":\"John\",\"age\":30}]");
+        Path target = root.resolve("people.csv");
+
+        FileResult result = fileService.convert(source.toString(), target.toString(), ConversionType.JSON, ConversionType.CSV, false);
+
+        assertEquals("name,age\nJohn,30\n", Files.readString(target));
+        assertEquals(Files.size(source), result.getInputBytes());
+        assertEquals(Files.size(target), result.getOutputBytes());
+    }
+
+    @Test
+    void testFlattenJsonToCsv_ReadsTheFileTwice() throws IOException {
+        Path source = write("orders.json", "{\"id\":1,\"items\":[{\"sku\":\"a\"}]}\n{\"id\":2,\"items\":[{\"sku\":\"b\"},{\"sku\":\"c\"}]}");
+        Path target = root.resolve("orders.csv");
+
+        fileService.flattenJsonToCsv(source.toString(), target.toString(),
+                FlattenOptions.of("bracket", "input", true, null), false);
+
+        assertEquals("id:integer,items[0].sku:string,items[1].sku:string\n1,a,\n2,b,c\n", Files.readString(target));
+        assertThrows(JsonProcessingException.class, () -> fileService.flattenJsonToCsv(write("broken.json", "[{\"a\": }]").toString(),
+                target.toString(), FlattenOptions.DEFAULT, true));
+        assertTrue(Files.readString(target).startsWith("id:integer"));
+    }
+
+    @Test
+    void testFormatAndSort_InPlace() throws IOException {
+        Path file = write("data.json", "{\"b\":{\"d\":1,\"c\":2},\"a\":[1]}");
+
+        fileService.sortJson(file.toString(), file.toString(), new SortOptions(KeyOrder.LEXICAL, false), true);
+        assertEquals("{\"a\":[1],\"b\":{\"c\":2,\"d\":1}}", Files.readString(file));
+
+        fileService.formatJson(file.toString(), file.toString(), Format.SPACE_2, true);
+        assertTrue(Files.readString(file).startsWith("{" + System.lineSeparator() + "  \"a\": ["));
+
+        fileService.minify(file.toString(), file.toString(), ConversionType.JSON, true);
+        assertEquals("{\"a\":[1],\"b\":{\"c\":2,\"d\":1}}", Files.readString(file));
+    }
+
+    @Test
+    void testValidate() throws IOException {
+        assertTrue(fileService.validate(write("valid.xml", "<a><b>1</b></a>").toString(), ConversionType.XML).isValid());
+        assertFalse(fileService.validate(write("invalid.yaml", "a: [1").toString(), ConversionType.YAML).isValid());
+    }
+
+    @Test
+    void testMalformedInput_LeavesTheTargetUntouched() throws IOException {
+        Path source = write("broken.json", "{\"a\": [1, 2}");
+        Path target = write("out.json", "previous");
+
+        assertThrows(JsonProcessingException.class,
+                () -> fileService.minify(source.toString(), target.toString(), ConversionType.JSON, true));
+
+        assertEquals("previous", Files.readString(target));
+        try (Stream<Path> files = Files.list(root)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testXmlAboveTheLimit_IsRefusedBeforeReading() throws IOException {
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.getFiles().setRoots(List.of(root.toString()));
+        properties.getFiles().setMaxXmlSize(DataSize.ofBytes(16));
+        FileService limited = fileService(properties);
+        Path small = write("small.xml", "<a><b>1</b></a>");
+        Path large = write("large.xml", "<a><b>1</b><b>2</b></a>");
+        Path target = root.resolve("out.json");
+
+        limited.convert(small.toString(), target.toString(), ConversionType.XML, ConversionType.JSON, false);
+        assertEquals("{\"b\":\"1\"}", Files.readString(target));
+
+        assertThrows(IllegalArgumentException.class, () -> limited.convert(large.toString(), target.toString(),
+                ConversionType.XML, ConversionType.JSON, true));
+        assertThrows(IllegalArgumentException.class,
+                () -> limited.minify(large.toString(), target.toString(), ConversionType.XML, true));
+        assertEquals("{\"b\":\"1\"}", Files.readString(target));
+        assertTrue(limited.validate(large.toString(), ConversionType.XML).isValid());
+    }
+
+    @Test
+    void testPaths_AreConfinedToTheRoots() throws IOException {
+        Path source = write("data.json", "{}");
+        Path secret = Files.writeString(outside.resolve("secret.json"), "{}");
+
+        assertThrows(AccessDeniedException.class,
+                () -> fileService.validate(secret.toString(), ConversionType.JSON));
+        assertThrows(AccessDeniedException.class,
+                () -> fileService.validate(root.resolve("../" + outside.getFileName() + "/secret.json").toString(), ConversionType.JSON));
+        assertThrows(AccessDeniedException.class,
+                () -> fileService.minify(source.toString(), outside.resolve("out.json").toString(), ConversionType.JSON, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> fileService.validate("data.json", ConversionType.JSON));
+        assertThrows(NoSuchFileException.class,
+                () -> fileService.validate(root.resolve("missing.json").toString(), ConversionType.JSON));
+        assertThrows(FileAlreadyExistsException.class,
+                () -> fileService.minify(source.toString(), source.toString(), ConversionType.JSON, false));
+
+        FileService disabled = fileService(new ParseHubProperties());
+        assertThrows(AccessDeniedException.class, () -> disabled.validate(source.toString(), ConversionType.JSON));
+    }
+
+    @Test
+    void testMappedInputStream_ReadsAcrossWindows() throws IOException {
+        String content = "0123456789abcdefghijklmnopqrstuvwxyz";
+        Path file = write("windows.txt", content);
+
+        try (InputStream in = new MappedInputStream(FileChannel.open(file), 7)) {
+            assertEquals('0', in.read());
+            assertEquals(10, in.skip(10));
+            byte[] buffer = new byte[64];
+            int length = 0;
+            for (int read; (read = in.read(buffer, length, buffer.length - length)) != -1; ) {
+                assertTrue(read <= 7);
+                length += read;
+            }
+            assertEquals(content.substring(11), new String(buffer, 0, length, StandardCharsets.US_ASCII));
+        }
+    }
+}
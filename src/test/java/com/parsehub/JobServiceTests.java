@@ -0,0 +1,123 @@
+package com.parsehub;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.ConversionJob;
+import com.parsehub.service.JobService;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.service.OperationMetrics;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.JobStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private JobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.getJobs().setDirectory(directory.toString());
+        MapperRegistry mappers = new MapperRegistry();
+        jobService = new JobService(new ConversionEngine(mappers, new ChunkedProcessor(properties)),
+                new OperationMetrics(new SimpleMeterRegistry()), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    private ConversionJob submit(String input, ConversionType source, ConversionType target) throws IOException {
+        return jobService.submit(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), source, target);
+    }
+
+    private ConversionJob await(ConversionJob job) throws InterruptedException {
+        assertTrue(job.awaitFinished(Duration.ofSeconds(30)), "The job did not finish");
+        return job;
+    }
+
+    @Test
+    void testSubmit_ConvertsToResultFile() throws Exception {
+        String json = "[{\"name\":\"John\",\"age\":30},{\"name\":\"Jane\",\"age\":25}]";
+        ConversionJob job = await(submit(json, ConversionType.JSON, ConversionType.CSV));
+
+        assertEquals(JobStatus.COMPLETED, job.getStatus());
+        assertEquals(2, job.getRecords());
+        assertEquals(json.length(), job.getBytesRead());
+        assertEquals(json.length(), job.getTotalBytes());
+        assertEquals("name,age\nJohn,30\nJane,25\n", Files.readString(jobService.resultFile(job)));
+        assertEquals(job.getOutputBytes(), Files.size(jobService.resultFile(job)));
+        assertSame(job, jobService.find(job.getId()).orElseThrow());
+    }
+
+    @Test
+    void testSubmit_InvalidInputFails() throws Exception {
+        ConversionJob job = await(submit("{\"name\": ", ConversionType.JSON, ConversionType.XML));
+
+        assertEquals(JobStatus.FAILED, job.getStatus());
+        assertNotNull(job.getError());
+        assertNotNull(job.getFinishedAt());
+    }
+
+    @Test
+    void testCreate_QueuesOnceUploaded() throws Exception {
+        ConversionJob job = jobService.create(ConversionType.YAML, ConversionType.JSON);
+        assertEquals(JobStatus.UPLOADING, job.getStatus());
+        assertSame(job, jobService.find(job.getId()).orElseThrow());
+
+        try (OutputStream out = jobService.openInput(job)) {
+            out.write("a: 1\n".getBytes(StandardCharsets.UTF_8));
+            assertFalse(job.awaitFinished(Duration.ofMillis(100)), "The job ran before its upload was complete");
+            out.write("b: 2\n".getBytes(StandardCharsets.UTF_8));
+        }
+        jobService.uploaded(job);
+
+        assertEquals(JobStatus.COMPLETED, await(job).getStatus());
+        assertEquals(10, job.getTotalBytes());
+        assertEquals("{\"a\":1,\"b\":2}", Files.readString(jobService.resultFile(job)));
+    }
+
+    @Test
+    void testUploadFailed_FailsTheJob() throws Exception {
+        ConversionJob job = jobService.create(ConversionType.JSON, ConversionType.XML);
+        jobService.uploadFailed(job, new EOFException("Unexpected end of the request body"));
+
+        assertEquals(JobStatus.FAILED, await(job).getStatus());
+        assertEquals("The upload failed: Unexpected end of the request body", job.getError());
+
+        ConversionJob cancelled = jobService.create(ConversionType.JSON, ConversionType.XML);
+        jobService.cancel(cancelled.getId());
+        jobService.uploaded(cancelled);
+        assertEquals(JobStatus.CANCELLED, cancelled.getStatus());
+    }
+
+    @Test
+    void testCancel_DeletesFiles() throws Exception {
+        ConversionJob job = await(submit("a: 1", ConversionType.YAML, ConversionType.JSON));
+        Path result = jobService.resultFile(job);
+
+        assertTrue(jobService.cancel(job.getId()).isPresent());
+        assertFalse(Files.exists(result));
+        assertTrue(jobService.find(job.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,147 @@
+package com.parsehub;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.JsonCsvFlattener;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.util.FlattenOptions;
+import com.parsehub.util.KeyOrder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCsvFlattenerTest {
+
+    @TempDir
+    Path directory;
+
+    private JsonCsvFlattener flattener(DataSize memoryLimit, int maxPaths) {
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.getFlatten().setMemoryLimit(memoryLimit);
+        properties.getFlatten().setDirectory(directory.toString());
+        properties.getFlatten().setMaxPaths(maxPaths);
+        return new JsonCsvFlattener(new MapperRegistry(), properties);
+    }
+
+    private String flatten(String json, FlattenOptions options) throws IOException {
+        return flatten(flattener(DataSize.ofMegabytes(1), 1000), json, options);
+    }
+
+    private String flatten(JsonCsvFlattener flattener, String json, FlattenOptions options) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        flattener.flatten(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), output, options);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testFlatten_UnionOfNestedRecords() throws IOException {
+        String json = """
+                [
+                  {"id": 1, "name": "Ann", "address": {"city": "Oslo"}},
+                  {"id": 2, "items": [{"sku": "a-1", "qty": 2}, {"sku": "b-2"}], "note": null},
+                  {"id": 3, "address": {"city": "Lisbon", "zip": "1000"}, "tags": []}
+                ]""";
+
+        assertEquals("""
+                id,name,address.city,items.0.sku,items.0.qty,items.1.sku,note,address.zip
+                1,Ann,Oslo,,,,,
+                2,,,a-1,2,b-2,,
+                3,,Lisbon,,,,,1000
+                """, flatten(json, FlattenOptions.DEFAULT));
+    }
+
+    @Test
+    void testFlatten_BracketPathsAndRootValues() throws IOException {
+        String json = "{\"a\": {\"b\": [1, [2, 3]]}} \"text\" [[true, \"x,y\"]]";
+        FlattenOptions options = new FlattenOptions(FlattenOptions.PathStyle.BRACKET, null, false, null);
+
+        assertEquals("""
+                a.b[0],a.b[1][0],a.b[1][1],value,[0],[1]
+                1,2,3,,,
+                ,,,text,,
+                ,,,,true,"x,y"
+                """, flatten(json, options));
+    }
+
+    @Test
+    void testFlatten_OrderAndTypeHints() throws IOException {
+        String json = """
+                [{"tag10": 1, "tag2": 1.5, "Active": true, "mixed": 1},
+                 {"tag10": 2, "tag2": 3, "mixed": "x", "empty": null}]""";
+        FlattenOptions options = new FlattenOptions(FlattenOptions.PathStyle.DOT, KeyOrder.NATURAL, true, null);
+
+        assertEquals("""
+                Active:boolean,empty:string,mixed:string,tag2:number,tag10:integer
+                true,,1,1.5,1
+                ,,x,3,2
+                """, flatten(json, options));
+    }
+
+    @Test
+    void testFlatten_ExplicitColumns() throws IOException {
+        String json = """
+                [{"id": 1, "address": {"city": "Oslo", "zip": "0150"}, "items": [{"sku": "a"}, {"sku": "b"}]},
+                 {"id": 2, "extra": {"deep": [1, 2, 3]}}]""";
+
+        assertEquals("""
+                items.1.sku,id,missing
+                b,1,
+                ,2,
+                """, flatten(json, FlattenOptions.of("dot", "input", false, "items.1.sku, id, missing")));
+        assertEquals("""
+                id:integer,address.city:string
+                1,Oslo
+                2,
+                """, flatten(json, FlattenOptions.of("dot", "lexical", true, "id,address.city")));
+    }
+
+    @Test
+    void testFlatten_SpoolsLargeInputs() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(i % 1000 == 999 ? ",\"late\":{\"x\":\"y\"}" : "").append('}');
+        }
+        String csv = flatten(flattener(DataSize.ofKilobytes(1), 1000), json.append(']').toString(), FlattenOptions.DEFAULT);
+
+        List<String> lines = csv.lines().toList();
+        assertEquals(2001, lines.size());
+        assertEquals("id,late.x", lines.get(0));
+        assertEquals("0,", lines.get(1));
+        assertEquals("999,y", lines.get(1000));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testFlatten_LimitsThePaths() throws IOException {
+        String json = "[{\"a\": 1, \"b\": 2}, {\"c\": {\"d\": 3}}]";
+        JsonCsvFlattener flattener = flattener(DataSize.ofMegabytes(1), 4);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> flatten(flattener, json, FlattenOptions.DEFAULT));
+        assertEquals("The records have more than 4 distinct paths; list the columns to convert them", e.getMessage());
+        assertEquals("c.d\n\n3\n", flatten(flattener, json, FlattenOptions.of("dot", "input", false, "c.d")));
+    }
+
+    @Test
+    void testFlattenOptions_Parse() {
+        assertEquals("bracket+natural+types+columns(a,b[0])",
+                FlattenOptions.of("Bracket", "natural", true, "a, b[0]").toString());
+        assertEquals("dot", FlattenOptions.of("dot", "INPUT", false, " ").toString());
+        assertThrows(IllegalArgumentException.class, () -> FlattenOptions.of("slash", "input", false, null));
+        assertThrows(IllegalArgumentException.class, () -> FlattenOptions.of("dot", "random", false, null));
+        assertThrows(IllegalArgumentException.class, () -> FlattenOptions.of("dot", "input", false, "a,,b"));
+        assertThrows(IllegalArgumentException.class, () -> FlattenOptions.of("dot", "input", false, "a,a"));
+    }
+}
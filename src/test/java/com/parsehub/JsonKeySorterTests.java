@@ -0,0 +1,138 @@
+package com.parsehub;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.JsonKeySorter;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.util.KeyOrder;
+import com.parsehub.util.SortOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonKeySorterTest {
+
+    @TempDir
+    Path directory;
+
+    private final MapperRegistry mappers = new MapperRegistry();
+
+    private JsonKeySorter sorter(DataSize memoryLimit) {
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.getSort().setMemoryLimit(memoryLimit);
+        properties.getSort().setDirectory(directory.toString());
+        return new JsonKeySorter(properties);
+    }
+
+    private String sort(JsonKeySorter sorter, String json, SortOptions options) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonParser parser = mappers.json().getFactory().createParser(json)) {
+            sorter.sort(parser, output, options);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testSort_NestedObjects() throws IOException {
+        String json = "{\"b\": {\"z\": 1, \"y\": [{\"d\": 1.50, \"c\": \"\\u00e9\\n\"}]}, \"a\": null}";
+
+        assertEquals("{\"a\":null,\"b\":{\"y\":[{\"c\":\"é\\n\",\"d\":1.50}],\"z\":1}}",
+                sort(sorter(DataSize.ofMegabytes(1)), json, SortOptions.DEFAULT));
+    }
+
+    @Test
+    void testSort_KeyOrders() throws IOException {
+        String json = "{\"item10\": 1, \"Item2\": 2, \"item2\": 3, \"item1\": 4}";
+        JsonKeySorter sorter = sorter(DataSize.ofMegabytes(1));
+
+        assertEquals("{\"Item2\":2,\"item1\":4,\"item10\":1,\"item2\":3}",
+                sort(sorter, json, new SortOptions(KeyOrder.LEXICAL, false)));
+        assertEquals("{\"item1\":4,\"item10\":1,\"Item2\":2,\"item2\":3}",
+                sort(sorter, json, new SortOptions(KeyOrder.CASE_INSENSITIVE, false)));
+        assertEquals("{\"Item2\":2,\"item1\":4,\"item2\":3,\"item10\":1}",
+                sort(sorter, json, new SortOptions(KeyOrder.NATURAL, false)));
+    }
+
+    @Test
+    void testSort_Arrays() throws IOException {
+        String json = "[3, \"b\", {\"y\": 1, \"x\": 2}, 10, \"a\"]";
+        JsonKeySorter sorter = sorter(DataSize.ofMegabytes(1));
+
+        assertEquals("[3,\"b\",{\"x\":2,\"y\":1},10,\"a\"]", sort(sorter, json, SortOptions.DEFAULT));
+        assertEquals("[\"a\",\"b\",10,3,{\"x\":2,\"y\":1}]", sort(sorter, json, new SortOptions(KeyOrder.LEXICAL, true)));
+        assertEquals("[\"a\",\"b\",3,10,{\"x\":2,\"y\":1}]", sort(sorter, json, new SortOptions(KeyOrder.NATURAL, true)));
+    }
+
+    @Test
+    void testSort_DuplicateKeysKeepTheirOrder() throws IOException {
+        String json = "{\"b\": 1, \"a\": 0, \"b\": 2, \"b\": 3}";
+
+        assertEquals("{\"a\":0,\"b\":1,\"b\":2,\"b\":3}", sort(sorter(DataSize.ofMegabytes(1)), json, SortOptions.DEFAULT));
+        assertEquals("{\"a\":0,\"b\":1,\"b\":2,\"b\":3}", sort(sorter(DataSize.ofBytes(1)), json, SortOptions.DEFAULT));
+    }
+
+    @Test
+    void testSort_SpillsLargeObjectsToDisk() throws IOException {
+        Random random = new Random(42);
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            keys.add(i);
+        }
+        Collections.shuffle(keys, random);
+        StringBuilder json = new StringBuilder("{");
+        for (int key : keys) {
+            json.append(json.length() > 1 ? "," : "").append("\"key").append(key).append("\":");
+            if (key % 1000 == 0) {
+                // a value larger than the memory limit, spilled to a file of its own
+                json.append("{\"z\":\"").append("x".repeat(8192)).append("\",\"a\":[").append(key).append("]}");
+            } else {
+                json.append("{\"b\":").append(random.nextInt()).append(",\"a\":\"").append(key).append("\"}");
+            }
+        }
+        json.append("}");
+
+        for (KeyOrder order : KeyOrder.values()) {
+            SortOptions options = new SortOptions(order, true);
+            String expected = sort(sorter(DataSize.ofMegabytes(64)), json.toString(), options);
+            assertEquals(expected, sort(sorter(DataSize.ofKilobytes(4)), json.toString(), options), order.name());
+
+            JsonNode sorted = mappers.json().readTree(expected);
+            assertEquals(20000, sorted.size());
+            Iterator<String> names = sorted.fieldNames();
+            String previous = names.next();
+            while (names.hasNext()) {
+                String name = names.next();
+                assertTrue(order.comparator().compare(previous, name) < 0, previous + " before " + name);
+                previous = name;
+            }
+            assertEquals("a", sorted.get("key1000").fieldNames().next());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testSort_ArrayElementLargerThanTheLimit() {
+        String json = "[\"" + "x".repeat(2048) + "\"]";
+
+        assertThrows(IllegalArgumentException.class,
+                () -> sort(sorter(DataSize.ofKilobytes(1)), json, new SortOptions(KeyOrder.LEXICAL, true)));
+        assertDoesNotThrow(() -> sort(sorter(DataSize.ofKilobytes(1)), json, SortOptions.DEFAULT));
+    }
+}
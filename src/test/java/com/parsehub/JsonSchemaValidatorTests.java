@@ -0,0 +1,264 @@
+package com.parsehub;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.JsonCsvFlattener;
+import com.parsehub.service.JsonKeySorter;
+import com.parsehub.service.JsonSchemaRegistry;
+import com.parsehub.service.JsonService;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.util.ValidationError;
+import com.parsehub.util.ValidationResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonSchemaValidatorTest {
+
+    private static final String ORDER_SCHEMA = """
+            {
+              "type": "object",
+              "required": ["id", "items"],
+              "properties": {
+                "id": {"type": "integer", "minimum": 1},
+                "status": {"enum": ["open", "shipped"]},
+                "email": {"type": "string", "pattern": "^[^@]+@[^@]+$"},
+                "items": {
+                  "type": "array",
+                  "minItems": 1,
+                  "items": {"$ref": "#/$defs/item"}
+                }
+              },
+              "additionalProperties": false,
+              "$defs": {
+                "item": {
+                  "type": "object",
+                  "required": ["sku"],
+                  "properties": {
+                    "sku": {"type": "string", "minLength": 3},
+                    "qty": {"type": "integer", "exclusiveMinimum": 0}
+                  }
+                }
+              }
+            }
+            """;
+
+    private JsonSchemaRegistry registry;
+    private JsonService jsonService;
+
+    @BeforeEach
+    void setUp() {
+        MapperRegistry mappers = new MapperRegistry();
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.getSchema().setMaxSchemas(3);
+        properties.getSchema().setCacheSize(1);
+        registry = new JsonSchemaRegistry(mappers, properties);
+        jsonService = new JsonService(mappers, new ConversionEngine(mappers, new ChunkedProcessor(properties)),
+                new JsonKeySorter(properties), registry, new JsonCsvFlattener(mappers, properties));
+    }
+
+    private ValidationResult validate(String schema, String json) {
+        JsonSchemaRegistry.Schema registered = registry.register("test", schema);
+        return jsonService.validateJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), registered);
+    }
+
+    @Test
+    void validateJson_shouldReturnValid_whenDocumentMatchesSchema() {
+        ValidationResult result = validate(ORDER_SCHEMA,
+                "{\"id\": 7, \"status\": \"open\", \"email\": \"a@b\", \"items\": [{\"sku\": \"abc\", \"qty\": 2}]}");
+
+        assertTrue(result.isValid(), result.getErrorMessages().toString());
+        assertTrue(result.getErrors().isEmpty());
+    }
+
+    @Test
+    void validateJson_shouldLocateErrorsWithJsonPointers() {
+        ValidationResult result = validate(ORDER_SCHEMA,
+                "{\"id\": 0, \"status\": \"lost\", \"note\": 1, \"items\": [{\"sku\": \"abc\"}, {\"sku\": \"x\", \"qty\": 0}, {}]}");
+
+        assertFalse(result.isValid());
+        assertEquals(List.of(
+                new ValidationError("/id", "must be >= 1"),
+                new ValidationError("/status", "must be one of [\"open\",\"shipped\"]"),
+                new ValidationError("/note", "is not allowed"),
+                new ValidationError("/items/1/sku", "must be at least 3 characters long"),
+                new ValidationError("/items/1/qty", "must be > 0"),
+                new ValidationError("/items/2", "is missing required property sku")), result.getErrors());
+        assertEquals("/id: must be >= 1", result.getErrorMessages().get(0));
+    }
+
+    @Test
+    void validateJson_shouldReportMissingPropertiesAtTheRoot() {
+        ValidationResult result = validate(ORDER_SCHEMA, "{\"items\": []}");
+
+        assertEquals(List.of("/items: must have at least 1 items", "(root): is missing required property id"),
+                result.getErrorMessages());
+    }
+
+    @Test
+    void validateJson_shouldEscapePointerSegments() {
+        ValidationResult result = validate("{\"additionalProperties\": {\"type\": \"string\"}}", "{\"a/b~c\": 1}");
+
+        assertEquals(List.of(new ValidationError("/a~1b~0c", "must be of type string, but is integer")),
+                result.getErrors());
+    }
+
+    @Test
+    void validateJson_shouldApplyCombinators() {
+        String schema = """
+                {
+                  "oneOf": [{"type": "integer", "maximum": 10}, {"type": "number", "minimum": 5}],
+                  "not": {"const": 3}
+                }
+                """;
+
+        assertTrue(validate(schema, "2").isValid());
+        assertTrue(validate(schema, "7.5").isValid());
+        // 2.0 is an integer to JSON Schema
+        assertTrue(validate(schema, "2.0").isValid());
+        assertEquals(List.of("(root): must match exactly one schema in oneOf, but matches 2"),
+                validate(schema, "7").getErrorMessages());
+        assertEquals(List.of("(root): must match exactly one schema in oneOf, but matches 0"),
+                validate(schema, "2.5").getErrorMessages());
+        assertEquals(List.of("(root): must not match the schema in not"), validate(schema, "3.0").getErrorMessages());
+    }
+
+    @Test
+    void validateJson_shouldApplyThenOrElse_dependingOnTheCondition() {
+        String schema = """
+                {
+                  "if": {"properties": {"kind": {"const": "card"}}},
+                  "then": {"required": ["number"]},
+                  "else": {"required": ["iban"]}
+                }
+                """;
+
+        assertTrue(validate(schema, "{\"kind\": \"card\", \"number\": \"4111\"}").isValid());
+        assertEquals(List.of("(root): is missing required property number"),
+                validate(schema, "{\"kind\": \"card\", \"iban\": \"DE00\"}").getErrorMessages());
+        assertEquals(List.of("(root): is missing required property iban"),
+                validate(schema, "{\"kind\": \"cash\"}").getErrorMessages());
+    }
+
+    @Test
+    void validateJson_shouldCompareStructuredValues() {
+        String schema = """
+                {"type": "array", "uniqueItems": true, "items": {"enum": [{"a": 1, "b": [1, 2]}, 5]}}
+                """;
+
+        assertTrue(validate(schema, "[{\"b\": [1, 2.0], \"a\": 1.00}, 5]").isValid());
+        assertEquals(List.of("(root): must not contain duplicate items"),
+                validate(schema, "[5, 5.0]").getErrorMessages());
+        assertEquals(List.of("/0: must be one of [{\"a\":1,\"b\":[1,2]},5]"),
+                validate(schema, "[{\"a\": 1}]").getErrorMessages());
+    }
+
+    @Test
+    void validateJson_shouldFollowRecursiveReferences() {
+        String schema = """
+                {
+                  "type": "object",
+                  "properties": {"name": {"type": "string"}, "children": {"type": "array", "items": {"$ref": "#"}}}
+                }
+                """;
+
+        ValidationResult result = validate(schema,
+                "{\"name\": \"a\", \"children\": [{\"name\": \"b\", \"children\": [{\"name\": 3}]}]}");
+
+        assertEquals(List.of(new ValidationError("/children/0/children/0/name", "must be of type string, but is integer")),
+                result.getErrors());
+    }
+
+    @Test
+    void validateJson_shouldCountContainedItems() {
+        String schema = "{\"contains\": {\"type\": \"string\"}, \"minContains\": 2, \"maxContains\": 3}";
+
+        assertTrue(validate(schema, "[1, \"a\", \"b\"]").isValid());
+        assertEquals(List.of("(root): must contain at least 2 items matching contains"),
+                validate(schema, "[1, \"a\"]").getErrorMessages());
+    }
+
+    @Test
+    void validateJson_shouldReportSyntaxErrors() {
+        ValidationResult result = validate("{\"type\": \"object\"}", "{\"a\": ");
+
+        assertFalse(result.isValid());
+        assertTrue(result.getErrorMessages().get(0).startsWith("Invalid JSON:"));
+    }
+
+    @Test
+    void validateJson_shouldLimitReportedErrors() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 150; i++) {
+            json.append(i == 0 ? "" : ",").append("\"x\"");
+        }
+        json.append(']');
+
+        ValidationResult result = validate("{\"items\": {\"type\": \"integer\"}}", json.toString());
+
+        assertFalse(result.isValid());
+        assertEquals(100, result.getErrors().size());
+        assertEquals("... and 50 more errors", result.getErrorMessages().get(100));
+    }
+
+    @Test
+    void validateJson_shouldRecompileSchemas_whenEvictedFromCache() {
+        JsonSchemaRegistry.Schema first = registry.register("first", "{\"type\": \"string\"}");
+        registry.register("second", "{\"type\": \"integer\"}");
+
+        ValidationResult result = jsonService.validateJson(
+                new ByteArrayInputStream("1".getBytes(StandardCharsets.UTF_8)), first);
+
+        assertEquals(List.of("(root): must be of type string, but is integer"), result.getErrorMessages());
+    }
+
+    @Test
+    void register_shouldRejectInvalidSchemas() {
+        assertThrows(IllegalArgumentException.class, () -> registry.register("s", "{\"type\": \"text\"}"));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("s", "{\"pattern\": \"[\"}"));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("s", "{\"$ref\": \"other.json\"}"));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("s", "{\"unevaluatedProperties\": false}"));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("s", "{"));
+        assertTrue(registry.names().isEmpty());
+    }
+
+    @Test
+    void register_shouldRejectCyclesThatNeverReachAValue() {
+        IllegalArgumentException self = assertThrows(IllegalArgumentException.class,
+                () -> registry.register("s", "{\"$ref\": \"#\"}"));
+        assertEquals("Invalid JSON Schema at the root: the subschemas # -> # apply each other to the same value"
+                + " without reaching a property or an item", self.getMessage());
+
+        String loop = """
+                {
+                  "$defs": {"a": {"$ref": "#/$defs/b"}, "b": {"allOf": [{"type": "object"}, {"$ref": "#/$defs/a"}]}},
+                  "anyOf": [{"$ref": "#/$defs/a"}]
+                }
+                """;
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> registry.register("s", loop));
+        assertTrue(e.getMessage().contains("#/$defs/a -> #/$defs/b -> #/$defs/b/allOf/1 -> #/$defs/a"), e.getMessage());
+        assertTrue(registry.names().isEmpty());
+
+        // a cycle through properties or items ends with the document
+        registry.register("tree", "{\"anyOf\": [{\"type\": \"string\"}, {\"items\": {\"$ref\": \"#\"}}]}");
+    }
+
+    @Test
+    void register_shouldLimitTheNumberOfSchemas() {
+        registry.register("a", "true");
+        registry.register("b", "true");
+        registry.register("c", "true");
+        registry.register("a", "false");
+
+        assertThrows(IllegalArgumentException.class, () -> registry.register("d", "true"));
+        assertTrue(registry.remove("a"));
+        registry.register("d", "true");
+        assertEquals(List.of("b", "c", "d"), registry.names());
+    }
+}
@@ -2,11 +2,26 @@ package com.parsehub;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.parsehub.util.ConversionType;
+import com.parsehub.util.FlattenOptions;
 import com.parsehub.util.Format;
+import com.parsehub.util.KeyOrder;
+import com.parsehub.util.SortOptions;
 import com.parsehub.util.ValidationResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import com.parsehub.service.JsonCsvFlattener;
+import com.parsehub.service.JsonKeySorter;
+import com.parsehub.service.JsonSchemaRegistry;
 import com.parsehub.service.JsonService;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.MapperRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,7 +31,10 @@ class JsonServiceTest {
 
     @BeforeEach
     void setUp() {
-        jsonService = new JsonService();
+        MapperRegistry mappers = new MapperRegistry();
+        ParseHubProperties properties = new ParseHubProperties();
+        jsonService = new JsonService(mappers, new ConversionEngine(mappers, new ChunkedProcessor(properties)), new JsonKeySorter(properties),
+                new JsonSchemaRegistry(mappers, properties), new JsonCsvFlattener(mappers, properties));
     }
 
     @Test
@@ -39,6 +57,18 @@ class JsonServiceTest {
         assertEquals("Invalid JSON: Unexpected character ('}' (code 125)): expected a valid ", result.getErrorMessages().get(0).substring(0, 70));
     }
 
+    @Test
+    void testValidateJson_Stream() {
+        String json = "[{\"name\": \"John\", \"tags\": [\"a\", \"b\"]}, {\"name\": \"Jane\"}]";
+        ValidationResult valid = jsonService.validateJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(valid.isValid());
+
+        String truncated = json.substring(0, json.length() - 2);
+        ValidationResult invalid = jsonService.validateJson(new ByteArrayInputStream(truncated.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(invalid.isValid());
+        assertTrue(invalid.getErrorMessages().get(0).startsWith("Invalid JSON: "));
+    }
+
     @Test
     void testFormatJson_ValidJson() {
         String validJson = "{\"name\":\"John\",\"age\":30}";
@@ -67,6 +97,56 @@ class JsonServiceTest {
         assertEquals(expectedMinifiedJson, minifiedJson);
     }
 
+    @Test
+    void testFormatJson_StreamMatchesString() throws IOException {
+        String json = "{\"name\":\"John\",\"tags\":[\"a\",{\"b\":[]}],\"address\":{},\"age\":30}";
+        for (Format format : Format.values()) {
+            ByteArrayOutputStream formatted = new ByteArrayOutputStream();
+            jsonService.formatJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), formatted, format);
+
+            assertEquals(jsonService.formatJson(json, format), formatted.toString(StandardCharsets.UTF_8), format.name());
+        }
+    }
+
+    @Test
+    void testFormatJson_KeepsLiteralsAsWritten() {
+        String json = "{\"price\": 1.50, \"big\": 1E+400, \"text\": \"caf\u00e9 \\u00e9 \\/ \uD83D\uDE00\"}";
+        String minifiedJson = jsonService.minifyJson(json);
+
+        assertEquals("{\"price\":1.50,\"big\":1E+400,\"text\":\"caf\u00e9 \\u00e9 \\/ \uD83D\uDE00\"}", minifiedJson);
+    }
+
+    @Test
+    void testFormatJson_StreamReadInSmallChunks() throws IOException {
+        String json = "{\"name\":\"J\u00f6hn \\\"Jr\\\"\",\"scores\":[-1.5e3,0,true,null],\"address\":{}}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        for (Format format : Format.values()) {
+            ByteArrayOutputStream formatted = new ByteArrayOutputStream();
+            jsonService.formatJson(new ByteArrayInputStream(bytes) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    return super.read(b, off, Math.min(len, 1));
+                }
+            }, formatted, format);
+
+            assertEquals(jsonService.formatJson(json, format), formatted.toString(StandardCharsets.UTF_8), format.name());
+        }
+    }
+
+    @Test
+    void testFormatJson_InvalidJson() {
+        assertEquals("Invalid JSON format: Unexpected character ('}' (code 125)): was expecting comma to separate Array entries\n"
+                + " at [Source: UNKNOWN; line: 2, column: 5]", jsonService.formatJson("{\"a\":\n  [1}", Format.SPACE_2));
+        assertTrue(jsonService.formatJson("{\"a\": 01}", Format.SPACE_2)
+                .startsWith("Invalid JSON format: Invalid numeric value: Leading zeroes not allowed"));
+        assertTrue(jsonService.formatJson("[\"\\x\"]", Format.SPACE_2)
+                .startsWith("Invalid JSON format: Unrecognized character escape"));
+        assertTrue(jsonService.minifyJson("{\"a\": [1, 2")
+                .startsWith("Invalid JSON format: Unexpected end-of-input: expected close marker for Array"));
+        assertTrue(jsonService.minifyJson("[".repeat(1001) + "]".repeat(1001))
+                .startsWith("Invalid JSON format: Document nesting depth (1001) exceeds the maximum allowed (1000)"));
+    }
+
     @Test
     void testConvertJsonToXml_ValidJson() throws JsonProcessingException {
         String json = "{\"name\":\"John\",\"age\":30}";
@@ -108,6 +188,50 @@ class JsonServiceTest {
         assertEquals(expectedCsv.trim(), csv.trim());
     }
 
+    @Test
+    void testConvertJsonToXml_RootArray() {
+        String json = "[{\"name\":\"John\"},{\"name\":\"Jane\"}]";
+        String xml = jsonService.convertData(json, ConversionType.XML);
+
+        assertEquals("<ArrayNode><item><name>John</name></item><item><name>Jane</name></item></ArrayNode>", xml);
+    }
+
+    @Test
+    void testConvertJsonToYaml_QuotesAmbiguousStrings() {
+        String json = "{\"version\":\"30\",\"enabled\":\"true\",\"tags\":[\"a\",\"b\"]}";
+        String yaml = jsonService.convertData(json, ConversionType.YAML);
+
+        String expectedYaml = """
+                version: "30"
+                enabled: "true"
+                tags:
+                - a
+                - b
+                """;
+        assertEquals(expectedYaml, yaml);
+    }
+
+    @Test
+    void testConvertJsonToCsv_Stream() throws IOException {
+        String json = "[{\"name\":\"John\",\"age\":30},{\"name\":\"Jane\",\"age\":25}]";
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        jsonService.convertData(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), csv, ConversionType.CSV);
+
+        String expectedCsv = """
+                name,age
+                John,30
+                Jane,25
+                """;
+        assertEquals(expectedCsv, csv.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testConvertJsonToCsv_StreamRejectsNonArray() {
+        String json = "{\"name\":\"John\"}";
+        assertThrows(IllegalArgumentException.class, () -> jsonService.convertData(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream(), ConversionType.CSV));
+    }
+
     @Test
     void testSortJson_ValidJson() {
         String unsortedJson = "{\"b\": 2, \"a\": 1, \"c\": 3}";
@@ -117,6 +241,18 @@ class JsonServiceTest {
         assertEquals(expectedSortedJson, sortedJson);
     }
 
+    @Test
+    void testSortJson_NestedObjectsAndStream() throws IOException {
+        String json = "{\"b\": {\"d\": [{\"f\": 1, \"e\": 2}], \"c\": 3}, \"a\": 1}";
+        String expected = "{\"a\":1,\"b\":{\"c\":3,\"d\":[{\"e\":2,\"f\":1}]}}";
+        assertEquals(expected, jsonService.sortJson(json));
+
+        ByteArrayOutputStream sorted = new ByteArrayOutputStream();
+        jsonService.sortJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), sorted,
+                new SortOptions(KeyOrder.CASE_INSENSITIVE, false));
+        assertEquals(expected, sorted.toString(StandardCharsets.UTF_8));
+    }
+
     @Test
     void testSortJson_InvalidJson() {
         String invalidJson = "{\"b\": 2, \"a\": , \"c\": 3}"; // Invalid JSON
@@ -124,4 +260,17 @@ class JsonServiceTest {
         String sortedJson = jsonService.sortJson(invalidJson);
         assertEquals("Invalid JSON format: Unexpected character (", sortedJson.substring(0, 43));
     }
+
+    @Test
+    void testConvertJsonToCsv_Flattened() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        jsonService.convertJsonToCsv(new ByteArrayInputStream("{\"a\": {\"b\": 1}, \"c\": [2]}".getBytes(StandardCharsets.UTF_8)),
+                output, FlattenOptions.DEFAULT);
+        assertEquals("a.b,c.0\n1,2\n", output.toString(StandardCharsets.UTF_8));
+
+        output.reset();
+        jsonService.convertJsonToCsv(new ByteArrayInputStream("[{\"a\": 1}, {\"a\": ]".getBytes(StandardCharsets.UTF_8)),
+                output, FlattenOptions.DEFAULT);
+        assertTrue(output.toString(StandardCharsets.UTF_8).startsWith("Invalid JSON format: "));
+    }
 }
@@ -0,0 +1,144 @@
+package com.parsehub;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.JsonCsvFlattener;
+import com.parsehub.service.JsonKeySorter;
+import com.parsehub.service.JsonSchemaRegistry;
+import com.parsehub.service.JsonService;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.service.NdjsonService;
+import com.parsehub.util.ConversionType;
+import com.parsehub.util.Format;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonServiceTest {
+
+    private NdjsonService ndjsonService;
+
+    @BeforeEach
+    void setUp() {
+        ndjsonService = ndjsonService(new ParseHubProperties());
+    }
+
+    private static NdjsonService ndjsonService(ParseHubProperties properties) {
+        MapperRegistry mappers = new MapperRegistry();
+        ChunkedProcessor chunkedProcessor = new ChunkedProcessor(properties);
+        ConversionEngine conversionEngine = new ConversionEngine(mappers, chunkedProcessor);
+        return new NdjsonService(mappers, new JsonService(mappers, conversionEngine, new JsonKeySorter(properties),
+                new JsonSchemaRegistry(mappers, properties), new JsonCsvFlattener(mappers, properties)), conversionEngine, chunkedProcessor);
+    }
+
+    private static InputStream input(String ndjson) {
+        return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testValidate_ReportsEveryLine() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ndjsonService.validate(input("{\"a\": 1}\n{\"a\": }\n\n[1, 2]\n"), output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"line\":1,\"valid\":true,\"errorMessages\":[]}", lines[0]);
+        assertTrue(lines[1].startsWith("{\"line\":2,\"valid\":false,\"column\":7,\"errorMessages\":[\"Invalid JSON:"));
+        assertEquals("{\"line\":4,\"valid\":true,\"errorMessages\":[]}", lines[2]);
+    }
+
+    @Test
+    void testMinify_ReportsErrorsInline() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ndjsonService.minify(input("{ \"a\" : 1 }\n{\"a\": [1, \n{\"b\" : true} {}\n"), output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"a\":1}", lines[0]);
+        assertTrue(lines[1].startsWith("{\"line\":2,"));
+        assertTrue(lines[1].contains("\"error\":"));
+        assertTrue(lines[2].contains("Unexpected content after the end of the record"));
+    }
+
+    @Test
+    void testFormat_OneRecordAfterAnother() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ndjsonService.format(input("{\"a\":1}\n{\"b\":2}"), output, Format.SPACE_2);
+
+        assertEquals("{\n  \"a\": 1\n}\n{\n  \"b\": 2\n}\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSort() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ndjsonService.sort(input("{\"b\":1,\"a\":2}\n{\"d\":3,\"c\":4}\n"), output);
+
+        assertEquals("{\"a\":2,\"b\":1}\n{\"c\":4,\"d\":3}\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testConvertToCsv_HeaderFromFirstRecord() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ndjsonService.convert(input("{\"name\":\"John\",\"age\":30}\nnot json\n{\"age\":25,\"name\":\"Jane\"}\n"),
+                output, ConversionType.CSV);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("name,age", lines[0]);
+        assertEquals("John,30", lines[1]);
+        assertTrue(lines[2].startsWith("# line 2, column "));
+        assertEquals("Jane,25", lines[3]);
+    }
+
+    @Test
+    void testConvertToXml_OneDocumentPerRecord() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ndjsonService.convert(input("{\"name\":\"John\"}\n{\"name\":\n"), output, ConversionType.XML);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("<ObjectNode><name>John</name></ObjectNode>", lines[0]);
+        assertTrue(lines[1].startsWith("<!-- line 2"));
+        assertTrue(lines[1].endsWith("-->"));
+    }
+
+    @Test
+    void testConvertToYaml_DocumentPerRecord() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ndjsonService.convert(input("{\"name\":\"John\"}\n{\"name\":\"Jane\"}\n"), output, ConversionType.YAML);
+
+        assertEquals("name: John\n---\nname: Jane\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testParallelChunks_SameOutputAsSingleChunk() throws IOException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            ndjson.append(i % 97 == 0 ? "{\"id\": " : "{\"id\": " + i + ", \"name\": \"record " + i + "\"}").append('\n');
+        }
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.setParallelism(4);
+        properties.setChunkSize(DataSize.ofBytes(256));
+        NdjsonService parallel = ndjsonService(properties);
+
+        for (ConversionType type : ConversionType.values()) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            ndjsonService.convert(input(ndjson.toString()), expected, type);
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            parallel.convert(input(ndjson.toString()), actual, type);
+
+            assertEquals(expected.toString(StandardCharsets.UTF_8), actual.toString(StandardCharsets.UTF_8), type.name());
+        }
+        ByteArrayOutputStream validation = new ByteArrayOutputStream();
+        parallel.validate(input(ndjson.toString()), validation);
+        assertTrue(validation.toString(StandardCharsets.UTF_8).contains("{\"line\":98,\"valid\":false"));
+    }
+}
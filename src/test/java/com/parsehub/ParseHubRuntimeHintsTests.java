@@ -0,0 +1,39 @@
+package com.parsehub;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.ctc.wstx.stax.WstxOutputFactory;
+import com.parsehub.config.ParseHubRuntimeHints;
+import com.parsehub.util.ValidationResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseHubRuntimeHintsTest {
+
+    private RuntimeHints hints;
+
+    @BeforeEach
+    void setUp() {
+        hints = new RuntimeHints();
+        new ParseHubRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void testRegistersTheCachedValidationResult() throws NoSuchMethodException {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(ValidationResult.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(ValidationResult.class.getMethod("setValid", boolean.class)).test(hints));
+    }
+
+    @Test
+    void testRegistersTheStaxFactories() {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(WstxInputFactory.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(WstxOutputFactory.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("META-INF/services/javax.xml.stream.XMLInputFactory").test(hints));
+    }
+}
@@ -0,0 +1,237 @@
+package com.parsehub;
+
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.CacheStatistics;
+import com.parsehub.service.MapperRegistry;
+import com.parsehub.service.OperationMetrics;
+import com.parsehub.service.ResultCache;
+import com.parsehub.util.Format;
+import com.parsehub.util.OperationFailure;
+import com.parsehub.util.ValidationResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private ParseHubProperties properties;
+    private SimpleMeterRegistry registry;
+    private ResultCache resultCache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new ParseHubProperties();
+        properties.getCache().setEnabled(true);
+        registry = new SimpleMeterRegistry();
+        resultCache = newCache();
+    }
+
+    private ResultCache newCache() throws IOException {
+        return new ResultCache(new MapperRegistry(), new OperationMetrics(registry), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        resultCache.shutdown();
+    }
+
+    private String transform(ResultCache cache, String input, Object option, AtomicInteger calls) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        cache.transform(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output,
+                "test/operation", option, (in, out) -> {
+                    calls.incrementAndGet();
+                    out.write(("result of " + new String(in.readAllBytes(), StandardCharsets.UTF_8) + " " + option)
+                            .getBytes(StandardCharsets.UTF_8));
+                });
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testTransform_RepeatedInputSkipsTheOperation() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("result of {} SPACE_2", transform(resultCache, "{}", Format.SPACE_2, calls));
+        assertEquals("result of {} SPACE_2", transform(resultCache, "{}", Format.SPACE_2, calls));
+        assertEquals(1, calls.get());
+
+        CacheStatistics statistics = resultCache.getStatistics();
+        assertEquals(1, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(1, statistics.getMemoryEntries());
+    }
+
+    @Test
+    void testTransform_OptionIsPartOfTheKey() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("result of {} SPACE_2", transform(resultCache, "{}", Format.SPACE_2, calls));
+        assertEquals("result of {} SPACE_4", transform(resultCache, "{}", Format.SPACE_4, calls));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testTransform_LargeInputBypassesTheCache() throws IOException {
+        properties.getCache().setMaxInputSize(DataSize.ofBytes(4));
+        ResultCache cache = newCache();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("result of [1, 2, 3] null", transform(cache, "[1, 2, 3]", null, calls));
+        assertEquals("result of [1, 2, 3] null", transform(cache, "[1, 2, 3]", null, calls));
+        assertEquals(2, calls.get());
+        assertEquals(2, cache.getStatistics().getBypassed());
+    }
+
+    @Test
+    void testTransform_FailedOperationIsNotCached() {
+        assertThrows(IOException.class, () -> resultCache.transform(new ByteArrayInputStream(new byte[]{1}),
+                new ByteArrayOutputStream(), "test/operation", null, (in, out) -> {
+                    out.write(1);
+                    throw new IOException("failed");
+                }));
+
+        assertEquals(0, resultCache.getStatistics().getMemoryEntries());
+    }
+
+    @Test
+    void testTransform_ReportedFailureIsNotCached() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            resultCache.transform(new ByteArrayInputStream("[1,".getBytes(StandardCharsets.UTF_8)), output,
+                    "json/minify", null, (in, out) -> {
+                        calls.incrementAndGet();
+                        out.write('[');
+                        OperationFailure.write(out, "Invalid JSON format: unexpected end of input");
+                    });
+            assertEquals("[Invalid JSON format: unexpected end of input", output.toString(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(2, calls.get());
+        assertEquals(0, resultCache.getStatistics().getMemoryEntries());
+        assertEquals(2, registry.get("parsehub.operation").tags("outcome", "invalid").timer().count());
+    }
+
+    @Test
+    void testApply_ReportedFailureIsNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            assertEquals("Invalid XML: unclosed tag", resultCache.apply("<a>", "xml/minify", null, input -> {
+                calls.incrementAndGet();
+                return OperationFailure.message("Invalid XML: unclosed tag");
+            }));
+        }
+
+        assertEquals(2, calls.get());
+        assertEquals(0, resultCache.getStatistics().getMemoryEntries());
+    }
+
+    @Test
+    void testTransform_LargeResultGoesToDisk() throws IOException {
+        properties.getCache().setDiskDirectory(directory.toString());
+        properties.getCache().setDiskThreshold(DataSize.ofBytes(8));
+        ResultCache cache = newCache();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("result of {} null", transform(cache, "{}", null, calls));
+        assertEquals("result of {} null", transform(cache, "{}", null, calls));
+        assertEquals(1, calls.get());
+        assertEquals(0, cache.getStatistics().getMemoryEntries());
+        assertEquals(1, cache.getStatistics().getDiskEntries());
+
+        cache.shutdown();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testValidate_ReturnsStoredResult() {
+        AtomicInteger calls = new AtomicInteger();
+        ValidationResult invalid = new ValidationResult();
+        invalid.setValid(false);
+        invalid.addErrorMessage("broken");
+
+        for (int i = 0; i < 2; i++) {
+            ValidationResult result = resultCache.validate("<a>", "xml/validate", input -> {
+                calls.incrementAndGet();
+                return invalid;
+            });
+            assertFalse(result.isValid());
+            assertEquals(invalid.getErrorMessages(), result.getErrorMessages());
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testApply_DisabledCacheAlwaysComputes() throws IOException {
+        ResultCache cache = new ResultCache(new MapperRegistry(), new OperationMetrics(registry), new ParseHubProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("{}", cache.apply("{}", "json/minify", null, input -> {
+                calls.incrementAndGet();
+                return input;
+            }));
+        }
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.getStatistics().getMisses());
+    }
+
+    @Test
+    void testTransform_RecordsMetricsByCacheResult() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        transform(resultCache, "{}", Format.SPACE_2, calls);
+        transform(resultCache, "{}", Format.SPACE_2, calls);
+
+        assertEquals(1, registry.get("parsehub.operation")
+                .tags("format", "test", "operation", "operation", "option", "space_2", "size", "1KB", "cache", "miss")
+                .timer().count());
+        assertEquals(1, registry.get("parsehub.operation").tags("cache", "hit").timer().count());
+        assertEquals(1, registry.get("parsehub.operation.first.output").tags("cache", "miss").timer().count());
+        assertEquals(1, registry.get("parsehub.operation.first.output").tags("cache", "hit").timer().count());
+        assertEquals(2 * "result of {} SPACE_2".length(), registry.get("parsehub.operation.output").summary().totalAmount());
+    }
+
+    @Test
+    void testApplyAndValidate_RecordTheTimeToTheResult() {
+        ValidationResult valid = new ValidationResult();
+        valid.setValid(true);
+        resultCache.apply("{}", "json/minify", null, input -> input);
+        resultCache.validate("{}", "json/validate", input -> valid);
+
+        assertEquals(1, registry.get("parsehub.operation.first.output")
+                .tags("format", "json", "operation", "minify", "cache", "miss").timer().count());
+        assertEquals(1, registry.get("parsehub.operation.first.output")
+                .tags("format", "json", "operation", "validate", "cache", "miss").timer().count());
+    }
+
+    @Test
+    void testTransform_CountsFailures() {
+        assertThrows(IllegalArgumentException.class, () -> resultCache.transform(new ByteArrayInputStream(new byte[]{1}),
+                new ByteArrayOutputStream(), "json/convert", null, (in, out) -> {
+                    throw new IllegalArgumentException("JSON must be an array to convert to CSV");
+                }));
+
+        assertEquals(1, registry.get("parsehub.operation.errors")
+                .tags("format", "json", "operation", "convert", "exception", "IllegalArgumentException")
+                .counter().count());
+        assertEquals(1, registry.get("parsehub.operation").tags("outcome", "error").timer().count());
+    }
+}
@@ -4,17 +4,42 @@ import com.parsehub.util.ValidationResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.*;
+import com.parsehub.service.XmlSchemaRegistry;
+import com.parsehub.service.XmlRecordConverter;
 import com.parsehub.service.XmlService;
+import com.parsehub.util.XmlRecordOptions;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.MapperRegistry;
+import org.springframework.util.unit.DataSize;
 
 class XmlServiceTest {
 
     private
     XmlService xmlService;
+    private XmlSchemaRegistry schemaRegistry;
 
     @BeforeEach
     void setUp() {
-        xmlService = new XmlService();
+        MapperRegistry mappers = new MapperRegistry();
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.getSchema().setMaxErrors(3);
+        schemaRegistry = new XmlSchemaRegistry(properties);
+        xmlService = new XmlService(mappers, new ConversionEngine(mappers, new ChunkedProcessor(properties)), schemaRegistry,
+                new XmlRecordConverter(mappers, properties));
     }
 
     @Test
@@ -139,4 +164,291 @@ class XmlServiceTest {
         String minifiedResult = xmlService.minifyXml(invalidXml);
         assertTrue(minifiedResult.contains("Invalid XML:"));
     }
+
+    @Test
+    void validateXml_shouldReportMalformedStream() {
+        String malformedXml = "<person><name>John Doe</name><age>30</person>";
+
+        ValidationResult result = xmlService.validateXml(new ByteArrayInputStream(malformedXml.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(result.isValid());
+        assertTrue(result.getErrorMessages().get(0).startsWith("XML Parsing Error: "));
+        assertTrue(xmlService.validateXml(new ByteArrayInputStream("<a><b>1</b></a>".getBytes(StandardCharsets.UTF_8))).isValid());
+    }
+
+    private static final String ORDER_SCHEMA = """
+            <xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema">
+              <xs:element name="order">
+                <xs:complexType>
+                  <xs:sequence>
+                    <xs:element name="item" maxOccurs="unbounded">
+                      <xs:complexType>
+                        <xs:attribute name="sku" type="xs:string" use="required"/>
+                        <xs:attribute name="qty" type="xs:positiveInteger"/>
+                      </xs:complexType>
+                    </xs:element>
+                  </xs:sequence>
+                </xs:complexType>
+              </xs:element>
+            </xs:schema>
+            """;
+
+    private ValidationResult validateAgainstSchema(String xml) {
+        XmlSchemaRegistry.Schema schema = schemaRegistry.register("order", ORDER_SCHEMA);
+        return xmlService.validateXml(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), schema);
+    }
+
+    @Test
+    void validateXmlAgainstSchema_shouldReturnValid_whenXmlMatches() {
+        ValidationResult result = validateAgainstSchema("<order><item sku=\"a\" qty=\"2\"/><item sku=\"b\"/></order>");
+
+        assertTrue(result.isValid(), result.getErrorMessages().toString());
+    }
+
+    @Test
+    void validateXmlAgainstSchema_shouldReportEveryViolationWithItsLocation() {
+        String xml = """
+                <order>
+                  <item qty="2"/>
+                  <item sku="b" qty="0"/>
+                </order>
+                """;
+
+        ValidationResult result = validateAgainstSchema(xml);
+
+        assertFalse(result.isValid());
+        List<String> errors = result.getErrorMessages();
+        // the value out of range is reported against the type, then against the attribute
+        assertEquals(3, errors.size(), errors.toString());
+        assertTrue(errors.get(0).startsWith("Line 2, column 18: ") && errors.get(0).contains("'sku'"), errors.get(0));
+        assertTrue(errors.get(1).startsWith("Line 3, column 26: ") && errors.get(1).contains("'0'"), errors.get(1));
+        assertTrue(errors.get(2).startsWith("Line 3, column 26: ") && errors.get(2).contains("'qty'"), errors.get(2));
+    }
+
+    @Test
+    void validateXmlAgainstSchema_shouldLimitReportedErrors() {
+        ValidationResult result = validateAgainstSchema("<order>" + "<item/>".repeat(5) + "</order>");
+
+        assertFalse(result.isValid());
+        assertEquals(4, result.getErrorMessages().size());
+        assertEquals("... and 2 more errors", result.getErrorMessages().get(3));
+    }
+
+    @Test
+    void validateXmlAgainstSchema_shouldStopAtMalformedXml() {
+        ValidationResult result = validateAgainstSchema("<order>\n<item sku=\"a\">\n</order>");
+
+        assertFalse(result.isValid());
+        assertEquals(1, result.getErrorMessages().size());
+        assertTrue(result.getErrorMessages().get(0).startsWith("XML Parsing Error: Line 3"), result.getErrorMessages().get(0));
+    }
+
+    @Test
+    void validateXmlAgainstSchema_shouldRejectDocumentTypeDeclarations(@TempDir Path directory) throws IOException {
+        Path secret = Files.writeString(directory.resolve("secret.txt"), "secret");
+        String xml = "<?xml version=\"1.0\"?><!DOCTYPE order [<!ENTITY xxe SYSTEM \"" + secret.toUri() + "\">]>"
+                + "<order><item sku=\"&xxe;\"/></order>";
+
+        ValidationResult result = validateAgainstSchema(xml);
+
+        assertFalse(result.isValid());
+        assertTrue(result.getErrorMessages().get(0).contains("DOCTYPE"), result.getErrorMessages().get(0));
+        assertFalse(result.getErrorMessages().toString().contains("secret"));
+    }
+
+    @Test
+    void registerXmlSchema_shouldRejectInvalidAndExternalSchemas() {
+        assertThrows(IllegalArgumentException.class, () -> schemaRegistry.register("s", "<xs:schema"));
+        assertThrows(IllegalArgumentException.class, () -> schemaRegistry.register("s",
+                "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"><xs:element name=\"a\" type=\"unknown\"/></xs:schema>"));
+        assertThrows(IllegalArgumentException.class, () -> schemaRegistry.register("s",
+                "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"><xs:include schemaLocation=\"http://example.com/a.xsd\"/></xs:schema>"));
+        assertTrue(schemaRegistry.names().isEmpty());
+    }
+
+    private String convertRecords(String xml, String record, String arrays, boolean lines) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayInputStream input = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+        XmlRecordOptions options = XmlRecordOptions.of(record, arrays);
+        if (lines) {
+            xmlService.convertRecordsToJsonLines(input, output, options);
+        } else {
+            xmlService.convertRecordsToJson(input, output, options);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void convertRecordsToJson_shouldStreamEveryRecordElement() throws IOException {
+        String xml = """
+                <feed>
+                  <header><record>not a record</record></header>
+                  <records>
+                    <record id="1"><name>Ann</name><tag>a</tag><tag>b</tag><note lang="en">hi</note></record>
+                    <!-- comment -->
+                    <record id="2"><name><![CDATA[Bob & co]]></name><address><city>Oslo</city></address><empty/></record>
+                  </records>
+                </feed>
+                """;
+
+        String json = convertRecords(xml, "/feed/records/record", null, false);
+
+        assertEquals("[{\"id\":\"1\",\"name\":\"Ann\",\"tag\":[\"a\",\"b\"],\"note\":{\"lang\":\"en\",\"\":\"hi\"}},"
+                + "{\"id\":\"2\",\"name\":\"Bob & co\",\"address\":{\"city\":\"Oslo\"},\"empty\":\"\"}]", json);
+    }
+
+    @Test
+    void convertRecordsToJson_shouldGiveEveryFieldTheSameShapeInEveryRecord() throws IOException {
+        String xml = "<records><record><tag>a</tag><tag>b</tag></record><record><tag>c</tag></record><record/></records>";
+
+        assertEquals("[{\"tag\":[\"a\",\"b\"]},{\"tag\":[\"c\"]},{}]", convertRecords(xml, "record", null, false));
+        assertEquals("[{\"tag\":[\"a\",\"b\"]},{\"tag\":[\"c\"]},{}]", convertRecords(xml, "record", "tag", false));
+        assertEquals("[{\"tag\":[\"c\"]}]", convertRecords("<records><record><tag>c</tag></record></records>", "record", "tag", false));
+
+        String notes = """
+                <records>
+                  <record><note lang="en">hi</note><item><sku>a</sku></item></record>
+                  <record><note>ok</note><item><sku>b</sku><sku>c</sku></item><item/></record>
+                  <record><note/><item><sku/></item></record>
+                </records>""";
+        assertEquals("""
+                {"note":{"lang":"en","":"hi"},"item":[{"sku":["a"]}]}
+                {"note":{"":"ok"},"item":[{"sku":["b","c"]},{}]}
+                {"note":{},"item":[{"sku":[""]}]}
+                """, convertRecords(notes, "record", null, true));
+    }
+
+    @Test
+    void convertRecordsToJson_shouldSpoolLargeInputsAndLimitThePaths(@TempDir Path directory) throws IOException {
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.getFlatten().setMemoryLimit(DataSize.ofKilobytes(1));
+        properties.getFlatten().setDirectory(directory.toString());
+        properties.getFlatten().setMaxPaths(3);
+        MapperRegistry mappers = new MapperRegistry();
+        XmlService service = new XmlService(mappers, new ConversionEngine(mappers, new ChunkedProcessor(properties)),
+                schemaRegistry, new XmlRecordConverter(mappers, properties));
+        StringBuilder xml = new StringBuilder("<records>");
+        for (int i = 0; i < 200; i++) {
+            xml.append("<record><id>").append(i).append(i == 199 ? "</id><tag>x</tag></record>" : "</id></record>");
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.convertRecordsToJsonLines(new ByteArrayInputStream(xml.append("</records>").toString()
+                .getBytes(StandardCharsets.UTF_8)), output, XmlRecordOptions.of("record", null));
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(200, lines.size());
+        assertEquals("{\"id\":\"0\"}", lines.get(0));
+        assertEquals("{\"id\":\"199\",\"tag\":\"x\"}", lines.get(199));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+
+        String wide = "<records><record><a/><b/></record><record><c/></record></records>";
+        ByteArrayOutputStream refused = new ByteArrayOutputStream();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.convertRecordsToJson(
+                new ByteArrayInputStream(wide.getBytes(StandardCharsets.UTF_8)), refused, XmlRecordOptions.of("record", null)));
+        assertEquals("The records have more than 3 distinct element paths", e.getMessage());
+        assertEquals(0, refused.size());
+    }
+
+    @Test
+    void convertRecordsToJsonLines_shouldWriteOneRecordPerLine_matchingRelativePaths() throws IOException {
+        String xml = "<export><batch><item>1</item><item>2</item></batch><other><item>x</item></other><batch><item>3</item></batch></export>";
+
+        assertEquals("\"1\"\n\"2\"\n\"3\"\n", convertRecords(xml, "batch/item", null, true));
+        assertEquals("[]", convertRecords(xml, "/item", null, false));
+    }
+
+    @Test
+    void convertRecordsToJsonLines_shouldWriteOnlyTheErrorOnInvalidXml() throws IOException {
+        String output = convertRecords("<records>\n<record>1</record>\n<record>2</oops>\n</records>", "record", null, true);
+
+        assertTrue(output.startsWith("Invalid XML: Line 3, column "), output);
+    }
+
+    @Test
+    void convertRecordsToJson_shouldNotResolveExternalEntities(@TempDir Path directory) throws IOException {
+        Path secret = Files.writeString(directory.resolve("secret.txt"), "secret");
+        String xml = "<?xml version=\"1.0\"?><!DOCTYPE records [<!ENTITY xxe SYSTEM \"" + secret.toUri() + "\">]>"
+                + "<records><record>&xxe;</record></records>";
+
+        String output = convertRecords(xml, "record", null, false);
+
+        assertFalse(output.contains("secret"), output);
+    }
+
+    @Test
+    void xmlRecordOptions_shouldRejectEmptyPaths() {
+        assertThrows(IllegalArgumentException.class, () -> XmlRecordOptions.of("", null));
+        assertThrows(IllegalArgumentException.class, () -> XmlRecordOptions.of("/records//record", null));
+        assertThrows(IllegalArgumentException.class, () -> XmlRecordOptions.of("record", "tag,,item"));
+        assertEquals("record(/records/record)+arrays(tag,item)", XmlRecordOptions.of(" /records/record ", "tag, item").toString());
+    }
+
+    private String convertRecordsToCsv(String xml, String record, String arrays, String columns) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        xmlService.convertRecordsToCsv(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), output,
+                XmlRecordOptions.of(record, arrays, columns));
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void convertRecordsToCsv_shouldFlattenEveryColumnOfTheRecords() throws IOException {
+        String xml = """
+                <records>
+                  <record id="1"><name>Ann, "A"</name><tag>a</tag><tag>b</tag><address><city>Oslo</city></address></record>
+                  <record id="2"><note lang="en">hi</note></record>
+                </records>
+                """;
+
+        assertEquals("""
+                id,name,tag.0,tag.1,address.city,note.lang,note
+                1,"Ann, ""A\"\"",a,b,Oslo,,
+                2,,,,,en,hi
+                """, convertRecordsToCsv(xml, "/records/record", null, null));
+        assertEquals("record\n1\n2\n", convertRecordsToCsv("<r><record>1</record><record>2</record></r>", "record", null, null));
+        assertEquals("", convertRecordsToCsv("<records/>", "record", null, null));
+    }
+
+    @Test
+    void convertRecordsToCsv_shouldWriteOnlyTheListedColumns() throws IOException {
+        String xml = "<records><record id=\"1\"><tag>a</tag><tag>b</tag><name>Ann</name></record><record id=\"2\"/></records>";
+
+        assertEquals("id,tag.0,missing\n1,a,\n2,,\n", convertRecordsToCsv(xml, "record", "tag", "id,tag.0,missing"));
+    }
+
+    @Test
+    void convertRecordsToCsv_shouldFindTheColumnsOfEveryRecord(@TempDir Path directory) throws IOException {
+        ParseHubProperties properties = new ParseHubProperties();
+        properties.getFlatten().setMemoryLimit(DataSize.ofKilobytes(1));
+        properties.getFlatten().setDirectory(directory.toString());
+        properties.getFlatten().setMaxPaths(3);
+        MapperRegistry mappers = new MapperRegistry();
+        XmlService service = new XmlService(mappers, new ConversionEngine(mappers, new ChunkedProcessor(properties)),
+                schemaRegistry, new XmlRecordConverter(mappers, properties));
+        StringBuilder xml = new StringBuilder("<records>");
+        for (int i = 1; i <= 200; i++) {
+            xml.append("<record><id>").append(i).append("</id></record>");
+        }
+        xml.append("<record><id>0</id><extra>x</extra></record></records>");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.convertRecordsToCsv(new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)), output,
+                XmlRecordOptions.of("record", null));
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+
+        assertEquals(202, lines.size());
+        assertEquals("id,extra", lines.get(0));
+        assertEquals("1,", lines.get(1));
+        assertEquals("0,x", lines.get(201));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+
+        ByteArrayOutputStream rejected = new ByteArrayOutputStream();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.convertRecordsToCsv(
+                new ByteArrayInputStream("<r><record><tag>a</tag><tag>b</tag><tag>c</tag><tag>d</tag></record></r>"
+                        .getBytes(StandardCharsets.UTF_8)), rejected, XmlRecordOptions.of("record", null)));
+        assertEquals("The records have more than 3 distinct columns; list the columns to convert them", e.getMessage());
+        assertEquals(0, rejected.size());
+    }
 }
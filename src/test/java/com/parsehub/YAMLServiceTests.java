@@ -1,11 +1,21 @@
 package com.parsehub;
 
+import com.parsehub.util.ConversionType;
 import com.parsehub.util.Format;
 import com.parsehub.util.ValidationResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import com.parsehub.config.ParseHubProperties;
+import com.parsehub.service.ChunkedProcessor;
+import com.parsehub.service.ConversionEngine;
+import com.parsehub.service.MapperRegistry;
 import com.parsehub.service.YamlService;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class YamlServiceTest {
@@ -14,7 +24,7 @@ class YamlServiceTest {
 
     @BeforeEach
     void setUp() {
-        yamlService = new YamlService();
+        yamlService = new YamlService(new ConversionEngine(new MapperRegistry(), new ChunkedProcessor(new ParseHubProperties())));
     }
 
     @Test
@@ -61,4 +71,138 @@ class YamlServiceTest {
         assertTrue(result.contains("name: John Doe"));
         assertTrue(result.contains("age: 30"));
     }
+
+    @Test
+    void convertYamlToJson_shouldKeepNestingAndTypes() {
+        String yaml = """
+            person:
+              name: "John \\"JD\\" Doe"
+              age: 30
+              tags: [admin, dev]
+              address:
+                city: New York
+            """;
+
+        String json = yamlService.convertYamlToJson(yaml);
+        assertEquals("{\"person\":{\"name\":\"John \\\"JD\\\" Doe\",\"age\":30,\"tags\":[\"admin\",\"dev\"],"
+                + "\"address\":{\"city\":\"New York\"}}}", json);
+    }
+
+    @Test
+    void convertYamlToJson_shouldConvertEveryDocument() {
+        String yaml = """
+            name: first
+            ---
+            name: second
+            """;
+
+        assertEquals("{\"name\":\"first\"}\n{\"name\":\"second\"}", yamlService.convertYamlToJson(yaml));
+    }
+
+    @Test
+    void convertYamlToJson_shouldResolveAliases() throws IOException {
+        String yaml = """
+            a: &x 1
+            b: *x
+            list: &l [1, {k: &v v}]
+            copy: *l
+            value: *v
+            """;
+
+        assertEquals("{\"a\":1,\"b\":1,\"list\":[1,{\"k\":\"v\"}],\"copy\":[1,{\"k\":\"v\"}],\"value\":\"v\"}",
+                yamlService.convertYamlToJson(yaml));
+        // anchors are scoped to their document
+        assertTrue(yamlService.convertYamlToJson("a: &x 1\n---\nb: *x\n")
+                .startsWith("YAML to JSON Conversion Error: Unknown alias *x"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        yamlService.convertData(new ByteArrayInputStream("a: &x {k: v}\nb: *x\n".getBytes(StandardCharsets.UTF_8)),
+                output, ConversionType.JSON);
+        assertEquals("{\"a\":{\"k\":\"v\"},\"b\":{\"k\":\"v\"}}", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void convertYamlToJson_shouldMergeKeys() {
+        String yaml = """
+            base: &base
+              image: app
+              ports: [80]
+              env: prod
+            web: &web
+              <<: *base
+              env: dev
+              name: web
+            multi:
+              z: 0
+              <<: [*base, {image: other, extra: 1}]
+              image: own
+            copy: *web
+            quoted: {"<<": *base}
+            """;
+
+        assertEquals("{\"base\":{\"image\":\"app\",\"ports\":[80],\"env\":\"prod\"},"
+                + "\"web\":{\"image\":\"app\",\"ports\":[80],\"env\":\"dev\",\"name\":\"web\"},"
+                + "\"multi\":{\"z\":0,\"image\":\"own\",\"ports\":[80],\"env\":\"prod\",\"extra\":1},"
+                + "\"copy\":{\"image\":\"app\",\"ports\":[80],\"env\":\"dev\",\"name\":\"web\"},"
+                + "\"quoted\":{\"<<\":{\"image\":\"app\",\"ports\":[80],\"env\":\"prod\"}}}",
+                yamlService.convertYamlToJson(yaml));
+        assertEquals("<ObjectNode><base><k>1</k></base><c><k>1</k><z>3</z></c></ObjectNode>",
+                yamlService.convertYamlToXml("base: &b {k: 1}\nc: {<<: *b, z: 3}\n"));
+        assertTrue(yamlService.convertYamlToJson("a: {<<: 1}").contains("A merge key needs a mapping"));
+    }
+
+    @Test
+    void convertYamlToJson_shouldLimitTheAliasesOfCollections() {
+        StringBuilder yaml = new StringBuilder("a: &a [x]\nb: [");
+        for (int i = 0; i < 51; i++) {
+            yaml.append(i == 0 ? "*a" : ", *a");
+        }
+
+        assertTrue(yamlService.convertYamlToJson(yaml.append("]\n").toString())
+                .contains("Number of aliases for non-scalar nodes exceeds the specified max=50"));
+    }
+
+    @Test
+    void convertYamlToXml_shouldEscapeAndNest() {
+        String yaml = """
+            person:
+              name: Tom & Jerry
+              address:
+                city: New York
+            """;
+
+        String xml = yamlService.convertYamlToXml(yaml);
+        assertEquals("<ObjectNode><person><name>Tom &amp; Jerry</name><address><city>New York</city></address></person></ObjectNode>", xml);
+    }
+
+    @Test
+    void convertYamlToCsv_shouldWriteOneRowPerMapping() {
+        String yaml = """
+            - name: John
+              city: New York, NY
+            - name: Jane
+              city: Boston
+            """;
+
+        String expectedCsv = """
+            name,city
+            John,"New York, NY"
+            Jane,Boston
+            """;
+        assertEquals(expectedCsv, yamlService.convertYamlToCsv(yaml));
+    }
+
+    @Test
+    void minifyYaml_shouldStreamSameResultAsString() throws IOException {
+        String yaml = """
+            person:
+              name: John Doe
+              tags: [a, b]
+            """;
+
+        ByteArrayOutputStream minified = new ByteArrayOutputStream();
+        yamlService.minifyYaml(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)), minified);
+        assertEquals(yamlService.minifyYaml(yaml), minified.toString(StandardCharsets.UTF_8));
+        assertTrue(yamlService.validateYaml(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8))).isValid());
+    }
 }